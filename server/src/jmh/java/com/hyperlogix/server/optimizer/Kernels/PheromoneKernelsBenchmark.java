@@ -0,0 +1,98 @@
+package com.hyperlogix.server.optimizer.Kernels;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compara las versiones escalar y vectorial de {@link PheromoneKernels} con
+ * grafos de 500 a 5000 nodos: una fila de atractivos como la que puntúa una
+ * hormiga en cada paso, con exponentes generales y con los de la colonia
+ * (alpha 1, beta 2), y la evaporación, el recorte MAX-MIN y el depósito sobre
+ * la matriz completa de feromona, como en cada iteración de la colonia.
+ *
+ * Se ejecuta con el perfil {@code benchmark}:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector", "-Xmx2g" })
+public class PheromoneKernelsBenchmark {
+  // Paradas de una ruta por camión, del orden de las de una planificación
+  private static final int ROUTE_EDGES = 64;
+
+  @Param({ "500", "2000", "5000" })
+  private int nodes;
+
+  @Param({ "scalar", "vector" })
+  private String implementation;
+
+  private PheromoneKernels kernels;
+  private double[] tau;
+  private double[] eta;
+  private double[] out;
+  private double[] pheromones;
+  private int[] edges;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    kernels = "vector".equals(implementation) ? new VectorPheromoneKernels() : new ScalarPheromoneKernels();
+    SplittableRandom random = new SplittableRandom(42);
+    tau = new double[nodes];
+    eta = new double[nodes];
+    out = new double[nodes];
+    for (int i = 0; i < nodes; i++) {
+      tau[i] = 0.1 + random.nextDouble();
+      eta[i] = 1 / (1 + random.nextDouble() * 100);
+    }
+    pheromones = new double[nodes * nodes];
+    for (int i = 0; i < pheromones.length; i++) {
+      pheromones[i] = 0.1 + random.nextDouble();
+    }
+    edges = new int[ROUTE_EDGES];
+    for (int i = 0; i < edges.length; i++) {
+      edges[i] = random.nextInt(pheromones.length);
+    }
+  }
+
+  @Benchmark
+  public double attractiveness() {
+    return kernels.attractiveness(tau, eta, nodes, 1.3, 2.7, out);
+  }
+
+  @Benchmark
+  public double attractivenessColonyExponents() {
+    return kernels.attractiveness(tau, eta, nodes, 1.0, 2.0, out);
+  }
+
+  @Benchmark
+  public double[] evaporateAndClamp() {
+    kernels.scale(pheromones, pheromones.length, 0.95);
+    kernels.clamp(pheromones, 0.01, 10);
+    return pheromones;
+  }
+
+  @Benchmark
+  public double[] deposit() {
+    kernels.deposit(pheromones, edges, edges.length, 0.5);
+    return pheromones;
+  }
+}
@@ -0,0 +1,116 @@
+package com.hyperlogix.server.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Copia de la red que se toma una sola vez por solicitud de planificación, en
+ * el hilo de la simulación, y que luego comparten todos los hilos del
+ * planificador sin volver a copiarla.
+ *
+ * Guarda los camiones, solo los pedidos en {@link OrderStatus#CALCULATING}, las
+ * plantas con su capacidad por día (sin el historial de reservas), los
+ * incidentes de la solicitud y los bloqueos que no terminaron antes de la
+ * hora de planificación. Las listas y mapas son inmodificables; los objetos no
+ * deben modificarse, y quien necesite cambiarlos durante un recorrido guarda
+ * sus cambios aparte.
+ */
+public final class NetworkSnapshot {
+  // Galones por tramo de combustible en la huella
+  private static final double FUEL_BUCKET = 1.0;
+
+  private final PLGNetwork network;
+  private volatile String fingerprint;
+
+  private NetworkSnapshot(PLGNetwork network) {
+    this.network = network;
+  }
+
+  public static NetworkSnapshot of(PLGNetwork network, List<Incident> incidents, LocalDateTime time) {
+    List<Truck> trucks = network.getTrucks().stream().map(Truck::clone).toList();
+    List<Order> orders = network.getCalculatedOrders().stream().map(Order::clone).toList();
+    List<Station> stations = network.getStations().stream()
+        .map(station -> new Station(station.getId(), station.getName(), station.getLocation(),
+            station.getMaxCapacity(), station.isMainStation(),
+            station.getAvailableCapacityPerDate() != null ? Map.copyOf(station.getAvailableCapacityPerDate()) : Map.of(),
+            List.of()))
+        .toList();
+    List<Incident> frozenIncidents = (incidents != null ? incidents : List.<Incident>of()).stream()
+        .map(incident -> new Incident(incident.getId(), incident.getTurn(), incident.getType(),
+            incident.getTruckCode(), incident.getFuel(), incident.getLocation(), incident.getDaysSinceIncident(),
+            incident.getStatus(), incident.getIncidentTime(), incident.getExpectedRecovery()))
+        .toList();
+    List<Roadblock> roadblocks = (network.getRoadblocks() != null ? network.getRoadblocks() : List.<Roadblock>of())
+        .stream()
+        .filter(roadblock -> roadblock.end() == null || roadblock.end().isAfter(time))
+        .toList();
+    return new NetworkSnapshot(new PLGNetwork(trucks, stations, orders, frozenIncidents, roadblocks));
+  }
+
+  /**
+   * Red de solo lectura con el contenido de la instantánea.
+   */
+  public PLGNetwork network() {
+    return network;
+  }
+
+  public List<Incident> incidents() {
+    return network.getIncidents();
+  }
+
+  /**
+   * Huella estable de todo lo que usa el planificador: estado de los camiones,
+   * pedidos por atender, capacidad de las plantas, bloqueos e incidentes. No
+   * depende de la hora de planificación ni del orden de las listas, así que
+   * dos solicitudes con la misma entrada producen la misma huella.
+   *
+   * Los valores continuos se discretizan para que el ruido de la simulación no
+   * cambie la huella: la posición de cada camión se redondea al nodo más
+   * cercano y su combustible al tramo de {@link #FUEL_BUCKET} galones más
+   * cercano. Quien reutiliza un plan por la huella debe validarlo contra el
+   * estado real.
+   */
+  public String fingerprint() {
+    String value = fingerprint;
+    if (value == null) {
+      value = computeFingerprint();
+      fingerprint = value;
+    }
+    return value;
+  }
+
+  private String computeFingerprint() {
+    StringBuilder input = new StringBuilder();
+    network.getTrucks().stream().sorted(Comparator.comparing(Truck::getId)).forEach(truck -> input
+        .append("T|").append(truck.getId()).append('|').append(truck.getType()).append('|')
+        .append(truck.getStatus()).append('|').append(truck.getLocation().integerPoint()).append('|')
+        .append(truck.getCurrentCapacity()).append('|').append(Math.round(truck.getCurrentFuel() / FUEL_BUCKET))
+        .append('\n'));
+    network.getOrders().stream().sorted(Comparator.comparing(Order::getId)).forEach(order -> input
+        .append("O|").append(order.getId()).append('|').append(order.getLocation()).append('|')
+        .append(order.getRequestedGLP()).append('|').append(order.getDeliveredGLP()).append('|')
+        .append(order.getDate()).append('|').append(order.getDeliveryLimit()).append('\n'));
+    network.getStations().stream().sorted(Comparator.comparing(Station::getId)).forEach(station -> input
+        .append("S|").append(station.getId()).append('|').append(station.getLocation()).append('|')
+        .append(station.getMaxCapacity()).append('|').append(new TreeMap<>(station.getAvailableCapacityPerDate()))
+        .append('\n'));
+    network.getRoadblocks().stream().map(roadblock -> "R|" + roadblock.start() + '|' + roadblock.end() + '|'
+        + roadblock.blockedNodes()).sorted().forEach(line -> input.append(line).append('\n'));
+    network.getIncidents().stream().map(incident -> "I|" + incident.getTruckCode() + '|' + incident.getType()
+        + '|' + incident.getFuel() + '|' + incident.getLocation() + '|' + incident.getExpectedRecovery()).sorted()
+        .forEach(line -> input.append(line).append('\n'));
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(input.toString().getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+}
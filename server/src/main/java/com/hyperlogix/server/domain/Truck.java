@@ -78,13 +78,28 @@ public class Truck implements Cloneable { // Implement Cloneable
     return distance * totalWeight() / 180;
   }
 
+  /**
+   * @param distance Distancia recorrida en km.
+   * @param load     Carga de GLP transportada en m³.
+   * @return Consumo de combustible en galones con la carga indicada.
+   */
+  public double getFuelConsumption(double distance, int load) {
+    return distance * (this.tareWeight + load * Constants.GLP_WEIGHT) / 180;
+  }
+
   /**
    * @Params distance Distancia recorrida en km.
    */
   public Duration getTimeToDestination(int distance) {
+    return Duration.ofMinutes(getMinutesToDestination(distance));
+  }
+
+  /**
+   * Igual que {@link #getTimeToDestination(int)}, en minutos.
+   */
+  public long getMinutesToDestination(int distance) {
     double hours = distance / Constants.TRUCK_SPEED;
-    long minutes = Math.round(hours * 60);
-    return Duration.ofMinutes(minutes);
+    return Math.round(hours * 60);
   }
 
   /**
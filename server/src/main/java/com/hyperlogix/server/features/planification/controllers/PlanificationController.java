@@ -1,7 +1,6 @@
 package com.hyperlogix.server.features.planification.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Controller;
 
 import com.hyperlogix.server.features.planification.usecases.SendPlanificationUseCase;
@@ -10,6 +9,10 @@ import com.hyperlogix.server.features.planification.dtos.PlanificationRequestEve
 import com.hyperlogix.server.features.planification.dtos.PlanificationResponseEvent;
 import com.hyperlogix.server.features.planification.usecases.SendLogisticCollapseUseCase;
 import com.hyperlogix.server.features.planification.dtos.LogisticCollapseEvent;
+import com.hyperlogix.server.services.events.BackpressurePolicy;
+import com.hyperlogix.server.services.events.EventBus;
+
+import jakarta.annotation.PostConstruct;
 
 @Controller
 public class PlanificationController {
@@ -20,19 +23,35 @@ public class PlanificationController {
   private SendPlanificationUseCase sendPlanificationUseCase;
   @Autowired
   private SendLogisticCollapseUseCase sendLogisticCollapseUseCase;
+  @Autowired
+  private EventBus eventBus;
+
+  /**
+   * Los eventos llegan por {@link EventBus} para no retener al hilo de la
+   * simulación que los publica. Solo importa la solicitud más reciente de cada
+   * sesión. Las respuestas no se combinan ni se descartan: cada una es un plan
+   * que la sesión espera, y su número lo acota la cola de planificación. Las
+   * alertas se guardan hasta llenar la cola.
+   */
+  @PostConstruct
+  void subscribe() {
+    eventBus.subscribe("planification-request", PlanificationRequestEvent.class, 64, 2,
+        BackpressurePolicy.COALESCE, PlanificationRequestEvent::getSessionId, this::handlePlanificationRequest);
+    eventBus.subscribe("planification-response", PlanificationResponseEvent.class, 0, 2,
+        BackpressurePolicy.DROP_OLDEST, PlanificationResponseEvent::getSessionId, this::handlePlanificationResponse);
+    eventBus.subscribe("logistic-collapse", LogisticCollapseEvent.class, 256, 1,
+        BackpressurePolicy.DROP_OLDEST, LogisticCollapseEvent::getSessionId, this::handleLogisticCollapseEvent);
+  }
 
-  @EventListener
   public void handlePlanificationRequest(PlanificationRequestEvent request) {
-    generatePlanificationUseCase.generateRoutes(request.getSessionId(), request.getPlgNetwork(),
-        request.getSimulatedTime(), request.getAlgorithmDuration(), request.getIncidents());
+    generatePlanificationUseCase.generateRoutes(request.getSessionId(), request.getNetwork(),
+        request.getSimulatedTime(), request.getAlgorithmDuration());
   }
 
-  @EventListener
   public void handlePlanificationResponse(PlanificationResponseEvent response) {
     sendPlanificationUseCase.sendPlanification(response.getSessionId(), response.getRoutes());
   }
 
-  @EventListener
   public void handleLogisticCollapseEvent(LogisticCollapseEvent collapseEvent) {
     sendLogisticCollapseUseCase.sendCollapseAlert(
         collapseEvent.getSessionId(),
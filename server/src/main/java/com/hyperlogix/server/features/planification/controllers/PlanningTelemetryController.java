@@ -0,0 +1,30 @@
+package com.hyperlogix.server.features.planification.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.hyperlogix.server.services.planification.PlanificationService;
+import com.hyperlogix.server.services.planification.PlanningRunReport;
+
+@RestController
+@RequestMapping("/planification")
+public class PlanningTelemetryController {
+
+  @Autowired
+  private PlanificationService planificationService;
+
+  /**
+   * Telemetría de las últimas planificaciones terminadas de la sesión, de la
+   * más antigua a la más reciente.
+   */
+  @GetMapping("/telemetry/{sessionId}")
+  public ResponseEntity<List<PlanningRunReport>> getTelemetry(@PathVariable String sessionId) {
+    return ResponseEntity.ok(planificationService.getTelemetryHistory(sessionId));
+  }
+}
@@ -2,12 +2,8 @@ package com.hyperlogix.server.features.planification.dtos;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
-
-import com.hyperlogix.server.domain.PLGNetwork;
-import com.hyperlogix.server.domain.Incident;
+import com.hyperlogix.server.domain.NetworkSnapshot;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -16,8 +12,7 @@ import lombok.Data;
 @AllArgsConstructor
 public class PlanificationRequestEvent {
   private String sessionId;
-  private PLGNetwork plgNetwork;
+  private NetworkSnapshot network;
   private LocalDateTime simulatedTime;
   private Duration algorithmDuration;
-  private List<Incident> incidents;
 }
\ No newline at end of file
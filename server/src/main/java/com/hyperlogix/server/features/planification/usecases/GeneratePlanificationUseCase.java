@@ -2,13 +2,11 @@ package com.hyperlogix.server.features.planification.usecases;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.hyperlogix.server.domain.PLGNetwork;
-import com.hyperlogix.server.domain.Incident;
+import com.hyperlogix.server.domain.NetworkSnapshot;
 import com.hyperlogix.server.services.planification.PlanificationService;
 
 @Service
@@ -17,8 +15,8 @@ public class GeneratePlanificationUseCase {
   @Autowired
   private PlanificationService planificationService;
 
-  public void generateRoutes(String sessionId, PLGNetwork network, LocalDateTime algorithmTime,
-      Duration algorithmDuration, List<Incident> incidents) {
-    planificationService.startPlanification(sessionId, network, algorithmTime, algorithmDuration, incidents);
+  public void generateRoutes(String sessionId, NetworkSnapshot network, LocalDateTime algorithmTime,
+      Duration algorithmDuration) {
+    planificationService.startPlanification(sessionId, network, algorithmTime, algorithmDuration);
   }
 }
\ No newline at end of file
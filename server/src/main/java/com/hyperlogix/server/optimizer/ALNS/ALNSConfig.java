@@ -0,0 +1,30 @@
+package com.hyperlogix.server.optimizer.ALNS;
+
+/**
+ * Configuración del algoritmo Adaptive Large Neighbourhood Search.
+ * @param SEGMENT_LENGTH Iteraciones entre actualizaciones de los pesos de los
+ *                       operadores.
+ * @param REACTION_FACTOR Peso del puntaje del último segmento al actualizar los
+ *                        pesos (0 = pesos fijos, 1 = solo el último segmento).
+ * @param SIGMA_BEST Puntaje por encontrar una nueva mejor solución global.
+ * @param SIGMA_BETTER Puntaje por mejorar la solución actual.
+ * @param SIGMA_ACCEPTED Puntaje por una solución peor aceptada.
+ * @param MIN_DESTROY_FRACTION Fracción mínima de entregas removidas por iteración.
+ * @param MAX_DESTROY_FRACTION Fracción máxima de entregas removidas por iteración.
+ * @param START_TEMPERATURE_RATIO Al inicio, una solución este porcentaje peor se
+ *                                acepta con probabilidad 0.5.
+ * @param END_TEMPERATURE_RATIO Relación entre la temperatura final y la inicial.
+ * @param UNASSIGNED_PENALTY Penalización por m³ de GLP sin asignar.
+ */
+public record ALNSConfig(
+    int SEGMENT_LENGTH,
+    double REACTION_FACTOR,
+    double SIGMA_BEST,
+    double SIGMA_BETTER,
+    double SIGMA_ACCEPTED,
+    double MIN_DESTROY_FRACTION,
+    double MAX_DESTROY_FRACTION,
+    double START_TEMPERATURE_RATIO,
+    double END_TEMPERATURE_RATIO,
+    double UNASSIGNED_PENALTY) {
+}
@@ -0,0 +1,116 @@
+package com.hyperlogix.server.optimizer.ALNS;
+
+import com.hyperlogix.server.domain.Node;
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.domain.Station;
+import com.hyperlogix.server.domain.Truck;
+import com.hyperlogix.server.domain.TruckState;
+import com.hyperlogix.server.optimizer.DistanceMatrix;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Datos inmutables de una instancia de planificación para ALNS: camiones,
+ * plantas y entregas pendientes. Los pedidos más grandes que el camión de mayor
+ * capacidad se dividen en varias entregas. Guarda además los índices
+ * espaciales de entregas, camiones y plantas. Las distancias entre entregas se
+ * calculan al pedirlas: son Manhattan y cuestan lo mismo que leerlas de una
+ * matriz, que la construcción de emergencia no alcanzaría a llenar.
+ */
+class ALNSInstance {
+  /**
+   * Una entrega a realizar.
+   */
+  record Request(int index, Order order, Node node, int demand, long deadlineMinutes) {
+  }
+
+  record StationDay(String stationId, LocalDate date) {
+  }
+
+  final PLGNetwork network;
+  final LocalDateTime startDate;
+  final List<Truck> trucks;
+  final List<Node> startNodes;
+  final boolean[] receiving;
+  final List<Node> stationNodes;
+  final Map<String, Station> stations;
+  final Map<String, Order> orders;
+  final List<Request> requests;
+  final double unassignedPenalty;
+  final CandidateIndex requestIndex;
+  final CandidateIndex truckIndex;
+  final CandidateIndex stationIndex;
+
+  ALNSInstance(PLGNetwork network, LocalDateTime startDate, double unassignedPenalty) {
+    this.network = network;
+    this.startDate = startDate;
+    this.unassignedPenalty = unassignedPenalty;
+    this.trucks = network.getTrucks();
+    this.startNodes = new ArrayList<>();
+    this.receiving = new boolean[trucks.size()];
+    int maxCapacity = 1;
+    for (int i = 0; i < trucks.size(); i++) {
+      Truck truck = trucks.get(i);
+      startNodes.add(new Node(truck.getId(), truck.getType().toString(), NodeType.LOCATION,
+          truck.getLocation().integerPoint()));
+      receiving[i] = truck.getStatus() != TruckState.MAINTENANCE
+          && truck.getStatus() != TruckState.BROKEN_DOWN
+          && truck.getStatus() != TruckState.RETURNING_TO_BASE;
+      if (receiving[i]) {
+        maxCapacity = Math.max(maxCapacity, truck.getMaxCapacity());
+      }
+    }
+    this.stationNodes = network.getStations().stream().map(Node::new).toList();
+    this.stations = network.getStations().stream()
+        .collect(Collectors.toMap(Station::getId, Function.identity(), (a, b) -> a));
+    this.orders = network.getOrders().stream()
+        .collect(Collectors.toMap(Order::getId, Function.identity(), (a, b) -> a));
+
+    this.requests = new ArrayList<>();
+    for (Order order : network.getCalculatedOrders()) {
+      int remaining = order.getRequestedGLP() - order.getDeliveredGLP();
+      Node node = new Node(order);
+      long deadline = Duration.between(startDate, order.getMaxDeliveryDate()).toMinutes();
+      while (remaining > 0) {
+        int demand = Math.min(remaining, maxCapacity);
+        requests.add(new Request(requests.size(), order, node, demand, deadline));
+        remaining -= demand;
+      }
+    }
+
+    this.requestIndex = new CandidateIndex(requests.stream().map(r -> r.node().getLocation()).toList());
+    this.truckIndex = new CandidateIndex(startNodes.stream().map(Node::getLocation).toList());
+    this.stationIndex = new CandidateIndex(stationNodes.stream().map(Node::getLocation).toList());
+  }
+
+  int distance(Request a, Request b) {
+    return DistanceMatrix.manhattan(a.node().getLocation(), b.node().getLocation());
+  }
+
+  int availableAt(StationDay key) {
+    Station station = stations.get(key.stationId());
+    return station != null ? station.getAvailableCapacity(key.date().atStartOfDay()) : 0;
+  }
+
+  /**
+   * Planta más cercana con capacidad disponible para un camión en
+   * mantenimiento.
+   */
+  Node nearestStation(Point from) {
+    return stationNodes.stream()
+        .filter(s -> availableAt(new StationDay(s.getId(), startDate.toLocalDate())) > 0)
+        .min((a, b) -> Integer.compare(DistanceMatrix.manhattan(from, a.getLocation()),
+            DistanceMatrix.manhattan(from, b.getLocation())))
+        .orElse(null);
+  }
+}
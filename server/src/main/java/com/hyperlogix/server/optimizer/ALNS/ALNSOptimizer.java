@@ -0,0 +1,274 @@
+package com.hyperlogix.server.optimizer.ALNS;
+
+import com.hyperlogix.server.domain.Incident;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.optimizer.ALNS.ALNSInstance.Request;
+import com.hyperlogix.server.optimizer.AntColony.AntColonyConfig;
+import com.hyperlogix.server.optimizer.Graph;
+import com.hyperlogix.server.optimizer.Notifier;
+import com.hyperlogix.server.optimizer.Optimizer;
+import com.hyperlogix.server.optimizer.OptimizerContext;
+import com.hyperlogix.server.optimizer.OptimizerResult;
+import com.hyperlogix.server.optimizer.RouteEvaluator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Adaptive Large Neighbourhood Search: en cada iteración un operador de
+ * destrucción quita un conjunto de entregas y uno de reparación las vuelve a
+ * insertar. Los operadores se eligen por ruleta con pesos que se adaptan según
+ * su desempeño reciente y la nueva solución se acepta con el criterio de
+ * recocido simulado.
+ */
+public class ALNSOptimizer implements Optimizer {
+  private static final Logger log = LoggerFactory.getLogger(ALNSOptimizer.class);
+  private static final int WORST_RANDOMNESS = 3;
+  private static final int SHAW_RANDOMNESS = 6;
+
+  private enum Destroy {
+    RANDOM, WORST_COST, RELATED_DISTANCE, RELATED_DEADLINE
+  }
+
+  private enum Repair {
+    GREEDY, REGRET_2, REGRET_3
+  }
+
+  private final ALNSConfig config;
+  private final Random random = new Random();
+
+  public ALNSOptimizer(ALNSConfig config) {
+    this.config = config;
+  }
+
+  @Override
+  public OptimizerResult run(OptimizerContext ctx, Duration maxDuration, Notifier notifier) {
+    long startTime = System.currentTimeMillis();
+    long budget = Math.max(1, maxDuration.toMillis());
+    long deadline = startTime + budget;
+    List<Incident> incidents = ctx.incidents != null ? ctx.incidents : List.of();
+
+    Graph graph = new Graph(ctx.plgNetwork, ctx.algorithmStartDate, new AntColonyConfig(0, 0, 1, 2, 0, 0, 100),
+        incidents);
+    graph.attach(ctx);
+    ALNSInstance instance = new ALNSInstance(ctx.plgNetwork, ctx.algorithmStartDate, config.UNASSIGNED_PENALTY());
+    ALNSSolution current = RegretInsertionOptimizer.construct(instance, 3);
+    ALNSSolution best = current.copy();
+    double currentCost = current.cost();
+    double bestCost = currentCost;
+
+    double[] destroyWeights = filled(Destroy.values().length);
+    double[] repairWeights = filled(Repair.values().length);
+    double[] destroyScores = new double[destroyWeights.length];
+    double[] repairScores = new double[repairWeights.length];
+    int[] destroyUses = new int[destroyWeights.length];
+    int[] repairUses = new int[repairWeights.length];
+
+    double startTemperature = Math.max(1e-6,
+        config.START_TEMPERATURE_RATIO() * best.fuelCost() / Math.log(2));
+    // El plan inicial también se notifica y se compara con la cota
+    boolean improvedSinceNotify = true;
+    int iteration = 0;
+
+    while (!instance.requests.isEmpty() && System.currentTimeMillis() < deadline
+        && !Thread.currentThread().isInterrupted() && !ctx.isTargetReached()) {
+      iteration++;
+      int d = roulette(destroyWeights);
+      int r = roulette(repairWeights);
+
+      ALNSSolution candidate = current.copy();
+      destroy(candidate, Destroy.values()[d]);
+      repair(candidate, Repair.values()[r]);
+      double candidateCost = candidate.cost();
+      ctx.telemetry.iteration("alns");
+      ctx.telemetry.evaluations(1);
+
+      double elapsed = (double) (System.currentTimeMillis() - startTime) / budget;
+      double temperature = startTemperature * Math.pow(config.END_TEMPERATURE_RATIO(), Math.min(1, elapsed));
+      double score = 0;
+      if (candidateCost < bestCost - 1e-9) {
+        best = candidate.copy();
+        bestCost = candidateCost;
+        current = candidate;
+        currentCost = candidateCost;
+        score = config.SIGMA_BEST();
+        improvedSinceNotify = true;
+      } else if (candidateCost < currentCost - 1e-9) {
+        current = candidate;
+        currentCost = candidateCost;
+        score = config.SIGMA_BETTER();
+      } else if (random.nextDouble() < Math.exp((currentCost - candidateCost) / temperature)) {
+        current = candidate;
+        currentCost = candidateCost;
+        score = config.SIGMA_ACCEPTED();
+      }
+      destroyScores[d] += score;
+      repairScores[r] += score;
+      destroyUses[d]++;
+      repairUses[r]++;
+
+      if (iteration % config.SEGMENT_LENGTH() == 0) {
+        adapt(destroyWeights, destroyScores, destroyUses);
+        adapt(repairWeights, repairScores, repairUses);
+        // La brecha contra la cota inferior se mide con el costo de A* más la
+        // penalización común por demanda sin atender, como en las demás
+        // estrategias
+        if (improvedSinceNotify && (notifier != null || ctx.targetGap > 0)) {
+          Routes routes = graph.processRoutesWithAStar(best.toRoutes(), ctx.algorithmStartDate);
+          OptimizerResult improvement = new OptimizerResult(routes, routes.getCost() + best.unassignedCost());
+          if (notifier != null) {
+            notifier.notify(improvement);
+          }
+          ctx.reachedTarget(ctx.score(routes));
+          improvedSinceNotify = false;
+        }
+      }
+    }
+    log.debug("ALNS finished after {} iterations, best cost {}", iteration, bestCost);
+
+    // El costo del resultado incluye la penalización por entregas sin asignar
+    // para que no se compare como mejor que un plan completo
+    Routes routes = graph.processRoutesWithAStar(best.toRoutes(), ctx.algorithmStartDate);
+    OptimizerResult result = new OptimizerResult(routes, routes.getCost() + best.unassignedCost());
+    if (notifier != null) {
+      notifier.notify(result);
+    }
+    return result;
+  }
+
+  @Override
+  public OptimizerResult run(OptimizerContext ctx, Duration maxDuration) {
+    return run(ctx, maxDuration, null);
+  }
+
+  // --- Destrucción ---
+
+  private void destroy(ALNSSolution solution, Destroy operator) {
+    List<Request> assigned = solution.assignedRequests();
+    if (assigned.isEmpty()) {
+      return;
+    }
+    double fraction = config.MIN_DESTROY_FRACTION()
+        + random.nextDouble() * (config.MAX_DESTROY_FRACTION() - config.MIN_DESTROY_FRACTION());
+    int count = Math.max(1, Math.min(assigned.size(), (int) Math.round(fraction * assigned.size())));
+    switch (operator) {
+      case RANDOM -> randomRemoval(solution, assigned, count);
+      case WORST_COST -> worstRemoval(solution, count);
+      case RELATED_DISTANCE -> relatedRemoval(solution, assigned, count, solution.instance()::distance);
+      case RELATED_DEADLINE -> relatedRemoval(solution, assigned, count,
+          (a, b) -> Math.abs(a.deadlineMinutes() - b.deadlineMinutes()));
+    }
+  }
+
+  private void randomRemoval(ALNSSolution solution, List<Request> assigned, int count) {
+    List<Request> shuffled = new ArrayList<>(assigned);
+    java.util.Collections.shuffle(shuffled, random);
+    for (int i = 0; i < count; i++) {
+      solution.remove(shuffled.get(i));
+    }
+  }
+
+  /**
+   * Quita las entregas cuya remoción más ahorra combustible, con algo de azar
+   * para no repetir siempre las mismas.
+   */
+  private void worstRemoval(ALNSSolution solution, int count) {
+    for (int removed = 0; removed < count; removed++) {
+      List<Request> assigned = solution.assignedRequests();
+      if (assigned.isEmpty()) {
+        return;
+      }
+      double[] savings = new double[assigned.size()];
+      Integer[] order = new Integer[assigned.size()];
+      for (int i = 0; i < assigned.size(); i++) {
+        Request request = assigned.get(i);
+        RouteEvaluator evaluator = solution.evaluator(solution.routeOf(request));
+        RouteEvaluator.Delta delta = evaluator.removal(solution.positionOf(request));
+        savings[i] = delta.feasible() ? delta.costDelta() : 0;
+        order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparingDouble(i -> savings[i]));
+      int pick = (int) (Math.pow(random.nextDouble(), WORST_RANDOMNESS) * order.length);
+      solution.remove(assigned.get(order[pick]));
+    }
+  }
+
+  @FunctionalInterface
+  private interface Relatedness {
+    double between(Request a, Request b);
+  }
+
+  /**
+   * Quita una entrega al azar y luego las más parecidas a alguna ya removida
+   * (Shaw removal).
+   */
+  private void relatedRemoval(ALNSSolution solution, List<Request> assigned, int count, Relatedness relatedness) {
+    List<Request> removed = new ArrayList<>();
+    List<Request> remaining = new ArrayList<>(assigned);
+    removed.add(remaining.remove(random.nextInt(remaining.size())));
+    while (removed.size() < count && !remaining.isEmpty()) {
+      Request seed = removed.get(random.nextInt(removed.size()));
+      remaining.sort(Comparator.comparingDouble(r -> relatedness.between(seed, r)));
+      int pick = (int) (Math.pow(random.nextDouble(), SHAW_RANDOMNESS) * remaining.size());
+      removed.add(remaining.remove(pick));
+    }
+    for (Request request : removed) {
+      solution.remove(request);
+    }
+  }
+
+  // --- Reparación ---
+
+  private void repair(ALNSSolution solution, Repair operator) {
+    int k = switch (operator) {
+      case GREEDY -> 1;
+      case REGRET_2 -> 2;
+      case REGRET_3 -> 3;
+    };
+    List<Request> pending = solution.unassignedRequests();
+    java.util.Collections.shuffle(pending, random);
+    new RegretInsertion(k, config.UNASSIGNED_PENALTY()).insert(solution, pending);
+  }
+
+  // --- Pesos adaptativos ---
+
+  private int roulette(double[] weights) {
+    double total = 0;
+    for (double weight : weights) {
+      total += weight;
+    }
+    double pick = random.nextDouble() * total;
+    for (int i = 0; i < weights.length; i++) {
+      pick -= weights[i];
+      if (pick <= 0) {
+        return i;
+      }
+    }
+    return weights.length - 1;
+  }
+
+  private void adapt(double[] weights, double[] scores, int[] uses) {
+    for (int i = 0; i < weights.length; i++) {
+      if (uses[i] > 0) {
+        weights[i] = (1 - config.REACTION_FACTOR()) * weights[i]
+            + config.REACTION_FACTOR() * scores[i] / uses[i];
+      }
+      weights[i] = Math.max(weights[i], 0.05);
+      scores[i] = 0;
+      uses[i] = 0;
+    }
+  }
+
+  private static double[] filled(int length) {
+    double[] weights = new double[length];
+    Arrays.fill(weights, 1.0);
+    return weights;
+  }
+}
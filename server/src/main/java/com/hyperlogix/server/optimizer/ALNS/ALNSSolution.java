@@ -0,0 +1,342 @@
+package com.hyperlogix.server.optimizer.ALNS;
+
+import com.hyperlogix.server.domain.Node;
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Path;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.domain.Stop;
+import com.hyperlogix.server.domain.Truck;
+import com.hyperlogix.server.domain.TruckState;
+import com.hyperlogix.server.optimizer.ALNS.ALNSInstance.Request;
+import com.hyperlogix.server.optimizer.ALNS.ALNSInstance.StationDay;
+import com.hyperlogix.server.optimizer.RouteEvaluator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solución de trabajo de ALNS: una secuencia de visitas por camión, con un
+ * {@link RouteEvaluator} por ruta para consultar inserciones y remociones en
+ * O(1), y el uso acumulado de cada planta por día.
+ */
+class ALNSSolution {
+  /**
+   * Visita a una entrega ({@code request >= 0}) o a una planta
+   * ({@code request == -1}).
+   */
+  record Visit(Node node, int demand, int request) {
+  }
+
+  /**
+   * Mejor inserción de una entrega en una ruta; {@code station} no es nulo
+   * cuando la entrega se agrega al final precedida por una recarga.
+   */
+  record Insertion(int route, int position, double cost, Node station) {
+  }
+
+  private final ALNSInstance instance;
+  private final List<List<Visit>> routes;
+  private final RouteEvaluator[] evaluators;
+  private final List<Map<StationDay, Integer>> routeUsage;
+  private final Map<StationDay, Integer> usage;
+  private final int[] assignedRoute;
+
+  ALNSSolution(ALNSInstance instance) {
+    this.instance = instance;
+    int size = instance.trucks.size();
+    this.routes = new ArrayList<>(size);
+    this.evaluators = new RouteEvaluator[size];
+    this.routeUsage = new ArrayList<>(size);
+    this.usage = new HashMap<>();
+    this.assignedRoute = new int[instance.requests.size()];
+    java.util.Arrays.fill(assignedRoute, -1);
+    for (int i = 0; i < size; i++) {
+      List<Visit> visits = new ArrayList<>();
+      Truck truck = instance.trucks.get(i);
+      if (truck.getStatus() == TruckState.MAINTENANCE) {
+        Node station = instance.nearestStation(instance.startNodes.get(i).getLocation());
+        if (station != null && !station.getLocation().integerPoint()
+            .equals(instance.startNodes.get(i).getLocation())) {
+          visits.add(new Visit(station, 0, -1));
+        }
+      }
+      routes.add(visits);
+      routeUsage.add(Map.of());
+      rebuild(i);
+    }
+  }
+
+  private ALNSSolution(ALNSSolution other) {
+    this.instance = other.instance;
+    this.routes = new ArrayList<>(other.routes.size());
+    for (List<Visit> route : other.routes) {
+      routes.add(new ArrayList<>(route));
+    }
+    this.evaluators = other.evaluators.clone();
+    this.routeUsage = new ArrayList<>(other.routeUsage);
+    this.usage = new HashMap<>(other.usage);
+    this.assignedRoute = other.assignedRoute.clone();
+  }
+
+  ALNSSolution copy() {
+    return new ALNSSolution(this);
+  }
+
+  ALNSInstance instance() {
+    return instance;
+  }
+
+  int routeCount() {
+    return routes.size();
+  }
+
+  List<Visit> route(int index) {
+    return routes.get(index);
+  }
+
+  RouteEvaluator evaluator(int index) {
+    return evaluators[index];
+  }
+
+  boolean isAssigned(Request request) {
+    return assignedRoute[request.index()] >= 0;
+  }
+
+  List<Request> assignedRequests() {
+    List<Request> result = new ArrayList<>();
+    for (Request request : instance.requests) {
+      if (isAssigned(request)) {
+        result.add(request);
+      }
+    }
+    return result;
+  }
+
+  List<Request> unassignedRequests() {
+    List<Request> result = new ArrayList<>();
+    for (Request request : instance.requests) {
+      if (!isAssigned(request)) {
+        result.add(request);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Costo en combustible más penalizaciones por entregas sin asignar y rutas
+   * infactibles.
+   */
+  double cost() {
+    double cost = 0;
+    for (int i = 0; i < routes.size(); i++) {
+      cost += evaluators[i].getCost();
+      if (!evaluators[i].isFeasible()) {
+        cost += instance.unassignedPenalty * instance.trucks.get(i).getMaxCapacity();
+      }
+    }
+    for (Request request : instance.requests) {
+      if (!isAssigned(request)) {
+        cost += instance.unassignedPenalty * request.demand();
+      }
+    }
+    return cost;
+  }
+
+  /**
+   * Penalización por el GLP que quedó sin asignar.
+   */
+  double unassignedCost() {
+    double cost = 0;
+    for (Request request : instance.requests) {
+      if (!isAssigned(request)) {
+        cost += instance.unassignedPenalty * request.demand();
+      }
+    }
+    return cost;
+  }
+
+  double fuelCost() {
+    double cost = 0;
+    for (RouteEvaluator evaluator : evaluators) {
+      cost += evaluator.getCost();
+    }
+    return cost;
+  }
+
+  /**
+   * Posición (1..n) de la entrega en su ruta, o -1 si no está asignada.
+   */
+  int positionOf(Request request) {
+    int route = assignedRoute[request.index()];
+    if (route < 0) {
+      return -1;
+    }
+    List<Visit> visits = routes.get(route);
+    for (int i = 0; i < visits.size(); i++) {
+      if (visits.get(i).request() == request.index()) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  int routeOf(Request request) {
+    return assignedRoute[request.index()];
+  }
+
+  void remove(Request request) {
+    int route = assignedRoute[request.index()];
+    if (route < 0) {
+      return;
+    }
+    routes.get(route).removeIf(v -> v.request() == request.index());
+    assignedRoute[request.index()] = -1;
+    dropIdleStations(route);
+    rebuild(route);
+  }
+
+  /**
+   * Mejor inserción de la entrega en la ruta indicada, o null si no es
+   * factible.
+   */
+  Insertion bestInsertion(Request request, int route) {
+    return bestInsertion(request, route, instance.stationNodes);
+  }
+
+  /**
+   * Igual que {@link #bestInsertion(Request, int)}, pero solo prueba recargar
+   * en las plantas indicadas.
+   */
+  Insertion bestInsertion(Request request, int route, List<Node> stations) {
+    if (!instance.receiving[route]) {
+      return null;
+    }
+    RouteEvaluator evaluator = evaluators[route];
+    if (!evaluator.isFeasible()) {
+      return null;
+    }
+    Insertion best = null;
+    for (int k = 0; k <= evaluator.size(); k++) {
+      RouteEvaluator.Delta delta = evaluator.insertion(k, request.node(), request.demand(),
+          request.deadlineMinutes());
+      if (!delta.feasible() || (best != null && delta.costDelta() >= best.cost())) {
+        continue;
+      }
+      if (delta.refillStation() != null && delta.refillDelta() > 0 && !stationHasRoom(
+          new StationDay(delta.refillStation().getId(), delta.refillTime().toLocalDate()), delta.refillDelta())) {
+        continue;
+      }
+      best = new Insertion(route, k, delta.costDelta(), null);
+    }
+
+    // Alternativa: recargar en una planta y luego entregar, al final de la ruta
+    int end = routes.get(route).size();
+    for (Node station : stations) {
+      RouteEvaluator.Delta delta = evaluator.appendViaStation(station, request.node(), request.demand(),
+          request.deadlineMinutes());
+      if (!delta.feasible() || (best != null && delta.costDelta() >= best.cost())) {
+        continue;
+      }
+      if (delta.refillDelta() > 0 && !stationHasRoom(
+          new StationDay(station.getId(), delta.refillTime().toLocalDate()), delta.refillDelta())) {
+        continue;
+      }
+      best = new Insertion(route, end, delta.costDelta(), station);
+    }
+    return best;
+  }
+
+  void insert(Request request, Insertion insertion) {
+    List<Visit> visits = routes.get(insertion.route());
+    if (insertion.station() != null) {
+      visits.add(new Visit(insertion.station(), 0, -1));
+      visits.add(new Visit(request.node(), request.demand(), request.index()));
+    } else {
+      visits.add(insertion.position(), new Visit(request.node(), request.demand(), request.index()));
+    }
+    assignedRoute[request.index()] = insertion.route();
+    rebuild(insertion.route());
+  }
+
+  private boolean stationHasRoom(StationDay key, int amount) {
+    return usage.getOrDefault(key, 0) + amount <= instance.availableAt(key);
+  }
+
+  /**
+   * Quita las plantas que ya no preceden a ninguna entrega en rutas que
+   * reciben pedidos.
+   */
+  private void dropIdleStations(int route) {
+    if (!instance.receiving[route]) {
+      return;
+    }
+    List<Visit> visits = routes.get(route);
+    List<Visit> cleaned = new ArrayList<>(visits.size());
+    for (int i = 0; i < visits.size(); i++) {
+      Visit visit = visits.get(i);
+      if (visit.request() < 0) {
+        boolean followedByStation = i + 1 < visits.size() && visits.get(i + 1).request() < 0;
+        boolean last = i + 1 == visits.size();
+        if (followedByStation || last) {
+          continue;
+        }
+      }
+      cleaned.add(visit);
+    }
+    visits.clear();
+    visits.addAll(cleaned);
+  }
+
+  private void rebuild(int route) {
+    RouteEvaluator evaluator = evaluate(route, routes.get(route));
+    Map<StationDay, Integer> newUsage = new HashMap<>();
+    List<Visit> visits = routes.get(route);
+    for (int i = 1; i <= visits.size(); i++) {
+      int refill = evaluator.getRefill(i);
+      if (refill > 0) {
+        newUsage.merge(new StationDay(visits.get(i - 1).node().getId(), evaluator.getArrivalTime(i).toLocalDate()),
+            refill, Integer::sum);
+      }
+    }
+    routeUsage.get(route).forEach((k, v) -> usage.merge(k, -v, Integer::sum));
+    newUsage.forEach((k, v) -> usage.merge(k, v, Integer::sum));
+    routeUsage.set(route, newUsage);
+    evaluators[route] = evaluator;
+  }
+
+  private RouteEvaluator evaluate(int route, List<Visit> visits) {
+    List<Node> nodes = new ArrayList<>(visits.size());
+    int[] demands = new int[visits.size()];
+    for (int i = 0; i < visits.size(); i++) {
+      nodes.add(visits.get(i).node());
+      demands[i] = visits.get(i).demand();
+    }
+    return new RouteEvaluator(instance.trucks.get(route), instance.startNodes.get(route).getLocation(),
+        instance.startDate, nodes, demands, instance.orders);
+  }
+
+  /**
+   * Convierte la solución en {@link Routes} (solo paradas, sin caminos).
+   */
+  Routes toRoutes() {
+    Map<String, List<Stop>> stops = new HashMap<>();
+    Map<String, List<Path>> paths = new HashMap<>();
+    for (int i = 0; i < routes.size(); i++) {
+      Truck truck = instance.trucks.get(i);
+      List<Stop> truckStops = new ArrayList<>();
+      truckStops.add(new Stop(instance.startNodes.get(i), instance.startDate));
+      List<Visit> visits = routes.get(i);
+      for (int j = 0; j < visits.size(); j++) {
+        Node node = visits.get(j).node();
+        if (node.getType() == NodeType.DELIVERY || node.getType() == NodeType.STATION) {
+          truckStops.add(new Stop(node, evaluators[i].getArrivalTime(j + 1)));
+        }
+      }
+      stops.put(truck.getId(), truckStops);
+      paths.put(truck.getId(), new ArrayList<>());
+    }
+    return new Routes(stops, paths, fuelCost());
+  }
+}
@@ -0,0 +1,112 @@
+package com.hyperlogix.server.optimizer.ALNS;
+
+import com.hyperlogix.server.domain.Point;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Índice espacial en grilla: agrupa los puntos en celdas cuadradas y busca los
+ * más cercanos (en distancia Manhattan) recorriendo anillos de celdas alrededor
+ * del origen, sin comparar contra todos los puntos.
+ */
+class CandidateIndex {
+  private static final int CELL_SIZE = 5;
+
+  private final List<Point> points;
+  private final double minX;
+  private final double minY;
+  private final int columns;
+  private final int rows;
+  private final List<List<Integer>> cells;
+
+  CandidateIndex(List<Point> points) {
+    this.points = points;
+    double minX = 0, minY = 0, maxX = 0, maxY = 0;
+    for (int i = 0; i < points.size(); i++) {
+      Point point = points.get(i);
+      if (i == 0 || point.x() < minX) {
+        minX = point.x();
+      }
+      if (i == 0 || point.y() < minY) {
+        minY = point.y();
+      }
+      if (i == 0 || point.x() > maxX) {
+        maxX = point.x();
+      }
+      if (i == 0 || point.y() > maxY) {
+        maxY = point.y();
+      }
+    }
+    this.minX = minX;
+    this.minY = minY;
+    this.columns = (int) ((maxX - minX) / CELL_SIZE) + 1;
+    this.rows = (int) ((maxY - minY) / CELL_SIZE) + 1;
+    this.cells = new ArrayList<>(columns * rows);
+    for (int i = 0; i < columns * rows; i++) {
+      cells.add(new ArrayList<>());
+    }
+    for (int i = 0; i < points.size(); i++) {
+      Point point = points.get(i);
+      cells.get(row(point.y()) * columns + column(point.x())).add(i);
+    }
+  }
+
+  /**
+   * @return índices de hasta {@code count} puntos más cercanos a
+   *         {@code from}, ordenados por distancia.
+   */
+  int[] nearest(Point from, int count) {
+    if (count <= 0 || points.isEmpty()) {
+      return new int[0];
+    }
+    int cx = column(from.x());
+    int cy = row(from.y());
+    int maxRing = Math.max(columns, rows);
+    List<Integer> found = new ArrayList<>();
+    Comparator<Integer> byDistance = Comparator.comparingDouble(i -> distance(from, points.get(i)));
+
+    for (int ring = 0; ring <= maxRing; ring++) {
+      for (int y = cy - ring; y <= cy + ring; y++) {
+        if (y < 0 || y >= rows) {
+          continue;
+        }
+        // En las filas interiores del anillo solo cuentan las dos columnas del borde
+        int step = y == cy - ring || y == cy + ring ? 1 : Math.max(1, 2 * ring);
+        for (int x = cx - ring; x <= cx + ring; x += step) {
+          if (x >= 0 && x < columns) {
+            found.addAll(cells.get(y * columns + x));
+          }
+        }
+      }
+      // Los puntos de anillos posteriores están a más de ring * CELL_SIZE
+      if (found.size() >= count) {
+        found.sort(byDistance);
+        if (distance(from, points.get(found.get(count - 1))) <= ring * CELL_SIZE) {
+          break;
+        }
+      }
+    }
+
+    found.sort(byDistance);
+    int size = Math.min(count, found.size());
+    int[] result = new int[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = found.get(i);
+    }
+    return result;
+  }
+
+  private int column(double x) {
+    return Math.max(0, Math.min(columns - 1, (int) ((x - minX) / CELL_SIZE)));
+  }
+
+  private int row(double y) {
+    return Math.max(0, Math.min(rows - 1, (int) ((y - minY) / CELL_SIZE)));
+  }
+
+  private static double distance(Point a, Point b) {
+    return Math.abs(a.x() - b.x()) + Math.abs(a.y() - b.y());
+  }
+}
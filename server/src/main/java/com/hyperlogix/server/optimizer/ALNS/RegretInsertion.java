@@ -0,0 +1,241 @@
+package com.hyperlogix.server.optimizer.ALNS;
+
+import com.hyperlogix.server.domain.Node;
+import com.hyperlogix.server.optimizer.ALNS.ALNSInstance.Request;
+import com.hyperlogix.server.optimizer.ALNS.ALNSSolution.Insertion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inserción por arrepentimiento (regret-k): en cada paso inserta la entrega
+ * pendiente que más perdería si no se le diera ahora su mejor ruta, medido
+ * contra sus k-1 siguientes alternativas. Con {@code k == 1} es la inserción
+ * voraz.
+ *
+ * Con vecindad acotada, cada entrega solo se prueba en las rutas que ya
+ * atienden a sus entregas vecinas y en unas pocas rutas vacías de camiones
+ * cercanos; si ninguna candidata es factible se prueban todas las rutas antes
+ * de dejarla sin asignar.
+ */
+class RegretInsertion {
+  private static final int STATION_CANDIDATES = 2;
+
+  private final int k;
+  private final double unassignedPenalty;
+  private final int emptyRoutes;
+  private final int nearbyRequests;
+  // Los k menores costos de la fila que se está puntuando
+  private final double[] costs;
+
+  /**
+   * Prueba cada entrega en todas las rutas.
+   */
+  RegretInsertion(int k, double unassignedPenalty) {
+    this(k, unassignedPenalty, 0, 0);
+  }
+
+  /**
+   * @param emptyRoutes    rutas vacías más cercanas que se prueban; 0 para
+   *                       probar todas las rutas.
+   * @param nearbyRequests entregas vecinas cuyas rutas se prueban.
+   */
+  RegretInsertion(int k, double unassignedPenalty, int emptyRoutes, int nearbyRequests) {
+    this.k = k;
+    this.unassignedPenalty = unassignedPenalty;
+    this.emptyRoutes = emptyRoutes;
+    this.nearbyRequests = nearbyRequests;
+    this.costs = new double[k];
+  }
+
+  void insert(ALNSSolution solution, List<Request> pending) {
+    ALNSInstance instance = solution.instance();
+    int routes = solution.routeCount();
+    int size = pending.size();
+    boolean bounded = emptyRoutes > 0 && emptyRoutes < routes;
+
+    boolean[] used = new boolean[routes];
+    for (Request request : instance.requests) {
+      if (solution.isAssigned(request)) {
+        used[solution.routeOf(request)] = true;
+      }
+    }
+
+    // Mejor inserción de cada entrega pendiente en cada ruta candidata; solo se
+    // recalcula la columna de la ruta modificada
+    Insertion[][] cache = new Insertion[size][routes];
+    boolean[][] candidate = new boolean[size][routes];
+    boolean[] expanded = new boolean[size];
+    int[][] neighbors = new int[size][];
+    int[][] trucks = new int[size][];
+    List<List<Node>> stations = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      Request request = pending.get(i);
+      if (bounded) {
+        trucks[i] = instance.truckIndex.nearest(request.node().getLocation(), routes);
+        addEmptyRoutes(candidate[i], trucks[i], used, instance);
+        neighbors[i] = instance.requestIndex.nearest(request.node().getLocation(), nearbyRequests + 1);
+        for (int neighbor : neighbors[i]) {
+          int route = solution.routeOf(instance.requests.get(neighbor));
+          if (route >= 0) {
+            candidate[i][route] = true;
+          }
+        }
+        List<Node> nearStations = new ArrayList<>(STATION_CANDIDATES);
+        for (int s : instance.stationIndex.nearest(request.node().getLocation(), STATION_CANDIDATES)) {
+          nearStations.add(instance.stationNodes.get(s));
+        }
+        stations.add(nearStations);
+      } else {
+        Arrays.fill(candidate[i], true);
+        expanded[i] = true;
+        stations.add(instance.stationNodes);
+      }
+      for (int r = 0; r < routes; r++) {
+        if (candidate[i][r]) {
+          cache[i][r] = solution.bestInsertion(request, r, stations.get(i));
+        }
+      }
+    }
+    boolean[] done = new boolean[size];
+    Insertion[] rowBest = new Insertion[size];
+    double[] rowScore = new double[size];
+    for (int i = 0; i < size; i++) {
+      rowScore[i] = score(cache[i], pending.get(i), rowBest, i);
+    }
+
+    while (true) {
+      int chosen = -1;
+      for (int i = 0; i < size; i++) {
+        if (!done[i] && rowBest[i] != null && (chosen < 0 || rowScore[i] > rowScore[chosen])) {
+          chosen = i;
+        }
+      }
+
+      if (chosen < 0) {
+        // Las entregas sin ninguna candidata factible se prueban en todas las
+        // rutas antes de rendirse
+        boolean retried = false;
+        for (int i = 0; i < size; i++) {
+          if (done[i] || expanded[i]) {
+            continue;
+          }
+          expanded[i] = true;
+          for (int r = 0; r < routes; r++) {
+            if (!candidate[i][r]) {
+              candidate[i][r] = true;
+              cache[i][r] = solution.bestInsertion(pending.get(i), r, instance.stationNodes);
+            }
+          }
+          rowScore[i] = score(cache[i], pending.get(i), rowBest, i);
+          retried |= rowBest[i] != null;
+        }
+        if (!retried) {
+          return;
+        }
+        continue;
+      }
+
+      Request inserted = pending.get(chosen);
+      Insertion insertion = rowBest[chosen];
+      solution.insert(inserted, insertion);
+      done[chosen] = true;
+      int route = insertion.route();
+      boolean firstVisit = !used[route];
+      used[route] = true;
+      for (int i = 0; i < size; i++) {
+        if (done[i]) {
+          continue;
+        }
+        boolean changed = false;
+        if (bounded && !candidate[i][route] && contains(neighbors[i], inserted.index())) {
+          candidate[i][route] = true;
+        }
+        // La ruta dejó de estar vacía: se repone otra ruta vacía cercana
+        if (bounded && firstVisit && candidate[i][route] && !expanded[i]) {
+          for (int r : addEmptyRoutes(candidate[i], trucks[i], used, instance)) {
+            cache[i][r] = solution.bestInsertion(pending.get(i), r, stations.get(i));
+            changed = true;
+          }
+        }
+        if (candidate[i][route]) {
+          cache[i][route] = solution.bestInsertion(pending.get(i), route, stations.get(i));
+          changed = true;
+        }
+        if (changed) {
+          rowScore[i] = score(cache[i], pending.get(i), rowBest, i);
+        }
+      }
+    }
+  }
+
+  /**
+   * Marca como candidatas las rutas vacías más cercanas hasta tener
+   * {@code emptyRoutes} de ellas.
+   *
+   * @return rutas recién marcadas.
+   */
+  private List<Integer> addEmptyRoutes(boolean[] candidate, int[] trucks, boolean[] used, ALNSInstance instance) {
+    List<Integer> added = new ArrayList<>(emptyRoutes);
+    int empty = 0;
+    for (int route : trucks) {
+      if (empty >= emptyRoutes) {
+        break;
+      }
+      if (used[route] || !instance.receiving[route]) {
+        continue;
+      }
+      empty++;
+      if (!candidate[route]) {
+        candidate[route] = true;
+        added.add(route);
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Guarda en {@code best[i]} la mejor inserción de la fila y devuelve su
+   * puntaje de arrepentimiento.
+   */
+  private double score(Insertion[] row, Request request, Insertion[] best, int i) {
+    best[i] = null;
+    Arrays.fill(costs, Double.POSITIVE_INFINITY);
+    for (Insertion insertion : row) {
+      if (insertion == null) {
+        continue;
+      }
+      if (best[i] == null || insertion.cost() < best[i].cost()) {
+        best[i] = insertion;
+      }
+      for (int j = 0; j < k; j++) {
+        if (insertion.cost() < costs[j]) {
+          System.arraycopy(costs, j, costs, j + 1, k - j - 1);
+          costs[j] = insertion.cost();
+          break;
+        }
+      }
+    }
+    if (best[i] == null || k == 1) {
+      return best[i] == null ? Double.NEGATIVE_INFINITY : -best[i].cost();
+    }
+    // Las rutas sin alternativa factible cuentan con la penalización por no
+    // asignar, así se priorizan las entregas con pocas opciones
+    double penalty = unassignedPenalty * request.demand();
+    double score = 0;
+    for (int j = 1; j < k; j++) {
+      score += (Double.isInfinite(costs[j]) ? penalty : costs[j]) - costs[0];
+    }
+    return score;
+  }
+
+  private static boolean contains(int[] values, int value) {
+    for (int v : values) {
+      if (v == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -1,17 +1,20 @@
 package com.hyperlogix.server.optimizer.AntColony;
 
-import com.hyperlogix.server.config.Constants;
+import com.hyperlogix.server.optimizer.DistanceMatrix;
 import com.hyperlogix.server.optimizer.Graph;
+import com.hyperlogix.server.optimizer.Kernels.PheromoneKernels;
 
 import jakarta.validation.constraints.Min;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -40,9 +43,21 @@ import com.hyperlogix.server.domain.Roadblock;
 import com.hyperlogix.server.util.AStar;
 import com.hyperlogix.server.features.planification.dtos.LogisticCollapseEvent;
 
+/**
+ * Construye una solución recorriendo el grafo. La red es la instantánea de la
+ * solicitud y se comparte sin copiar entre hormigas e hilos; lo que cambia
+ * durante un recorrido (camiones, entregas, reservas en plantas y combustible
+ * de los incidentes) vive en el estado del recorrido.
+ */
 public class Ant {
-  private PLGNetwork network;
-  private final PLGNetwork originalNetwork;
+  private final PLGNetwork network;
+  private final Map<String, Order> ordersById;
+  private final Map<String, Station> stationsById;
+  // Estado del recorrido, se reinicia con resetState
+  private List<Truck> trucks;
+  private Map<String, Integer> deliveredGLP;
+  private Map<String, Map<LocalDate, Integer>> reservedGLP;
+  private Map<Incident, Integer> incidentFuel;
   private List<Incident> incidentList;
   private List<Roadblock> roadblocks; // Para detectar zonas bloqueadas
   private Map<String, Point> relocatedOrders; // Para trackear pedidos reubicados
@@ -51,7 +66,7 @@ public class Ant {
   private Graph graph;
   private final AntColonyConfig antColonyConfig;
   private List<Node> nodesLeft;
-  private Map<Node, Map<Node, Path>> adjacencyMap;
+  private DistanceMatrix distances;
   private Map<String, List<Stop>> routes;
   private Map<String, List<Path>> paths;
   private Map<String, Duration> tourTime;
@@ -61,14 +76,17 @@ public class Ant {
   private String sessionId;
 
   public Ant(PLGNetwork network, Graph graph, AntColonyConfig antColonyConfig, List<Incident> incidents) {
-    this.originalNetwork = network.clone();
+    this.network = network;
+    this.ordersById = network.getOrders().stream()
+        .collect(Collectors.toMap(Order::getId, order -> order, (a, b) -> a));
+    this.stationsById = network.getStations().stream()
+        .collect(Collectors.toMap(Station::getId, station -> station, (a, b) -> a));
     this.graph = graph;
     this.antColonyConfig = antColonyConfig;
     this.incidentList = incidents;
     this.roadblocks = new ArrayList<>(); // Inicializar lista vacía
     this.relocatedOrders = new HashMap<>(); // Trackear reubicaciones
 
-    network.getTrucksCapacity();
     resetState();
   }
 
@@ -86,7 +104,7 @@ public class Ant {
 
   public Routes findSolution() {
 
-    for (Truck truck : network.getTrucks()) {
+    for (Truck truck : trucks) {
       if (truck.getStatus() == TruckState.MAINTENANCE) {
         handleMaintenanceTruckRoute(truck);
         continue;
@@ -165,7 +183,7 @@ public class Ant {
         nearestStation.getLocation().integerPoint());
 
     // Calcular distancia y tiempo
-    int distance = calculateManhattanDistance(truck.getLocation().integerPoint(),
+    int distance = DistanceMatrix.manhattan(truck.getLocation().integerPoint(),
         nearestStation.getLocation().integerPoint());
     Duration timeToDestination = truck.getTimeToDestination(distance);
     LocalDateTime arrivalTime = graph.getAlgorithmStartDate().plus(timeToDestination);
@@ -205,14 +223,14 @@ public class Ant {
     return network.getStations().stream()
         .filter(station -> {
           // Verificar que la estación tenga capacidad disponible
-          int distance = calculateManhattanDistance(truckLocation, station.getLocation().integerPoint());
+          int distance = DistanceMatrix.manhattan(truckLocation, station.getLocation().integerPoint());
           Duration timeToDestination = truck.getTimeToDestination(distance);
           LocalDateTime arrivalTime = graph.getAlgorithmStartDate().plus(timeToDestination);
-          return station.getAvailableCapacity(arrivalTime) > 0;
+          return availableCapacity(station, arrivalTime) > 0;
         })
         .min((s1, s2) -> {
-          int dist1 = calculateManhattanDistance(truckLocation, s1.getLocation().integerPoint());
-          int dist2 = calculateManhattanDistance(truckLocation, s2.getLocation().integerPoint());
+          int dist1 = DistanceMatrix.manhattan(truckLocation, s1.getLocation().integerPoint());
+          int dist2 = DistanceMatrix.manhattan(truckLocation, s2.getLocation().integerPoint());
           return Integer.compare(dist1, dist2);
         })
         .orElse(null);
@@ -222,7 +240,7 @@ public class Ant {
     Truck bestTruck = null;
     double bestScore = 0;
 
-    for (Truck truck : network.getTrucks()) {
+    for (Truck truck : trucks) {
       if (truck.getStatus() == TruckState.MAINTENANCE || truck.getStatus() == TruckState.BROKEN_DOWN) {
         continue;
       }
@@ -264,31 +282,28 @@ public class Ant {
       int distance;
       if (currentNode.getNode().getType() == NodeType.LOCATION) {
         // Use Manhattan distance instead of A*
-        distance = calculateManhattanDistance(currentNode.getNode().getLocation(), node.getLocation());
+        distance = DistanceMatrix.manhattan(currentNode.getNode().getLocation(), node.getLocation());
         firstPath.put(node, new Path(List.of(currentNode.getNode().getLocation(), node.getLocation()), distance));
 
       } else
-        distance = adjacencyMap.get(currentNode.getNode()).get(node).length();
+        distance = distances.distance(currentNode.getNode(), node);
       Duration timeToDestination = truck.getTimeToDestination(distance);
       LocalDateTime arrivalTime = currentNode.getArrivalTime().plus(timeToDestination);
       double fuelConsumption = truck.getFuelConsumption(distance);
       if (truck.getCurrentFuel() < fuelConsumption)
         continue;
       if (node.getType() == NodeType.STATION) {
-        Station station = network.getStations().stream()
-            .filter(s -> s.getId().equals(node.getId()))
-            .findFirst().orElse(null);
+        Station station = stationsById.get(node.getId());
         assert station != null;
         int refillableCapacity = Math.min(truck.getMaxCapacity() - truck.getCurrentCapacity(),
-            station.getAvailableCapacity(arrivalTime));
+            availableCapacity(station, arrivalTime));
 
         int glpToFull = truck.getMaxCapacity() - truck.getCurrentCapacity();
         if (glpToFull < truck.getMaxCapacity() * 0.3 && refillableCapacity <= glpToFull * 0.3
             && truck.getCurrentFuel() > 0.3 * truck.getFuelCapacity())
           continue;
       } else if (node.getType() == NodeType.DELIVERY) {
-        Order order = network.getOrders().stream().filter(o -> o.getId().equals(node.getId()))
-            .findFirst().orElse(null);
+        Order order = ordersById.get(node.getId());
         assert order != null;
 
         if ((currentNode.getArrivalTime().plus(timeToDestination).isAfter(order.getMaxDeliveryDate())))
@@ -296,11 +311,7 @@ public class Ant {
         // ||
         // currentNode.getArrivalTime().plus(timeToDestination).isBefore(order.getMinDeliveryDate()))
         double fuelAfterDelivery = truck.getCurrentFuel() - fuelConsumption;
-        double fuelToNearestStation = adjacencyMap.get(node).entrySet().stream()
-            .filter(
-                entry -> entry.getKey().getType() == NodeType.STATION || entry.getKey().getType() == NodeType.DELIVERY)
-            .map(entry -> entry.getValue().length()).mapToDouble(truck::getFuelConsumption).min()
-            .orElse(Double.POSITIVE_INFINITY);
+        double fuelToNearestStation = fuelToNearestSupply(truck, node);
         if (fuelToNearestStation > fuelAfterDelivery)
           continue;
       } else if (node.getType() == NodeType.INCIDENT) {
@@ -310,7 +321,7 @@ public class Ant {
             .findFirst().orElse(null);
 
         assert incident != null;
-        if (incident.getFuel() == 0)
+        if (incidentFuel(incident) == 0)
           continue;
 
         if ((truck.getMaxCapacity() - truck.getCurrentCapacity()) == 0)
@@ -323,11 +334,7 @@ public class Ant {
         // estación más cercana
         double fuelAfterVisit = truck.getCurrentFuel() - fuelConsumption;
 
-        double fuelToNearestStation = adjacencyMap.get(node).entrySet().stream()
-            .filter(
-                entry -> entry.getKey().getType() == NodeType.STATION || entry.getKey().getType() == NodeType.DELIVERY)
-            .map(entry -> entry.getValue().length()).mapToDouble(truck::getFuelConsumption).min()
-            .orElse(Double.POSITIVE_INFINITY);
+        double fuelToNearestStation = fuelToNearestSupply(truck, node);
 
         if (fuelToNearestStation > fuelAfterVisit)
           continue;
@@ -337,8 +344,13 @@ public class Ant {
     return availableNodes;
   }
 
-  private int calculateManhattanDistance(Point from, Point to) {
-    return (int) ((Math.abs(from.x() - to.x()) + Math.abs(from.y() - to.y())) * Constants.EDGE_LENGTH);
+  /**
+   * Combustible para llegar desde {@code node} a la planta o pedido más
+   * cercano; infinito si no hay ninguno.
+   */
+  private double fuelToNearestSupply(Truck truck, Node node) {
+    int nearest = distances.nearestSupply(node);
+    return nearest >= 0 ? truck.getFuelConsumption(nearest) : Double.POSITIVE_INFINITY;
   }
 
   private Stop getNextNode(Stop currentNode, Truck truck) {
@@ -348,19 +360,26 @@ public class Ant {
       return null;
     }
 
-    List<Double> scores = new ArrayList<>();
-    for (Stop node : availableNodes) {
-      int distance = adjacencyMap.get(currentNode.getNode()).get(node.getNode()).length();
+    // Feromona y heurística de cada candidato en arreglos planos para calcular
+    // los puntajes con PheromoneKernels
+    int candidates = availableNodes.size();
+    double[] pheromones = new double[candidates];
+    double[] heuristics = new double[candidates];
+    double initialPheromone = antColonyConfig.INITIAL_PHEROMONE();
+    for (int c = 0; c < candidates; c++) {
+      Stop node = availableNodes.get(c);
+      int distance = distances.distance(currentNode.getNode(), node.getNode());
       double pheromone;
       if (node.getNode().getType() == NodeType.INCIDENT) {
         // Use the highest pheromone value among station nodes
-        pheromone = adjacencyMap.get(currentNode.getNode()).entrySet().stream()
-            .filter(entry -> entry.getKey().getType() == NodeType.STATION)
-            .map(entry -> graph.getPheromoneMap().get(currentNode.getNode()).get(entry.getKey()))
-            .max(Double::compare)
-            .orElse(graph.getPheromoneMap().get(currentNode.getNode()).get(node.getNode()));
+        pheromone = distances.nodes().stream()
+            .filter(destination -> destination.getType() == NodeType.STATION
+                && !destination.equals(currentNode.getNode()))
+            .mapToDouble(destination -> graph.getPheromone(currentNode.getNode(), destination, initialPheromone))
+            .max()
+            .orElse(graph.getPheromone(currentNode.getNode(), node.getNode(), initialPheromone));
       } else {
-        pheromone = graph.getPheromoneMap().get(currentNode.getNode()).get(node.getNode());
+        pheromone = graph.getPheromone(currentNode.getNode(), node.getNode(), initialPheromone);
       }
 
       double penalization = 1;
@@ -377,19 +396,18 @@ public class Ant {
               .filter(i -> i.getId().equals(node.getNode().getId()))
               .findFirst().orElse(null);
 
-          Truck accidentedTruck = network.getTrucks().stream()
+          Truck accidentedTruck = trucks.stream()
               .filter(t -> incident != null && t.getCode().equals(incident.getTruckCode()))
               .findFirst().orElse(null);
 
           double severityFactor = 1.0;
           if (incident != null && accidentedTruck != null) {
-            int incidentDistance = calculateManhattanDistance(accidentedTruck.getLocation().integerPoint(),
+            int incidentDistance = DistanceMatrix.manhattan(accidentedTruck.getLocation().integerPoint(),
                 node.getNode().getLocation());
-            int maxDistance = adjacencyMap.get(currentNode.getNode()).entrySet().stream()
-                .mapToInt(entry -> {
-                  return calculateManhattanDistance(accidentedTruck.getLocation().integerPoint(),
-                      entry.getKey().getLocation());
-                })
+            int maxDistance = distances.nodes().stream()
+                .filter(destination -> !destination.equals(currentNode.getNode()))
+                .mapToInt(destination -> DistanceMatrix.manhattan(accidentedTruck.getLocation().integerPoint(),
+                    destination.getLocation()))
                 .max().orElse(1);
             severityFactor = 1.0 + ((double) incidentDistance / Math.max(maxDistance, 1));
           }
@@ -406,9 +424,7 @@ public class Ant {
         case NodeType.DELIVERY:
           // Código existente para DELIVERY...
           // Suponemos que puedes acceder a la orden por ID
-          Order order = network.getOrders().stream()
-              .filter(o -> o.getId().equals(node.getNode().getId()))
-              .findFirst().orElse(null);
+          Order order = ordersById.get(node.getNode().getId());
           // Usar la urgencia basada en la ventana de entrega
           Duration timeLeft = Duration.between(currentNode.getArrivalTime(), order.getMaxDeliveryDate());
           long minutesLeft = timeLeft.toMinutes();
@@ -431,18 +447,20 @@ public class Ant {
           break;
       }
 
-      double heuristic = 1.0 / (penalization * distance);
-      double score = Math.pow(pheromone, antColonyConfig.ALPHA()) * Math.pow(heuristic, antColonyConfig.BETA());
-      scores.add(score);
+      pheromones[c] = pheromone;
+      heuristics[c] = 1.0 / (penalization * distance);
     }
 
-    double totalScore = scores.stream().mapToDouble(Double::doubleValue).sum();
-    List<Double> probabilities = scores.stream().map(score -> score / totalScore).toList();
+    PheromoneKernels kernels = PheromoneKernels.get();
+    double[] probabilities = new double[candidates];
+    double totalScore = kernels.attractiveness(pheromones, heuristics, candidates, antColonyConfig.ALPHA(),
+        antColonyConfig.BETA(), probabilities);
+    kernels.scale(probabilities, candidates, 1 / totalScore);
 
     double randomValue = new Random().nextDouble();
     double cumulativeProbability = 0.0;
     for (int i = 0; i < availableNodes.size(); i++) {
-      cumulativeProbability += probabilities.get(i);
+      cumulativeProbability += probabilities[i];
       if (randomValue <= cumulativeProbability) {
         return availableNodes.get(i);
       }
@@ -455,7 +473,8 @@ public class Ant {
     if (currentNode.getNode().getType() == NodeType.LOCATION) {
       path = firstPath.get(nextNode.getNode());
     } else {
-      path = adjacencyMap.get(currentNode.getNode()).get(nextNode.getNode());
+      path = new Path(List.of(currentNode.getNode().getLocation(), nextNode.getNode().getLocation()),
+          distances.distance(currentNode.getNode(), nextNode.getNode()));
     }
     
     // CRITICAL FIX: Validate path is not null to prevent NullPointerException
@@ -466,7 +485,7 @@ public class Ant {
       // Create emergency direct path with Manhattan distance
       var from = currentNode.getNode().getLocation();
       var to = nextNode.getNode().getLocation();
-      int emergencyDistance = (int)(Math.abs(from.x() - to.x()) + Math.abs(from.y() - to.y()) * Constants.EDGE_LENGTH);
+      int emergencyDistance = DistanceMatrix.manhattan(from, to);
       
       // Create simple emergency path with just start and end points
       path = new Path(List.of(from, to), emergencyDistance);
@@ -484,26 +503,24 @@ public class Ant {
     if (nextNode.getNode().getType() == NodeType.STATION) {
       truck.setCurrentFuel(truck.getFuelCapacity());
       int glpToFull = truck.getMaxCapacity() - truck.getCurrentCapacity();
-      Station station = network.getStations().stream()
-          .filter(s -> s.getId().equals(nextNode.getNode().getId()))
-          .findFirst().orElse(null);
+      Station station = stationsById.get(nextNode.getNode().getId());
       assert station != null;
-      int glpToRefill = Math.min(glpToFull, station.getAvailableCapacity(nextNode.getArrivalTime()));
-      station.reserveCapacity(nextNode.getArrivalTime(), glpToRefill, truck.getId(), null);
+      int glpToRefill = Math.min(glpToFull, availableCapacity(station, nextNode.getArrivalTime()));
+      reserveCapacity(station, nextNode.getArrivalTime(), glpToRefill);
       truck.setCurrentCapacity(truck.getCurrentCapacity() + glpToRefill);
       truck.setCurrentFuel(truck.getMaxCapacity());
     } else if (nextNode.getNode().getType() == NodeType.DELIVERY) {
-      Order order = network.getOrders().stream().filter(o -> o.getId().equals(nextNode.getNode().getId()))
-          .findFirst().orElse(null);
+      Order order = ordersById.get(nextNode.getNode().getId());
       assert order != null;
 
-      int glpToDeliver = Math.min(truck.getCurrentCapacity(), order.getRequestedGLP() - order.getDeliveredGLP());
+      int delivered = deliveredGLP(order);
+      int glpToDeliver = Math.min(truck.getCurrentCapacity(), order.getRequestedGLP() - delivered);
 
-      if (order.getDeliveredGLP() + glpToDeliver == order.getRequestedGLP()) {
-        order.setDeliveredGLP(order.getRequestedGLP());
+      if (delivered + glpToDeliver == order.getRequestedGLP()) {
+        deliveredGLP.put(order.getId(), order.getRequestedGLP());
         nodesLeft.remove(nextNode.getNode());
       } else
-        order.setDeliveredGLP(order.getDeliveredGLP() + glpToDeliver);
+        deliveredGLP.put(order.getId(), delivered + glpToDeliver);
       truck.setCurrentCapacity(truck.getCurrentCapacity() - glpToDeliver);
     }
 
@@ -515,7 +532,7 @@ public class Ant {
 
       if (incident != null) {
         // Encontrar el camión asociado al incidente
-        Truck accidentedTruck = network.getTrucks().stream()
+        Truck accidentedTruck = trucks.stream()
             .filter(t -> t.getCode().equals(incident.getTruckCode()))
             .findFirst().orElse(null);
 
@@ -528,11 +545,11 @@ public class Ant {
           // Actualizar capacidades
           accidentedTruck.setCurrentCapacity(accidentedTruck.getCurrentCapacity() - transferAmount);
           truck.setCurrentCapacity(truck.getCurrentCapacity() + transferAmount);
-          double fuelTransfer = Math.min(incident.getFuel(), truck.getFuelCapacity() - truck.getCurrentFuel());
+          double fuelTransfer = Math.min(incidentFuel(incident), truck.getFuelCapacity() - truck.getCurrentFuel());
           truck.setCurrentFuel(truck.getCurrentFuel() - fuelConsumption + fuelTransfer);
-          incident.setFuel((int) (incident.getFuel() - fuelTransfer));
+          incidentFuel.put(incident, (int) (incidentFuel(incident) - fuelTransfer));
 
-          if (incident.getFuel() == 0)
+          if (incidentFuel(incident) == 0)
             nodesLeft.remove(nextNode.getNode());
 
         }
@@ -547,21 +564,50 @@ public class Ant {
 
   public void resetState() {
 
-    this.network = originalNetwork.clone();
-    this.adjacencyMap = graph.createAdjacencyMap(graph.getAlgorithmStartDate());
-    this.nodesLeft = new ArrayList<>(adjacencyMap.keySet().stream().toList());
-    this.routes = network.getTrucks().stream()
+    // Solo los camiones se copian: sus métodos dependen de la carga y el
+    // combustible del recorrido
+    this.trucks = network.getTrucks().stream().map(Truck::clone).toList();
+    this.deliveredGLP = new HashMap<>();
+    this.reservedGLP = new HashMap<>();
+    this.incidentFuel = new IdentityHashMap<>();
+    this.distances = graph.getDistances();
+    this.nodesLeft = new ArrayList<>(distances.nodes());
+    this.routes = trucks.stream()
         .collect(Collectors.toMap(Truck::getId, truck -> new ArrayList<>())); // Use mutable list
-    this.paths = network.getTrucks().stream()
+    this.paths = trucks.stream()
         .collect(Collectors.toMap(Truck::getId, truck -> new ArrayList<>())); // Use mutable list
-    this.tourTime = network.getTrucks().stream()
+    this.tourTime = trucks.stream()
         .collect(Collectors.toMap(Truck::getId, truck -> Duration.ZERO));
-    this.tourCost = network.getTrucks().stream()
+    this.tourCost = trucks.stream()
         .collect(Collectors.toMap(Truck::getId, truck -> 0.0));
     this.firstPath = new HashMap<>();
 
   }
 
+  private int deliveredGLP(Order order) {
+    return deliveredGLP.getOrDefault(order.getId(), order.getDeliveredGLP());
+  }
+
+  /**
+   * Capacidad de la planta en la instantánea menos lo que ya reservó este
+   * recorrido ese día.
+   */
+  private int availableCapacity(Station station, LocalDateTime dateTime) {
+    int reserved = reservedGLP.getOrDefault(station.getId(), Map.of()).getOrDefault(dateTime.toLocalDate(), 0);
+    return station.getAvailableCapacity(dateTime) - reserved;
+  }
+
+  private void reserveCapacity(Station station, LocalDateTime dateTime, int amount) {
+    if (availableCapacity(station, dateTime) >= amount) {
+      reservedGLP.computeIfAbsent(station.getId(), id -> new HashMap<>())
+          .merge(dateTime.toLocalDate(), amount, Integer::sum);
+    }
+  }
+
+  private int incidentFuel(Incident incident) {
+    return incidentFuel.getOrDefault(incident, incident.getFuel());
+  }
+
   // //metodo para debuggear
   // private void writeDebugLog(String message) {
   // try (FileWriter writer = new FileWriter(DEBUG_FILE)) {
@@ -9,6 +9,15 @@ package com.hyperlogix.server.optimizer.AntColony;
  * @param RHO Tasa de evaporación de la feromona.
  * @param Q Cantidad de feromona depositada en el camino.
  * @param INITIAL_PHEROMONE Nivel inicial de feromona en los caminos.
+ * @param MAX_MIN Activa el modo MAX-MIN Ant System (depósito solo de la mejor
+ *                solución y feromona acotada entre τmin y τmax).
+ * @param GLOBAL_BEST_DEPOSIT En modo MAX-MIN, deposita con la mejor solución
+ *                            global en lugar de la mejor de la iteración.
+ * @param MIN_MAX_RATIO Relación τmin / τmax.
+ * @param STAGNATION_LIMIT Iteraciones sin mejorar el mejor costo antes de
+ *                         reiniciar los rastros (0 lo desactiva).
+ * @param BRANCHING_THRESHOLD Factor de ramificación λ promedio por debajo del
+ *                            cual se considera que la colonia se estancó.
  */
 public record AntColonyConfig(
                 int NUM_ANTS,
@@ -17,5 +26,18 @@ public record AntColonyConfig(
                 double BETA,
                 double RHO,
                 double Q,
-                double INITIAL_PHEROMONE) {
+                double INITIAL_PHEROMONE,
+                boolean MAX_MIN,
+                boolean GLOBAL_BEST_DEPOSIT,
+                double MIN_MAX_RATIO,
+                int STAGNATION_LIMIT,
+                double BRANCHING_THRESHOLD) {
+
+        /**
+         * Configuración clásica (Ant System) sin acotamiento ni reinicios.
+         */
+        public AntColonyConfig(int NUM_ANTS, int NUM_ITERATIONS, double ALPHA, double BETA, double RHO, double Q,
+                        double INITIAL_PHEROMONE) {
+                this(NUM_ANTS, NUM_ITERATIONS, ALPHA, BETA, RHO, Q, INITIAL_PHEROMONE, false, false, 0.05, 0, 0.0);
+        }
 }
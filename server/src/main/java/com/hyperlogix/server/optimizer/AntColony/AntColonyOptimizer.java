@@ -9,13 +9,17 @@ import com.hyperlogix.server.domain.NodeType;
 import com.hyperlogix.server.domain.Path;
 import com.hyperlogix.server.domain.TruckState;
 import com.hyperlogix.server.domain.OrderStatus;
+import com.hyperlogix.server.optimizer.CompactRoutes;
 import com.hyperlogix.server.optimizer.Graph;
+import com.hyperlogix.server.optimizer.IncumbentAware;
 import com.hyperlogix.server.optimizer.Notifier;
 import com.hyperlogix.server.optimizer.Optimizer;
 import com.hyperlogix.server.optimizer.OptimizerContext;
 import com.hyperlogix.server.optimizer.OptimizerResult;
 import com.hyperlogix.server.features.planification.dtos.LogisticCollapseEvent;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
@@ -25,15 +29,18 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.*;
 
-public class AntColonyOptimizer implements Optimizer {
+public class AntColonyOptimizer implements Optimizer, IncumbentAware {
+  private static final Logger log = LoggerFactory.getLogger(AntColonyOptimizer.class);
   private AntColonyConfig antColonyConfig;
   private Graph graph;
-  private List<Ant> ants;
   private ApplicationEventPublisher eventPublisher;
   private String sessionId;
   private OptimizerContext currentContext; // Para usar en la solución de emergencia
+  private final List<ConvergenceMetrics> convergenceHistory = new ArrayList<>();
+  private final Queue<Routes> incumbents = new ConcurrentLinkedQueue<>();
 
   public AntColonyOptimizer(AntColonyConfig antColonyConfig) {
     this.antColonyConfig = antColonyConfig;
@@ -47,74 +54,70 @@ public class AntColonyOptimizer implements Optimizer {
     this.sessionId = sessionId;
   }
 
+  /**
+   * @return Métricas por iteración de la última ejecución.
+   */
+  public List<ConvergenceMetrics> getConvergenceHistory() {
+    return List.copyOf(convergenceHistory);
+  }
+
+  @Override
+  public void offerIncumbent(Routes incumbent) {
+    if (incumbent != null) {
+      incumbents.offer(incumbent);
+    }
+  }
+
   @Override
   public OptimizerResult run(OptimizerContext ctx, Duration maxDuration, Notifier notifier) {
     this.currentContext = ctx;
 
-    graph = new Graph(ctx.plgNetwork, ctx.algorithmStartDate, antColonyConfig, ctx.incidents);
-
-    ants = new ArrayList<>();
-    for (int i = 0; i < antColonyConfig.NUM_ANTS(); i++) {
-      Ant ant = new Ant(ctx.plgNetwork, graph, antColonyConfig, ctx.incidents);
-      ant.setEventPublisher(eventPublisher);
-      ant.setSessionId(sessionId);
-      ants.add(ant);
-    }
+    Colony colony = new Colony(ctx, antColonyConfig, eventPublisher, sessionId);
+    graph = colony.getGraph();
 
-    Routes bestSolution = null;
+    convergenceHistory.clear();
     long startTime = System.currentTimeMillis();
-    long maxDurationMillis = maxDuration.toMillis();
+    long deadline = startTime + maxDuration.toMillis();
 
     for (int iteration = 0; iteration < antColonyConfig.NUM_ITERATIONS(); iteration++) {
-      long elapsedTime = System.currentTimeMillis() - startTime;
-
-      if (elapsedTime >= maxDurationMillis) {
-        System.out.println("Optimization terminated due to time limit. Completed " + iteration + " iterations.");
+      if (System.currentTimeMillis() >= deadline) {
+        log.debug("Optimization terminated due to time limit. Completed {} iterations", iteration);
         break;
       }
-
-      ants.forEach(Ant::resetState);
-      List<Routes> solutions = new ArrayList<>();
-      for (Ant ant : ants) {
-        try {
-          Routes result = ant.findSolution();
-          if (result != null) {
-            solutions.add(result);
-          }
-        } catch (Exception e) {
-          System.err.println("Ant execution error: " + e.getMessage());
-          e.printStackTrace();
-        }
-
-        elapsedTime = System.currentTimeMillis() - startTime;
-        if (elapsedTime >= maxDurationMillis) {
-          System.out.println("Time limit reached during sequential ant execution.");
-          break;
-        }
+      if (ctx.isTargetReached()) {
+        log.debug("Optimization terminated near the lower bound. Completed {} iterations", iteration);
+        break;
       }
-      if (!solutions.isEmpty()) {
-        solutions.sort((r1, r2) -> Double.compare(r1.getCost(), r2.getCost()));
-
-        if (bestSolution == null || solutions.get(0).getCost() < bestSolution.getCost()) {
-          bestSolution = solutions.get(0);
-        }
 
-        graph.updatePheromoneMap(solutions, antColonyConfig);
+      // Las soluciones externas se recalculan con A* para que su costo sea
+      // comparable con el de las hormigas
+      Routes incumbent;
+      while ((incumbent = incumbents.poll()) != null) {
+        colony.acceptMigrant(graph.compact(graph.expand(graph.compact(incumbent))));
+      }
 
-        if (bestSolution != null && iteration == 0) {
-          System.out.println("Found first valid solution in iteration " + iteration + ", continuing to optimize...");
+      ConvergenceMetrics metrics = colony.iterate(deadline, startTime);
+      ctx.telemetry.iteration("ant-colony");
+      ctx.telemetry.evaluations(antColonyConfig.NUM_ANTS());
+      if (colony.getBestSolution() != null) {
+        ctx.reachedTarget(colony.getBestSolution().getCost());
+      }
+      if (metrics != null) {
+        convergenceHistory.add(metrics);
+        if (iteration == 0) {
+          log.debug("Found first valid solution in iteration {}, continuing to optimize", iteration);
         }
-      } else {
-        System.err.println("No valid solutions found in iteration " + iteration);
       }
 
       if (notifier != null) {
-        notifier.notify(new OptimizerResult(
-            bestSolution,
-            bestSolution != null ? bestSolution.getCost() : Double.MAX_VALUE));
+        CompactRoutes best = colony.getBestSolution();
+        notifier.notify(best != null
+            ? new OptimizerResult(best.decode(), best.getCost())
+            : new OptimizerResult(null, Double.MAX_VALUE));
       }
     }
 
+    CompactRoutes bestSolution = colony.getBestSolution();
     if (bestSolution == null) {
       if (eventPublisher != null && sessionId != null) {
         LogisticCollapseEvent collapseEvent = new LogisticCollapseEvent(
@@ -130,7 +133,7 @@ public class AntColonyOptimizer implements Optimizer {
     }
 
     return bestSolution != null
-        ? new OptimizerResult(bestSolution, bestSolution.getCost())
+        ? new OptimizerResult(graph.expand(bestSolution), bestSolution.getCost())
         : new OptimizerResult(null, Double.MAX_VALUE);
   }
 
@@ -154,7 +157,7 @@ public class AntColonyOptimizer implements Optimizer {
           affectedArea);
 
       eventPublisher.publishEvent(collapseEvent);
-      System.err.println("COLAPSO LOGÍSTICO DETECTADO: " + collapseType + " - " + description);
+      log.error("COLAPSO LOGÍSTICO DETECTADO: {} - {}", collapseType, description);
     }
   }
 
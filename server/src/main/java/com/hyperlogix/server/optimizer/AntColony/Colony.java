@@ -0,0 +1,135 @@
+package com.hyperlogix.server.optimizer.AntColony;
+
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.optimizer.CompactRoutes;
+import com.hyperlogix.server.optimizer.Graph;
+import com.hyperlogix.server.optimizer.OptimizerContext;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Una colonia de hormigas con su propio mapa de feromonas. Encapsula una
+ * iteración (construcción de soluciones y actualización de rastros) para que
+ * pueda ser usada tanto por la colonia única como por el modelo de islas. Las
+ * soluciones se guardan codificadas ({@link CompactRoutes}).
+ */
+class Colony {
+  private static final Logger log = LoggerFactory.getLogger(Colony.class);
+  private static final double BRANCHING_LAMBDA = 0.05;
+
+  private final AntColonyConfig antColonyConfig;
+  @Getter
+  private final Graph graph;
+  private final List<Ant> ants = new ArrayList<>();
+  @Getter
+  private CompactRoutes bestSolution;
+  private CompactRoutes pendingMigrant;
+  private double tauMax;
+  private int iterationsWithoutImprovement = 0;
+  private int restarts = 0;
+  @Getter
+  private int iteration = 0;
+
+  Colony(OptimizerContext ctx, AntColonyConfig antColonyConfig, ApplicationEventPublisher eventPublisher,
+      String sessionId) {
+    this.antColonyConfig = antColonyConfig;
+    this.graph = new Graph(ctx.plgNetwork, ctx.algorithmStartDate, antColonyConfig, ctx.incidents);
+    graph.attach(ctx);
+    this.tauMax = antColonyConfig.INITIAL_PHEROMONE();
+    for (int i = 0; i < antColonyConfig.NUM_ANTS(); i++) {
+      Ant ant = new Ant(ctx.plgNetwork, graph, antColonyConfig, ctx.incidents);
+      ant.setEventPublisher(eventPublisher);
+      ant.setSessionId(sessionId);
+      ants.add(ant);
+    }
+  }
+
+  /**
+   * Recibe la mejor solución de otra colonia; se tendrá en cuenta en la próxima
+   * actualización de feromonas.
+   */
+  void acceptMigrant(CompactRoutes migrant) {
+    if (migrant != null && (pendingMigrant == null || migrant.getCost() < pendingMigrant.getCost())) {
+      pendingMigrant = migrant;
+    }
+  }
+
+  /**
+   * Ejecuta una iteración completa de la colonia.
+   *
+   * @param deadlineMillis instante (epoch millis) en el que se corta la
+   *                       construcción de soluciones.
+   * @return métricas de la iteración, o null si ninguna hormiga encontró
+   *         solución.
+   */
+  ConvergenceMetrics iterate(long deadlineMillis, long startMillis) {
+    int currentIteration = iteration++;
+    ants.forEach(Ant::resetState);
+    List<CompactRoutes> solutions = new ArrayList<>();
+    for (Ant ant : ants) {
+      try {
+        Routes result = ant.findSolution();
+        if (result != null) {
+          solutions.add(graph.compact(result));
+        }
+      } catch (Exception e) {
+        log.error("Ant execution error", e);
+      }
+
+      if (System.currentTimeMillis() >= deadlineMillis) {
+        log.debug("Time limit reached during sequential ant execution");
+        break;
+      }
+    }
+    if (pendingMigrant != null) {
+      solutions.add(pendingMigrant);
+      pendingMigrant = null;
+    }
+    if (solutions.isEmpty()) {
+      log.debug("No valid solutions found in iteration {}", currentIteration);
+      return null;
+    }
+
+    solutions.sort((r1, r2) -> Double.compare(r1.getCost(), r2.getCost()));
+    CompactRoutes iterationBest = solutions.get(0);
+
+    if (bestSolution == null || iterationBest.getCost() < bestSolution.getCost()) {
+      bestSolution = iterationBest;
+      iterationsWithoutImprovement = 0;
+    } else {
+      iterationsWithoutImprovement++;
+    }
+
+    double branchingFactor;
+    if (antColonyConfig.MAX_MIN()) {
+      tauMax = antColonyConfig.Q()
+          / (antColonyConfig.RHO() * Math.max(bestSolution.getCost(), Double.MIN_NORMAL));
+      double tauMin = tauMax * antColonyConfig.MIN_MAX_RATIO();
+      graph.updatePheromoneMapMaxMin(
+          antColonyConfig.GLOBAL_BEST_DEPOSIT() ? bestSolution : iterationBest,
+          antColonyConfig, tauMin, tauMax);
+      branchingFactor = graph.getBranchingFactor(BRANCHING_LAMBDA, tauMin, tauMax);
+
+      boolean stagnated = (antColonyConfig.STAGNATION_LIMIT() > 0
+          && iterationsWithoutImprovement >= antColonyConfig.STAGNATION_LIMIT())
+          || branchingFactor < antColonyConfig.BRANCHING_THRESHOLD();
+      if (stagnated) {
+        graph.resetPheromoneMap(tauMax);
+        iterationsWithoutImprovement = 0;
+        restarts++;
+      }
+    } else {
+      graph.updatePheromoneMap(solutions, antColonyConfig);
+      branchingFactor = graph.getBranchingFactor(BRANCHING_LAMBDA, Double.NaN, Double.NaN);
+    }
+
+    return new ConvergenceMetrics(currentIteration, iterationBest.getCost(), bestSolution.getCost(),
+        branchingFactor, restarts, System.currentTimeMillis() - startMillis);
+  }
+}
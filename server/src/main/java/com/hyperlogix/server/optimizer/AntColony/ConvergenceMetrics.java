@@ -0,0 +1,19 @@
+package com.hyperlogix.server.optimizer.AntColony;
+
+/**
+ * Métricas de convergencia de una iteración de la colonia.
+ * @param iteration Número de iteración.
+ * @param iterationBestCost Mejor costo encontrado en la iteración.
+ * @param bestCost Mejor costo global hasta la iteración.
+ * @param branchingFactor Factor de ramificación λ promedio del mapa de feromonas.
+ * @param restarts Reinicios de rastros acumulados.
+ * @param elapsedMillis Tiempo transcurrido desde el inicio de la ejecución.
+ */
+public record ConvergenceMetrics(
+    int iteration,
+    double iterationBestCost,
+    double bestCost,
+    double branchingFactor,
+    int restarts,
+    long elapsedMillis) {
+}
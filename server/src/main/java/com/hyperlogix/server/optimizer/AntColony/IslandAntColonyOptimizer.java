@@ -0,0 +1,178 @@
+package com.hyperlogix.server.optimizer.AntColony;
+
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.features.planification.dtos.LogisticCollapseEvent;
+import com.hyperlogix.server.optimizer.CompactRoutes;
+import com.hyperlogix.server.optimizer.Graph;
+import com.hyperlogix.server.optimizer.IncumbentAware;
+import com.hyperlogix.server.optimizer.Notifier;
+import com.hyperlogix.server.optimizer.Optimizer;
+import com.hyperlogix.server.optimizer.OptimizerContext;
+import com.hyperlogix.server.optimizer.OptimizerResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Modelo de islas: varias colonias independientes, cada una con su propio
+ * {@link com.hyperlogix.server.optimizer.Graph}, ejecutándose en hilos
+ * separados. Cada {@code MIGRATION_INTERVAL} iteraciones una isla envía su mejor
+ * solución a la siguiente isla del anillo, que la usa en su próxima
+ * actualización de feromonas. Las soluciones de otros optimizadores entran por
+ * la primera isla y llegan a las demás con las migraciones.
+ */
+public class IslandAntColonyOptimizer implements Optimizer, IncumbentAware {
+  private static final Logger log = LoggerFactory.getLogger(IslandAntColonyOptimizer.class);
+  private static final ExecutorService ISLAND_POOL = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "ant-colony-island");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final AntColonyConfig antColonyConfig;
+  private final IslandConfig islandConfig;
+  private ApplicationEventPublisher eventPublisher;
+  private String sessionId;
+  private final Queue<Routes> incumbents = new ConcurrentLinkedQueue<>();
+
+  private CompactRoutes globalBest;
+  private Graph globalBestGraph;
+
+  public IslandAntColonyOptimizer(AntColonyConfig antColonyConfig, IslandConfig islandConfig) {
+    this.antColonyConfig = antColonyConfig;
+    this.islandConfig = islandConfig;
+  }
+
+  public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+    this.eventPublisher = eventPublisher;
+  }
+
+  public void setSessionId(String sessionId) {
+    this.sessionId = sessionId;
+  }
+
+  @Override
+  public void offerIncumbent(Routes incumbent) {
+    if (incumbent != null) {
+      incumbents.offer(incumbent);
+    }
+  }
+
+  @Override
+  public OptimizerResult run(OptimizerContext ctx, Duration maxDuration, Notifier notifier) {
+    int numIslands = Math.max(1, islandConfig.NUM_ISLANDS());
+    int migrationInterval = Math.max(1, islandConfig.MIGRATION_INTERVAL());
+    long startTime = System.currentTimeMillis();
+    long deadline = startTime + maxDuration.toMillis();
+    globalBest = null;
+    globalBestGraph = null;
+
+    List<Queue<CompactRoutes>> inboxes = new ArrayList<>();
+    for (int i = 0; i < numIslands; i++) {
+      inboxes.add(new ConcurrentLinkedQueue<>());
+    }
+
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < numIslands; i++) {
+        final int island = i;
+        futures.add(ISLAND_POOL.submit(() -> {
+          Colony colony = new Colony(ctx, antColonyConfig, eventPublisher, sessionId);
+          Queue<CompactRoutes> inbox = inboxes.get(island);
+          Queue<CompactRoutes> next = inboxes.get((island + 1) % numIslands);
+
+          while (colony.getIteration() < antColonyConfig.NUM_ITERATIONS()
+              && System.currentTimeMillis() < deadline
+              && !Thread.currentThread().isInterrupted()
+              && !ctx.isTargetReached()) {
+            CompactRoutes migrant;
+            while ((migrant = inbox.poll()) != null) {
+              colony.acceptMigrant(migrant);
+            }
+            // Las soluciones externas se recalculan con A* para que su costo
+            // sea comparable con el de las hormigas
+            Routes incumbent;
+            while (island == 0 && (incumbent = incumbents.poll()) != null) {
+              Graph graph = colony.getGraph();
+              colony.acceptMigrant(graph.compact(graph.expand(graph.compact(incumbent))));
+            }
+
+            ConvergenceMetrics metrics = colony.iterate(deadline, startTime);
+            ctx.telemetry.iteration("island-ant-colony");
+            ctx.telemetry.evaluations(antColonyConfig.NUM_ANTS());
+            if (metrics == null) {
+              continue;
+            }
+            CompactRoutes best = colony.getBestSolution();
+            offerGlobalBest(best, colony.getGraph(), notifier);
+            ctx.reachedTarget(best.getCost());
+            if (numIslands > 1 && colony.getIteration() % migrationInterval == 0) {
+              next.offer(best);
+            }
+          }
+        }));
+      }
+
+      for (Future<?> future : futures) {
+        try {
+          future.get(Math.max(0, deadline - System.currentTimeMillis()) + 1000, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+          log.error("Ant colony island failed", e.getCause());
+        } catch (TimeoutException e) {
+          future.cancel(true);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+
+    synchronized (this) {
+      if (globalBest == null) {
+        publishCollapse(maxDuration);
+        return new OptimizerResult(null, Double.MAX_VALUE);
+      }
+      return new OptimizerResult(globalBestGraph.expand(globalBest), globalBest.getCost());
+    }
+  }
+
+  private void publishCollapse(Duration maxDuration) {
+    if (eventPublisher != null && sessionId != null) {
+      eventPublisher.publishEvent(new LogisticCollapseEvent(
+          sessionId,
+          "EMERGENCY_SOLUTION_ACTIVATED",
+          "Se activó solución de emergencia debido a falta de solución válida en " + maxDuration.toMinutes()
+              + " minutos",
+          LocalDateTime.now(),
+          0.7,
+          "Algoritmo de optimización"));
+    }
+  }
+
+  private synchronized void offerGlobalBest(CompactRoutes candidate, Graph graph, Notifier notifier) {
+    if (candidate == null || (globalBest != null && candidate.getCost() >= globalBest.getCost())) {
+      return;
+    }
+    globalBest = candidate;
+    globalBestGraph = graph;
+    if (notifier != null) {
+      notifier.notify(new OptimizerResult(candidate.decode(), candidate.getCost()));
+    }
+  }
+}
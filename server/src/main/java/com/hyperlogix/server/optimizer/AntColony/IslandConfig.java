@@ -0,0 +1,12 @@
+package com.hyperlogix.server.optimizer.AntColony;
+
+/**
+ * Configuración del modelo de islas (varias colonias independientes).
+ * @param NUM_ISLANDS Número de colonias ejecutándose en paralelo.
+ * @param MIGRATION_INTERVAL Iteraciones entre migraciones de la mejor solución
+ *                           hacia la siguiente isla del anillo.
+ */
+public record IslandConfig(
+    int NUM_ISLANDS,
+    int MIGRATION_INTERVAL) {
+}
@@ -0,0 +1,121 @@
+package com.hyperlogix.server.optimizer;
+
+import com.hyperlogix.server.domain.Path;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.domain.Stop;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solución codificada con enteros para uso interno de los optimizadores: por
+ * camión, la secuencia de índices de {@link NodeIndex} y los segundos desde el
+ * inicio del algoritmo hasta cada llegada. No guarda caminos; se convierte a
+ * {@link Routes} solo para publicar un resultado.
+ *
+ * Su costo es el combustible de las rutas más la penalización de
+ * {@link UnservedDemand}, para comparar soluciones parciales con las mismas
+ * reglas que el resto de estrategias; al decodificarse se conserva solo el
+ * combustible.
+ */
+public final class CompactRoutes {
+  private final NodeIndex index;
+  private final LocalDateTime startDate;
+  private final String[] truckIds;
+  private final int[][] stops;
+  private final int[][] arrivals;
+  private final double fuel;
+  private final double cost;
+
+  private CompactRoutes(NodeIndex index, LocalDateTime startDate, String[] truckIds, int[][] stops,
+      int[][] arrivals, double fuel, double cost) {
+    this.index = index;
+    this.startDate = startDate;
+    this.truckIds = truckIds;
+    this.stops = stops;
+    this.arrivals = arrivals;
+    this.fuel = fuel;
+    this.cost = cost;
+  }
+
+  public static CompactRoutes encode(Routes routes, NodeIndex index, LocalDateTime startDate) {
+    return encode(routes, index, startDate, 0);
+  }
+
+  /**
+   * @param penalty Penalización por demanda sin atender que se suma al costo.
+   */
+  public static CompactRoutes encode(Routes routes, NodeIndex index, LocalDateTime startDate,
+      double penalty) {
+    int trucks = routes.getStops().size();
+    String[] truckIds = new String[trucks];
+    int[][] stops = new int[trucks][];
+    int[][] arrivals = new int[trucks][];
+    int t = 0;
+    for (Map.Entry<String, List<Stop>> entry : routes.getStops().entrySet()) {
+      List<Stop> route = entry.getValue();
+      truckIds[t] = entry.getKey();
+      stops[t] = new int[route.size()];
+      arrivals[t] = new int[route.size()];
+      for (int i = 0; i < route.size(); i++) {
+        Stop stop = route.get(i);
+        stops[t][i] = index.indexOf(stop.getNode());
+        arrivals[t][i] = stop.getArrivalTime() != null
+            ? (int) Duration.between(startDate, stop.getArrivalTime()).toSeconds()
+            : 0;
+      }
+      t++;
+    }
+    return new CompactRoutes(index, startDate, truckIds, stops, arrivals, routes.getCost(),
+        routes.getCost() + penalty);
+  }
+
+  /**
+   * Rutas con paradas y horas de llegada, sin caminos. Para obtener los caminos
+   * reales se pasa el resultado por {@link Graph#processRoutesWithAStar}.
+   */
+  public Routes decode() {
+    Map<String, List<Stop>> routeStops = new HashMap<>();
+    Map<String, List<Path>> routePaths = new HashMap<>();
+    for (int t = 0; t < truckIds.length; t++) {
+      List<Stop> route = new ArrayList<>(stops[t].length);
+      for (int i = 0; i < stops[t].length; i++) {
+        route.add(new Stop(index.node(stops[t][i]), startDate.plusSeconds(arrivals[t][i])));
+      }
+      routeStops.put(truckIds[t], route);
+      routePaths.put(truckIds[t], new ArrayList<>());
+    }
+    return new Routes(routeStops, routePaths, fuel);
+  }
+
+  public NodeIndex getIndex() {
+    return index;
+  }
+
+  /**
+   * @return Combustible de las rutas más la penalización por demanda sin
+   *         atender.
+   */
+  public double getCost() {
+    return cost;
+  }
+
+  public int truckCount() {
+    return truckIds.length;
+  }
+
+  public String truckId(int truck) {
+    return truckIds[truck];
+  }
+
+  /**
+   * @return índices de las paradas del camión; el arreglo no debe modificarse.
+   */
+  public int[] stops(int truck) {
+    return stops[truck];
+  }
+}
@@ -0,0 +1,18 @@
+package com.hyperlogix.server.optimizer.Decomposition;
+
+/**
+ * Configuración de la planificación por descomposición (agrupar primero,
+ * rutear después).
+ * @param MIN_ORDERS Pedidos a partir de los cuales se divide la instancia; por
+ *                   debajo se resuelve entera.
+ * @param ORDERS_PER_CLUSTER Pedidos objetivo por grupo.
+ * @param KMEANS_ITERATIONS Iteraciones máximas de k-means.
+ * @param REPAIR_SHARE Fracción del presupuesto reservada para reparar la
+ *                     frontera entre grupos.
+ */
+public record DecompositionConfig(
+    int MIN_ORDERS,
+    int ORDERS_PER_CLUSTER,
+    int KMEANS_ITERATIONS,
+    double REPAIR_SHARE) {
+}
@@ -0,0 +1,259 @@
+package com.hyperlogix.server.optimizer.Decomposition;
+
+import com.hyperlogix.server.domain.Incident;
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Path;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.domain.Station;
+import com.hyperlogix.server.domain.Stop;
+import com.hyperlogix.server.domain.Truck;
+import com.hyperlogix.server.optimizer.AntColony.AntColonyConfig;
+import com.hyperlogix.server.optimizer.Decomposition.OrderClustering.Cluster;
+import com.hyperlogix.server.optimizer.Graph;
+import com.hyperlogix.server.optimizer.LocalSearch.LocalSearch;
+import com.hyperlogix.server.optimizer.LocalSearch.LocalSearchConfig;
+import com.hyperlogix.server.optimizer.Notifier;
+import com.hyperlogix.server.optimizer.Optimizer;
+import com.hyperlogix.server.optimizer.OptimizerContext;
+import com.hyperlogix.server.optimizer.OptimizerResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
+
+/**
+ * Planificación por descomposición: agrupa los pedidos por ubicación, reparte
+ * los camiones entre los grupos y resuelve cada grupo en paralelo con el
+ * optimizador configurado. Luego repara la frontera: los pedidos que ningún
+ * grupo atendió se resuelven con los camiones que quedaron libres y una
+ * búsqueda local mueve entregas entre camiones de grupos distintos.
+ *
+ * La capacidad diaria de las plantas intermedias se reparte entre los grupos
+ * según su parte de la demanda, para que dos grupos no cuenten con el mismo
+ * GLP; los pedidos sobrantes reciben la parte de su propia demanda, que su
+ * grupo no usó para entregarlos. La planta principal no se reparte. La
+ * búsqueda local de la frontera trabaja sobre la red completa y solo acepta
+ * movimientos que caben en la capacidad real. Los núcleos también se reparten:
+ * cada grupo recibe su parte al crear su optimizador.
+ */
+public class DecompositionOptimizer implements Optimizer {
+  private static final Logger log = LoggerFactory.getLogger(DecompositionOptimizer.class);
+  // Margen para que un grupo que ya venció el plazo termine su iteración
+  private static final long GRACE_MILLIS = 500;
+  private static final LocalSearchConfig REPAIR_SEARCH = new LocalSearchConfig(1, 3);
+  private static final ExecutorService CLUSTER_POOL = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "decomposition-cluster");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final DecompositionConfig config;
+  private final IntFunction<Optimizer> optimizerFactory;
+
+  /**
+   * @param optimizerFactory Crea un optimizador nuevo para cada grupo a partir
+   *                         de los núcleos que le tocan.
+   */
+  public DecompositionOptimizer(DecompositionConfig config, IntFunction<Optimizer> optimizerFactory) {
+    this.config = config;
+    this.optimizerFactory = optimizerFactory;
+  }
+
+  @Override
+  public OptimizerResult run(OptimizerContext ctx, Duration maxDuration, Notifier notifier) {
+    List<Order> orders = ctx.plgNetwork.getCalculatedOrders();
+    long receivingTrucks = ctx.plgNetwork.getTrucks().stream().filter(OrderClustering::receives).count();
+    int clusterCount = (int) Math.min(receivingTrucks,
+        (orders.size() + config.ORDERS_PER_CLUSTER() - 1) / Math.max(1, config.ORDERS_PER_CLUSTER()));
+    int cores = Runtime.getRuntime().availableProcessors();
+    if (orders.size() < config.MIN_ORDERS() || clusterCount < 2) {
+      return optimizerFactory.apply(cores).run(ctx, maxDuration, notifier);
+    }
+
+    long start = System.currentTimeMillis();
+    long deadline = start + maxDuration.toMillis();
+    Duration solveBudget = Duration.ofMillis((long) (maxDuration.toMillis() * (1 - config.REPAIR_SHARE())));
+    List<Incident> incidents = ctx.incidents != null ? ctx.incidents : List.of();
+
+    List<Cluster> clusters = new OrderClustering(config.KMEANS_ITERATIONS(), orders.size())
+        .cluster(orders, ctx.plgNetwork.getTrucks(), clusterCount);
+    log.info("Decomposition: {} orders in {} clusters", orders.size(), clusters.size());
+
+    int totalDemand = demand(orders);
+    int clusterCores = Math.max(1, cores / clusters.size());
+    List<Future<OptimizerResult>> futures = new ArrayList<>();
+    for (Cluster cluster : clusters) {
+      OptimizerContext clusterCtx = new OptimizerContext(subNetwork(ctx.plgNetwork, cluster.trucks(),
+          cluster.orders(), share(cluster.orders(), totalDemand)), ctx.algorithmStartDate, incidents, ctx.targetGap);
+      clusterCtx.telemetry = ctx.telemetry.subproblem();
+      clusterCtx.matrices = ctx.matrices;
+      futures.add(CLUSTER_POOL.submit(() -> optimizerFactory.apply(clusterCores).run(clusterCtx, solveBudget)));
+    }
+
+    Map<String, List<Stop>> stops = new HashMap<>();
+    Map<String, List<Path>> paths = new HashMap<>();
+    double cost = 0;
+    for (int i = 0; i < futures.size(); i++) {
+      Future<OptimizerResult> future = futures.get(i);
+      try {
+        long wait = Math.max(0, start + solveBudget.toMillis() - System.currentTimeMillis()) + GRACE_MILLIS;
+        OptimizerResult result = future.get(wait, TimeUnit.MILLISECONDS);
+        if (result != null && result.getRoutes() != null) {
+          stops.putAll(result.getRoutes().getStops());
+          paths.putAll(result.getRoutes().getPaths());
+          cost += result.getRoutes().getCost();
+        }
+      } catch (TimeoutException e) {
+        log.warn("Decomposition cluster {} exceeded the deadline", i);
+        future.cancel(true);
+      } catch (ExecutionException e) {
+        log.error("Decomposition cluster {} failed", i, e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.forEach(f -> f.cancel(true));
+        return new OptimizerResult(null, Double.MAX_VALUE);
+      }
+    }
+    Routes merged = new Routes(stops, paths, cost);
+
+    merged = solveLeftovers(ctx, merged, orders, totalDemand, incidents, deadline);
+    merged = repairBoundary(ctx, merged, incidents, deadline);
+
+    OptimizerResult result = new OptimizerResult(merged, ctx.score(merged));
+    if (notifier != null) {
+      notifier.notify(result);
+    }
+    return result;
+  }
+
+  @Override
+  public OptimizerResult run(OptimizerContext ctx, Duration maxDuration) {
+    return run(ctx, maxDuration, null);
+  }
+
+  /**
+   * Resuelve los pedidos que ningún grupo atendió con los camiones sin ruta,
+   * usando la mitad del tiempo que queda.
+   */
+  private Routes solveLeftovers(OptimizerContext ctx, Routes merged, List<Order> orders, int totalDemand,
+      List<Incident> incidents, long deadline) {
+    Set<String> served = new HashSet<>();
+    merged.getStops().values().forEach(route -> route.stream()
+        .filter(stop -> stop.getNode().getType() == NodeType.DELIVERY)
+        .forEach(stop -> served.add(stop.getNode().getId())));
+    List<Order> leftovers = orders.stream().filter(order -> !served.contains(order.getId())).toList();
+    List<Truck> idleTrucks = ctx.plgNetwork.getTrucks().stream()
+        .filter(OrderClustering::receives)
+        .filter(truck -> merged.getStops().getOrDefault(truck.getId(), List.of()).size() <= 1)
+        .toList();
+    long remaining = deadline - System.currentTimeMillis();
+    if (leftovers.isEmpty() || idleTrucks.isEmpty() || remaining <= 0) {
+      return merged;
+    }
+
+    log.info("Decomposition: solving {} leftover orders with {} idle trucks", leftovers.size(), idleTrucks.size());
+    OptimizerContext leftoverCtx = new OptimizerContext(subNetwork(ctx.plgNetwork, idleTrucks, leftovers,
+        share(leftovers, totalDemand)), ctx.algorithmStartDate, incidents, ctx.targetGap);
+    leftoverCtx.telemetry = ctx.telemetry.subproblem();
+    leftoverCtx.matrices = ctx.matrices;
+    OptimizerResult result = optimizerFactory.apply(Runtime.getRuntime().availableProcessors())
+        .run(leftoverCtx, Duration.ofMillis(remaining / 2));
+    if (result == null || result.getRoutes() == null) {
+      return merged;
+    }
+    Map<String, List<Stop>> stops = new HashMap<>(merged.getStops());
+    Map<String, List<Path>> paths = new HashMap<>(merged.getPaths());
+    stops.putAll(result.getRoutes().getStops());
+    paths.putAll(result.getRoutes().getPaths());
+    return new Routes(stops, paths, merged.getCost() + result.getRoutes().getCost());
+  }
+
+  /**
+   * Búsqueda local sobre el plan completo, que mueve entregas entre camiones de
+   * grupos vecinos; solo las rutas modificadas vuelven a pasar por A*.
+   */
+  private Routes repairBoundary(OptimizerContext ctx, Routes merged, List<Incident> incidents, long deadline) {
+    long remaining = deadline - System.currentTimeMillis();
+    if (remaining <= 0) {
+      return merged;
+    }
+    Routes improved = new LocalSearch(ctx.plgNetwork, incidents, REPAIR_SEARCH)
+        .improve(merged, ctx.algorithmStartDate, Duration.ofMillis(remaining));
+    if (improved == merged) {
+      return merged;
+    }
+
+    Map<String, List<Stop>> changedStops = new HashMap<>();
+    Map<String, List<Path>> changedPaths = new HashMap<>();
+    improved.getStops().forEach((truckId, route) -> {
+      if (route != merged.getStops().get(truckId)) {
+        changedStops.put(truckId, route);
+        changedPaths.put(truckId, new ArrayList<>());
+      }
+    });
+    Graph graph = new Graph(ctx.plgNetwork, ctx.algorithmStartDate, new AntColonyConfig(0, 0, 1, 2, 0, 0, 100),
+        incidents);
+    graph.attach(ctx);
+    Routes processed = graph.processRoutesWithAStar(new Routes(changedStops, changedPaths, 0),
+        ctx.algorithmStartDate);
+
+    Map<String, List<Stop>> stops = new HashMap<>(merged.getStops());
+    Map<String, List<Path>> paths = new HashMap<>(merged.getPaths());
+    stops.putAll(processed.getStops());
+    paths.putAll(processed.getPaths());
+    double previous = 0;
+    for (Truck truck : ctx.plgNetwork.getTrucks()) {
+      if (changedStops.containsKey(truck.getId())) {
+        for (Path path : merged.getPaths().getOrDefault(truck.getId(), List.of())) {
+          previous += truck.getFuelConsumption(path.length());
+        }
+      }
+    }
+    double cost = merged.getCost() - previous + processed.getCost();
+    return cost <= merged.getCost() ? new Routes(stops, paths, cost) : merged;
+  }
+
+  /**
+   * Red con los camiones y pedidos de un grupo y la parte {@code share} de la
+   * capacidad de las plantas intermedias; incidentes y bloqueos se comparten.
+   */
+  private static PLGNetwork subNetwork(PLGNetwork network, List<Truck> trucks, List<Order> orders, double share) {
+    List<Station> stations = new ArrayList<>(network.getStations().size());
+    for (Station station : network.getStations()) {
+      if (station.isMainStation()) {
+        stations.add(station);
+        continue;
+      }
+      Station part = station.clone();
+      part.setMaxCapacity((int) (station.getMaxCapacity() * share));
+      part.getAvailableCapacityPerDate().replaceAll((date, available) -> (int) (available * share));
+      stations.add(part);
+    }
+    return new PLGNetwork(new ArrayList<>(trucks), stations, new ArrayList<>(orders),
+        network.getIncidents(), network.getRoadblocks());
+  }
+
+  private static int demand(List<Order> orders) {
+    return orders.stream().mapToInt(order -> order.getRequestedGLP() - order.getDeliveredGLP()).sum();
+  }
+
+  private static double share(List<Order> orders, int totalDemand) {
+    return totalDemand > 0 ? (double) demand(orders) / totalDemand : 1;
+  }
+}
@@ -0,0 +1,179 @@
+package com.hyperlogix.server.optimizer.Decomposition;
+
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.domain.Truck;
+import com.hyperlogix.server.domain.TruckState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Agrupa los pedidos por ubicación con k-means (semillas k-means++) y reparte
+ * los camiones entre los grupos en proporción a su demanda, eligiendo para
+ * cada grupo los camiones más cercanos a su centro.
+ */
+class OrderClustering {
+  record Cluster(Point centroid, List<Order> orders, List<Truck> trucks) {
+  }
+
+  private final int iterations;
+  private final Random random;
+
+  OrderClustering(int iterations, long seed) {
+    this.iterations = iterations;
+    this.random = new Random(seed);
+  }
+
+  List<Cluster> cluster(List<Order> orders, List<Truck> trucks, int k) {
+    Point[] centroids = seed(orders, k);
+    int[] assignment = new int[orders.size()];
+    for (int iteration = 0; iteration < iterations; iteration++) {
+      boolean moved = false;
+      for (int i = 0; i < orders.size(); i++) {
+        int nearest = nearest(centroids, orders.get(i).getLocation());
+        if (nearest != assignment[i]) {
+          moved = true;
+          assignment[i] = nearest;
+        }
+      }
+      double[] sumX = new double[k];
+      double[] sumY = new double[k];
+      int[] count = new int[k];
+      for (int i = 0; i < orders.size(); i++) {
+        Point location = orders.get(i).getLocation();
+        sumX[assignment[i]] += location.x();
+        sumY[assignment[i]] += location.y();
+        count[assignment[i]]++;
+      }
+      for (int c = 0; c < k; c++) {
+        if (count[c] > 0) {
+          centroids[c] = new Point(sumX[c] / count[c], sumY[c] / count[c]);
+        }
+      }
+      if (!moved && iteration > 0) {
+        break;
+      }
+    }
+
+    List<Cluster> clusters = new ArrayList<>(k);
+    for (int c = 0; c < k; c++) {
+      clusters.add(new Cluster(centroids[c], new ArrayList<>(), new ArrayList<>()));
+    }
+    for (int i = 0; i < orders.size(); i++) {
+      clusters.get(assignment[i]).orders().add(orders.get(i));
+    }
+    clusters.removeIf(cluster -> cluster.orders().isEmpty());
+    assignTrucks(clusters, trucks);
+    return clusters;
+  }
+
+  /**
+   * Cada camión disponible va al grupo con mayor demanda aún sin cubrir,
+   * eligiendo el camión libre más cercano a su centro; los camiones que no
+   * reciben pedidos quedan en el grupo más cercano.
+   */
+  private void assignTrucks(List<Cluster> clusters, List<Truck> trucks) {
+    List<Truck> available = new ArrayList<>();
+    for (Truck truck : trucks) {
+      if (receives(truck)) {
+        available.add(truck);
+      } else if (!clusters.isEmpty()) {
+        clusters.get(nearestCluster(clusters, truck.getLocation())).trucks().add(truck);
+      }
+    }
+
+    double[] demand = new double[clusters.size()];
+    double[] capacity = new double[clusters.size()];
+    for (int c = 0; c < clusters.size(); c++) {
+      for (Order order : clusters.get(c).orders()) {
+        demand[c] += order.getRequestedGLP() - order.getDeliveredGLP();
+      }
+      demand[c] = Math.max(demand[c], 1);
+    }
+    while (!available.isEmpty()) {
+      int neediest = 0;
+      for (int c = 1; c < clusters.size(); c++) {
+        if (capacity[c] / demand[c] < capacity[neediest] / demand[neediest]) {
+          neediest = c;
+        }
+      }
+      Point centroid = clusters.get(neediest).centroid();
+      Truck closest = available.get(0);
+      for (Truck truck : available) {
+        if (distance(truck.getLocation(), centroid) < distance(closest.getLocation(), centroid)) {
+          closest = truck;
+        }
+      }
+      available.remove(closest);
+      clusters.get(neediest).trucks().add(closest);
+      capacity[neediest] += closest.getMaxCapacity();
+    }
+  }
+
+  static boolean receives(Truck truck) {
+    return truck.getStatus() != TruckState.MAINTENANCE
+        && truck.getStatus() != TruckState.BROKEN_DOWN
+        && truck.getStatus() != TruckState.RETURNING_TO_BASE;
+  }
+
+  /**
+   * Semillas k-means++: cada nueva semilla se elige con probabilidad
+   * proporcional a la distancia a la semilla más cercana.
+   */
+  private Point[] seed(List<Order> orders, int k) {
+    Point[] centroids = new Point[k];
+    centroids[0] = orders.get(random.nextInt(orders.size())).getLocation();
+    double[] weight = new double[orders.size()];
+    for (int c = 1; c < k; c++) {
+      double total = 0;
+      for (int i = 0; i < orders.size(); i++) {
+        Point location = orders.get(i).getLocation();
+        weight[i] = distance(location, centroids[nearest(centroids, c, location)]);
+        total += weight[i];
+      }
+      int chosen = random.nextInt(orders.size());
+      if (total > 0) {
+        double target = random.nextDouble() * total;
+        for (int i = 0; i < orders.size(); i++) {
+          target -= weight[i];
+          if (target <= 0) {
+            chosen = i;
+            break;
+          }
+        }
+      }
+      centroids[c] = orders.get(chosen).getLocation();
+    }
+    return centroids;
+  }
+
+  private static int nearest(Point[] centroids, Point location) {
+    return nearest(centroids, centroids.length, location);
+  }
+
+  private static int nearest(Point[] centroids, int count, Point location) {
+    int nearest = 0;
+    for (int c = 1; c < count; c++) {
+      if (distance(location, centroids[c]) < distance(location, centroids[nearest])) {
+        nearest = c;
+      }
+    }
+    return nearest;
+  }
+
+  private static int nearestCluster(List<Cluster> clusters, Point location) {
+    int nearest = 0;
+    for (int c = 1; c < clusters.size(); c++) {
+      if (distance(location, clusters.get(c).centroid()) < distance(location, clusters.get(nearest).centroid())) {
+        nearest = c;
+      }
+    }
+    return nearest;
+  }
+
+  static double distance(Point a, Point b) {
+    return Math.abs(a.x() - b.x()) + Math.abs(a.y() - b.y());
+  }
+}
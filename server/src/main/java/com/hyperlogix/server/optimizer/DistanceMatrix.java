@@ -0,0 +1,93 @@
+package com.hyperlogix.server.optimizer;
+
+import com.hyperlogix.server.config.Constants;
+import com.hyperlogix.server.domain.Node;
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Point;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distancias Manhattan entre pedidos en cálculo, plantas e incidentes, en una
+ * {@link IntMatrix}. Reemplaza al mapa de adyacencia en el recorrido de las
+ * hormigas: las mismas distancias sin un {@code Path} por par de nodos. Es de
+ * solo lectura y la comparten todos los grafos con los mismos nodos de una
+ * {@link MatrixArena}.
+ */
+public final class DistanceMatrix {
+  private final List<Node> nodes;
+  private final Map<Node, Integer> index;
+  private final IntMatrix distances;
+  // Distancia de cada nodo a la planta o pedido más cercano, -1 si no hay
+  private final int[] nearestSupply;
+
+  DistanceMatrix(List<Node> nodes, IntMatrix distances) {
+    this.nodes = List.copyOf(nodes);
+    this.distances = distances;
+    int size = this.nodes.size();
+    this.index = new HashMap<>(size * 2);
+    for (int i = 0; i < size; i++) {
+      index.put(this.nodes.get(i), i);
+    }
+
+    this.nearestSupply = new int[size];
+    for (int i = 0; i < size; i++) {
+      int nearest = -1;
+      for (int j = 0; j < size; j++) {
+        if (i == j) {
+          continue;
+        }
+        int distance = manhattan(this.nodes.get(i).getLocation(), this.nodes.get(j).getLocation());
+        distances.set(i, j, distance);
+        NodeType type = this.nodes.get(j).getType();
+        if ((type == NodeType.STATION || type == NodeType.DELIVERY) && (nearest < 0 || distance < nearest)) {
+          nearest = distance;
+        }
+      }
+      nearestSupply[i] = nearest;
+    }
+  }
+
+  /**
+   * Distancia Manhattan en km entre dos puntos del mapa, el modelo de distancia
+   * de todos los optimizadores; no supera a la de un camino de A*.
+   */
+  public static int manhattan(Point from, Point to) {
+    return (int) ((Math.abs(from.x() - to.x()) + Math.abs(from.y() - to.y())) * Constants.EDGE_LENGTH);
+  }
+
+  /**
+   * Pedidos, plantas e incidentes, en ese orden.
+   */
+  public List<Node> nodes() {
+    return nodes;
+  }
+
+  /**
+   * @return Distancia en km; para un nodo fuera de la matriz se calcula en el
+   *         momento.
+   */
+  public int distance(Node from, Node to) {
+    Integer i = index.get(from);
+    Integer j = index.get(to);
+    if (i == null || j == null) {
+      return manhattan(from.getLocation(), to.getLocation());
+    }
+    return distances.get(i, j);
+  }
+
+  /**
+   * @return Distancia del nodo a la planta o pedido más cercano (sin contarse
+   *         a sí mismo), o -1 si no está en la matriz o no hay ninguno.
+   */
+  public int nearestSupply(Node node) {
+    Integer i = index.get(node);
+    return i != null ? nearestSupply[i] : -1;
+  }
+
+  long offHeapBytes() {
+    return distances.offHeapBytes();
+  }
+}
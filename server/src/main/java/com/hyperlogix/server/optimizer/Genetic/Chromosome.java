@@ -1,38 +1,43 @@
 package com.hyperlogix.server.optimizer.Genetic;
 
-import com.hyperlogix.server.domain.*;
+import com.hyperlogix.server.optimizer.CompactRoutes;
+import com.hyperlogix.server.optimizer.Graph;
 import com.hyperlogix.server.optimizer.AntColony.Ant;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
-import java.util.*;
-
+/**
+ * Individuo del algoritmo genético. La semilla guarda la feromona de cada
+ * arista en un arreglo plano indexado por {@link SeedLayout}; {@code edges}
+ * son las posiciones de las aristas que recorren sus rutas, que se guardan
+ * codificadas.
+ */
 @Data
 @AllArgsConstructor
 public class Chromosome implements Cloneable {
-  private Map<Node, Map<Node, Double>> seed;
-  private Routes routes;
+  private double[] seed;
+  private CompactRoutes routes;
   private double fitness;
+  private int[] edges;
 
   @Override
   public Chromosome clone() {
     try {
       Chromosome cloned = (Chromosome) super.clone();
-      cloned.seed = new HashMap<>();
-      for (Map.Entry<Node, Map<Node, Double>> entry : this.seed.entrySet()) {
-        cloned.seed.put(entry.getKey(), new HashMap<>(entry.getValue()));
-      }
+      cloned.seed = new double[seed.length];
+      System.arraycopy(seed, 0, cloned.seed, 0, seed.length);
       return cloned;
     } catch (CloneNotSupportedException e) {
       throw new AssertionError();
     }
   }
 
-  public void recalculateFitness(Ant antSolver){
+  void recalculateFitness(Ant antSolver, SeedLayout layout, Graph graph) {
 
-    this.routes = antSolver.findSolution();
+    this.routes = graph.compact(antSolver.findSolution());
     this.fitness = routes.getCost();
+    this.edges = layout.edges(routes);
     antSolver.resetState();
   }
 }
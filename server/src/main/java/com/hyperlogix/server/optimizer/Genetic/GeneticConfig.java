@@ -1,10 +1,35 @@
 package com.hyperlogix.server.optimizer.Genetic;
 
+/**
+ * Configuración del algoritmo genético.
+ * @param PARALLELISM Hilos del pool de cada ejecución que evalúan el fitness
+ *                    (0 = todos los núcleos disponibles).
+ * @param STEADY_STATE Evolución de estado estacionario: cada hijo evaluado
+ *                     reemplaza de inmediato a un individuo peor, sin esperar
+ *                     al resto de la generación, hasta agotar el tiempo.
+ */
 public record GeneticConfig(
     int POPULATION_SIZE,
     int NUM_GENERATIONS,
     int TOURNAMENT_SIZE,
     double ELITISM_RATE,
     double CROSSOVER_RATE,
-    double MUTATION_RATE) {
+    double MUTATION_RATE,
+    int PARALLELISM,
+    boolean STEADY_STATE) {
+
+  /**
+   * Configuración generacional que usa todos los núcleos disponibles.
+   */
+  public GeneticConfig(int POPULATION_SIZE, int NUM_GENERATIONS, int TOURNAMENT_SIZE, double ELITISM_RATE,
+      double CROSSOVER_RATE, double MUTATION_RATE) {
+    this(POPULATION_SIZE, NUM_GENERATIONS, TOURNAMENT_SIZE, ELITISM_RATE, CROSSOVER_RATE, MUTATION_RATE, 0, false);
+  }
+
+  /**
+   * @return Número efectivo de hilos de evaluación.
+   */
+  public int parallelism() {
+    return PARALLELISM > 0 ? PARALLELISM : Runtime.getRuntime().availableProcessors();
+  }
 }
@@ -1,6 +1,7 @@
 package com.hyperlogix.server.optimizer.Genetic;
 
 import com.hyperlogix.server.domain.*;
+import com.hyperlogix.server.optimizer.CompactRoutes;
 import com.hyperlogix.server.optimizer.Graph;
 import com.hyperlogix.server.optimizer.Notifier;
 import com.hyperlogix.server.optimizer.Optimizer;
@@ -9,170 +10,212 @@ import com.hyperlogix.server.optimizer.OptimizerResult;
 import com.hyperlogix.server.optimizer.AntColony.Ant;
 import com.hyperlogix.server.optimizer.AntColony.AntColonyConfig;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.time.Duration;
 import java.time.LocalDateTime;
 
 public class GeneticOptimizer implements Optimizer {
+  private static final Logger log = LoggerFactory.getLogger(GeneticOptimizer.class);
+  // Lotes por hilo en cada generación: suficientes para que el work-stealing
+  // compense evaluaciones lentas sin encolar una tarea por individuo
+  private static final int BATCHES_PER_WORKER = 4;
+  private static final long NOTIFY_INTERVAL_MILLIS = 200;
+  private static final int REPLACE_ATTEMPTS = 3;
+
   private final GeneticConfig config;
-  private final ThreadLocal<Random> threadLocalRandom = ThreadLocal.withInitial(Random::new);
+  private final ExecutorService executor;
+  private final int parallelism;
 
+  /**
+   * Sin pool compartido cada ejecución crea el suyo y lo apaga al terminar; es
+   * para quien planifica una sola vez, como el trabajador remoto.
+   */
   public GeneticOptimizer(GeneticConfig geneticConfig) {
+    this(geneticConfig, null);
+  }
+
+  /**
+   * @param executor Pool de larga vida donde se evalúa el fitness; el
+   *                 optimizador no lo apaga. Los trabajadores del modo
+   *                 estacionario retienen sus hilos hasta el plazo, así que el
+   *                 pool debe tener hilos para todas las ejecuciones que lo
+   *                 comparten a la vez (ver {@link #newPool}). Si es null, se
+   *                 crea uno por ejecución.
+   */
+  public GeneticOptimizer(GeneticConfig geneticConfig, ExecutorService executor) {
     this.config = geneticConfig;
+    this.executor = executor;
+    this.parallelism = geneticConfig.parallelism();
+  }
+
+  /**
+   * Pool work-stealing acotado a {@code parallelism} hilos daemon, para una
+   * ejecución o para compartir entre varias si se dimensiona con la suma de
+   * sus paralelismos. Los hilos se crean a medida que se necesitan y los
+   * ociosos se retiran solos.
+   */
+  public static ForkJoinPool newPool(int parallelism) {
+    return new ForkJoinPool(parallelism, pool -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("genetic-worker-" + thread.getPoolIndex());
+      return thread;
+    }, null, true);
+  }
+
+  /**
+   * Grafo y hormiga reutilizables por una tarea de evaluación. Se toman de una
+   * cola por ejecución en lugar de ThreadLocal para no retener datos de
+   * ejecuciones anteriores en los hilos del pool.
+   */
+  private record Evaluator(Graph graph, Ant ant) {
   }
 
   @Override
   public OptimizerResult run(OptimizerContext context, Duration timeLimit, Notifier notifier) {
+    if (executor != null) {
+      return evolve(context, timeLimit, notifier, executor);
+    }
+    ForkJoinPool pool = newPool(parallelism);
+    try {
+      return evolve(context, timeLimit, notifier, pool);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private OptimizerResult evolve(OptimizerContext context, Duration timeLimit, Notifier notifier,
+      ExecutorService pool) {
+    final long deadline = System.currentTimeMillis() + timeLimit.toMillis();
     final PLGNetwork network = context.plgNetwork;
     final List<Incident> incidents = context.incidents != null ? context.incidents : List.of();
     final LocalDateTime startTime = context.algorithmStartDate;
     int eliteSelection = (int) (config.POPULATION_SIZE() * config.ELITISM_RATE());
     final AntColonyConfig antColonyConfig = new AntColonyConfig(0, 0, 1, 2, 0, 0, 100);
 
-    ThreadLocal<Graph> threadLocalGraph = ThreadLocal.withInitial(() -> new Graph(network, startTime, antColonyConfig));
-
-    ThreadLocal<Ant> threadLocalAnt = ThreadLocal.withInitial(() -> {
-      Graph graph = threadLocalGraph.get();
-      return new Ant(network, graph, antColonyConfig, incidents);
-    });
-
-    AtomicReference<Chromosome> bestOverallRef = new AtomicReference<>(null);
-
-    // Usar un contenedor para la población que es final pero su contenido puede
-    // cambiar
-    final AtomicReference<List<Chromosome>> populationRef = new AtomicReference<>(
-        initializePopulation(network, startTime, threadLocalGraph, threadLocalAnt));
-
-    int threadsToUse = Math.min(Runtime.getRuntime().availableProcessors(), 4);
-    ExecutorService executorService = Executors.newFixedThreadPool(threadsToUse);
-
-    try {
-      List<Chromosome> elite = Collections.synchronizedList(new ArrayList<>());
-      List<Chromosome> population = populationRef.get();
-
-      if (!population.isEmpty()) {
-        synchronized (population) {
-          population.sort(Comparator.comparingDouble(Chromosome::getFitness));
-          for (int i = 0; i < eliteSelection && i < population.size(); i++) {
-            elite.add(population.get(i).clone());
-          }
-        }
+    Queue<Evaluator> idle = new ConcurrentLinkedQueue<>();
+    Graph template = new Graph(network, startTime, antColonyConfig);
+    template.attach(context);
+    final SeedLayout layout = new SeedLayout(template.getPheromoneLayout());
+    final double[] initialSeed = template.getPheromones().clone();
+    idle.add(new Evaluator(template, new Ant(network, template, antColonyConfig, incidents)));
+
+    Function<Function<Evaluator, Chromosome>, Chromosome> withEvaluator = task -> {
+      Evaluator evaluator = idle.poll();
+      if (evaluator == null) {
+        Graph graph = template.withPheromones(template.getPheromones());
+        evaluator = new Evaluator(graph, new Ant(network, graph, antColonyConfig, incidents));
+      }
+      try {
+        return task.apply(evaluator);
+      } finally {
+        idle.add(evaluator);
+      }
+    };
+
+    // Población inicial: semillas aleatorias a partir de la feromona inicial
+    List<Chromosome> population = evaluateInBatches(pool, config.POPULATION_SIZE(), deadline, i -> withEvaluator.apply(evaluator -> {
+      Random random = ThreadLocalRandom.current();
+      double[] seed = initialSeed.clone();
+      for (int k = 0; k < seed.length; k++) {
+        seed[k] *= random.nextDouble();
       }
 
-      for (int gen = 0; gen < config.NUM_GENERATIONS(); gen++) {
-        population = populationRef.get();
-        if (population.isEmpty()) {
-          System.err.println("Warning: Population became empty during generation " + gen);
-          break;
-        }
+      Graph graph = evaluator.graph().withPheromones(seed);
+      Ant ant = evaluator.ant();
+      ant.setGraph(graph);
+      CompactRoutes routes = graph.compact(ant.findSolution());
+      ant.resetState();
 
-        List<Chromosome> newPopulation = Collections.synchronizedList(new ArrayList<>());
-        List<Future<?>> futures = new ArrayList<>();
+      return new Chromosome(seed, routes, routes.getCost(), layout.edges(routes));
+    }));
+    context.telemetry.evaluations(population.size());
 
-        for (int i = 0; i < config.POPULATION_SIZE(); i++) {
-          futures.add(executorService.submit(() -> {
-            Random random = threadLocalRandom.get();
-            Graph graph = threadLocalGraph.get();
-            Ant ant = threadLocalAnt.get();
-            List<Chromosome> currentPop = populationRef.get();
+    if (population.isEmpty()) {
+      log.warn("Genetic run produced no valid initial individual");
+      return new OptimizerResult(null, Double.MAX_VALUE);
+    }
 
-            Chromosome parent1, parent2;
-            synchronized (currentPop) {
-              parent1 = tournamentSelection(currentPop, random);
-              parent2 = tournamentSelection(currentPop, random);
-            }
+    if (config.STEADY_STATE()) {
+      Chromosome best = evolveSteadyState(pool, population, withEvaluator, layout, deadline, context, notifier);
+      return new OptimizerResult(template.expand(best.getRoutes()), best.getFitness());
+    }
 
-            Chromosome[] children = crossover(parent1, parent2);
+    Chromosome bestOverall = null;
+    population.sort(Comparator.comparingDouble(Chromosome::getFitness));
+    List<Chromosome> elite = new ArrayList<>();
+    for (int i = 0; i < eliteSelection && i < population.size(); i++) {
+      elite.add(population.get(i).clone());
+    }
 
-            Chromosome bestOverall = bestOverallRef.get();
-            mutate(children[0], bestOverall, random);
+    for (int gen = 0; gen < config.NUM_GENERATIONS(); gen++) {
+      if (population.isEmpty()) {
+        log.warn("Population became empty during generation {}", gen);
+        break;
+      }
+      if (Thread.currentThread().isInterrupted() || System.currentTimeMillis() >= deadline
+          || context.isTargetReached()) {
+        break;
+      }
 
-            Graph childGraph = graph.clone();
-            childGraph.setPheromoneMap(children[0].getSeed());
-            ant.setGraph(childGraph);
-            children[0].recalculateFitness(ant);
-            ant.resetState();
-            synchronized (newPopulation) {
-              newPopulation.add(children[0]);
-            }
+      final List<Chromosome> parents = population;
+      final Chromosome best = bestOverall;
+      List<Chromosome> newPopulation = evaluateInBatches(pool, config.POPULATION_SIZE(), deadline,
+          i -> withEvaluator.apply(evaluator -> {
+            Random random = ThreadLocalRandom.current();
+            Chromosome parent1 = tournamentSelection(parents, random);
+            Chromosome parent2 = tournamentSelection(parents, random);
+            return breed(parent1, parent2, best, evaluator, layout, random);
           }));
-        }
+      context.telemetry.iteration("genetic");
+      context.telemetry.evaluations(newPopulation.size());
 
-        for (Future<?> future : futures) {
-          try {
-            future.get();
-          } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-            Thread.currentThread().interrupt();
-          }
-        }
-
-        synchronized (newPopulation) {
-          newPopulation.sort(Comparator.comparingDouble(Chromosome::getFitness));
-
-          for (int i = 0; i < eliteSelection && i < elite.size(); i++) {
-            if (i < newPopulation.size()) {
-              newPopulation.set(newPopulation.size() - 1 - i, elite.get(i).clone());
-            }
-          }
-
-          newPopulation.sort(Comparator.comparingDouble(Chromosome::getFitness));
-
-          // Actualizar la referencia a la población en lugar de reasignar la variable
-          populationRef.set(new ArrayList<>(newPopulation));
-
-          elite.clear();
-          List<Chromosome> updatedPopulation = populationRef.get();
-          for (int i = 0; i < eliteSelection && i < updatedPopulation.size(); i++) {
-            elite.add(updatedPopulation.get(i).clone());
-          }
-
-          if (!updatedPopulation.isEmpty()) {
-            Chromosome currentBest = updatedPopulation.get(0);
-            Chromosome previous = bestOverallRef.get();
-            if (previous == null || currentBest.getFitness() < previous.getFitness()) {
-              bestOverallRef.set(currentBest.clone());
-            }
-          }
+      newPopulation.sort(Comparator.comparingDouble(Chromosome::getFitness));
+      for (int i = 0; i < eliteSelection && i < elite.size(); i++) {
+        if (i < newPopulation.size()) {
+          newPopulation.set(newPopulation.size() - 1 - i, elite.get(i).clone());
         }
+      }
+      newPopulation.sort(Comparator.comparingDouble(Chromosome::getFitness));
+      population = newPopulation;
 
-        population = populationRef.get();
-        if (notifier != null) {
-          notifier.notify(new OptimizerResult(
-              bestOverallRef.get().getRoutes(),
-              bestOverallRef.get() != null ? bestOverallRef.get().getFitness() : Double.MAX_VALUE));
+      elite.clear();
+      for (int i = 0; i < eliteSelection && i < population.size(); i++) {
+        elite.add(population.get(i).clone());
+      }
 
-        } else if (!population.isEmpty()) {
-        } else {
-          System.out.println("Generation " + gen + " - No valid solutions found yet.");
+      if (!population.isEmpty()) {
+        Chromosome currentBest = population.get(0);
+        if (bestOverall == null || currentBest.getFitness() < bestOverall.getFitness()) {
+          bestOverall = currentBest.clone();
+          context.reachedTarget(bestOverall.getFitness());
         }
       }
-    } finally {
-      executorService.shutdown();
-      try {
-        if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
-          executorService.shutdownNow();
-        }
-      } catch (InterruptedException e) {
-        executorService.shutdownNow();
-        Thread.currentThread().interrupt();
+
+      if (notifier != null && bestOverall != null) {
+        notifier.notify(new OptimizerResult(bestOverall.getRoutes().decode(), bestOverall.getFitness()));
+      } else if (population.isEmpty()) {
+        log.debug("Generation {} - no valid solutions found yet", gen);
       }
     }
 
-    Chromosome bestOverall = bestOverallRef.get();
-    List<Chromosome> finalPopulation = populationRef.get();
-
-    if (bestOverall == null && !finalPopulation.isEmpty()) {
-      bestOverall = finalPopulation.get(0);
+    if (bestOverall == null && !population.isEmpty()) {
+      bestOverall = population.get(0);
     }
 
     if (bestOverall == null) {
       return new OptimizerResult(null, Double.MAX_VALUE);
     }
 
-    return new OptimizerResult(bestOverall.getRoutes(), bestOverall.getFitness());
+    return new OptimizerResult(template.expand(bestOverall.getRoutes()), bestOverall.getFitness());
   }
 
   // This is the default method from the interface that will be called if no
@@ -183,62 +226,166 @@ public class GeneticOptimizer implements Optimizer {
     return run(ctx, maxDuration, null);
   }
 
-  private List<Chromosome> initializePopulation(PLGNetwork network, LocalDateTime startTime,
-      ThreadLocal<Graph> threadLocalGraph, ThreadLocal<Ant> threadLocalAnt) {
+  /**
+   * Cruza, muta y evalúa un hijo con el grafo y la hormiga del evaluador.
+   */
+  private Chromosome breed(Chromosome parent1, Chromosome parent2, Chromosome best, Evaluator evaluator,
+      SeedLayout layout, Random random) {
+    Chromosome[] children = crossover(parent1, parent2);
+    mutate(children[0], best, random);
+
+    Graph childGraph = evaluator.graph().withPheromones(children[0].getSeed());
+    Ant ant = evaluator.ant();
+    ant.setGraph(childGraph);
+    children[0].recalculateFitness(ant, layout, childGraph);
+    ant.resetState();
+    return children[0];
+  }
+
+  /**
+   * Evolución de estado estacionario sin barrera entre generaciones: cada hilo
+   * cría y evalúa un hijo, lo inserta de inmediato en lugar del peor de un
+   * torneo inverso si lo mejora y empieza el siguiente. Termina al agotar el
+   * tiempo o tras {@code NUM_GENERATIONS * POPULATION_SIZE} evaluaciones, lo
+   * mismo que el modo generacional. {@code initial} no puede estar vacía.
+   */
+  private Chromosome evolveSteadyState(ExecutorService pool, List<Chromosome> initial,
+      Function<Function<Evaluator, Chromosome>, Chromosome> withEvaluator, SeedLayout layout, long deadline,
+      OptimizerContext context, Notifier notifier) {
+    AtomicReferenceArray<Chromosome> population = new AtomicReferenceArray<>(initial.toArray(new Chromosome[0]));
+    AtomicReference<Chromosome> bestRef = new AtomicReference<>(
+        Collections.min(initial, Comparator.comparingDouble(Chromosome::getFitness)).clone());
+    AtomicInteger remaining = new AtomicInteger(config.NUM_GENERATIONS() * config.POPULATION_SIZE());
+
+    Runnable worker = () -> {
+      while (System.currentTimeMillis() < deadline && remaining.getAndDecrement() > 0
+          && !Thread.currentThread().isInterrupted() && !context.isTargetReached()) {
+        Chromosome child = withEvaluator.apply(evaluator -> {
+          Random random = ThreadLocalRandom.current();
+          Chromosome parent1 = tournamentSelection(population, random);
+          Chromosome parent2 = tournamentSelection(population, random);
+          return breed(parent1, parent2, bestRef.get(), evaluator, layout, random);
+        });
+        replaceWorse(population, child, ThreadLocalRandom.current());
+        context.telemetry.iteration("genetic");
+        context.telemetry.evaluations(1);
+        Chromosome best = bestRef.accumulateAndGet(child, (current, candidate) ->
+            candidate.getFitness() < current.getFitness() ? candidate.clone() : current);
+        context.reachedTarget(best.getFitness());
+      }
+    };
 
-    List<Chromosome> population = Collections.synchronizedList(new ArrayList<>());
-    int threadsToUse = Math.min(Runtime.getRuntime().availableProcessors(), 4);
-    ExecutorService executorService = Executors.newFixedThreadPool(threadsToUse);
+    List<Future<?>> workers = new ArrayList<>(parallelism);
+    for (int i = 0; i < parallelism; i++) {
+      workers.add(pool.submit(worker));
+    }
 
+    // Las notificaciones salen del hilo que llamó a run, no de los trabajadores
+    Chromosome notified = null;
     try {
-      List<Future<?>> futures = new ArrayList<>();
-
-      for (int i = 0; i < config.POPULATION_SIZE(); i++) {
-        futures.add(executorService.submit(() -> {
-          Graph graph = threadLocalGraph.get().clone();
-          Ant ant = threadLocalAnt.get();
-          Random random = threadLocalRandom.get();
-
-          Map<Node, Map<Node, Double>> seedMap = graph.getPheromoneMap();
-          for (Node origin : seedMap.keySet()) {
-            for (Node destination : seedMap.get(origin).keySet()) {
-              seedMap.get(origin).put(destination, seedMap.get(origin).get(destination) * random.nextDouble());
+      for (Future<?> future : workers) {
+        while (true) {
+          try {
+            future.get(NOTIFY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            break;
+          } catch (TimeoutException e) {
+            Chromosome best = bestRef.get();
+            if (notifier != null && best != notified) {
+              notifier.notify(new OptimizerResult(best.getRoutes().decode(), best.getFitness()));
+              notified = best;
             }
+          } catch (ExecutionException e) {
+            log.error("Genetic steady-state worker failed", e.getCause());
+            break;
           }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      workers.forEach(future -> future.cancel(true));
+    }
 
-          ant.setGraph(graph);
-          Routes routes = ant.findSolution();
-          ant.resetState();
-
-          Chromosome chromosome = new Chromosome(new HashMap<>(seedMap), routes, routes.getCost());
+    Chromosome best = bestRef.get();
+    if (notifier != null && best != notified) {
+      notifier.notify(new OptimizerResult(best.getRoutes().decode(), best.getFitness()));
+    }
+    return best;
+  }
 
-          synchronized (population) {
-            population.add(chromosome);
-          }
-        }));
+  private Chromosome tournamentSelection(AtomicReferenceArray<Chromosome> population, Random random) {
+    Chromosome winner = null;
+    for (int i = 0; i < config.TOURNAMENT_SIZE(); i++) {
+      Chromosome candidate = population.get(random.nextInt(population.length()));
+      if (winner == null || candidate.getFitness() < winner.getFitness()) {
+        winner = candidate;
       }
+    }
+    return winner;
+  }
 
-      for (Future<?> future : futures) {
-        try {
-          future.get();
-        } catch (InterruptedException | ExecutionException e) {
-          e.printStackTrace();
-          Thread.currentThread().interrupt();
+  /**
+   * Reemplaza al peor de un torneo inverso si el hijo es mejor. Si otro hilo
+   * cambió ese lugar mientras tanto, se reintenta con un nuevo torneo.
+   */
+  private void replaceWorse(AtomicReferenceArray<Chromosome> population, Chromosome child, Random random) {
+    for (int attempt = 0; attempt < REPLACE_ATTEMPTS; attempt++) {
+      int worst = random.nextInt(population.length());
+      Chromosome worstChromosome = population.get(worst);
+      for (int i = 1; i < config.TOURNAMENT_SIZE(); i++) {
+        int slot = random.nextInt(population.length());
+        Chromosome candidate = population.get(slot);
+        if (candidate.getFitness() > worstChromosome.getFitness()) {
+          worst = slot;
+          worstChromosome = candidate;
         }
       }
-    } finally {
-      executorService.shutdown();
-      try {
-        if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
-          executorService.shutdownNow();
-        }
-      } catch (InterruptedException e) {
-        executorService.shutdownNow();
-        Thread.currentThread().interrupt();
+      if (child.getFitness() >= worstChromosome.getFitness()) {
+        return;
+      }
+      if (population.compareAndSet(worst, worstChromosome, child)) {
+        return;
       }
     }
+  }
+
+  /**
+   * Ejecuta {@code count} evaluaciones repartidas en lotes contiguos sobre el
+   * pool y espera a que terminen. Las evaluaciones que fallan se descartan y,
+   * pasado {@code deadline}, los lotes no empiezan evaluaciones nuevas.
+   */
+  private List<Chromosome> evaluateInBatches(ExecutorService pool, int count, long deadline,
+      IntFunction<Chromosome> task) {
+    int batches = Math.min(count, parallelism * BATCHES_PER_WORKER);
+    List<Callable<List<Chromosome>>> calls = new ArrayList<>(batches);
+    for (int b = 0; b < batches; b++) {
+      int from = (int) ((long) count * b / batches);
+      int to = (int) ((long) count * (b + 1) / batches);
+      calls.add(() -> {
+        List<Chromosome> results = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+          // Cada lote evalúa al menos un individuo aunque se haya agotado el tiempo
+          if (i > from && System.currentTimeMillis() >= deadline) {
+            break;
+          }
+          results.add(task.apply(i));
+        }
+        return results;
+      });
+    }
 
-    return population;
+    List<Chromosome> results = new ArrayList<>(count);
+    try {
+      for (Future<List<Chromosome>> future : pool.invokeAll(calls)) {
+        try {
+          results.addAll(future.get());
+        } catch (ExecutionException e) {
+          log.warn("Genetic evaluation batch failed", e.getCause());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return results;
   }
 
   private Chromosome tournamentSelection(List<Chromosome> population, Random random) {
@@ -251,81 +398,42 @@ public class GeneticOptimizer implements Optimizer {
     return Collections.min(tournament, Comparator.comparingDouble(Chromosome::getFitness));
   }
 
+
   private Chromosome[] crossover(Chromosome parent1, Chromosome parent2) {
     Chromosome best = parent1.getFitness() < parent2.getFitness() ? parent1 : parent2;
     Chromosome worst = parent1.getFitness() < parent2.getFitness() ? parent2 : parent1;
 
     Chromosome child = best.clone();
-
-    Map<Node, Map<Node, Double>> bestSeed = best.getSeed();
-    Routes bestRoutes = best.getRoutes();
-
-    Map<Node, Map<Node, Double>> worstSeed = worst.getSeed();
-    Routes worstRoutes = worst.getRoutes();
-
-    for (String truck : bestRoutes.getStops().keySet()) {
-      List<Stop> route = bestRoutes.getStops().get(truck);
-      for (int i = 0; i < route.size() - 1; i++) {
-        Node origin = route.get(i).getNode();
-        Node destination = route.get(i + 1).getNode();
-
-        if (bestSeed.containsKey(origin) && bestSeed.get(origin).containsKey(destination)
-            && worstSeed.containsKey(origin) && worstSeed.get(origin).containsKey(destination)) {
-
-          double difference = bestSeed.get(origin).get(destination) - worstSeed.get(origin).get(destination);
-          double currentValue = child.getSeed().get(origin).getOrDefault(destination, 0.0);
-          double updated = currentValue + difference * config.CROSSOVER_RATE();
-
-          child.getSeed().computeIfAbsent(origin, k -> new HashMap<>()).put(destination, updated);
-        }
-      }
+    double[] childSeed = child.getSeed();
+    double[] bestSeed = best.getSeed();
+    double[] worstSeed = worst.getSeed();
+    double rate = config.CROSSOVER_RATE();
+
+    // Empuja la semilla del hijo en la dirección mejor - peor sobre las aristas
+    // que recorre cada padre
+    for (int edge : best.getEdges()) {
+      childSeed[edge] += (bestSeed[edge] - worstSeed[edge]) * rate;
     }
-
-    for (String truck : worstRoutes.getStops().keySet()) {
-      List<Stop> route = worstRoutes.getStops().get(truck);
-      for (int i = 0; i < route.size() - 1; i++) {
-        Node origin = route.get(i).getNode();
-        Node destination = route.get(i + 1).getNode();
-
-        if (bestSeed.containsKey(origin) && bestSeed.get(origin).containsKey(destination)
-            && worstSeed.containsKey(origin) && worstSeed.get(origin).containsKey(destination)) {
-
-          double pheromone = bestSeed.get(origin).get(destination) - worstSeed.get(origin).get(destination);
-          double currentValue = child.getSeed().get(origin).getOrDefault(destination, 0.0);
-          double updated = currentValue + pheromone * config.CROSSOVER_RATE();
-
-          child.getSeed().computeIfAbsent(origin, k -> new HashMap<>()).put(destination, updated);
-        }
-      }
+    for (int edge : worst.getEdges()) {
+      childSeed[edge] += (bestSeed[edge] - worstSeed[edge]) * rate;
     }
 
     return new Chromosome[] { child };
   }
 
   private void mutate(Chromosome chromosome, Chromosome bestOverall, Random random) {
-    Routes routes = chromosome.getRoutes();
-
-    for (String truck : routes.getStops().keySet()) {
-      List<Stop> route = routes.getStops().get(truck);
-      for (int i = 0; i < route.size() - 1; i++) {
-        Node origin = route.get(i).getNode();
-        Node destination = route.get(i + 1).getNode();
-
-        if (chromosome.getSeed().containsKey(origin) && chromosome.getSeed().get(origin).containsKey(destination)) {
-
-          double probability = chromosome.getSeed().get(origin).get(destination);
-
-          if (bestOverall == null) {
-            double updated = probability + (random.nextDouble() - 0.5) * config.MUTATION_RATE();
-            chromosome.getSeed().get(origin).put(destination, updated);
-          } else if (bestOverall.getSeed().containsKey(origin)
-              && bestOverall.getSeed().get(origin).containsKey(destination)) {
-            double differenceWithBest = bestOverall.getSeed().get(origin).get(destination) - probability;
-            double updated = probability + differenceWithBest * config.MUTATION_RATE();
-            chromosome.getSeed().get(origin).put(destination, updated);
-          }
-        }
+    double[] seed = chromosome.getSeed();
+    double rate = config.MUTATION_RATE();
+
+    if (bestOverall == null) {
+      for (int edge : chromosome.getEdges()) {
+        seed[edge] += (random.nextDouble() - 0.5) * rate;
+      }
+    } else {
+      double[] bestSeed = bestOverall.getSeed();
+      for (int edge : chromosome.getEdges()) {
+        seed[edge] += (bestSeed[edge] - seed[edge]) * rate;
       }
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.hyperlogix.server.optimizer.Genetic;
+
+import com.hyperlogix.server.optimizer.CompactRoutes;
+import com.hyperlogix.server.optimizer.NodeIndex;
+import com.hyperlogix.server.optimizer.PheromoneLayout;
+
+import java.util.Arrays;
+
+/**
+ * La semilla de un cromosoma es una matriz de feromonas con la numeración de
+ * {@link PheromoneLayout} del grafo: se le pasa a las hormigas sin copiarla.
+ * Se construye una vez por ejecución y la comparten todos los cromosomas.
+ */
+class SeedLayout {
+  private final PheromoneLayout pheromoneLayout;
+
+  SeedLayout(PheromoneLayout pheromoneLayout) {
+    this.pheromoneLayout = pheromoneLayout;
+  }
+
+  /**
+   * @return posiciones de las aristas recorridas por las rutas, en orden.
+   */
+  int[] edges(CompactRoutes routes) {
+    if (routes == null) {
+      return new int[0];
+    }
+    int count = 0;
+    for (int truck = 0; truck < routes.truckCount(); truck++) {
+      count += Math.max(0, routes.stops(truck).length - 1);
+    }
+    NodeIndex nodeIndex = routes.getIndex();
+    int[] edges = new int[count];
+    int n = 0;
+    for (int truck = 0; truck < routes.truckCount(); truck++) {
+      int[] route = routes.stops(truck);
+      for (int i = 0; i < route.length - 1; i++) {
+        int edge = pheromoneLayout.edge(nodeIndex.node(route[i]), nodeIndex.node(route[i + 1]));
+        if (edge >= 0) {
+          edges[n++] = edge;
+        }
+      }
+    }
+    return Arrays.copyOf(edges, n);
+  }
+}
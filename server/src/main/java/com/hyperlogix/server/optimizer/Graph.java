@@ -1,99 +1,149 @@
 package com.hyperlogix.server.optimizer;
 
-import com.hyperlogix.server.config.Constants;
 import com.hyperlogix.server.domain.*;
 import com.hyperlogix.server.optimizer.AntColony.AntColonyConfig;
+import com.hyperlogix.server.optimizer.Kernels.PheromoneKernels;
 import com.hyperlogix.server.util.AStar;
-import lombok.Data;
-import lombok.Setter;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
-@Data
+/**
+ * Grafo de planificación: un núcleo inmutable compartido ({@link GraphCore})
+ * más la matriz de feromonas propia de este grafo, guardada en un
+ * {@code double[]} plano con la numeración de {@link PheromoneLayout}. Clonar o
+ * derivar un grafo solo copia (o reemplaza) la feromona; la planificación a la
+ * que pertenece (telemetría y arena de matrices) también es de cada grafo y
+ * los derivados la heredan.
+ */
 public class Graph implements Cloneable {
-  private final PLGNetwork plgNetwork;
-  private final AntColonyConfig antColonyConfig;
-  private final List<Incident> incidents;
-  private LocalDateTime algorithmStartDate;
-  @Setter
+  private final GraphCore core;
+  private double[] pheromones;
   private Map<Node, Map<Node, Double>> pheromoneMap;
-
-  private Map<Node, Map<Node, Path>> adjacencyMapCache;
-  private LocalDateTime lastAdjacencyMapUpdateTime;
-  private Set<Roadblock> lastActiveRoadblocks;
+  private PlanningTelemetry telemetry;
+  private MatrixArena matrices;
+  private volatile DistanceMatrix distances;
 
   public Graph(PLGNetwork network, LocalDateTime algorithmStartDate, AntColonyConfig antColonyConfig) {
-    this.plgNetwork = network;
-    this.algorithmStartDate = algorithmStartDate;
-    this.antColonyConfig = antColonyConfig;
-    this.incidents = List.of();
-    this.pheromoneMap = createPheromoneMap();
-    this.adjacencyMapCache = null;
-    this.lastAdjacencyMapUpdateTime = null;
-    this.lastActiveRoadblocks = new HashSet<>(); // Initialize to empty set
+    this(network, algorithmStartDate, antColonyConfig, List.of());
   }
 
   public Graph(PLGNetwork network, LocalDateTime algorithmStartDate, AntColonyConfig antColonyConfig, List<Incident> incidents) {
-    this.plgNetwork = network;
-    this.algorithmStartDate = algorithmStartDate;
-    this.antColonyConfig = antColonyConfig;
-    this.incidents = incidents != null ? incidents : List.of();
-    this.pheromoneMap = createPheromoneMap();
-    this.adjacencyMapCache = null;
-    this.lastAdjacencyMapUpdateTime = null;
-    this.lastActiveRoadblocks = new HashSet<>(); // Initialize to empty set
+    this.core = new GraphCore(network, algorithmStartDate, antColonyConfig, incidents);
+    setPheromones(core.pheromoneLayout.filled(antColonyConfig.INITIAL_PHEROMONE()));
+  }
+
+  private Graph(Graph parent, double[] pheromones) {
+    this.core = parent.core;
+    this.telemetry = parent.telemetry;
+    this.matrices = parent.matrices;
+    this.distances = parent.distances;
+    setPheromones(pheromones);
+  }
+
+  /**
+   * Asocia el grafo a la planificación de {@code ctx}: suma a su telemetría el
+   * tiempo de A* y toma las matrices de su arena. Los grafos que se deriven
+   * después de él heredan la asociación; no se modifica el núcleo compartido.
+   */
+  public void attach(OptimizerContext ctx) {
+    this.telemetry = ctx.telemetry;
+    this.matrices = ctx.matrices;
+    this.distances = null;
+  }
+
+  /**
+   * Grafo que comparte el núcleo inmutable de este y usa {@code pheromones}
+   * sin copiarla (por ejemplo, la semilla de un cromosoma).
+   */
+  public Graph withPheromones(double[] pheromones) {
+    return new Graph(this, pheromones);
+  }
+
+  public PLGNetwork getPlgNetwork() {
+    return core.plgNetwork;
+  }
+
+  public LocalDateTime getAlgorithmStartDate() {
+    return core.algorithmStartDate;
+  }
+
+  public AntColonyConfig getAntColonyConfig() {
+    return core.antColonyConfig;
+  }
+
+  public List<Incident> getIncidents() {
+    return core.incidents;
+  }
+
+  public NodeIndex getNodeIndex() {
+    return core.nodeIndex;
+  }
+
+  /**
+   * Codifica una solución con la numeración de nodos de este grafo; su costo
+   * incluye la penalización de {@link UnservedDemand} sobre la red del grafo.
+   */
+  public CompactRoutes compact(Routes routes) {
+    return CompactRoutes.encode(routes, core.nodeIndex, core.algorithmStartDate,
+        UnservedDemand.penalty(core.plgNetwork, routes));
+  }
+
+  /**
+   * Decodifica una solución y calcula sus caminos reales con A*.
+   */
+  public Routes expand(CompactRoutes routes) {
+    return processRoutesWithAStar(routes.decode(), core.algorithmStartDate);
+  }
+
+  /**
+   * @return Vista por nodo de la matriz de feromonas; las escrituras modifican
+   *         la matriz.
+   */
+  public Map<Node, Map<Node, Double>> getPheromoneMap() {
+    return pheromoneMap;
+  }
+
+  public double[] getPheromones() {
+    return pheromones;
+  }
+
+  public PheromoneLayout getPheromoneLayout() {
+    return core.pheromoneLayout;
+  }
+
+  /**
+   * @return Feromona de la arista, o {@code fallback} si alguno de los nodos no
+   *         tiene feromona.
+   */
+  public double getPheromone(Node origin, Node destination, double fallback) {
+    int edge = core.pheromoneLayout.edge(origin, destination);
+    return edge >= 0 ? pheromones[edge] : fallback;
   }
-  public Map<Node, Map<Node, Path>> createAdjacencyMap(LocalDateTime currentTime) {
-    // For adjacency map creation, we use Manhattan distance without A*
-    List<Node> ordersNode = plgNetwork.getCalculatedOrders().stream()
-        .map(Node::new)
-        .toList();
-    List<Node> stationsNodes = plgNetwork.getStations().stream()
-        .map(Node::new)
-        .toList();
-    List<Node> incidentNodes = incidents.stream()
-        .map(Node::new)
-        .toList();
-
-    List<Node> allNodes = new java.util.ArrayList<>(ordersNode);
-    allNodes.addAll(stationsNodes);
-    allNodes.addAll(incidentNodes);
-    Map<Node, Map<Node, Path>> newAdjacencyMap = new HashMap<>();
-
-    for (int i = 0; i < allNodes.size(); i++) {
-      Node origin = allNodes.get(i);
-      for (int j = i + 1; j < allNodes.size(); j++) {
-        Node destination = allNodes.get(j);
-
-        newAdjacencyMap.putIfAbsent(origin, new HashMap<>());
-        newAdjacencyMap.putIfAbsent(destination, new HashMap<>());
-
-        // Use Manhattan distance instead of A*
-        int manhattanDistance = calculateManhattanDistance(origin.getLocation(), destination.getLocation());
-        // Create a simple path with just start and end points for distance calculation
-        List<Point> simplePath = List.of(origin.getLocation(), destination.getLocation());
-        Path path = new Path(simplePath, manhattanDistance);
-
-        newAdjacencyMap.get(origin).put(destination, path);
-        newAdjacencyMap.get(destination).put(origin, path);
-      }
-    }
 
-    this.adjacencyMapCache = newAdjacencyMap;
-    this.lastAdjacencyMapUpdateTime = currentTime;
-    this.lastActiveRoadblocks = new HashSet<>(); // Reset since we're not using roadblocks for adjacency
-    return newAdjacencyMap;
+  private void setPheromones(double[] pheromones) {
+    this.pheromones = pheromones;
+    this.pheromoneMap = core.pheromoneLayout.view(pheromones);
   }
 
-  private int calculateManhattanDistance(Point from, Point to) {
-    return (int) ((Math.abs(from.x() - to.x()) + Math.abs(from.y() - to.y())) * Constants.EDGE_LENGTH);
+  /**
+   * @return Distancias Manhattan entre pedidos en cálculo, plantas e
+   *         incidentes: la matriz de la arena de la planificación si el grafo
+   *         pertenece a una, o la propia del núcleo.
+   */
+  public DistanceMatrix getDistances() {
+    DistanceMatrix result = distances;
+    if (result == null) {
+      MatrixArena arena = matrices;
+      result = arena != null ? arena.distances(core.nodes(true)) : core.distances();
+      distances = result;
+    }
+    return result;
   }
 
   /**
@@ -101,6 +151,17 @@ public class Graph implements Cloneable {
    * times
    */
   public Routes processRoutesWithAStar(Routes routes, LocalDateTime algorithmStartTime) {
+    long start = System.nanoTime();
+    try {
+      return findPaths(routes, algorithmStartTime);
+    } finally {
+      if (telemetry != null) {
+        telemetry.aStar(System.nanoTime() - start);
+      }
+    }
+  }
+
+  private Routes findPaths(Routes routes, LocalDateTime algorithmStartTime) {
     Map<String, List<Stop>> processedRoutes = new HashMap<>();
     Map<String, List<Path>> processedPaths = new HashMap<>();
     double totalCost = 0.0;
@@ -134,7 +195,7 @@ public class Graph implements Cloneable {
             fromLocation,
             toLocation,
             currentStop.getArrivalTime(),
-            plgNetwork.getRoadblocks());
+            core.plgNetwork.getRoadblocks());
 
         if (actualPath.isEmpty()) {
           // If A* fails, use direct path as fallback
@@ -145,14 +206,14 @@ public class Graph implements Cloneable {
         // points
         int totalDistance = 0;
         for (int j = 0; j < actualPath.size() - 1; j++) {
-          totalDistance += calculateManhattanDistance(actualPath.get(j), actualPath.get(j + 1));
+          totalDistance += DistanceMatrix.manhattan(actualPath.get(j), actualPath.get(j + 1));
         }
 
         Path realPath = new Path(actualPath, totalDistance);
         processedPathList.add(realPath);
 
         // Calculate actual arrival time based on path length
-        Truck truck = plgNetwork.getTrucks().stream()
+        Truck truck = core.plgNetwork.getTrucks().stream()
             .filter(t -> t.getId().equals(truckId))
             .findFirst()
             .orElse(null);
@@ -177,83 +238,100 @@ public class Graph implements Cloneable {
     return new Routes(processedRoutes, processedPaths, totalCost);
   }
 
-  public Map<Node, Map<Node, Double>> createPheromoneMap() {
-    Map<Node, Map<Node, Double>> pheromoneMap = new HashMap<>();
-    List<Node> ordersNode = plgNetwork.getOrders().stream()
-        .map(Node::new)
-        .toList();
-    List<Node> stationsNodes = plgNetwork.getStations().stream()
-        .map(Node::new)
-        .toList();
-    List<Node> incidentNodes = incidents.stream()
-        .map(Node::new)
-        .toList();
-    List<Node> allNodes = new java.util.ArrayList<>(ordersNode);
-    allNodes.addAll(stationsNodes);
-    allNodes.addAll(incidentNodes);
-    for (Node origin : allNodes) {
-      pheromoneMap.put(origin, new HashMap<>());
-      for (Node destination : allNodes) {
-        if (!origin.equals(destination)) {
-          pheromoneMap.get(origin).put(destination, antColonyConfig.INITIAL_PHEROMONE());
+  public void updatePheromoneMap(List<CompactRoutes> solutions, AntColonyConfig antColonyConfig) {
+    PheromoneKernels kernels = PheromoneKernels.get();
+    kernels.scale(pheromones, pheromones.length, 1 - antColonyConfig.RHO());
+    for (CompactRoutes solution : solutions) {
+      deposit(kernels, solution, antColonyConfig.Q() / solution.getCost());
+    }
+  }
+
+  /**
+   * MAX-MIN Ant System update: evaporates every trail, deposits only along the
+   * given best solution and clamps every value into [tauMin, tauMax].
+   */
+  public void updatePheromoneMapMaxMin(CompactRoutes best, AntColonyConfig antColonyConfig, double tauMin, double tauMax) {
+    PheromoneKernels kernels = PheromoneKernels.get();
+    kernels.scale(pheromones, pheromones.length, 1 - antColonyConfig.RHO());
+    if (best != null && best.getCost() > 0) {
+      deposit(kernels, best, antColonyConfig.Q() / best.getCost());
+    }
+    kernels.clamp(pheromones, tauMin, tauMax);
+  }
+
+  /**
+   * Deposita {@code amount} en las aristas de la solución, sin contar la que
+   * sale de la ubicación de cada camión.
+   */
+  private void deposit(PheromoneKernels kernels, CompactRoutes solution, double amount) {
+    NodeIndex index = solution.getIndex();
+    for (int truck = 0; truck < solution.truckCount(); truck++) {
+      int[] route = solution.stops(truck);
+      int[] edges = new int[Math.max(0, route.length - 2)];
+      int count = 0;
+      for (int i = 1; i < route.length - 1; i++) {
+        int edge = core.pheromoneLayout.edge(index.node(route[i]), index.node(route[i + 1]));
+        if (edge >= 0) {
+          edges[count++] = edge;
         }
       }
+      kernels.deposit(pheromones, edges, count, amount);
     }
-    return pheromoneMap;
   }
 
-  public void updatePheromoneMap(List<Routes> solutions, AntColonyConfig antColonyConfig) {
-    // Evaporate pheromones
-    for (Node origin : pheromoneMap.keySet()) {
-      for (Node destination : pheromoneMap.get(origin).keySet()) {
-        pheromoneMap.get(origin).compute(destination, (k, pheromone) -> pheromone * (1 - antColonyConfig.RHO()));
-      }
+  /**
+   * Re-initializes every trail to the given value (MAX-MIN restarts use tauMax).
+   */
+  public void resetPheromoneMap(double value) {
+    Arrays.fill(pheromones, value);
+  }
+
+  /**
+   * Average lambda-branching factor over each node's candidate list (its
+   * {@link GraphCore#CANDIDATES} nearest nodes): number of candidate trails
+   * whose pheromone is at least tauMin + lambda * (tauMax - tauMin). With the
+   * MAX-MIN bounds, rows that never received a deposit evaporate below the
+   * cutoff, so values close to 1 mean the colony follows a single tour.
+   *
+   * @param tauMin lower bound of the trails, or NaN to use each row's minimum.
+   * @param tauMax upper bound of the trails, or NaN to use each row's maximum.
+   */
+  public double getBranchingFactor(double lambda, double tauMin, double tauMax) {
+    int size = core.pheromoneLayout.size();
+    if (size == 0) {
+      return 0.0;
     }
-    // Add pheromones based on solutions
-    for (Routes solution : solutions) {
-      double addPheromone = antColonyConfig.Q() / solution.getCost();
-      for (String truck : solution.getStops().keySet()) {
-        List<Stop> route = solution.getStops().get(truck);
-        for (int i = 1; i < route.size() - 1; i++) {
-          Node origin = route.get(i).getNode();
-          Node destination = route.get(i + 1).getNode();
-          pheromoneMap.get(origin).compute(destination, (k, pheromone) -> pheromone + addPheromone);
+    int[][] candidates = core.candidateLists();
+    double total = 0;
+    for (int i = 0; i < size; i++) {
+      double min = tauMin;
+      double max = tauMax;
+      if (Double.isNaN(min) || Double.isNaN(max)) {
+        min = Double.MAX_VALUE;
+        max = -Double.MAX_VALUE;
+        for (int j : candidates[i]) {
+          min = Math.min(min, pheromones[i * size + j]);
+          max = Math.max(max, pheromones[i * size + j]);
+        }
+      }
+      double cutoff = min + lambda * (max - min);
+      for (int j : candidates[i]) {
+        if (pheromones[i * size + j] >= cutoff) {
+          total++;
         }
       }
     }
+    return total / size;
   }
 
+  /**
+   * Copia la feromona y comparte el núcleo inmutable.
+   */
   @Override
   public Graph clone() {
     try {
       Graph cloned = (Graph) super.clone();
-      cloned.pheromoneMap = new HashMap<>();
-      for (Map.Entry<Node, Map<Node, Double>> entry : this.pheromoneMap.entrySet()) {
-        cloned.pheromoneMap.put(entry.getKey(), new HashMap<>(entry.getValue()));
-      }
-
-      // Clone adjacencyMapCache
-      if (this.adjacencyMapCache != null) {
-        cloned.adjacencyMapCache = new HashMap<>();
-        for (Map.Entry<Node, Map<Node, Path>> entry : this.adjacencyMapCache.entrySet()) {
-          // Assuming Path objects are immutable or can be shared.
-          // If Path objects are mutable and their state affects caching, a deep clone of
-          // Paths might be needed.
-          cloned.adjacencyMapCache.put(entry.getKey(), new HashMap<>(entry.getValue()));
-        }
-      } else {
-        cloned.adjacencyMapCache = null;
-      }
-
-      cloned.lastAdjacencyMapUpdateTime = this.lastAdjacencyMapUpdateTime; // LocalDateTime is immutable
-
-      if (this.lastActiveRoadblocks != null) {
-        cloned.lastActiveRoadblocks = new HashSet<>(this.lastActiveRoadblocks); // Roadblock is a record (immutable by
-                                                                                // default)
-      } else {
-        cloned.lastActiveRoadblocks = null;
-      }
-
+      cloned.setPheromones(pheromones.clone());
       return cloned;
     } catch (CloneNotSupportedException e) {
       throw new AssertionError();
@@ -0,0 +1,119 @@
+package com.hyperlogix.server.optimizer;
+
+import com.hyperlogix.server.domain.Incident;
+import com.hyperlogix.server.domain.Node;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.optimizer.AntColony.AntColonyConfig;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Parte inmutable de un {@link Graph}: red, configuración, incidentes, la
+ * numeración de nodos de {@link CompactRoutes}, la de la matriz de feromona, la
+ * matriz de distancias Manhattan entre pedidos, plantas e incidentes y las
+ * listas de candidatos. Todos los grafos derivados con {@link Graph#clone()} o
+ * {@link Graph#withPheromones(double[])} la comparten sin copiarla; la
+ * feromona y la planificación a la que pertenecen son de cada grafo.
+ */
+final class GraphCore {
+  // Largo de la lista de candidatos de cada nodo para el factor de ramificación
+  static final int CANDIDATES = 10;
+
+  final PLGNetwork plgNetwork;
+  final LocalDateTime algorithmStartDate;
+  final AntColonyConfig antColonyConfig;
+  final List<Incident> incidents;
+  final NodeIndex nodeIndex;
+  final PheromoneLayout pheromoneLayout;
+
+  private volatile DistanceMatrix distances;
+  private volatile int[][] candidateLists;
+
+  GraphCore(PLGNetwork plgNetwork, LocalDateTime algorithmStartDate, AntColonyConfig antColonyConfig,
+      List<Incident> incidents) {
+    this.plgNetwork = plgNetwork;
+    this.algorithmStartDate = algorithmStartDate;
+    this.antColonyConfig = antColonyConfig;
+    this.incidents = incidents != null ? incidents : List.of();
+    this.nodeIndex = new NodeIndex(nodes(false));
+    this.pheromoneLayout = new PheromoneLayout(nodes(false));
+  }
+
+  /**
+   * Pedidos, plantas e incidentes, en ese orden.
+   */
+  List<Node> nodes(boolean calculatedOrdersOnly) {
+    List<Node> allNodes = new ArrayList<>();
+    (calculatedOrdersOnly ? plgNetwork.getCalculatedOrders() : plgNetwork.getOrders()).stream()
+        .map(Node::new)
+        .forEach(allNodes::add);
+    plgNetwork.getStations().stream().map(Node::new).forEach(allNodes::add);
+    incidents.stream().map(Node::new).forEach(allNodes::add);
+    return allNodes;
+  }
+
+  /**
+   * Matriz de distancias en el heap entre {@code nodes(true)}, calculada la
+   * primera vez que se pide, para los grafos que no pertenecen a una
+   * planificación con arena.
+   */
+  DistanceMatrix distances() {
+    DistanceMatrix result = distances;
+    if (result == null) {
+      synchronized (this) {
+        result = distances;
+        if (result == null) {
+          result = MatrixArena.unshared(nodes(true));
+          distances = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Para cada nodo de la matriz de feromona, sus {@link #CANDIDATES} vecinos
+   * más cercanos en la numeración de {@link PheromoneLayout}; se calculan la
+   * primera vez que se piden.
+   */
+  int[][] candidateLists() {
+    int[][] result = candidateLists;
+    if (result == null) {
+      synchronized (this) {
+        result = candidateLists;
+        if (result == null) {
+          result = buildCandidateLists();
+          candidateLists = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  private int[][] buildCandidateLists() {
+    List<Node> nodes = pheromoneLayout.nodes();
+    int size = nodes.size();
+    int[][] lists = new int[size][];
+    for (int i = 0; i < size; i++) {
+      Point origin = nodes.get(i).getLocation();
+      Integer[] others = new Integer[size - 1];
+      for (int j = 0, k = 0; j < size; j++) {
+        if (j != i) {
+          others[k++] = j;
+        }
+      }
+      Arrays.sort(others, Comparator.comparingInt(j -> DistanceMatrix.manhattan(origin, nodes.get(j).getLocation())));
+      int length = Math.min(CANDIDATES, others.length);
+      lists[i] = new int[length];
+      for (int k = 0; k < length; k++) {
+        lists[i][k] = others[k];
+      }
+    }
+    return lists;
+  }
+}
@@ -0,0 +1,15 @@
+package com.hyperlogix.server.optimizer;
+
+import com.hyperlogix.server.domain.Routes;
+
+/**
+ * Optimizador que puede incorporar, mientras se ejecuta, una buena solución
+ * encontrada por otro optimizador (por ejemplo dentro de un portafolio).
+ */
+public interface IncumbentAware {
+  /**
+   * Puede llamarse desde otro hilo; la solución se toma en cuenta en la
+   * siguiente iteración.
+   */
+  void offerIncumbent(Routes incumbent);
+}
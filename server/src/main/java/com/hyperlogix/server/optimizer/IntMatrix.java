@@ -0,0 +1,93 @@
+package com.hyperlogix.server.optimizer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Matriz cuadrada de enteros guardada en un arreglo plano o, fuera del heap,
+ * en un buffer directo. La fila {@code i} empieza en {@code i * size}, como
+ * en {@link PheromoneLayout}.
+ */
+public interface IntMatrix {
+  int size();
+
+  int get(int i, int j);
+
+  void set(int i, int j, int value);
+
+  /**
+   * @return Bytes reservados fuera del heap; 0 si vive en el heap.
+   */
+  long offHeapBytes();
+
+  static IntMatrix onHeap(int size) {
+    return new Heap(size);
+  }
+
+  static IntMatrix offHeap(int size) {
+    return new Direct(size);
+  }
+
+  final class Heap implements IntMatrix {
+    private final int size;
+    private final int[] values;
+
+    private Heap(int size) {
+      this.size = size;
+      this.values = new int[size * size];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public int get(int i, int j) {
+      return values[i * size + j];
+    }
+
+    @Override
+    public void set(int i, int j, int value) {
+      values[i * size + j] = value;
+    }
+
+    @Override
+    public long offHeapBytes() {
+      return 0;
+    }
+  }
+
+  final class Direct implements IntMatrix {
+    private final int size;
+    private final IntBuffer values;
+
+    private Direct(int size) {
+      this.size = size;
+      this.values = ByteBuffer.allocateDirect(size * size * Integer.BYTES)
+          .order(ByteOrder.nativeOrder())
+          .asIntBuffer();
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public int get(int i, int j) {
+      return values.get(i * size + j);
+    }
+
+    @Override
+    public void set(int i, int j, int value) {
+      values.put(i * size + j, value);
+    }
+
+    @Override
+    public long offHeapBytes() {
+      return (long) values.capacity() * Integer.BYTES;
+    }
+  }
+}
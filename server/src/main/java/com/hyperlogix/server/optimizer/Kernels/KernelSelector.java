@@ -0,0 +1,38 @@
+package com.hyperlogix.server.optimizer.Kernels;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Elige la implementación de {@link PheromoneKernels}. La versión vectorial se
+ * carga por reflexión para que la JVM no resuelva las clases del módulo
+ * incubado cuando no está disponible. La propiedad
+ * {@code hyperlogix.kernels.scalar=true} fuerza la versión escalar.
+ */
+final class KernelSelector {
+  private static final Logger log = LoggerFactory.getLogger(KernelSelector.class);
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+  private static final String VECTOR_KERNELS = "com.hyperlogix.server.optimizer.Kernels.VectorPheromoneKernels";
+
+  static final PheromoneKernels INSTANCE = select();
+
+  private KernelSelector() {
+  }
+
+  private static PheromoneKernels select() {
+    PheromoneKernels kernels = new ScalarPheromoneKernels();
+    if (!Boolean.getBoolean("hyperlogix.kernels.scalar")
+        && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+      try {
+        kernels = (PheromoneKernels) Class.forName(VECTOR_KERNELS)
+            .getDeclaredConstructor()
+            .newInstance();
+      } catch (ReflectiveOperationException | LinkageError e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        log.warn("Vector kernels unavailable, using scalar fallback: {}", cause.toString());
+      }
+    }
+    log.info("Pheromone kernels: {}", kernels.name());
+    return kernels;
+  }
+}
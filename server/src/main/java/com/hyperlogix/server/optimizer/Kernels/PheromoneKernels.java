@@ -0,0 +1,43 @@
+package com.hyperlogix.server.optimizer.Kernels;
+
+/**
+ * Operaciones sobre arreglos planos de feromona y de puntajes de transición.
+ * La implementación se elige una vez al cargar la clase: con el módulo
+ * {@code jdk.incubator.vector} disponible (JVM iniciada con
+ * {@code --add-modules jdk.incubator.vector}) se usan instrucciones SIMD; si
+ * no, la versión escalar.
+ */
+public interface PheromoneKernels {
+  /**
+   * Multiplica los primeros {@code length} valores por {@code factor}
+   * (evaporación y normalización).
+   */
+  void scale(double[] values, int length, double factor);
+
+  /**
+   * Limita cada valor al intervalo {@code [min, max]} (MAX-MIN).
+   */
+  void clamp(double[] values, double min, double max);
+
+  /**
+   * Suma {@code amount} en cada posición de {@code edges}; una arista repetida
+   * recibe el depósito una vez por aparición.
+   */
+  void deposit(double[] values, int[] edges, int count, double amount);
+
+  /**
+   * Atractivo de cada candidato: {@code out[i] = tau[i]^alpha * eta[i]^beta}.
+   *
+   * @return suma de los atractivos.
+   */
+  double attractiveness(double[] tau, double[] eta, int length, double alpha, double beta, double[] out);
+
+  /**
+   * @return nombre de la implementación, para los registros.
+   */
+  String name();
+
+  static PheromoneKernels get() {
+    return KernelSelector.INSTANCE;
+  }
+}
@@ -0,0 +1,70 @@
+package com.hyperlogix.server.optimizer.Kernels;
+
+/**
+ * Versión escalar de {@link PheromoneKernels}; también resuelve el resto de
+ * los arreglos que no llenan un vector completo.
+ */
+class ScalarPheromoneKernels implements PheromoneKernels {
+  @Override
+  public void scale(double[] values, int length, double factor) {
+    scale(values, 0, length, factor);
+  }
+
+  static void scale(double[] values, int from, int to, double factor) {
+    for (int i = from; i < to; i++) {
+      values[i] *= factor;
+    }
+  }
+
+  @Override
+  public void clamp(double[] values, double min, double max) {
+    clamp(values, 0, values.length, min, max);
+  }
+
+  static void clamp(double[] values, int from, int to, double min, double max) {
+    for (int i = from; i < to; i++) {
+      values[i] = Math.max(min, Math.min(max, values[i]));
+    }
+  }
+
+  @Override
+  public void deposit(double[] values, int[] edges, int count, double amount) {
+    for (int i = 0; i < count; i++) {
+      values[edges[i]] += amount;
+    }
+  }
+
+  @Override
+  public double attractiveness(double[] tau, double[] eta, int length, double alpha, double beta, double[] out) {
+    return attractiveness(tau, eta, 0, length, alpha, beta, out);
+  }
+
+  static double attractiveness(double[] tau, double[] eta, int from, int to, double alpha, double beta,
+      double[] out) {
+    double sum = 0;
+    for (int i = from; i < to; i++) {
+      out[i] = power(tau[i], alpha) * power(eta[i], beta);
+      sum += out[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Los exponentes 1 y 2 son los más usados y se resuelven sin
+   * {@link Math#pow}.
+   */
+  private static double power(double value, double exponent) {
+    if (exponent == 1) {
+      return value;
+    }
+    if (exponent == 2) {
+      return value * value;
+    }
+    return Math.pow(value, exponent);
+  }
+
+  @Override
+  public String name() {
+    return "scalar";
+  }
+}
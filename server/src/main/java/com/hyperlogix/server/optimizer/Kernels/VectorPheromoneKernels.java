@@ -0,0 +1,77 @@
+package com.hyperlogix.server.optimizer.Kernels;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Versión SIMD de {@link PheromoneKernels} con el ancho de vector preferido de
+ * la CPU. Solo se carga si el módulo {@code jdk.incubator.vector} está en la
+ * JVM; el resto que no llena un vector se resuelve con la versión escalar.
+ * El depósito sigue siendo escalar: las aristas de una ruta pueden repetirse y
+ * una dispersión vectorial perdería sumas.
+ */
+class VectorPheromoneKernels implements PheromoneKernels {
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  VectorPheromoneKernels() {
+    // Con un solo carril no hay ganancia frente a la versión escalar
+    if (SPECIES.length() < 2) {
+      throw new UnsupportedOperationException("No SIMD lanes for double on this CPU");
+    }
+  }
+
+  @Override
+  public void scale(double[] values, int length, double factor) {
+    int bound = SPECIES.loopBound(length);
+    for (int i = 0; i < bound; i += SPECIES.length()) {
+      DoubleVector.fromArray(SPECIES, values, i).mul(factor).intoArray(values, i);
+    }
+    ScalarPheromoneKernels.scale(values, bound, length, factor);
+  }
+
+  @Override
+  public void clamp(double[] values, double min, double max) {
+    int bound = SPECIES.loopBound(values.length);
+    for (int i = 0; i < bound; i += SPECIES.length()) {
+      DoubleVector.fromArray(SPECIES, values, i).max(min).min(max).intoArray(values, i);
+    }
+    ScalarPheromoneKernels.clamp(values, bound, values.length, min, max);
+  }
+
+  @Override
+  public void deposit(double[] values, int[] edges, int count, double amount) {
+    for (int i = 0; i < count; i++) {
+      values[edges[i]] += amount;
+    }
+  }
+
+  @Override
+  public double attractiveness(double[] tau, double[] eta, int length, double alpha, double beta, double[] out) {
+    int bound = SPECIES.loopBound(length);
+    DoubleVector sum = DoubleVector.zero(SPECIES);
+    for (int i = 0; i < bound; i += SPECIES.length()) {
+      DoubleVector score = power(DoubleVector.fromArray(SPECIES, tau, i), alpha)
+          .mul(power(DoubleVector.fromArray(SPECIES, eta, i), beta));
+      score.intoArray(out, i);
+      sum = sum.add(score);
+    }
+    return sum.reduceLanes(VectorOperators.ADD)
+        + ScalarPheromoneKernels.attractiveness(tau, eta, bound, length, alpha, beta, out);
+  }
+
+  private static DoubleVector power(DoubleVector value, double exponent) {
+    if (exponent == 1) {
+      return value;
+    }
+    if (exponent == 2) {
+      return value.mul(value);
+    }
+    return value.lanewise(VectorOperators.POW, exponent);
+  }
+
+  @Override
+  public String name() {
+    return "vector (" + SPECIES.length() + " lanes)";
+  }
+}
@@ -0,0 +1,513 @@
+package com.hyperlogix.server.optimizer.LocalSearch;
+
+import com.hyperlogix.server.domain.Incident;
+import com.hyperlogix.server.domain.Node;
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Path;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.domain.Station;
+import com.hyperlogix.server.domain.Stop;
+import com.hyperlogix.server.domain.Truck;
+import com.hyperlogix.server.domain.TruckState;
+import com.hyperlogix.server.optimizer.DistanceMatrix;
+import com.hyperlogix.server.optimizer.RouteEvaluator;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Búsqueda local sobre las rutas devueltas por un optimizador. Aplica 2-opt y
+ * Or-opt dentro de cada camión y relocate / swap de entregas entre camiones.
+ * Los movimientos dentro de una ruta se filtran con la variación de distancia
+ * en O(1); los movimientos entre rutas usan {@link RouteEvaluator} para obtener
+ * en O(1) la variación exacta de combustible y la factibilidad (capacidad,
+ * combustible y plazos de entrega). Antes de aceptar un movimiento se valida la
+ * capacidad de las plantas y que el consumo de combustible disminuya.
+ *
+ * El resultado contiene únicamente paradas; los caminos reales deben
+ * calcularse luego con {@code Graph.processRoutesWithAStar}.
+ */
+public class LocalSearch {
+  private static final double EPSILON = 1e-9;
+
+  private final LocalSearchConfig config;
+  private final Map<String, Truck> trucks;
+  private final Map<String, Station> stations;
+  private final Map<String, Order> orders;
+  private final Map<String, Incident> incidents;
+
+  private Map<StationDay, Integer> stationUsage;
+  private Map<StationDay, Integer> stationLimit;
+
+  public LocalSearch(PLGNetwork network, List<Incident> incidents, LocalSearchConfig config) {
+    this.config = config;
+    this.trucks = network.getTrucks().stream()
+        .collect(Collectors.toMap(Truck::getId, Function.identity(), (a, b) -> a));
+    this.stations = network.getStations().stream()
+        .collect(Collectors.toMap(Station::getId, Function.identity(), (a, b) -> a));
+    this.orders = network.getOrders().stream()
+        .collect(Collectors.toMap(Order::getId, Function.identity(), (a, b) -> a));
+    this.incidents = (incidents != null ? incidents : List.<Incident>of()).stream()
+        .collect(Collectors.toMap(Incident::getTruckCode, Function.identity(), (a, b) -> a));
+  }
+
+  /**
+   * Mejora las rutas dentro del tiempo indicado.
+   *
+   * @return las rutas mejoradas, o la misma instancia si no se encontró ninguna
+   *         mejora.
+   */
+  public Routes improve(Routes routes, LocalDateTime algorithmStartDate, Duration budget) {
+    if (routes == null || budget.isZero() || budget.isNegative()) {
+      return routes;
+    }
+    long deadline = System.currentTimeMillis() + budget.toMillis();
+
+    List<TruckRoute> truckRoutes = buildTruckRoutes(routes, algorithmStartDate);
+    if (truckRoutes.isEmpty()) {
+      return routes;
+    }
+    initStationUsage(truckRoutes);
+
+    AtomicBoolean changed = new AtomicBoolean(false);
+    truckRoutes.parallelStream().forEach(route -> {
+      if (intraRoute(route, deadline)) {
+        changed.set(true);
+      }
+    });
+
+    List<List<int[]>> rounds = pairRounds(truckRoutes.size());
+    boolean improved = true;
+    while (improved && System.currentTimeMillis() < deadline) {
+      AtomicBoolean roundImproved = new AtomicBoolean(false);
+      for (List<int[]> round : rounds) {
+        round.parallelStream().forEach(pair -> {
+          TruckRoute a = truckRoutes.get(pair[0]);
+          TruckRoute b = truckRoutes.get(pair[1]);
+          if (interRoute(a, b, deadline)) {
+            roundImproved.set(true);
+            intraRoute(a, deadline);
+            intraRoute(b, deadline);
+          }
+        });
+        if (System.currentTimeMillis() >= deadline) {
+          break;
+        }
+      }
+      improved = roundImproved.get();
+      if (improved) {
+        changed.set(true);
+      }
+    }
+
+    if (!changed.get()) {
+      return routes;
+    }
+
+    Map<String, List<Stop>> stops = new HashMap<>(routes.getStops());
+    Map<String, List<Path>> paths = new HashMap<>(routes.getPaths());
+    double cost = 0;
+    for (TruckRoute route : truckRoutes) {
+      if (route.modified) {
+        stops.put(route.truck.getId(), route.toStops());
+        paths.put(route.truck.getId(), new ArrayList<>());
+      }
+      cost += route.evaluation.cost();
+    }
+    return new Routes(stops, paths, cost);
+  }
+
+  private List<TruckRoute> buildTruckRoutes(Routes routes, LocalDateTime startDate) {
+    Map<String, Integer> remaining = new HashMap<>();
+    orders.values().forEach(o -> remaining.put(o.getId(), o.getRequestedGLP() - o.getDeliveredGLP()));
+
+    List<TruckRoute> result = new ArrayList<>();
+    for (Map.Entry<String, List<Stop>> entry : routes.getStops().entrySet()) {
+      Truck truck = trucks.get(entry.getKey());
+      List<Stop> stopList = entry.getValue();
+      if (truck == null || stopList == null || stopList.isEmpty()) {
+        continue;
+      }
+
+      // Reproduce la ruta original para fijar la cantidad entregada en cada parada
+      int load = truck.getCurrentCapacity();
+      List<Visit> visits = new ArrayList<>();
+      for (int i = 1; i < stopList.size(); i++) {
+        Node node = stopList.get(i).getNode();
+        int demand = 0;
+        switch (node.getType()) {
+          case STATION -> load = truck.getMaxCapacity();
+          case DELIVERY -> {
+            int left = remaining.getOrDefault(node.getId(), 0);
+            demand = Math.min(load, left);
+            remaining.put(node.getId(), left - demand);
+            load -= demand;
+          }
+          case INCIDENT -> {
+            Incident incident = incidents.get(node.getId());
+            Truck broken = incident != null ? findByCode(incident.getTruckCode()) : null;
+            int pickup = broken != null ? Math.min(broken.getCurrentCapacity(), truck.getMaxCapacity() - load) : 0;
+            demand = -pickup;
+            load += pickup;
+          }
+          default -> {
+          }
+        }
+        visits.add(new Visit(node, demand));
+      }
+
+      TruckRoute route = new TruckRoute(truck, stopList.get(0), startDate, visits);
+      route.evaluation = evaluate(route, visits);
+      result.add(route);
+    }
+    return result;
+  }
+
+  private Truck findByCode(String code) {
+    return trucks.values().stream().filter(t -> code.equals(t.getCode())).findFirst().orElse(null);
+  }
+
+  private void initStationUsage(List<TruckRoute> routes) {
+    stationUsage = new HashMap<>();
+    for (TruckRoute route : routes) {
+      route.evaluation.stationUsage().forEach((k, v) -> stationUsage.merge(k, v, Integer::sum));
+    }
+    stationLimit = new HashMap<>();
+    stationUsage.forEach((k, v) -> stationLimit.put(k, Math.max(v, availableAt(k))));
+  }
+
+  private int availableAt(StationDay key) {
+    Station station = stations.get(key.stationId());
+    return station != null ? station.getAvailableCapacity(key.date().atStartOfDay()) : 0;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Movimientos dentro de una ruta
+  // ---------------------------------------------------------------------------
+
+  private boolean intraRoute(TruckRoute route, long deadline) {
+    boolean any = false;
+    boolean improved = true;
+    while (improved && System.currentTimeMillis() < deadline) {
+      improved = twoOpt(route) || orOpt(route);
+      any |= improved;
+    }
+    return any;
+  }
+
+  private boolean twoOpt(TruckRoute route) {
+    Point[] p = route.points();
+    int n = p.length - 1;
+    for (int i = 1; i < n; i++) {
+      for (int j = i + 1; j <= n; j++) {
+        double delta = dist(p, i - 1, j) + dist(p, i, j + 1) - dist(p, i - 1, i) - dist(p, j, j + 1);
+        if (delta >= -EPSILON) {
+          continue;
+        }
+        List<Visit> candidate = new ArrayList<>(route.visits);
+        Collections.reverse(candidate.subList(i - 1, j));
+        if (tryCommit(route, candidate, null, null)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean orOpt(TruckRoute route) {
+    Point[] p = route.points();
+    int n = p.length - 1;
+    for (int len = 1; len <= Math.max(1, config.MAX_SEGMENT_LENGTH()); len++) {
+      for (int i = 1; i + len - 1 <= n; i++) {
+        int e = i + len - 1;
+        double removal = dist(p, i - 1, i) + dist(p, e, e + 1) - dist(p, i - 1, e + 1);
+        for (int k = 0; k <= n; k++) {
+          if (k >= i - 1 && k <= e) {
+            continue;
+          }
+          double insertion = dist(p, k, i) + dist(p, e, k + 1) - dist(p, k, k + 1);
+          if (insertion - removal >= -EPSILON) {
+            continue;
+          }
+          List<Visit> segment = new ArrayList<>(route.visits.subList(i - 1, e));
+          List<Visit> candidate = new ArrayList<>(route.visits);
+          candidate.subList(i - 1, e).clear();
+          candidate.addAll(k < i ? k : k - len, segment);
+          if (tryCommit(route, candidate, null, null)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Movimientos entre rutas
+  // ---------------------------------------------------------------------------
+
+  private boolean interRoute(TruckRoute a, TruckRoute b, long deadline) {
+    boolean any = false;
+    boolean improved = true;
+    while (improved && System.currentTimeMillis() < deadline) {
+      improved = relocate(a, b) || relocate(b, a) || swap(a, b);
+      any |= improved;
+    }
+    return any;
+  }
+
+  private boolean relocate(TruckRoute from, TruckRoute to) {
+    if (!to.canReceive()) {
+      return false;
+    }
+    RouteEvaluator source = from.evaluation.evaluator();
+    RouteEvaluator target = to.evaluation.evaluator();
+    for (int i = 1; i <= from.visits.size(); i++) {
+      Visit visit = from.visits.get(i - 1);
+      if (visit.node().getType() != NodeType.DELIVERY) {
+        continue;
+      }
+      RouteEvaluator.Delta removal = source.removal(i);
+      if (!removal.feasible()) {
+        continue;
+      }
+      for (int k = 0; k <= to.visits.size(); k++) {
+        RouteEvaluator.Delta insertion = target.insertion(k, visit.node(), visit.demand());
+        if (!insertion.feasible() || removal.costDelta() + insertion.costDelta() >= -EPSILON) {
+          continue;
+        }
+        List<Visit> newFrom = new ArrayList<>(from.visits);
+        newFrom.remove(i - 1);
+        List<Visit> newTo = new ArrayList<>(to.visits);
+        newTo.add(k, visit);
+        if (tryCommit(from, newFrom, to, newTo)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean swap(TruckRoute a, TruckRoute b) {
+    if (!a.canReceive() || !b.canReceive()) {
+      return false;
+    }
+    RouteEvaluator evaluatorA = a.evaluation.evaluator();
+    RouteEvaluator evaluatorB = b.evaluation.evaluator();
+    for (int i = 1; i <= a.visits.size(); i++) {
+      Visit visitA = a.visits.get(i - 1);
+      if (visitA.node().getType() != NodeType.DELIVERY) {
+        continue;
+      }
+      for (int j = 1; j <= b.visits.size(); j++) {
+        Visit visitB = b.visits.get(j - 1);
+        if (visitB.node().getType() != NodeType.DELIVERY) {
+          continue;
+        }
+        RouteEvaluator.Delta deltaA = evaluatorA.replacement(i, visitB.node(), visitB.demand());
+        if (!deltaA.feasible()) {
+          continue;
+        }
+        RouteEvaluator.Delta deltaB = evaluatorB.replacement(j, visitA.node(), visitA.demand());
+        if (!deltaB.feasible() || deltaA.costDelta() + deltaB.costDelta() >= -EPSILON) {
+          continue;
+        }
+        List<Visit> newA = new ArrayList<>(a.visits);
+        List<Visit> newB = new ArrayList<>(b.visits);
+        newA.set(i - 1, visitB);
+        newB.set(j - 1, visitA);
+        if (tryCommit(a, newA, b, newB)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Evaluación y aceptación
+  // ---------------------------------------------------------------------------
+
+  private boolean tryCommit(TruckRoute a, List<Visit> visitsA, TruckRoute b, List<Visit> visitsB) {
+    RouteEvaluation evalA = evaluate(a, visitsA);
+    if (!evalA.feasible()) {
+      return false;
+    }
+    RouteEvaluation evalB = b != null ? evaluate(b, visitsB) : null;
+    if (b != null && !evalB.feasible()) {
+      return false;
+    }
+    double oldCost = a.evaluation.cost() + (b != null ? b.evaluation.cost() : 0);
+    double newCost = evalA.cost() + (evalB != null ? evalB.cost() : 0);
+    if (newCost >= oldCost - EPSILON) {
+      return false;
+    }
+
+    synchronized (this) {
+      Map<StationDay, Integer> delta = new HashMap<>();
+      a.evaluation.stationUsage().forEach((k, v) -> delta.merge(k, -v, Integer::sum));
+      evalA.stationUsage().forEach((k, v) -> delta.merge(k, v, Integer::sum));
+      if (b != null) {
+        b.evaluation.stationUsage().forEach((k, v) -> delta.merge(k, -v, Integer::sum));
+        evalB.stationUsage().forEach((k, v) -> delta.merge(k, v, Integer::sum));
+      }
+      for (Map.Entry<StationDay, Integer> entry : delta.entrySet()) {
+        if (entry.getValue() <= 0) {
+          continue;
+        }
+        int used = stationUsage.getOrDefault(entry.getKey(), 0) + entry.getValue();
+        if (used > stationLimit.computeIfAbsent(entry.getKey(), this::availableAt)) {
+          return false;
+        }
+      }
+      delta.forEach((k, v) -> stationUsage.merge(k, v, Integer::sum));
+    }
+
+    a.apply(visitsA, evalA);
+    if (b != null) {
+      b.apply(visitsB, evalB);
+    }
+    return true;
+  }
+
+  /**
+   * Reproduce una ruta completa con {@link RouteEvaluator} y calcula el uso de
+   * plantas por día.
+   */
+  private RouteEvaluation evaluate(TruckRoute route, List<Visit> visits) {
+    List<Node> nodes = new ArrayList<>(visits.size());
+    int[] demands = new int[visits.size()];
+    for (int i = 0; i < visits.size(); i++) {
+      nodes.add(visits.get(i).node());
+      demands[i] = visits.get(i).demand();
+    }
+    RouteEvaluator evaluator = new RouteEvaluator(route.truck, route.start.getNode().getLocation(), route.startDate,
+        nodes, demands, orders);
+
+    Map<StationDay, Integer> usage = new HashMap<>();
+    for (int i = 1; i <= visits.size(); i++) {
+      int refill = evaluator.getRefill(i);
+      if (refill > 0) {
+        usage.merge(new StationDay(nodes.get(i - 1).getId(), evaluator.getArrivalTime(i).toLocalDate()), refill,
+            Integer::sum);
+      }
+    }
+    return new RouteEvaluation(evaluator, usage);
+  }
+
+  /**
+   * Distancia entre dos posiciones de la ruta; las posiciones fuera de la ruta
+   * (después del último punto) no aportan distancia.
+   */
+  private static double dist(Point[] p, int from, int to) {
+    if (from < 0 || to < 0 || from >= p.length || to >= p.length) {
+      return 0;
+    }
+    return DistanceMatrix.manhattan(p[from], p[to]);
+  }
+
+  /**
+   * Calendario round-robin: en cada ronda cada camión aparece en a lo sumo un
+   * par, de modo que los pares de una ronda pueden procesarse en paralelo.
+   */
+  private static List<List<int[]>> pairRounds(int size) {
+    List<Integer> ids = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      ids.add(i);
+    }
+    if (size % 2 == 1) {
+      ids.add(size); // descanso
+    }
+    int n = ids.size();
+    List<List<int[]>> rounds = new ArrayList<>();
+    for (int round = 0; round < n - 1; round++) {
+      List<int[]> pairs = new ArrayList<>();
+      for (int i = 0; i < n / 2; i++) {
+        int a = ids.get(i);
+        int b = ids.get(n - 1 - i);
+        if (a < size && b < size) {
+          pairs.add(new int[] { a, b });
+        }
+      }
+      rounds.add(pairs);
+      ids.add(1, ids.remove(n - 1));
+    }
+    return rounds;
+  }
+
+  private record Visit(Node node, int demand) {
+  }
+
+  private record StationDay(String stationId, LocalDate date) {
+  }
+
+  private record RouteEvaluation(
+      RouteEvaluator evaluator,
+      Map<StationDay, Integer> stationUsage) {
+    boolean feasible() {
+      return evaluator.isFeasible();
+    }
+
+    double cost() {
+      return evaluator.getCost();
+    }
+  }
+
+  private static class TruckRoute {
+    final Truck truck;
+    final Stop start;
+    final LocalDateTime startDate;
+    List<Visit> visits;
+    RouteEvaluation evaluation;
+    boolean modified = false;
+
+    TruckRoute(Truck truck, Stop start, LocalDateTime startDate, List<Visit> visits) {
+      this.truck = truck;
+      this.start = start;
+      this.startDate = startDate;
+      this.visits = visits;
+    }
+
+    boolean canReceive() {
+      return truck.getStatus() != TruckState.MAINTENANCE
+          && truck.getStatus() != TruckState.BROKEN_DOWN
+          && truck.getStatus() != TruckState.RETURNING_TO_BASE;
+    }
+
+    Point[] points() {
+      Point[] p = new Point[visits.size() + 1];
+      p[0] = start.getNode().getLocation();
+      for (int i = 0; i < visits.size(); i++) {
+        p[i + 1] = visits.get(i).node().getLocation();
+      }
+      return p;
+    }
+
+    void apply(List<Visit> newVisits, RouteEvaluation newEvaluation) {
+      this.visits = newVisits;
+      this.evaluation = newEvaluation;
+      this.modified = true;
+    }
+
+    List<Stop> toStops() {
+      List<Stop> result = new ArrayList<>(visits.size() + 1);
+      result.add(new Stop(start.getNode(), startDate));
+      for (int i = 0; i < visits.size(); i++) {
+        result.add(new Stop(visits.get(i).node(), evaluation.evaluator().getArrivalTime(i + 1)));
+      }
+      return result;
+    }
+  }
+}
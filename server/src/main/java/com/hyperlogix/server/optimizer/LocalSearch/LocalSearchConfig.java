@@ -0,0 +1,12 @@
+package com.hyperlogix.server.optimizer.LocalSearch;
+
+/**
+ * Configuración de la búsqueda local aplicada a la solución del optimizador.
+ * @param TIME_SHARE Fracción del presupuesto de planificación reservada para la
+ *                   búsqueda local (0 la desactiva).
+ * @param MAX_SEGMENT_LENGTH Longitud máxima del segmento movido por Or-opt.
+ */
+public record LocalSearchConfig(
+    double TIME_SHARE,
+    int MAX_SEGMENT_LENGTH) {
+}
@@ -0,0 +1,132 @@
+package com.hyperlogix.server.optimizer;
+
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.domain.Station;
+import com.hyperlogix.server.domain.Truck;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cota inferior del costo de combustible, con el mismo modelo que
+ * {@link Graph#processRoutesWithAStar}, de cualquier plan que atienda todos los
+ * pedidos pendientes.
+ *
+ * Se toma la mayor de dos cotas:
+ * <ul>
+ * <li>árbol de expansión mínima sobre los pedidos y un nodo raíz unido a la
+ * posición de cada camión: las rutas unidas por esa raíz pasan por todos los
+ * pedidos y saltarse las plantas no las alarga, así que ningún plan recorre
+ * menos; se cobra con el consumo por kilómetro más bajo de la flota con el
+ * camión vacío (solo la tara);</li>
+ * <li>cota radial ponderada por consumo: cada metro cúbico viaja desde donde se
+ * cargó (una planta o un camión con carga) hasta su pedido, y un viaje entre
+ * dos cargas lleva a lo más la capacidad del camión, así que cada metro cúbico
+ * cuesta al menos el consumo por kilómetro y metro cúbico de capacidad más
+ * bajo de la flota, también con la tara, por la distancia al punto de carga
+ * más cercano.</li>
+ * </ul>
+ * Las distancias son Manhattan, que no superan a las de A*.
+ */
+public class LowerBound {
+  private final double value;
+
+  private LowerBound(double value) {
+    this.value = value;
+  }
+
+  public static LowerBound of(PLGNetwork network) {
+    List<Order> orders = network.getCalculatedOrders().stream()
+        .filter(order -> order.getRequestedGLP() > order.getDeliveredGLP())
+        .toList();
+    List<Truck> trucks = network.getTrucks();
+    if (orders.isEmpty() || trucks.isEmpty()) {
+      return new LowerBound(0);
+    }
+
+    double fuelPerKm = Double.MAX_VALUE;
+    double fuelPerCapacityKm = Double.MAX_VALUE;
+    List<Point> supplies = new ArrayList<>();
+    for (Truck truck : trucks) {
+      // Con la carga actual la cota dependería de lo que lleve cada camión ahora
+      double emptyFuelPerKm = truck.getFuelConsumption(1, 0);
+      fuelPerKm = Math.min(fuelPerKm, emptyFuelPerKm);
+      if (truck.getMaxCapacity() > 0) {
+        fuelPerCapacityKm = Math.min(fuelPerCapacityKm, emptyFuelPerKm / truck.getMaxCapacity());
+      }
+      if (truck.getCurrentCapacity() > 0) {
+        supplies.add(truck.getLocation().integerPoint());
+      }
+    }
+    for (Station station : network.getStations()) {
+      supplies.add(station.getLocation().integerPoint());
+    }
+    Point[] locations = orders.stream().map(order -> order.getLocation().integerPoint()).toArray(Point[]::new);
+
+    double radial = 0;
+    if (fuelPerCapacityKm < Double.MAX_VALUE && !supplies.isEmpty()) {
+      for (int i = 0; i < locations.length; i++) {
+        Order order = orders.get(i);
+        radial += nearest(locations[i], supplies) * (order.getRequestedGLP() - order.getDeliveredGLP())
+            * fuelPerCapacityKm;
+      }
+    }
+    return new LowerBound(Math.max(spanningTree(locations, trucks) * fuelPerKm, radial));
+  }
+
+  public double value() {
+    return value;
+  }
+
+  /**
+   * @return Brecha relativa {@code (cost - cota) / cost}; 0 si el costo ya
+   *         alcanza la cota.
+   */
+  public double gap(double cost) {
+    if (cost <= 0 || cost <= value) {
+      return 0;
+    }
+    return (cost - value) / cost;
+  }
+
+  /**
+   * Prim sobre los pedidos; la distancia inicial de cada pedido es la del
+   * camión más cercano, es decir, la arista hacia la raíz.
+   */
+  private static double spanningTree(Point[] locations, List<Truck> trucks) {
+    int n = locations.length;
+    List<Point> starts = trucks.stream().map(truck -> truck.getLocation().integerPoint()).toList();
+    double[] distance = new double[n];
+    for (int i = 0; i < n; i++) {
+      distance[i] = nearest(locations[i], starts);
+    }
+    boolean[] inTree = new boolean[n];
+    double length = 0;
+    for (int added = 0; added < n; added++) {
+      int next = -1;
+      for (int i = 0; i < n; i++) {
+        if (!inTree[i] && (next < 0 || distance[i] < distance[next])) {
+          next = i;
+        }
+      }
+      inTree[next] = true;
+      length += distance[next];
+      for (int i = 0; i < n; i++) {
+        if (!inTree[i]) {
+          distance[i] = Math.min(distance[i], DistanceMatrix.manhattan(locations[next], locations[i]));
+        }
+      }
+    }
+    return length;
+  }
+
+  private static double nearest(Point from, List<Point> points) {
+    double nearest = Double.MAX_VALUE;
+    for (Point point : points) {
+      nearest = Math.min(nearest, DistanceMatrix.manhattan(from, point));
+    }
+    return nearest;
+  }
+}
@@ -0,0 +1,73 @@
+package com.hyperlogix.server.optimizer;
+
+import com.hyperlogix.server.domain.Node;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matrices de una planificación. Todos los grafos de la planificación con los
+ * mismos nodos comparten una sola {@link DistanceMatrix} en lugar de que cada
+ * colonia, isla o estrategia construya la suya.
+ *
+ * Con {@code hyperlogix.matrices.offheap=true} las matrices se guardan fuera
+ * del heap, en buffers directos: el recolector no las copia ni las recorre y
+ * su tamaño no cuenta para el heap (se ve en {@code jvm.buffer.memory.used}
+ * con {@code id=direct}). Al cerrar la arena se sueltan; la memoria se libera
+ * cuando ningún grafo las usa, así una estrategia que sigue corriendo después
+ * del plazo no lee memoria liberada.
+ */
+public final class MatrixArena implements AutoCloseable {
+  private static final boolean OFF_HEAP = Boolean.getBoolean("hyperlogix.matrices.offheap");
+
+  private final boolean offHeap;
+  private final Map<List<Node>, DistanceMatrix> distances = new ConcurrentHashMap<>();
+  private volatile boolean closed;
+
+  private MatrixArena(boolean offHeap) {
+    this.offHeap = offHeap;
+  }
+
+  public static MatrixArena open() {
+    return new MatrixArena(OFF_HEAP);
+  }
+
+  /**
+   * Matriz de distancias de un grafo fuera de una planificación, en el heap y
+   * sin compartir.
+   */
+  static DistanceMatrix unshared(List<Node> nodes) {
+    return new DistanceMatrix(nodes, IntMatrix.onHeap(nodes.size()));
+  }
+
+  /**
+   * @return Matriz de distancias entre {@code nodes}, compartida con los
+   *         grafos que pidieron los mismos nodos mientras la arena siga
+   *         abierta.
+   */
+  public DistanceMatrix distances(List<Node> nodes) {
+    if (closed) {
+      return unshared(nodes);
+    }
+    return distances.computeIfAbsent(List.copyOf(nodes), key -> new DistanceMatrix(key,
+        offHeap ? IntMatrix.offHeap(key.size()) : IntMatrix.onHeap(key.size())));
+  }
+
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
+  /**
+   * @return Bytes fuera del heap de las matrices que la arena mantiene.
+   */
+  public long offHeapBytes() {
+    return distances.values().stream().mapToLong(DistanceMatrix::offHeapBytes).sum();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    distances.clear();
+  }
+}
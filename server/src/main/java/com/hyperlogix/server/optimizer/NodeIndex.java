@@ -0,0 +1,44 @@
+package com.hyperlogix.server.optimizer;
+
+import com.hyperlogix.server.domain.Node;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Numeración de los nodos de una ejecución para codificar rutas como enteros
+ * ({@link CompactRoutes}). Los nodos que no estaban al crearla (por ejemplo la
+ * ubicación de cada camión) se agregan la primera vez que se codifican; los
+ * índices nunca cambian.
+ */
+public final class NodeIndex {
+  private final Map<Node, Integer> indices = new ConcurrentHashMap<>();
+  private final List<Node> nodes = new CopyOnWriteArrayList<>();
+
+  public NodeIndex(List<Node> initialNodes) {
+    initialNodes.forEach(this::indexOf);
+  }
+
+  public int indexOf(Node node) {
+    Integer index = indices.get(node);
+    if (index != null) {
+      return index;
+    }
+    synchronized (this) {
+      return indices.computeIfAbsent(node, n -> {
+        nodes.add(n);
+        return nodes.size() - 1;
+      });
+    }
+  }
+
+  public Node node(int index) {
+    return nodes.get(index);
+  }
+
+  public int size() {
+    return nodes.size();
+  }
+}
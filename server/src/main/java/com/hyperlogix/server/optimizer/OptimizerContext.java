@@ -2,21 +2,94 @@ package com.hyperlogix.server.optimizer;
 
 import com.hyperlogix.server.domain.Incident;
 import com.hyperlogix.server.domain.PLGNetwork;
-import lombok.AllArgsConstructor;
+import com.hyperlogix.server.domain.Routes;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
-@AllArgsConstructor
 public class OptimizerContext {
     public PLGNetwork plgNetwork;
     public LocalDateTime algorithmStartDate;
     public List<Incident> incidents;
+    /**
+     * Brecha contra la cota inferior por debajo de la cual los optimizadores
+     * terminan antes del plazo; 0 la desactiva. Como la cota es holgada, es un
+     * corte de ajuste y no una garantía: una brecha g acepta costos de hasta
+     * 1 / (1 - g) veces la cota.
+     */
+    public double targetGap;
+    /**
+     * Telemetría de la planificación; los optimizadores registran en ella sus
+     * iteraciones, evaluaciones y mejores costos.
+     */
+    public PlanningTelemetry telemetry = new PlanningTelemetry();
+    /**
+     * Matrices compartidas por los grafos de la planificación; sin arena cada
+     * grafo calcula las suyas en el heap.
+     */
+    public MatrixArena matrices;
+
+    private LowerBound lowerBound;
+    private volatile boolean targetReached;
 
     public OptimizerContext(PLGNetwork network, LocalDateTime algorithmStartDate) {
+        this(network, algorithmStartDate, List.of()); // Default to empty list if no incidents provided
+    }
+
+    public OptimizerContext(PLGNetwork network, LocalDateTime algorithmStartDate, List<Incident> incidents) {
+        this(network, algorithmStartDate, incidents, 0);
+    }
+
+    public OptimizerContext(PLGNetwork network, LocalDateTime algorithmStartDate, List<Incident> incidents,
+            double targetGap) {
         this.plgNetwork = network;
         this.algorithmStartDate = algorithmStartDate;
-        this.incidents = List.of(); // Default to empty list if no incidents provided
+        this.incidents = incidents;
+        this.targetGap = targetGap;
+    }
+
+    /**
+     * Cota inferior de la red, calculada la primera vez que se pide.
+     */
+    public synchronized LowerBound lowerBound() {
+        if (lowerBound == null) {
+            lowerBound = LowerBound.of(plgNetwork);
+        }
+        return lowerBound;
+    }
+
+    /**
+     * Costo de unas rutas con el mismo modelo para cualquier estrategia: el
+     * combustible de {@link Routes#getCost()} más la penalización de
+     * {@link UnservedDemand} por el GLP que dejan sin entregar en esta red.
+     */
+    public double score(Routes routes) {
+        return routes.getCost() + UnservedDemand.penalty(plgNetwork, routes);
     }
 
+    /**
+     * Compara el costo de una mejora contra la cota inferior y lo registra en
+     * la telemetría, junto con el momento en que se alcanza la brecha. El
+     * costo debe calcularse como en {@link #score(Routes)}, con la
+     * penalización por demanda sin atender.
+     *
+     * @return true si la brecha ya está por debajo de {@link #targetGap}; desde
+     *         entonces {@link #isTargetReached()} también lo está, para que los
+     *         optimizadores que comparten el contexto terminen juntos.
+     */
+    public boolean reachedTarget(double cost) {
+        telemetry.solution(cost);
+        if (targetGap <= 0) {
+            return false;
+        }
+        if (!targetReached && lowerBound().gap(cost) <= targetGap) {
+            targetReached = true;
+            telemetry.targetReached(lowerBound().value());
+        }
+        return targetReached;
+    }
+
+    public boolean isTargetReached() {
+        return targetReached;
+    }
 }
@@ -0,0 +1,209 @@
+package com.hyperlogix.server.optimizer;
+
+import com.hyperlogix.server.domain.Node;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Numeración de los nodos con feromona para guardarla en un {@code double[]}
+ * plano: la arista {@code (i, j)} ocupa la posición {@code i * size + j}. Se
+ * construye una vez por ejecución en {@link GraphCore} y la comparten todos los
+ * grafos derivados y las semillas del genético.
+ */
+public final class PheromoneLayout {
+  private final List<Node> nodes;
+  private final Map<Node, Integer> index;
+  private final int size;
+
+  PheromoneLayout(List<Node> nodes) {
+    this.nodes = List.copyOf(nodes);
+    this.size = this.nodes.size();
+    this.index = new HashMap<>(size * 2);
+    for (int i = 0; i < size; i++) {
+      index.put(this.nodes.get(i), i);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Nodos en el orden de la numeración.
+   */
+  public List<Node> nodes() {
+    return nodes;
+  }
+
+  public int length() {
+    return size * size;
+  }
+
+  /**
+   * @return posición de la arista en la matriz, o -1 si alguno de los nodos no
+   *         tiene feromona (ubicación del camión) o es la diagonal.
+   */
+  public int edge(Node origin, Node destination) {
+    Integer i = index.get(origin);
+    Integer j = index.get(destination);
+    if (i == null || j == null || i.equals(j)) {
+      return -1;
+    }
+    return i * size + j;
+  }
+
+  /**
+   * Matriz nueva con todas las aristas en {@code value}.
+   */
+  public double[] filled(double value) {
+    double[] pheromones = new double[length()];
+    Arrays.fill(pheromones, value);
+    return pheromones;
+  }
+
+  /**
+   * Vista de la matriz con la forma de {@link Graph#getPheromoneMap()}, para
+   * leerla por nodo sin copiarla. Las escrituras sobre una fila modifican la
+   * matriz.
+   */
+  public Map<Node, Map<Node, Double>> view(double[] pheromones) {
+    return new AbstractMap<>() {
+      @Override
+      public Map<Node, Double> get(Object key) {
+        Integer i = index.get(key);
+        return i != null ? new Row(pheromones, i) : null;
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        return index.containsKey(key);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public Set<Entry<Node, Map<Node, Double>>> entrySet() {
+        return new AbstractSet<>() {
+          @Override
+          public Iterator<Entry<Node, Map<Node, Double>>> iterator() {
+            return new Iterator<>() {
+              private int i = 0;
+
+              @Override
+              public boolean hasNext() {
+                return i < size;
+              }
+
+              @Override
+              public Entry<Node, Map<Node, Double>> next() {
+                if (i >= size) {
+                  throw new NoSuchElementException();
+                }
+                Node node = nodes.get(i);
+                return new SimpleImmutableEntry<>(node, new Row(pheromones, i++));
+              }
+            };
+          }
+
+          @Override
+          public int size() {
+            return size;
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Fila {@code origin} de la matriz; excluye la diagonal como el mapa de
+   * feromonas original.
+   */
+  private class Row extends AbstractMap<Node, Double> {
+    private final double[] pheromones;
+    private final int origin;
+
+    Row(double[] pheromones, int origin) {
+      this.pheromones = pheromones;
+      this.origin = origin;
+    }
+
+    @Override
+    public Double get(Object key) {
+      Integer j = index.get(key);
+      return j != null && j != origin ? pheromones[origin * size + j] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      Integer j = index.get(key);
+      return j != null && j != origin;
+    }
+
+    @Override
+    public Double put(Node key, Double value) {
+      Integer j = index.get(key);
+      if (j == null || j == origin) {
+        throw new IllegalArgumentException("Node has no pheromone in row: " + key);
+      }
+      double previous = pheromones[origin * size + j];
+      pheromones[origin * size + j] = value;
+      return previous;
+    }
+
+    @Override
+    public int size() {
+      return size - 1;
+    }
+
+    @Override
+    public Set<Entry<Node, Double>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Entry<Node, Double>> iterator() {
+          return new Iterator<>() {
+            private int j = origin == 0 ? 1 : 0;
+
+            @Override
+            public boolean hasNext() {
+              return j < size;
+            }
+
+            @Override
+            public Entry<Node, Double> next() {
+              if (j >= size) {
+                throw new NoSuchElementException();
+              }
+              int current = j++;
+              if (j == origin) {
+                j++;
+              }
+              return new SimpleEntry<>(nodes.get(current), pheromones[origin * size + current]) {
+                @Override
+                public Double setValue(Double value) {
+                  pheromones[origin * size + current] = value;
+                  return super.setValue(value);
+                }
+              };
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return size - 1;
+        }
+      };
+    }
+  }
+}
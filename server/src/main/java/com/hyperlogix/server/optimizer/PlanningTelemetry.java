@@ -0,0 +1,182 @@
+package com.hyperlogix.server.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Telemetría de una planificación: iteraciones por optimizador, soluciones
+ * evaluadas, evolución del mejor costo, tiempo hasta la primera solución y
+ * tiempo dentro de A* y, si se corta por la brecha objetivo, cuándo y contra
+ * qué cota inferior. Los optimizadores la alimentan desde varios hilos a
+ * través de {@link OptimizerContext}; {@link #snapshot()} puede leerse
+ * mientras la planificación corre.
+ *
+ * Los subproblemas (grupos de la descomposición) usan {@link #subproblem()}:
+ * suman iteraciones, evaluaciones y A* a la planificación, pero sus costos no
+ * son comparables con los del problema completo y no se registran.
+ */
+public class PlanningTelemetry {
+  // Muestras del mejor costo que se guardan; las siguientes reemplazan a la última
+  private static final int MAX_SAMPLES = 200;
+
+  /**
+   * Mejor costo conocido a {@code elapsedMillis} del inicio.
+   */
+  public record CostSample(long elapsedMillis, double cost) {
+  }
+
+  /**
+   * Vista inmutable de la telemetría. {@code aStarShare} suma el tiempo de A*
+   * de todos los hilos, así que con estrategias en paralelo puede pasar de 1.
+   */
+  public record Snapshot(
+      long elapsedMillis,
+      Map<String, Long> iterations,
+      long evaluations,
+      double evaluationsPerSecond,
+      Double bestCost,
+      Long firstSolutionMillis,
+      long aStarMillis,
+      double aStarShare,
+      Double planCost,
+      List<CostSample> bestCostHistory,
+      Double lowerBound,
+      Long targetReachedMillis) {
+  }
+
+  private final PlanningTelemetry root;
+  private final long start = System.nanoTime();
+  private final Map<String, LongAdder> iterations = new ConcurrentHashMap<>();
+  private final LongAdder evaluations = new LongAdder();
+  private final LongAdder aStarNanos = new LongAdder();
+  private final List<CostSample> history = new ArrayList<>();
+  private double bestCost = Double.MAX_VALUE;
+  private long firstSolutionNanos = -1;
+  private volatile long endNanos = -1;
+  private volatile Double planCost;
+  private volatile Double lowerBound;
+  private volatile long targetReachedNanos = -1;
+
+  public PlanningTelemetry() {
+    this.root = null;
+  }
+
+  private PlanningTelemetry(PlanningTelemetry root) {
+    this.root = root;
+  }
+
+  public PlanningTelemetry subproblem() {
+    return new PlanningTelemetry(root != null ? root : this);
+  }
+
+  public void iteration(String optimizer) {
+    if (root != null) {
+      root.iteration(optimizer);
+      return;
+    }
+    iterations.computeIfAbsent(optimizer, key -> new LongAdder()).increment();
+  }
+
+  /**
+   * Soluciones completas construidas y evaluadas (hormigas, hijos del genético,
+   * candidatos del ALNS).
+   */
+  public void evaluations(int count) {
+    if (root != null) {
+      root.evaluations(count);
+      return;
+    }
+    evaluations.add(count);
+  }
+
+  public void aStar(long nanos) {
+    if (root != null) {
+      root.aStar(nanos);
+      return;
+    }
+    aStarNanos.add(nanos);
+  }
+
+  /**
+   * Registra el costo de una solución encontrada; solo las mejoras quedan en
+   * la historia.
+   */
+  public void solution(double cost) {
+    if (root != null || Double.isNaN(cost) || cost >= Double.MAX_VALUE) {
+      return;
+    }
+    long now = System.nanoTime();
+    synchronized (history) {
+      if (firstSolutionNanos < 0) {
+        firstSolutionNanos = now - start;
+      }
+      if (cost >= bestCost) {
+        return;
+      }
+      bestCost = cost;
+      CostSample sample = new CostSample((now - start) / 1_000_000, cost);
+      if (history.size() < MAX_SAMPLES) {
+        history.add(sample);
+      } else {
+        history.set(MAX_SAMPLES - 1, sample);
+      }
+    }
+  }
+
+  /**
+   * Registra que el costo alcanzó la brecha objetivo contra {@code lowerBound};
+   * solo cuenta la primera vez.
+   */
+  public synchronized void targetReached(double lowerBound) {
+    if (root != null || targetReachedNanos >= 0) {
+      return;
+    }
+    this.lowerBound = lowerBound;
+    this.targetReachedNanos = System.nanoTime();
+  }
+
+  /**
+   * Cierra la planificación con el costo del plan entregado (con A*, sin
+   * penalizaciones), que puede ser null si no hubo plan. Solo cuenta el
+   * primer cierre.
+   */
+  public synchronized void finish(Double planCost) {
+    if (endNanos >= 0) {
+      return;
+    }
+    this.planCost = planCost;
+    this.endNanos = System.nanoTime();
+  }
+
+  public boolean isFinished() {
+    return endNanos >= 0;
+  }
+
+  public Snapshot snapshot() {
+    long end = endNanos >= 0 ? endNanos : System.nanoTime();
+    long elapsedNanos = Math.max(1, end - start);
+    Map<String, Long> perOptimizer = new TreeMap<>();
+    iterations.forEach((optimizer, count) -> perOptimizer.put(optimizer, count.sum()));
+    long evaluated = evaluations.sum();
+    long aStar = aStarNanos.sum();
+    synchronized (history) {
+      return new Snapshot(
+          elapsedNanos / 1_000_000,
+          perOptimizer,
+          evaluated,
+          evaluated * 1e9 / elapsedNanos,
+          bestCost < Double.MAX_VALUE ? bestCost : null,
+          firstSolutionNanos >= 0 ? firstSolutionNanos / 1_000_000 : null,
+          aStar / 1_000_000,
+          (double) aStar / elapsedNanos,
+          planCost,
+          List.copyOf(history),
+          lowerBound,
+          targetReachedNanos >= 0 ? (targetReachedNanos - start) / 1_000_000 : null);
+    }
+  }
+}
@@ -0,0 +1,238 @@
+package com.hyperlogix.server.optimizer.Portfolio;
+
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.optimizer.AntColony.AntColonyConfig;
+import com.hyperlogix.server.optimizer.Graph;
+import com.hyperlogix.server.optimizer.IncumbentAware;
+import com.hyperlogix.server.optimizer.Notifier;
+import com.hyperlogix.server.optimizer.Optimizer;
+import com.hyperlogix.server.optimizer.OptimizerContext;
+import com.hyperlogix.server.optimizer.OptimizerResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Ejecuta varias estrategias a la vez bajo el mismo plazo, repartiendo los
+ * núcleos entre ellas, y devuelve la mejor solución. Cada mejora notificada por
+ * una estrategia se comparte con las demás que implementan
+ * {@link IncumbentAware}. Si se indica una heurística constructiva, su plan se
+ * calcula antes de lanzar las estrategias y se comparte como primera solución.
+ *
+ * Cada estrategia calcula su costo a su manera, así que antes de comparar,
+ * compartir o registrar un resultado se vuelve a puntuar con
+ * {@link OptimizerContext#score}: combustible más la misma penalización por
+ * demanda sin atender para todas.
+ *
+ * Los núcleos que recibe cada fábrica son un tope, no una garantía: el
+ * genético reparte su evaluación en ese número de hilos y la colonia de
+ * hormigas corre una isla por núcleo, pero el ALNS corre en un único hilo
+ * cualquiera sea su parte, así que con tres estrategias la ejecución ocupa a
+ * lo más {@code cores + 1} hilos.
+ */
+public class PortfolioOptimizer implements Optimizer {
+  private static final Logger log = LoggerFactory.getLogger(PortfolioOptimizer.class);
+  // Margen para que una estrategia que ya venció el plazo termine su iteración
+  private static final long GRACE_MILLIS = 500;
+  private static final String INITIAL_STRATEGY = "construction";
+  private static final ExecutorService STRATEGY_POOL = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "portfolio-strategy");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * @param factory Crea el optimizador a partir de los núcleos asignados; puede
+   *                ignorarlos si el optimizador es de un solo hilo.
+   */
+  public record Strategy(String name, IntFunction<Optimizer> factory) {
+  }
+
+  /**
+   * Estrategia ganadora de una ejecución y tamaño de la instancia.
+   */
+  public record Outcome(int orders, String winner, double cost) {
+  }
+
+  private record Incumbent(String strategy, OptimizerResult result) {
+  }
+
+  private final List<Strategy> strategies;
+  private final PortfolioStatistics statistics;
+  private final Optimizer construction;
+  private final int cores;
+  private volatile String lastWinner;
+  private Consumer<Outcome> outcomeListener = outcome -> {
+  };
+  private Incumbent incumbent;
+
+  public PortfolioOptimizer(List<Strategy> strategies, PortfolioStatistics statistics) {
+    this(strategies, statistics, null);
+  }
+
+  /**
+   * @param construction Heurística rápida cuyo plan sirve de solución inicial.
+   */
+  public PortfolioOptimizer(List<Strategy> strategies, PortfolioStatistics statistics, Optimizer construction) {
+    this(strategies, statistics, construction, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param cores Núcleos que se reparten entre las estrategias, por ejemplo la
+   *              parte de un grupo de la descomposición.
+   */
+  public PortfolioOptimizer(List<Strategy> strategies, PortfolioStatistics statistics, Optimizer construction,
+      int cores) {
+    this.strategies = List.copyOf(strategies);
+    this.statistics = statistics;
+    this.construction = construction;
+    this.cores = Math.max(1, cores);
+  }
+
+  /**
+   * Recibe la ganadora de cada ejecución, por ejemplo para registrarla en el
+   * log de quien planifica.
+   */
+  public PortfolioOptimizer onOutcome(Consumer<Outcome> listener) {
+    this.outcomeListener = listener;
+    return this;
+  }
+
+  /**
+   * @return Estrategia que produjo el resultado de la última ejecución.
+   */
+  public String getLastWinner() {
+    return lastWinner;
+  }
+
+  @Override
+  public OptimizerResult run(OptimizerContext ctx, Duration maxDuration, Notifier notifier) {
+    long deadline = System.currentTimeMillis() + maxDuration.toMillis();
+    int cores = Math.max(1, this.cores / strategies.size());
+    synchronized (this) {
+      incumbent = null;
+    }
+
+    List<Optimizer> optimizers = new ArrayList<>();
+    for (Strategy strategy : strategies) {
+      optimizers.add(strategy.factory().apply(cores));
+    }
+
+    if (construction != null) {
+      OptimizerResult constructed = rescore(ctx, construction.run(ctx, maxDuration));
+      offerIncumbent(-1, INITIAL_STRATEGY, constructed, optimizers, notifier);
+      if (constructed != null && constructed.getRoutes() != null) {
+        ctx.reachedTarget(constructed.getCost());
+      }
+    }
+
+    // Las estrategias usan lo que queda del plazo después de la construcción;
+    // si la construcción ya quedó cerca de la cota inferior no se lanzan
+    Duration remaining = Duration.ofMillis(Math.max(1, deadline - System.currentTimeMillis()));
+    List<Future<OptimizerResult>> futures = new ArrayList<>();
+    for (int i = 0; i < strategies.size() && !ctx.isTargetReached(); i++) {
+      final int index = i;
+      final String name = strategies.get(i).name();
+      Notifier shared = result -> offerIncumbent(index, name, rescore(ctx, result), optimizers, notifier);
+      futures.add(STRATEGY_POOL.submit(() -> optimizers.get(index).run(ctx, remaining, shared)));
+    }
+
+    String winner = null;
+    OptimizerResult best = null;
+    for (int i = 0; i < futures.size(); i++) {
+      Future<OptimizerResult> future = futures.get(i);
+      try {
+        long wait = Math.max(0, deadline - System.currentTimeMillis()) + GRACE_MILLIS;
+        OptimizerResult result = rescore(ctx, future.get(wait, TimeUnit.MILLISECONDS));
+        if (result != null && result.getRoutes() != null
+            && (best == null || result.getCost() < best.getCost())) {
+          best = result;
+          winner = strategies.get(i).name();
+        }
+      } catch (TimeoutException e) {
+        log.warn("Portfolio strategy {} exceeded the deadline", strategies.get(i).name());
+        future.cancel(true);
+      } catch (ExecutionException e) {
+        log.error("Portfolio strategy {} failed", strategies.get(i).name(), e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.forEach(f -> f.cancel(true));
+        break;
+      }
+    }
+
+    // Sin resultado final de ninguna estrategia, se usa la mejor solución
+    // notificada, que todavía no tiene los caminos reales
+    if (best == null) {
+      Incumbent fallback;
+      synchronized (this) {
+        fallback = incumbent;
+      }
+      if (fallback != null) {
+        Graph graph = new Graph(ctx.plgNetwork, ctx.algorithmStartDate, new AntColonyConfig(0, 0, 1, 2, 0, 0, 100),
+            ctx.incidents);
+        graph.attach(ctx);
+        Routes processed = graph.processRoutesWithAStar(graph.compact(fallback.result().getRoutes()).decode(),
+            ctx.algorithmStartDate);
+        best = new OptimizerResult(processed, ctx.score(processed));
+        winner = fallback.strategy();
+      }
+    }
+
+    lastWinner = winner;
+    if (winner == null) {
+      return new OptimizerResult(null, Double.MAX_VALUE);
+    }
+    int instanceSize = ctx.plgNetwork.getCalculatedOrders().size();
+    if (statistics != null) {
+      statistics.recordWin(instanceSize, winner);
+    }
+    outcomeListener.accept(new Outcome(instanceSize, winner, best.getCost()));
+    return best;
+  }
+
+  @Override
+  public OptimizerResult run(OptimizerContext ctx, Duration maxDuration) {
+    return run(ctx, maxDuration, null);
+  }
+
+  private static OptimizerResult rescore(OptimizerContext ctx, OptimizerResult result) {
+    if (result == null || result.getRoutes() == null) {
+      return result;
+    }
+    return new OptimizerResult(result.getRoutes(), ctx.score(result.getRoutes()));
+  }
+
+  private void offerIncumbent(int source, String strategy, OptimizerResult result, List<Optimizer> optimizers,
+      Notifier notifier) {
+    if (result == null || result.getRoutes() == null) {
+      return;
+    }
+    synchronized (this) {
+      if (incumbent != null && result.getCost() >= incumbent.result().getCost()) {
+        return;
+      }
+      incumbent = new Incumbent(strategy, result);
+      if (notifier != null) {
+        notifier.notify(result);
+      }
+    }
+    for (int i = 0; i < optimizers.size(); i++) {
+      if (i != source && optimizers.get(i) instanceof IncumbentAware aware) {
+        aware.offerIncumbent(result.getRoutes());
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.hyperlogix.server.optimizer.Portfolio;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cuenta qué estrategia del portafolio dio la mejor solución, agrupando las
+ * instancias por cantidad de pedidos a planificar.
+ */
+public class PortfolioStatistics {
+  private static final int[] SIZE_LIMITS = { 25, 50, 100, 200, 500 };
+
+  private final Map<String, Map<String, LongAdder>> wins = new ConcurrentHashMap<>();
+
+  public void recordWin(int instanceSize, String strategy) {
+    wins.computeIfAbsent(sizeBucket(instanceSize), k -> new ConcurrentHashMap<>())
+        .computeIfAbsent(strategy, k -> new LongAdder())
+        .increment();
+  }
+
+  /**
+   * @return Victorias por rango de tamaño y estrategia.
+   */
+  public Map<String, Map<String, Long>> getWins() {
+    Map<String, Map<String, Long>> snapshot = new LinkedHashMap<>();
+    for (String bucket : bucketNames()) {
+      Map<String, LongAdder> byStrategy = wins.get(bucket);
+      if (byStrategy != null) {
+        Map<String, Long> counts = new TreeMap<>();
+        byStrategy.forEach((strategy, count) -> counts.put(strategy, count.sum()));
+        snapshot.put(bucket, counts);
+      }
+    }
+    return snapshot;
+  }
+
+  private static List<String> bucketNames() {
+    List<String> names = new ArrayList<>();
+    int lower = 0;
+    for (int limit : SIZE_LIMITS) {
+      names.add(lower + "-" + limit);
+      lower = limit + 1;
+    }
+    names.add(">" + SIZE_LIMITS[SIZE_LIMITS.length - 1]);
+    return names;
+  }
+
+  static String sizeBucket(int instanceSize) {
+    int lower = 0;
+    for (int limit : SIZE_LIMITS) {
+      if (instanceSize <= limit) {
+        return lower + "-" + limit;
+      }
+      lower = limit + 1;
+    }
+    return ">" + SIZE_LIMITS[SIZE_LIMITS.length - 1];
+  }
+}
@@ -0,0 +1,420 @@
+package com.hyperlogix.server.optimizer;
+
+import com.hyperlogix.server.config.Constants;
+import com.hyperlogix.server.domain.Node;
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.domain.Truck;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluador incremental de la ruta de un camión.
+ *
+ * La ruta se recorre una vez y se guardan acumulados por posición (distancia,
+ * carga al salir, combustible al llegar, costo de combustible, minuto de
+ * llegada y holgura de los plazos). Las plantas recargan GLP y combustible al
+ * máximo, así que la ruta se divide en viajes entre plantas: cambiar la
+ * demanda atendida en una posición solo cambia la carga llevada hasta el fin
+ * de su viaje. Con eso, insertar, quitar o reemplazar una entrega se responde
+ * en O(1) sin recorrer la ruta de nuevo.
+ *
+ * La posición 0 es la ubicación inicial del camión; las posiciones 1..n son
+ * las paradas. Las rutas que recogen carga de incidentes se evalúan, pero no
+ * admiten cambios incrementales (lo recogido queda limitado por la capacidad
+ * del camión).
+ */
+public class RouteEvaluator {
+  private static final double EPSILON = 1e-9;
+
+  /**
+   * Resultado de una consulta incremental.
+   *
+   * @param feasible       se siguen cumpliendo capacidad, combustible y plazos.
+   * @param costDelta      cambio en el consumo de combustible (galones).
+   * @param distanceDelta  cambio en la distancia recorrida (km).
+   * @param refillDelta    cambio en el GLP cargado en la planta que cierra el
+   *                       viaje.
+   * @param refillStation  planta que cierra el viaje afectado, o null.
+   * @param refillTime     hora de llegada a esa planta, o null.
+   */
+  public record Delta(
+      boolean feasible,
+      double costDelta,
+      int distanceDelta,
+      int refillDelta,
+      Node refillStation,
+      LocalDateTime refillTime) {
+    public static final Delta INFEASIBLE = new Delta(false, Double.POSITIVE_INFINITY, 0, 0, null, null);
+  }
+
+  private final Truck truck;
+  private final LocalDateTime startTime;
+  private final Map<String, Order> orders;
+  private final Point[] points;
+  private final Node[] nodes;
+  private final int[] demands;
+  private final int n;
+
+  private final int[] cumDistance;
+  private final int[] loadOut;
+  private final double[] fuelIn;
+  private final double[] fuelOut;
+  private final double[] cumCost;
+  private final long[] arrival;
+  private final long[] minSlackSuffix;
+  private final int[] tripEnd;
+  private final int[] minLoadToTripEnd;
+  private final int[] refill;
+  private final LocalDateTime[] arrivalTimes;
+  private boolean feasible = true;
+  private boolean incremental = true;
+
+  /**
+   * @param demands GLP entregado en cada parada (negativo si se recoge),
+   *                alineado con {@code stops}.
+   */
+  public RouteEvaluator(Truck truck, Point start, LocalDateTime startTime, List<Node> stops, int[] demands,
+      Map<String, Order> orders) {
+    this.truck = truck;
+    this.startTime = startTime;
+    this.orders = orders;
+    this.n = stops.size();
+    this.points = new Point[n + 1];
+    this.nodes = new Node[n + 1];
+    this.demands = new int[n + 1];
+    points[0] = start;
+    for (int i = 1; i <= n; i++) {
+      nodes[i] = stops.get(i - 1);
+      points[i] = nodes[i].getLocation();
+      this.demands[i] = demands[i - 1];
+    }
+
+    cumDistance = new int[n + 1];
+    loadOut = new int[n + 1];
+    fuelIn = new double[n + 1];
+    fuelOut = new double[n + 1];
+    cumCost = new double[n + 1];
+    arrival = new long[n + 1];
+    minSlackSuffix = new long[n + 2];
+    tripEnd = new int[n + 1];
+    minLoadToTripEnd = new int[n + 1];
+    refill = new int[n + 1];
+    arrivalTimes = new LocalDateTime[n + 1];
+
+    replay();
+  }
+
+  private void replay() {
+    loadOut[0] = truck.getCurrentCapacity();
+    fuelIn[0] = truck.getCurrentFuel();
+    fuelOut[0] = fuelIn[0];
+    long[] slack = new long[n + 1];
+    slack[0] = Long.MAX_VALUE;
+
+    for (int i = 1; i <= n; i++) {
+      int distance = DistanceMatrix.manhattan(points[i - 1], points[i]);
+      double consumption = truck.getFuelConsumption(distance, loadOut[i - 1]);
+      cumDistance[i] = cumDistance[i - 1] + distance;
+      cumCost[i] = cumCost[i - 1] + consumption;
+      fuelIn[i] = fuelOut[i - 1] - consumption;
+      arrival[i] = arrival[i - 1] + minutes(distance);
+      slack[i] = Long.MAX_VALUE;
+      if (fuelIn[i] < -EPSILON) {
+        feasible = false;
+      }
+
+      switch (nodes[i].getType()) {
+        case STATION -> {
+          refill[i] = truck.getMaxCapacity() - loadOut[i - 1];
+          loadOut[i] = truck.getMaxCapacity();
+          fuelOut[i] = truck.getFuelCapacity();
+        }
+        case DELIVERY -> {
+          if (loadOut[i - 1] < demands[i]) {
+            feasible = false;
+          }
+          loadOut[i] = loadOut[i - 1] - demands[i];
+          fuelOut[i] = fuelIn[i];
+          LocalDateTime deadline = deadline(nodes[i]);
+          if (deadline != null) {
+            slack[i] = Duration.between(startTime, deadline).toMinutes() - arrival[i];
+            if (slack[i] < 0) {
+              feasible = false;
+            }
+          }
+        }
+        case INCIDENT -> {
+          incremental = false;
+          loadOut[i] = Math.min(truck.getMaxCapacity(), loadOut[i - 1] - demands[i]);
+          fuelOut[i] = fuelIn[i];
+        }
+        default -> {
+          loadOut[i] = loadOut[i - 1];
+          fuelOut[i] = fuelIn[i];
+        }
+      }
+    }
+
+    minSlackSuffix[n + 1] = Long.MAX_VALUE;
+    for (int i = n; i >= 0; i--) {
+      minSlackSuffix[i] = Math.min(slack[i], minSlackSuffix[i + 1]);
+    }
+
+    // Cada viaje termina en la siguiente planta; la carga que queda después de
+    // cada parada limita cuánto más se puede entregar antes de esa planta
+    int end = n;
+    int minLoad = loadOut[n];
+    tripEnd[n] = n;
+    minLoadToTripEnd[n] = loadOut[n];
+    for (int i = n - 1; i >= 0; i--) {
+      if (nodes[i + 1].getType() == NodeType.STATION) {
+        end = i + 1;
+        minLoad = Integer.MAX_VALUE;
+      }
+      minLoad = Math.min(minLoad, loadOut[i]);
+      tripEnd[i] = end;
+      minLoadToTripEnd[i] = minLoad;
+    }
+  }
+
+  public boolean isFeasible() {
+    return feasible;
+  }
+
+  public double getCost() {
+    return cumCost[n];
+  }
+
+  public int getDistance() {
+    return cumDistance[n];
+  }
+
+  public int size() {
+    return n;
+  }
+
+  /**
+   * @return Hora de llegada a la parada {@code position} (1..n).
+   */
+  public LocalDateTime getArrivalTime(int position) {
+    // Se calcula al primer uso; un hilo que compita calcula el mismo valor
+    LocalDateTime time = arrivalTimes[position];
+    if (time == null) {
+      time = startTime.plusMinutes(arrival[position]);
+      arrivalTimes[position] = time;
+    }
+    return time;
+  }
+
+  /**
+   * @return GLP cargado en la parada {@code position} si es una planta; 0 si
+   *         no.
+   */
+  public int getRefill(int position) {
+    return refill[position];
+  }
+
+  /**
+   * Inserta una entrega justo después de {@code position} (0..n).
+   */
+  public Delta insertion(int position, Node node, int demand) {
+    return insertion(position, node, demand, deadlineMinutes(node));
+  }
+
+  /**
+   * Igual que {@link #insertion(int, Node, int)} con el plazo de la parada ya
+   * conocido, en minutos desde la hora de inicio; quien prueba muchas
+   * posiciones para la misma parada no lo busca cada vez.
+   */
+  public Delta insertion(int position, Node node, int demand, long deadlineMinutes) {
+    if (!incremental || demand < 0) {
+      return Delta.INFEASIBLE;
+    }
+    int k = position;
+    Point x = node.getLocation();
+    int dIn = DistanceMatrix.manhattan(points[k], x);
+    int dOut = k < n ? DistanceMatrix.manhattan(x, points[k + 1]) : 0;
+    int dOld = k < n ? DistanceMatrix.manhattan(points[k], points[k + 1]) : 0;
+
+    // Capacidad: desde k hasta el fin del viaje el camión lleva `demand` menos
+    if (minLoadToTripEnd[k] < demand) {
+      return Delta.INFEASIBLE;
+    }
+    // Plazo de la parada insertada y retraso de todas las posteriores
+    long arrivalAtX = arrival[k] + minutes(dIn);
+    if (arrivalAtX > deadlineMinutes) {
+      return Delta.INFEASIBLE;
+    }
+    long shift = k < n ? minutes(dIn) + minutes(dOut) - minutes(dOld) : 0;
+    if (k < n) {
+      if (shift > minSlackSuffix[k + 1]) {
+        return Delta.INFEASIBLE;
+      }
+    }
+
+    int load = loadOut[k];
+    double costDelta = truck.getFuelConsumption(dIn, load) - (k < n ? truck.getFuelConsumption(dOld, load) : 0);
+    if (k < n) {
+      costDelta += truck.getFuelConsumption(dOut, load - demand);
+    }
+    costDelta -= loadFuel(demand, tripDistanceAfter(k + 1));
+
+    if (!fuelHolds(k, costDelta, truck.getFuelConsumption(dIn, load))) {
+      return Delta.INFEASIBLE;
+    }
+    return tripDelta(k, costDelta, dIn + dOut - dOld, demand, shift);
+  }
+
+  /**
+   * Quita la entrega en {@code position} (1..n).
+   */
+  public Delta removal(int position) {
+    int k = position;
+    if (!incremental || k < 1 || k > n || nodes[k].getType() != NodeType.DELIVERY) {
+      return Delta.INFEASIBLE;
+    }
+    int demand = demands[k];
+    int dIn = DistanceMatrix.manhattan(points[k - 1], points[k]);
+    int dOut = k < n ? DistanceMatrix.manhattan(points[k], points[k + 1]) : 0;
+    int dNew = k < n ? DistanceMatrix.manhattan(points[k - 1], points[k + 1]) : 0;
+
+    int load = loadOut[k - 1];
+    double costDelta = (k < n ? truck.getFuelConsumption(dNew, load) : 0)
+        - truck.getFuelConsumption(dIn, load)
+        - (k < n ? truck.getFuelConsumption(dOut, loadOut[k]) : 0);
+    costDelta += loadFuel(demand, tripDistanceAfter(k + 1));
+
+    if (!fuelHolds(k - 1, costDelta, 0)) {
+      return Delta.INFEASIBLE;
+    }
+    // Quitar una parada solo adelanta las posteriores; los plazos se siguen cumpliendo
+    long shift = k < n ? minutes(dNew) - minutes(dIn) - minutes(dOut) : 0;
+    return tripDelta(k - 1, costDelta, dNew - dIn - dOut, -demand, shift);
+  }
+
+  /**
+   * Reemplaza la entrega en {@code position} (1..n) por otra entrega.
+   */
+  public Delta replacement(int position, Node node, int demand) {
+    int k = position;
+    if (!incremental || demand < 0 || k < 1 || k > n || nodes[k].getType() != NodeType.DELIVERY) {
+      return Delta.INFEASIBLE;
+    }
+    int change = demand - demands[k];
+    Point x = node.getLocation();
+    int dInOld = DistanceMatrix.manhattan(points[k - 1], points[k]);
+    int dOutOld = k < n ? DistanceMatrix.manhattan(points[k], points[k + 1]) : 0;
+    int dIn = DistanceMatrix.manhattan(points[k - 1], x);
+    int dOut = k < n ? DistanceMatrix.manhattan(x, points[k + 1]) : 0;
+
+    if (loadOut[k - 1] < demand || minLoadToTripEnd[k] < change) {
+      return Delta.INFEASIBLE;
+    }
+    long arrivalAtX = arrival[k - 1] + minutes(dIn);
+    LocalDateTime deadline = deadline(node);
+    if (deadline != null && arrivalAtX > Duration.between(startTime, deadline).toMinutes()) {
+      return Delta.INFEASIBLE;
+    }
+    long shift = k < n ? minutes(dIn) + minutes(dOut) - minutes(dInOld) - minutes(dOutOld) : 0;
+    if (k < n) {
+      if (shift > minSlackSuffix[k + 1]) {
+        return Delta.INFEASIBLE;
+      }
+    }
+
+    int load = loadOut[k - 1];
+    double costDelta = truck.getFuelConsumption(dIn, load) - truck.getFuelConsumption(dInOld, load);
+    if (k < n) {
+      costDelta += truck.getFuelConsumption(dOut, load - demand) - truck.getFuelConsumption(dOutOld, loadOut[k]);
+    }
+    costDelta -= loadFuel(change, tripDistanceAfter(k + 1));
+
+    if (!fuelHolds(k - 1, costDelta, truck.getFuelConsumption(dIn, load))) {
+      return Delta.INFEASIBLE;
+    }
+    return tripDelta(k - 1, costDelta, dIn + dOut - dInOld - dOutOld, change, shift);
+  }
+
+  /**
+   * Agrega al final de la ruta una recarga en {@code station} seguida de una
+   * entrega. El cambio de recarga es el GLP cargado en esa planta.
+   */
+  public Delta appendViaStation(Node station, Node node, int demand, long deadlineMinutes) {
+    if (!incremental || demand < 0 || demand > truck.getMaxCapacity()) {
+      return Delta.INFEASIBLE;
+    }
+    int dToStation = DistanceMatrix.manhattan(points[n], station.getLocation());
+    int dToStop = DistanceMatrix.manhattan(station.getLocation(), node.getLocation());
+    int load = loadOut[n];
+    double toStation = truck.getFuelConsumption(dToStation, load);
+    double toStop = truck.getFuelConsumption(dToStop, truck.getMaxCapacity());
+    if (fuelOut[n] - toStation < -EPSILON || truck.getFuelCapacity() - toStop < -EPSILON) {
+      return Delta.INFEASIBLE;
+    }
+    long arrivalAtStation = arrival[n] + minutes(dToStation);
+    long arrivalAtX = arrivalAtStation + minutes(dToStop);
+    if (arrivalAtX > deadlineMinutes) {
+      return Delta.INFEASIBLE;
+    }
+    return new Delta(true, toStation + toStop, dToStation + dToStop, truck.getMaxCapacity() - load, station,
+        startTime.plusMinutes(arrivalAtStation));
+  }
+
+  /**
+   * Dentro de un viaje el combustible solo baja, así que revisar la llegada al
+   * fin del viaje cubre todas las paradas intermedias.
+   */
+  private boolean fuelHolds(int from, double costDelta, double firstLeg) {
+    int end = tripEnd[from];
+    if (end <= from) {
+      return fuelOut[from] - firstLeg >= -EPSILON;
+    }
+    return fuelIn[end] - costDelta >= -EPSILON && fuelOut[from] - firstLeg >= -EPSILON;
+  }
+
+  /**
+   * @param shift Minutos que se corren las paradas posteriores al cambio, para
+   *              informar la nueva llegada a la planta que cierra el viaje.
+   */
+  private Delta tripDelta(int from, double costDelta, int distanceDelta, int refillDelta, long shift) {
+    int end = tripEnd[from];
+    if (end > from && end <= n && nodes[end].getType() == NodeType.STATION) {
+      return new Delta(true, costDelta, distanceDelta, refillDelta, nodes[end],
+          getArrivalTime(end).plusMinutes(shift));
+    }
+    return new Delta(true, costDelta, distanceDelta, 0, null, null);
+  }
+
+  /**
+   * Distancia recorrida desde {@code position} hasta el fin de su viaje.
+   */
+  private int tripDistanceAfter(int position) {
+    if (position > n) {
+      return 0;
+    }
+    return cumDistance[tripEnd[position - 1]] - cumDistance[position];
+  }
+
+  private static double loadFuel(int load, int distance) {
+    return distance * load * Constants.GLP_WEIGHT / 180;
+  }
+
+  private long minutes(int distance) {
+    return truck.getMinutesToDestination(distance);
+  }
+
+  private long deadlineMinutes(Node node) {
+    LocalDateTime deadline = deadline(node);
+    return deadline != null ? Duration.between(startTime, deadline).toMinutes() : Long.MAX_VALUE;
+  }
+
+  private LocalDateTime deadline(Node node) {
+    Order order = orders.get(node.getId());
+    return order != null ? order.getMaxDeliveryDate() : null;
+  }
+}
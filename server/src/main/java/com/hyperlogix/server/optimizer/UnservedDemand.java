@@ -0,0 +1,82 @@
+package com.hyperlogix.server.optimizer;
+
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.domain.Stop;
+import com.hyperlogix.server.domain.Truck;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Penalización por el GLP que un plan deja sin entregar, común a todas las
+ * estrategias para que sus costos estén en la misma escala: el costo de un
+ * resultado es el combustible de sus rutas más esta penalización.
+ *
+ * El GLP entregado se obtiene recorriendo cada ruta con la carga del camión:
+ * parte con su carga actual, se llena en cada planta y en cada pedido deja lo
+ * que le falte al pedido o lo que lleve, lo que sea menor.
+ */
+public final class UnservedDemand {
+  /**
+   * Penalización por m³ de GLP sin entregar.
+   */
+  public static final double PENALTY = 1000;
+
+  private UnservedDemand() {
+  }
+
+  /**
+   * @return Penalización del GLP de los pedidos en cálculo de la red que el
+   *         plan no entrega.
+   */
+  public static double penalty(PLGNetwork network, Routes routes) {
+    return PENALTY * unserved(network, routes);
+  }
+
+  /**
+   * @return m³ de GLP de los pedidos en cálculo que el plan no entrega.
+   */
+  public static int unserved(PLGNetwork network, Routes routes) {
+    Map<String, Integer> remaining = new HashMap<>();
+    int total = 0;
+    for (Order order : network.getCalculatedOrders()) {
+      int demand = order.getRequestedGLP() - order.getDeliveredGLP();
+      if (demand > 0) {
+        remaining.merge(order.getId(), demand, Integer::sum);
+        total += demand;
+      }
+    }
+    if (total == 0 || routes == null) {
+      return total;
+    }
+
+    Map<String, Truck> trucks = new HashMap<>();
+    network.getTrucks().forEach(truck -> trucks.put(truck.getId(), truck));
+    for (Map.Entry<String, List<Stop>> entry : routes.getStops().entrySet()) {
+      Truck truck = trucks.get(entry.getKey());
+      if (truck == null) {
+        continue;
+      }
+      int load = truck.getCurrentCapacity();
+      for (Stop stop : entry.getValue()) {
+        NodeType type = stop.getNode().getType();
+        if (type == NodeType.STATION) {
+          load = truck.getMaxCapacity();
+        } else if (type == NodeType.DELIVERY) {
+          Integer demand = remaining.get(stop.getNode().getId());
+          if (demand != null && demand > 0) {
+            int amount = Math.min(load, demand);
+            load -= amount;
+            total -= amount;
+            remaining.put(stop.getNode().getId(), demand - amount);
+          }
+        }
+      }
+    }
+    return total;
+  }
+}
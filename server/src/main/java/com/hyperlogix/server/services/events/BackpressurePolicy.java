@@ -0,0 +1,20 @@
+package com.hyperlogix.server.services.events;
+
+/**
+ * Qué hace un canal de {@link EventBus} con un evento que llega cuando ya hay
+ * otros en espera.
+ */
+public enum BackpressurePolicy {
+  /**
+   * Se encola; si la cola está llena se descarta el evento más antiguo. Con
+   * capacidad 0 la cola no tiene límite y no se descarta nada.
+   */
+  DROP_OLDEST,
+  /**
+   * Reemplaza al evento en espera con la misma clave, que queda en su lugar de
+   * la cola; si no hay ninguno, se encola. Cada lugar de la cola es el único
+   * evento pendiente de su clave, así que con la cola llena se rechaza el
+   * evento nuevo en lugar de descartar el de otra clave.
+   */
+  COALESCE
+}
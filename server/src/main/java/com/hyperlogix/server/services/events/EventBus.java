@@ -0,0 +1,85 @@
+package com.hyperlogix.server.services.events;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Entrega asíncrona de eventos de la aplicación. Los eventos se siguen
+ * publicando con {@code ApplicationEventPublisher}; los de un tipo suscrito
+ * aquí se encolan en su canal y los atienden los hilos del canal, así quien
+ * publica (por ejemplo, el hilo de una simulación) no espera al consumidor.
+ *
+ * Cada canal se configura con {@code events.<canal>.capacity},
+ * {@code events.<canal>.consumers} y {@code events.<canal>.policy}; sin ellas
+ * rigen los valores de la suscripción. Una capacidad de 0 deja la cola sin
+ * límite.
+ *
+ * Métricas, etiquetadas por {@code channel}: {@code events.queue.size},
+ * {@code events.queue.latency}, {@code events.handling},
+ * {@code events.discarded} (con {@code reason=dropped|coalesced|rejected}) y
+ * {@code events.failed}.
+ */
+@Component
+@Slf4j
+public class EventBus {
+  private final Map<Class<?>, EventChannel<?>> channels = new ConcurrentHashMap<>();
+  private final Environment environment;
+  private final MeterRegistry registry;
+
+  public EventBus(Environment environment, MeterRegistry registry) {
+    this.environment = environment;
+    this.registry = registry;
+  }
+
+  /**
+   * Atiende los eventos de {@code type} en un canal propio. Un tipo admite una
+   * sola suscripción.
+   *
+   * @param key Clave de los eventos (por ejemplo, la sesión): los de una misma
+   *            clave se atienden en orden y de a uno, y son los que
+   *            {@link BackpressurePolicy#COALESCE} combina. Puede ser null.
+   */
+  public <E> void subscribe(String name, Class<E> type, int capacity, int consumers, BackpressurePolicy policy,
+      Function<? super E, ?> key, Consumer<? super E> handler) {
+    String prefix = "events." + name + ".";
+    EventChannel<E> channel = new EventChannel<>(name,
+        environment.getProperty(prefix + "capacity", Integer.class, capacity),
+        environment.getProperty(prefix + "consumers", Integer.class, consumers),
+        environment.getProperty(prefix + "policy", BackpressurePolicy.class, policy),
+        key, handler, registry);
+    if (channels.putIfAbsent(type, channel) != null) {
+      channel.close();
+      throw new IllegalStateException("Event type " + type.getSimpleName() + " already has a channel");
+    }
+    log.info("Event channel {} subscribed for {}", name, type.getSimpleName());
+  }
+
+  @EventListener
+  public void onEvent(Object event) {
+    EventChannel<?> channel = channels.get(event.getClass());
+    if (channel != null) {
+      offer(channel, event);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E> void offer(EventChannel<E> channel, Object event) {
+    channel.offer((E) event);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    channels.values().forEach(EventChannel::close);
+    channels.clear();
+  }
+}
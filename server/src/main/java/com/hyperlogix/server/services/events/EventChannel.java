@@ -0,0 +1,183 @@
+package com.hyperlogix.server.services.events;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cola acotada de un tipo de evento con sus propios hilos consumidores. Los
+ * eventos con la misma clave se entregan de a uno y en orden; los de claves
+ * distintas se reparten entre los hilos.
+ */
+@Slf4j
+class EventChannel<E> {
+  private record Pending<E>(E event, Object key, long enqueuedAt) {
+  }
+
+  // Clave de cola de los eventos que no se combinan con otros
+  private record Slot(long sequence) {
+  }
+
+  private final String name;
+  private final int capacity;
+  private final int consumers;
+  private final BackpressurePolicy policy;
+  private final Function<? super E, ?> key;
+  private final Consumer<? super E> handler;
+  private final Map<Object, Pending<E>> queue = new LinkedHashMap<>();
+  // Claves con un evento en manos de un consumidor
+  private final Set<Object> inFlight = new HashSet<>();
+  private final AtomicInteger running = new AtomicInteger();
+  private final ExecutorService workers;
+  private final Timer latency;
+  private final Timer handling;
+  private final Counter dropped;
+  private final Counter coalesced;
+  private final Counter rejected;
+  private final Counter failed;
+  private long sequence;
+  private boolean closed;
+
+  EventChannel(String name, int capacity, int consumers, BackpressurePolicy policy, Function<? super E, ?> key,
+      Consumer<? super E> handler, MeterRegistry registry) {
+    this.name = name;
+    this.capacity = capacity;
+    this.consumers = consumers;
+    this.policy = policy;
+    this.key = key;
+    this.handler = handler;
+    AtomicInteger threads = new AtomicInteger();
+    this.workers = Executors.newFixedThreadPool(consumers, r -> {
+      Thread t = new Thread(r, "EventBus-" + name + "-" + threads.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    Gauge.builder("events.queue.size", this, EventChannel::size)
+        .description("Eventos en espera")
+        .tag("channel", name)
+        .register(registry);
+    latency = Timer.builder("events.queue.latency")
+        .description("Tiempo desde la publicación hasta que un consumidor toma el evento")
+        .tag("channel", name)
+        .register(registry);
+    handling = Timer.builder("events.handling")
+        .description("Tiempo de atención del evento")
+        .tag("channel", name)
+        .register(registry);
+    dropped = Counter.builder("events.discarded")
+        .description("Eventos que no llegaron a atenderse")
+        .tags("channel", name, "reason", "dropped")
+        .register(registry);
+    coalesced = Counter.builder("events.discarded")
+        .description("Eventos que no llegaron a atenderse")
+        .tags("channel", name, "reason", "coalesced")
+        .register(registry);
+    rejected = Counter.builder("events.discarded")
+        .description("Eventos que no llegaron a atenderse")
+        .tags("channel", name, "reason", "rejected")
+        .register(registry);
+    failed = Counter.builder("events.failed")
+        .description("Eventos cuyo consumidor lanzó una excepción")
+        .tag("channel", name)
+        .register(registry);
+  }
+
+  synchronized void offer(E event) {
+    if (closed) {
+      return;
+    }
+    Object eventKey = key != null ? key.apply(event) : null;
+    if (policy == BackpressurePolicy.COALESCE && eventKey != null) {
+      Pending<E> previous = queue.get(eventKey);
+      if (previous != null) {
+        // Conserva el momento de llegada del primero para que la latencia
+        // refleje cuánto lleva esperando la clave
+        queue.put(eventKey, new Pending<>(event, eventKey, previous.enqueuedAt()));
+        coalesced.increment();
+        return;
+      }
+    }
+    if (capacity > 0 && queue.size() >= capacity) {
+      if (policy == BackpressurePolicy.COALESCE) {
+        rejected.increment();
+        log.warn("Event channel {} is full ({} keys waiting), rejecting event for {}", name, capacity, eventKey);
+        return;
+      }
+      Iterator<Pending<E>> oldest = queue.values().iterator();
+      Pending<E> discarded = oldest.next();
+      oldest.remove();
+      dropped.increment();
+      log.warn("Event channel {} is full ({} events), dropping oldest event for {}", name, capacity,
+          discarded.key());
+    }
+    Object slot = policy == BackpressurePolicy.COALESCE && eventKey != null ? eventKey : new Slot(sequence++);
+    queue.put(slot, new Pending<>(event, eventKey, System.nanoTime()));
+    dispatch();
+  }
+
+  private synchronized int size() {
+    return queue.size();
+  }
+
+  /**
+   * Entrega eventos mientras haya consumidores libres, saltando los de claves
+   * que ya se están atendiendo.
+   */
+  private synchronized void dispatch() {
+    Iterator<Pending<E>> pending = queue.values().iterator();
+    while (pending.hasNext() && running.get() < consumers) {
+      Pending<E> next = pending.next();
+      if (next.key() != null && inFlight.contains(next.key())) {
+        continue;
+      }
+      pending.remove();
+      if (next.key() != null) {
+        inFlight.add(next.key());
+      }
+      running.incrementAndGet();
+      workers.execute(() -> deliver(next));
+    }
+  }
+
+  private void deliver(Pending<E> pending) {
+    long start = System.nanoTime();
+    latency.record(start - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+    try {
+      handler.accept(pending.event());
+    } catch (Exception e) {
+      failed.increment();
+      log.error("Event channel {} failed handling event for {}: {}", name, pending.key(), e.getMessage(), e);
+    } finally {
+      handling.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      synchronized (this) {
+        running.decrementAndGet();
+        if (pending.key() != null) {
+          inFlight.remove(pending.key());
+        }
+        if (!closed) {
+          dispatch();
+        }
+      }
+    }
+  }
+
+  synchronized void close() {
+    closed = true;
+    queue.clear();
+    workers.shutdownNow();
+  }
+}
@@ -0,0 +1,56 @@
+package com.hyperlogix.server.services.planification;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.hyperlogix.server.domain.NetworkSnapshot;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Path;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.domain.Stop;
+import com.hyperlogix.server.domain.Truck;
+import com.hyperlogix.server.optimizer.OptimizerContext;
+import com.hyperlogix.server.optimizer.OptimizerResult;
+import com.hyperlogix.server.optimizer.ALNS.RegretInsertionOptimizer;
+
+/**
+ * Replanificación parcial: vuelve a armar solo las rutas de los camiones
+ * afectados por un cambio (avería, mantenimiento, pedido nuevo o bloqueo) con
+ * los pedidos de la instantánea, que son los que esos camiones tenían
+ * pendientes más los nuevos. Las demás rutas no se tocan.
+ *
+ * Usa la inserción por arrepentimiento y A* sobre unos pocos camiones, así que
+ * responde en milisegundos en lugar de esperar un ciclo de planificación
+ * completo.
+ */
+class PartialReplanner {
+  /**
+   * @return Rutas nuevas de los camiones afectados; los que no reciben
+   *         pedidos quedan con su posición como única parada.
+   */
+  Routes replan(NetworkSnapshot snapshot, Set<String> truckIds, LocalDateTime algorithmTime) {
+    PLGNetwork network = snapshot.network();
+    List<Truck> trucks = network.getTrucks().stream()
+        .filter(truck -> truckIds.contains(truck.getId()))
+        .toList();
+    PLGNetwork subNetwork = new PLGNetwork(new ArrayList<>(trucks), network.getStations(),
+        new ArrayList<>(network.getOrders()), network.getIncidents(), network.getRoadblocks());
+
+    OptimizerResult result = new RegretInsertionOptimizer()
+        .run(new OptimizerContext(subNetwork, algorithmTime, snapshot.incidents()), Duration.ZERO);
+    Routes routes = result.getRoutes();
+
+    Map<String, List<Stop>> stops = new HashMap<>();
+    Map<String, List<Path>> paths = new HashMap<>();
+    for (Truck truck : trucks) {
+      stops.put(truck.getId(), new ArrayList<>(routes.getStops().getOrDefault(truck.getId(), List.of())));
+      paths.put(truck.getId(), new ArrayList<>(routes.getPaths().getOrDefault(truck.getId(), List.of())));
+    }
+    return new Routes(stops, paths, routes.getCost());
+  }
+}
@@ -0,0 +1,199 @@
+package com.hyperlogix.server.services.planification;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.hyperlogix.server.domain.NetworkSnapshot;
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.Path;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.domain.Roadblock;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.domain.Stop;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Planes recientes indexados por la huella de su entrada
+ * ({@link NetworkSnapshot#fingerprint()}). Una solicitud con la misma entrada
+ * que una reciente recibe ese plan desplazado a su hora de planificación, sin
+ * volver a correr el optimizador.
+ *
+ * La huella discretiza la posición y el combustible de los camiones, y los
+ * bloqueos que un plan esquivaba o no encontraba dependen de la hora, así que
+ * el plan desplazado se valida antes de entregarlo.
+ *
+ * Métricas: {@code planning.cache.requests} con {@code result=hit|miss|stale}
+ * (stale: la entrada coincide pero el plan desplazado ya no cumple los plazos
+ * o cruza un bloqueo activo),
+ * {@code planning.cache.hit.ratio} y {@code planning.cache.size}.
+ */
+@Component
+@Slf4j
+public class PlanCache {
+  private static final int CAPACITY = 32;
+  // Más allá de este desfase el plan desplazado deja de ser confiable
+  private static final Duration MAX_AGE = Duration.ofMinutes(30);
+
+  private record Entry(Routes routes, LocalDateTime algorithmTime) {
+  }
+
+  private final Map<String, Entry> plans = new LinkedHashMap<>(CAPACITY, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > CAPACITY;
+    }
+  };
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter stale;
+
+  public PlanCache(MeterRegistry registry) {
+    hits = requests(registry, "hit");
+    misses = requests(registry, "miss");
+    stale = requests(registry, "stale");
+    Gauge.builder("planning.cache.hit.ratio", this, PlanCache::hitRatio)
+        .description("Fracción de solicitudes atendidas desde la caché")
+        .register(registry);
+    Gauge.builder("planning.cache.size", this, PlanCache::size)
+        .description("Planes en caché")
+        .register(registry);
+  }
+
+  private static Counter requests(MeterRegistry registry, String result) {
+    return Counter.builder("planning.cache.requests")
+        .description("Solicitudes de planificación consultadas en la caché")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  /**
+   * @return Copia del plan guardado para la misma entrada, desplazada a
+   *         {@code algorithmTime}, o null si no hay uno reciente que siga
+   *         cumpliendo los plazos de los pedidos y evitando los bloqueos
+   *         activos en sus nuevos horarios.
+   */
+  public synchronized Routes lookup(NetworkSnapshot network, LocalDateTime algorithmTime) {
+    String key = network.fingerprint();
+    Entry entry = plans.get(key);
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    Duration shift = Duration.between(entry.algorithmTime(), algorithmTime);
+    if (shift.abs().compareTo(MAX_AGE) > 0) {
+      plans.remove(key);
+      misses.increment();
+      return null;
+    }
+    Routes routes = copy(entry.routes(), shift);
+    if (!meetsDeadlines(routes, network) || crossesRoadblock(routes, network)) {
+      plans.remove(key);
+      stale.increment();
+      return null;
+    }
+    hits.increment();
+    log.info("Reusing cached plan shifted by {} for fingerprint {}", shift, key.substring(0, 12));
+    return routes;
+  }
+
+  public synchronized void store(NetworkSnapshot network, LocalDateTime algorithmTime, Routes routes) {
+    if (routes == null || routes.getStops() == null || routes.getStops().isEmpty()) {
+      return;
+    }
+    plans.put(network.fingerprint(), new Entry(copy(routes, Duration.ZERO), algorithmTime));
+  }
+
+  private synchronized int size() {
+    return plans.size();
+  }
+
+  private double hitRatio() {
+    double total = hits.count() + misses.count() + stale.count();
+    return total > 0 ? hits.count() / total : 0;
+  }
+
+  /**
+   * Copia independiente del plan con las llegadas desplazadas; la simulación
+   * modifica las paradas que recibe, así que la caché nunca entrega las suyas.
+   */
+  private static Routes copy(Routes routes, Duration shift) {
+    Map<String, List<Stop>> stops = new HashMap<>();
+    routes.getStops().forEach((truckId, route) -> {
+      List<Stop> copied = new ArrayList<>(route.size());
+      for (Stop stop : route) {
+        copied.add(new Stop(stop.getNode(), stop.getArrivalTime() != null ? stop.getArrivalTime().plus(shift) : null));
+      }
+      stops.put(truckId, copied);
+    });
+    Map<String, List<Path>> paths = new HashMap<>();
+    if (routes.getPaths() != null) {
+      routes.getPaths().forEach((truckId, route) -> paths.put(truckId, new ArrayList<>(route)));
+    }
+    return new Routes(stops, paths, routes.getCost());
+  }
+
+  /**
+   * Un tramo va de la parada i a la i+1; cruza un bloqueo si pasa por uno de
+   * sus nodos y el bloqueo está activo en algún momento entre ambas llegadas.
+   */
+  private static boolean crossesRoadblock(Routes routes, NetworkSnapshot network) {
+    List<Roadblock> roadblocks = network.network().getRoadblocks();
+    if (roadblocks == null || roadblocks.isEmpty() || routes.getPaths() == null) {
+      return false;
+    }
+    for (Map.Entry<String, List<Path>> entry : routes.getPaths().entrySet()) {
+      List<Stop> route = routes.getStops().getOrDefault(entry.getKey(), List.of());
+      List<Path> paths = entry.getValue();
+      for (int i = 0; i < paths.size() && i + 1 < route.size(); i++) {
+        LocalDateTime from = route.get(i).getArrivalTime();
+        LocalDateTime to = route.get(i + 1).getArrivalTime();
+        if (from == null || to == null) {
+          continue;
+        }
+        Set<Point> blocked = new HashSet<>();
+        for (Roadblock roadblock : roadblocks) {
+          boolean active = roadblock.start().isBefore(to) && (roadblock.end() == null || roadblock.end().isAfter(from));
+          if (active) {
+            roadblock.blockedNodes().forEach(node -> blocked.add(node.integerPoint()));
+          }
+        }
+        if (!blocked.isEmpty()
+            && paths.get(i).points().stream().anyMatch(point -> blocked.contains(point.integerPoint()))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean meetsDeadlines(Routes routes, NetworkSnapshot network) {
+    Map<String, Order> orders = new HashMap<>();
+    network.network().getOrders().forEach(order -> orders.put(order.getId(), order));
+    for (List<Stop> route : routes.getStops().values()) {
+      for (Stop stop : route) {
+        if (stop.getNode().getType() != NodeType.DELIVERY || stop.getArrivalTime() == null) {
+          continue;
+        }
+        Order order = orders.get(stop.getNode().getId());
+        if (order != null && stop.getArrivalTime().isAfter(order.getMaxDeliveryDate())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
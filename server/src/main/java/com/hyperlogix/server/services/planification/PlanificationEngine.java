@@ -3,6 +3,7 @@ package com.hyperlogix.server.services.planification;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,14 +14,53 @@ import com.hyperlogix.server.domain.PLGNetwork;
 import com.hyperlogix.server.domain.Incident;
 
 import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.optimizer.Graph;
+import com.hyperlogix.server.optimizer.MatrixArena;
+import com.hyperlogix.server.optimizer.Optimizer;
 import com.hyperlogix.server.optimizer.OptimizerContext;
 import com.hyperlogix.server.optimizer.OptimizerResult;
+import com.hyperlogix.server.optimizer.PlanningTelemetry;
+import com.hyperlogix.server.optimizer.UnservedDemand;
 import com.hyperlogix.server.optimizer.AntColony.AntColonyConfig;
+import com.hyperlogix.server.optimizer.ALNS.ALNSConfig;
+import com.hyperlogix.server.optimizer.ALNS.ALNSOptimizer;
+import com.hyperlogix.server.optimizer.ALNS.RegretInsertionOptimizer;
 import com.hyperlogix.server.optimizer.AntColony.AntColonyOptimizer;
+import com.hyperlogix.server.optimizer.AntColony.IslandAntColonyOptimizer;
+import com.hyperlogix.server.optimizer.AntColony.IslandConfig;
+import com.hyperlogix.server.optimizer.Decomposition.DecompositionConfig;
+import com.hyperlogix.server.optimizer.Decomposition.DecompositionOptimizer;
+import com.hyperlogix.server.optimizer.Genetic.GeneticConfig;
+import com.hyperlogix.server.optimizer.Genetic.GeneticOptimizer;
+import com.hyperlogix.server.optimizer.LocalSearch.LocalSearch;
+import com.hyperlogix.server.optimizer.LocalSearch.LocalSearchConfig;
+import com.hyperlogix.server.optimizer.Portfolio.PortfolioOptimizer;
+import com.hyperlogix.server.optimizer.Portfolio.PortfolioStatistics;
+import com.hyperlogix.server.services.planification.remote.RemotePlanner;
 
 public class PlanificationEngine implements Runnable {
 
   private static final Logger log = LoggerFactory.getLogger(PlanificationEngine.class);
+  private static final ALNSConfig ALNS_CONFIG = new ALNSConfig(50, 0.2, 33, 9, 13, 0.1, 0.35, 0.05, 0.01,
+      UnservedDemand.PENALTY);
+  private static final DecompositionConfig DECOMPOSITION_CONFIG = new DecompositionConfig(80, 40, 20, 0.15);
+  // Mínimo para planificar localmente cuando el trabajador remoto falla;
+  // sumado a RemotePlanner.RESPONSE_GRACE queda dentro de la holgura del plazo
+  private static final Duration MIN_FALLBACK_BUDGET = Duration.ofMillis(500);
+  // Iteraciones entre migraciones de las islas de la colonia de hormigas
+  private static final int ISLAND_MIGRATION_INTERVAL = 2;
+  // Parte del presupuesto de la búsqueda local que se reserva para calcular
+  // con A* los caminos de las rutas que mejora
+  private static final double A_STAR_SHARE = 0.3;
+  // Brecha contra la cota inferior con la que se corta la planificación. Es un
+  // corte de ajuste, no un certificado de casi optimalidad: la cota es tan
+  // holgada que 0.92 acepta costos de hasta 12.5 veces la cota. Con la flota
+  // de prueba y 15 a 100 pedidos, el portafolio queda entre 0.91 y 0.94 tras
+  // 1 s y entre 0.90 y 0.94 (mediana 0.925) tras 12 s, así que 0.92 corta
+  // cuando el plan ya está en la mitad buena de lo que se alcanza sin límite.
+  // El costo incluye la penalización por GLP sin entregar, que la cota no
+  // tiene, así que un plan que deja demanda sin atender no corta
+  public static final double DEFAULT_TARGET_GAP = 0.92;
   private final PlanificationNotifier notifier;
   private final PLGNetwork network;
   private final LocalDateTime algorithmTime;
@@ -29,12 +69,19 @@ public class PlanificationEngine implements Runnable {
   private final String sessionId;
   private final List<Incident> incidents;
   private final Runnable onComplete;
+  private final PortfolioStatistics portfolioStatistics;
+  private RemotePlanner remotePlanner;
+  private ExecutorService geneticExecutor;
+  private double targetGap = DEFAULT_TARGET_GAP;
+  // Se crea al empezar a correr, para no contar el tiempo en cola
+  private volatile PlanningTelemetry telemetry;
   private volatile Thread currentThread;
   private volatile boolean isPlanning = false;
   private volatile int currentNodesProcessed = 0;
 
   public PlanificationEngine(PLGNetwork network, PlanificationNotifier notifier, LocalDateTime algorithmTime,
-      Duration algorithmDuration, List<Incident> incidents, ApplicationEventPublisher eventPublisher, String sessionId, Runnable onComplete) {
+      Duration algorithmDuration, List<Incident> incidents, ApplicationEventPublisher eventPublisher, String sessionId, Runnable onComplete,
+      PortfolioStatistics portfolioStatistics) {
     this.notifier = notifier;
     this.network = network;
     this.algorithmTime = algorithmTime;
@@ -43,17 +90,19 @@ public class PlanificationEngine implements Runnable {
     this.sessionId = sessionId;
     this.incidents = incidents != null ? incidents : List.of();
     this.onComplete = onComplete;
+    this.portfolioStatistics = portfolioStatistics;
   }
 
   // Constructor sin eventos para compatibilidad hacia atrás
   public PlanificationEngine(PLGNetwork network, PlanificationNotifier notifier, LocalDateTime algorithmTime,
       Duration algorithmDuration, List<Incident> incidents) {
-    this(network, notifier, algorithmTime, algorithmDuration, incidents, null, null, null);
+    this(network, notifier, algorithmTime, algorithmDuration, incidents, null, null, null, null);
   }
 
   @Override
   public void run() {
     currentThread = Thread.currentThread();
+    telemetry = new PlanningTelemetry();
     isPlanning = true;
 
     // Count calculating orders and log details for debugging
@@ -95,7 +144,30 @@ public class PlanificationEngine implements Runnable {
     network.getOrders().forEach(order -> log.debug("Order {}: status={}, clientId={}, requestedGLP={}",
         order.getId(), order.getStatus(), order.getClientId(), order.getRequestedGLP()));
 
+    // Matrices de esta planificación; se sueltan al terminar
+    MatrixArena matrices = MatrixArena.open();
     try {
+      // Con trabajadores remotos se planifica fuera del proceso; si ninguno
+      // responde se sigue con la planificación local
+      Duration budget = algorithmDuration;
+      if (remotePlanner != null && remotePlanner.isEnabled()) {
+        long remoteStart = System.nanoTime();
+        Routes remote = remotePlanner.plan(network, incidents, algorithmTime, algorithmDuration);
+        if (remote != null) {
+          sendPlanificationResult(remote);
+          return;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+          return;
+        }
+        // El respaldo local solo usa lo que queda del presupuesto
+        budget = algorithmDuration.minus(Duration.ofNanos(System.nanoTime() - remoteStart));
+        if (budget.compareTo(MIN_FALLBACK_BUDGET) < 0) {
+          budget = MIN_FALLBACK_BUDGET;
+        }
+        log.info("Planning locally with the remaining {} ms of the budget", budget.toMillis());
+      }
+
       AntColonyConfig config = new AntColonyConfig(
           8,
           5,
@@ -103,27 +175,85 @@ public class PlanificationEngine implements Runnable {
           2.0,
           0.5,
           100.0,
-          1.0);
-      AntColonyOptimizer optimizer = new AntColonyOptimizer(config);
-
-      // Configurar el event publisher y session ID si están disponibles
-      if (eventPublisher != null && sessionId != null) {
-        optimizer.setEventPublisher(eventPublisher);
-        optimizer.setSessionId(sessionId);
-      }
+          1.0,
+          true,
+          false,
+          0.05,
+          3,
+          1.1);
+      // Con muchos pedidos cada grupo geográfico se resuelve con su propio portafolio
+      Optimizer optimizer = new DecompositionOptimizer(DECOMPOSITION_CONFIG, groupCores -> new PortfolioOptimizer(List.of(
+            new PortfolioOptimizer.Strategy("ant-colony", cores -> {
+              // Con más de un núcleo la colonia corre como islas, una por núcleo
+              if (cores > 1) {
+                IslandAntColonyOptimizer islands = new IslandAntColonyOptimizer(config,
+                    new IslandConfig(cores, ISLAND_MIGRATION_INTERVAL));
+                if (eventPublisher != null && sessionId != null) {
+                  islands.setEventPublisher(eventPublisher);
+                  islands.setSessionId(sessionId);
+                }
+                return islands;
+              }
+              AntColonyOptimizer antColony = new AntColonyOptimizer(config);
+              // Configurar el event publisher y session ID si están disponibles
+              if (eventPublisher != null && sessionId != null) {
+                antColony.setEventPublisher(eventPublisher);
+                antColony.setSessionId(sessionId);
+              }
+              return antColony;
+            }),
+            new PortfolioOptimizer.Strategy("alns", cores -> new ALNSOptimizer(ALNS_CONFIG)),
+            new PortfolioOptimizer.Strategy("genetic", cores -> new GeneticOptimizer(new GeneticConfig(
+                20, 1000, 3, 0.1, 0.5, 0.1, cores, true), geneticExecutor))),
+            portfolioStatistics,
+            new RegretInsertionOptimizer(),
+            groupCores)
+            .onOutcome(outcome -> log.info("Portfolio winner for {} orders: {} (cost {})",
+                outcome.orders(), outcome.winner(), outcome.cost())));
 
       OptimizerContext ctx = new OptimizerContext(
           network,
           algorithmTime,
-          incidents);
+          incidents,
+          targetGap);
+      ctx.telemetry = telemetry;
+      ctx.matrices = matrices;
 
       log.info("Running optimizer with {} trucks and {} calculating orders",
           network.getTrucks().size(), calculatingOrdersCount);
 
-      OptimizerResult result = optimizer.run(ctx, algorithmDuration);
+      LocalSearchConfig localSearchConfig = new LocalSearchConfig(0.15, 3);
+      Duration localSearchBudget = Duration.ofMillis(
+          (long) (budget.toMillis() * localSearchConfig.TIME_SHARE()));
+
+      OptimizerResult result = optimizer.run(ctx, budget.minus(localSearchBudget));
 
       Routes routes = result.getRoutes();
 
+      // Búsqueda local sobre la mejor solución, que ya trae sus caminos de A*.
+      // Las rutas que mejora se vuelven a pasar por A* dentro del mismo
+      // presupuesto, así que la búsqueda usa solo su parte y la pasada se
+      // omite si ya no cabe
+      long localSearchDeadline = System.nanoTime() + localSearchBudget.toNanos();
+      Routes improved = new LocalSearch(network, incidents, localSearchConfig)
+          .improve(routes, algorithmTime,
+              Duration.ofMillis((long) (localSearchBudget.toMillis() * (1 - A_STAR_SHARE))));
+      if (improved != routes && System.nanoTime() < localSearchDeadline) {
+        Graph graph = new Graph(network, algorithmTime, config, incidents);
+        graph.attach(ctx);
+        Routes processed = graph.processRoutesWithAStar(improved, algorithmTime);
+        // Ambos lados con el mismo modelo: combustible más la penalización
+        // por demanda sin atender
+        double before = ctx.score(routes);
+        double after = ctx.score(processed);
+        if (after <= before) {
+          log.info("Local search reduced route cost from {} to {}", before, after);
+          routes = processed;
+        }
+      } else if (improved != routes) {
+        log.info("Local search used its whole budget, keeping the optimizer routes");
+      }
+
       log.info("Planification completed. Generated routes for {} trucks",
           routes.getStops().keySet().size());
 
@@ -133,6 +263,8 @@ public class PlanificationEngine implements Runnable {
         return;
       }
     } finally {
+      matrices.close();
+      telemetry.finish(null);
       isPlanning = false;
       currentNodesProcessed = 0;
       currentThread = null;
@@ -151,7 +283,62 @@ public class PlanificationEngine implements Runnable {
   }
 
   public PlanificationStatus getStatus() {
-    return new PlanificationStatus(isPlanning, currentNodesProcessed);
+    PlanningTelemetry current = telemetry;
+    if (current == null) {
+      return new PlanificationStatus(isPlanning, currentNodesProcessed);
+    }
+    PlanningTelemetry.Snapshot snapshot = current.snapshot();
+    long iterations = snapshot.iterations().values().stream().mapToLong(Long::longValue).sum();
+    return new PlanificationStatus(isPlanning, currentNodesProcessed, iterations, snapshot.bestCost());
+  }
+
+  /**
+   * @return Telemetría de la planificación, o null si todavía no empezó a
+   *         correr.
+   */
+  public PlanningTelemetry getTelemetry() {
+    return telemetry;
+  }
+
+  /**
+   * Resumen de la planificación para publicar o guardar en la historia.
+   */
+  public PlanningRunReport report(String sessionId, boolean speculative) {
+    PlanningTelemetry current = telemetry;
+    if (current == null) {
+      return null;
+    }
+    long orders = network.getOrders().stream()
+        .filter(order -> order.getStatus() == OrderStatus.CALCULATING)
+        .count();
+    return new PlanningRunReport(sessionId, speculative, algorithmTime, algorithmDuration.toMillis(),
+        (int) orders, network.getTrucks().size(), current.isFinished(), current.snapshot());
+  }
+
+  public void setRemotePlanner(RemotePlanner remotePlanner) {
+    this.remotePlanner = remotePlanner;
+  }
+
+  /**
+   * @param geneticExecutor Pool de larga vida, de quien crea el motor, donde
+   *                        el genético evalúa el fitness; sin él cada ejecución
+   *                        del genético crea el suyo.
+   */
+  public void setGeneticExecutor(ExecutorService geneticExecutor) {
+    this.geneticExecutor = geneticExecutor;
+  }
+
+  /**
+   * @param targetGap Brecha contra la cota inferior con la que se corta la
+   *                  planificación, como corte de ajuste (ver
+   *                  {@link #DEFAULT_TARGET_GAP}); 0 la desactiva.
+   */
+  public void setTargetGap(double targetGap) {
+    this.targetGap = targetGap;
+  }
+
+  public Duration getAlgorithmDuration() {
+    return algorithmDuration;
   }
 
   public void updateNodesProcessed(int nodes) {
@@ -159,6 +346,7 @@ public class PlanificationEngine implements Runnable {
   }
 
   private void sendPlanificationResult(Routes routes) {
+    telemetry.finish(routes.getCost());
     notifier.notify(routes);
   }
 
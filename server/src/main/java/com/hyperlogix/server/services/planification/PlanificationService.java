@@ -4,22 +4,31 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import com.hyperlogix.server.domain.Incident;
-import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.NetworkSnapshot;
+import com.hyperlogix.server.domain.Routes;
 import com.hyperlogix.server.features.planification.dtos.PlanificationResponseEvent;
+import com.hyperlogix.server.optimizer.Genetic.GeneticOptimizer;
+import com.hyperlogix.server.optimizer.Portfolio.PortfolioStatistics;
+import com.hyperlogix.server.services.planification.remote.RemotePlanner;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
@@ -30,46 +39,286 @@ public class PlanificationService {
   @Autowired
   private SimpMessagingTemplate messaging;
   private final Map<String, PlanificationEngine> planification = new ConcurrentHashMap<>();
-  private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
-    Thread t = new Thread(r, "PlanificationService-" + System.currentTimeMillis());
-    t.setDaemon(true);
-    return t;
-  });
+  @Getter
+  private final PortfolioStatistics portfolioStatistics = new PortfolioStatistics();
+  // Solicitud más reciente que llegó mientras la sesión planificaba
+  private final Map<String, PlanificationRequest> pending = new ConcurrentHashMap<>();
+  @Autowired
+  private PlanningScheduler planningScheduler;
+  @Autowired
+  private PlanCache planCache;
+  @Autowired
+  private RemotePlanner remotePlanner;
+  @Autowired
+  private PlanningTelemetryHistory telemetryHistory;
+  @Value("${planning.target-gap:" + PlanificationEngine.DEFAULT_TARGET_GAP + "}")
+  private double targetGap;
+  // Hilos del pool del genético; 0 lo dimensiona con la concurrencia de la cola
+  @Value("${planning.genetic.threads:0}")
+  private int geneticThreads;
+  // Pool del genético compartido por todas las planificaciones del servicio
+  private ForkJoinPool geneticPool;
 private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
 
-  public void startPlanification(String planificationId, PLGNetwork network, LocalDateTime algorithmTime,
+  // Cubre la espera extra de un trabajador remoto (RemotePlanner.RESPONSE_GRACE)
+  // más el presupuesto mínimo del respaldo local del motor
+  private static final Duration DEADLINE_GRACE = Duration.ofSeconds(2);
+  // Las planificaciones especulativas corren bajo su propia clave para no
+  // reemplazar ni cancelar la planificación real de la sesión
+  private static final String SPECULATIVE_SUFFIX = "#speculative";
+  // Clave de las replanificaciones parciales, que tampoco reemplazan la completa
+  private static final String PARTIAL_SUFFIX = "#partial";
+  // Cada cuánto se publica la telemetría de las planificaciones en curso
+  private static final Duration TELEMETRY_INTERVAL = Duration.ofSeconds(1);
+  private final PartialReplanner partialReplanner = new PartialReplanner();
+
+  private record PlanificationRequest(NetworkSnapshot network, LocalDateTime algorithmTime,
       Duration algorithmDuration) {
-    startPlanification(planificationId, network, algorithmTime, algorithmDuration, List.of());
   }
 
-  public void startPlanification(String planificationId, PLGNetwork network, LocalDateTime algorithmTime,
-      Duration algorithmDuration, List<Incident> incidents) {
+  /**
+   * Planifica la red de la sesión. Si la sesión ya está planificando, la
+   * solicitud queda pendiente y reemplaza a la que hubiera: al terminar la
+   * planificación en curso, o al vencer su plazo, se planifica solo el estado
+   * más reciente. Así una ráfaga de cambios no reinicia la planificación una y
+   * otra vez sin que ninguna termine.
+   *
+   * Si la entrada coincide con la de un plan reciente, se responde con ese plan
+   * desplazado a la hora de planificación y se descarta lo que la sesión tenía
+   * en curso, que correspondía a una entrada anterior.
+   *
+   * @param network Instantánea de la red; todos los hilos de la planificación
+   *                la comparten sin copiarla.
+   */
+  public synchronized void startPlanification(String planificationId, NetworkSnapshot network,
+      LocalDateTime algorithmTime, Duration algorithmDuration) {
+    PlanificationRequest request = new PlanificationRequest(network, algorithmTime, algorithmDuration);
+    Routes cached = planCache.lookup(network, algorithmTime);
+    if (cached != null) {
+      stopPlanification(planificationId);
+      PlanificationNotifier notifier = notifier(planificationId);
+      scheduler.execute(() -> notifier.notify(cached));
+      return;
+    }
+    PlanificationEngine current = planification.get(planificationId);
+    if (current != null && current.getStatus().planning()) {
+      if (pending.put(planificationId, request) == null) {
+        scheduleDeadline(planificationId, current);
+      }
+      log.debug("Planification for session {} in progress, request coalesced", planificationId);
+      return;
+    }
+    launch(planificationId, request);
+  }
+
+  /**
+   * Replanifica en el hilo que llama solo los camiones indicados, con los
+   * pedidos en cálculo de la instantánea, sin pasar por la cola. Para quien ya
+   * corre fuera del hilo de la petición, como la reutilización de un plan
+   * especulativo.
+   *
+   * @return Rutas nuevas de esos camiones.
+   */
+  public Routes replanPartially(NetworkSnapshot network, Set<String> truckIds, LocalDateTime algorithmTime) {
+    return partialReplanner.replan(network, truckIds, algorithmTime);
+  }
+
+  /**
+   * Replanifica en segundo plano solo los camiones indicados, con los pedidos
+   * en cálculo de la instantánea. Pasa por la cola con la prioridad de la
+   * sesión, bajo su propia clave, así que no cancela ni reemplaza la
+   * planificación completa que la sesión tenga en curso.
+   *
+   * @return Rutas nuevas de esos camiones; null si el trabajo se descartó en
+   *         la cola, o una excepción si la replanificación falló.
+   */
+  public CompletableFuture<Routes> replanPartially(String planificationId, NetworkSnapshot network,
+      Set<String> truckIds, LocalDateTime algorithmTime) {
+    CompletableFuture<Routes> result = new CompletableFuture<>();
+    planningScheduler.submit(planificationId + PARTIAL_SUFFIX, PlanningPriority.of(planificationId), () -> {
+      try {
+        result.complete(partialReplanner.replan(network, truckIds, algorithmTime));
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    }, () -> result.complete(null));
+    return result;
+  }
+
+  /**
+   * Planifica en segundo plano un estado proyectado de la sesión. El resultado
+   * no se notifica ni se guarda en la caché: lo recibe solo quien lo pidió, que
+   * decide si todavía sirve. Reemplaza la especulación anterior de la sesión.
+   *
+   * @return Rutas planificadas, o null si la especulación se canceló, se
+   *         descartó en la cola o falló.
+   */
+  public synchronized CompletableFuture<Routes> planSpeculatively(String planificationId, NetworkSnapshot network,
+      LocalDateTime algorithmTime, Duration algorithmDuration) {
+    String speculationId = planificationId + SPECULATIVE_SUFFIX;
+    stopPlanification(speculationId);
+    CompletableFuture<Routes> result = new CompletableFuture<>();
+    AtomicReference<PlanificationEngine> self = new AtomicReference<>();
+    PlanificationEngine engine = new PlanificationEngine(network.network(), result::complete, algorithmTime,
+        algorithmDuration, network.incidents(), null, null, () -> {
+          finished(speculationId, self.get());
+          planification.remove(speculationId, self.get());
+          result.complete(null);
+        }, portfolioStatistics);
+    self.set(engine);
+    engine.setRemotePlanner(remotePlanner);
+    engine.setGeneticExecutor(geneticPool);
+    engine.setTargetGap(targetGap);
+    planification.put(speculationId, engine);
+    planningScheduler.submit(speculationId, engine, () -> {
+      planification.remove(speculationId, engine);
+      result.complete(null);
+    });
+    return result;
+  }
+
+  public void cancelSpeculation(String planificationId) {
+    stopPlanification(planificationId + SPECULATIVE_SUFFIX);
+  }
+
+  public synchronized void stopPlanification(String planificationId) {
+    pending.remove(planificationId);
+    planningScheduler.cancel(planificationId);
+    PlanificationEngine engine = planification.get(planificationId);
+    if (engine != null) {
+      engine.stop();
+      planification.remove(planificationId);
+    }
+  }
+
+  /**
+   * Encola una planificación nueva; si la sesión tenía otra en cola sin
+   * empezar, la reemplaza.
+   */
+  private void launch(String planificationId, PlanificationRequest request) {
+    PlanificationNotifier send = notifier(planificationId);
     PlanificationNotifier notifier = routes -> {
+      planCache.store(request.network(), request.algorithmTime(), routes);
+      send.notify(routes);
+    };
+
+    AtomicReference<PlanificationEngine> self = new AtomicReference<>();
+    // Usar el nuevo constructor que incluye eventPublisher y sessionId
+    PlanificationEngine engine = new PlanificationEngine(request.network().network(), notifier,
+        request.algorithmTime(), request.algorithmDuration(), request.network().incidents(), eventPublisher,
+        planificationId,
+        () -> {
+          finished(planificationId, self.get());
+          complete(planificationId, self.get());
+        }, portfolioStatistics);
+    self.set(engine);
+    engine.setRemotePlanner(remotePlanner);
+    engine.setGeneticExecutor(geneticPool);
+    engine.setTargetGap(targetGap);
+    pending.remove(planificationId);
+    planningScheduler.cancel(planificationId);
+    planification.put(planificationId, engine);
+    planningScheduler.submit(planificationId, engine, () -> planification.remove(planificationId, engine));
+  }
+
+  private PlanificationNotifier notifier(String planificationId) {
+    return routes -> {
       PlanificationResponseEvent responseEvent = new PlanificationResponseEvent(planificationId, routes);
       messaging.convertAndSend("/topic/planification/response",
           responseEvent);
       eventPublisher.publishEvent(responseEvent);
     };
+  }
 
-    // Usar el nuevo constructor que incluye eventPublisher y sessionId
-    PlanificationEngine engine = new PlanificationEngine(network, notifier, algorithmTime, algorithmDuration,
-        incidents, eventPublisher, planificationId, () -> {
-          System.out.println("Removing");
-          planification.remove(planificationId);
-        });
-    stopPlanification(planificationId);
-    planification.put(planificationId, engine);
-    executor.execute(engine);
+  /**
+   * Al terminar una planificación arranca la solicitud pendiente de la sesión,
+   * si llegó alguna mientras corría.
+   */
+  private synchronized void complete(String planificationId, PlanificationEngine engine) {
+    if (!planification.remove(planificationId, engine)) {
+      return;
+    }
+    PlanificationRequest next = pending.remove(planificationId);
+    if (next != null) {
+      launch(planificationId, next);
+    }
   }
 
-  public void stopPlanification(String planificationId) {
-    PlanificationEngine engine = planification.get(planificationId);
-    if (engine != null) {
-      engine.stop();
-      planification.remove(planificationId);
+  /**
+   * Si la planificación en curso se pasa de su plazo con una solicitud
+   * esperando, se detiene para que la pendiente no espere indefinidamente.
+   */
+  private void scheduleDeadline(String planificationId, PlanificationEngine engine) {
+    long delay = engine.getAlgorithmDuration().plus(DEADLINE_GRACE).toMillis();
+    scheduler.schedule(() -> {
+      synchronized (this) {
+        if (planification.get(planificationId) == engine && pending.containsKey(planificationId)) {
+          log.warn("Planification for session {} exceeded its deadline, restarting with the latest request",
+              planificationId);
+          engine.stop();
+        }
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Publica cada {@link #TELEMETRY_INTERVAL} la telemetría de las
+   * planificaciones en curso en {@code /topic/planification/{sesión}/telemetry}.
+   * Al terminar cada planificación se publica por última vez y se guarda en
+   * {@link PlanningTelemetryHistory}.
+   */
+  /**
+   * Crea el pool del genético. Los trabajadores del modo estacionario retienen
+   * sus hilos hasta el plazo, así que el pool tiene hilos para cada
+   * planificación que la cola deja correr a la vez: cada una reparte sus
+   * núcleos entre las estrategias, y el genético ocupa a lo más todos ellos.
+   * Con más grupos de descomposición que núcleos el genético de cada grupo
+   * pide un hilo propio; para flotas así se fija planning.genetic.threads.
+   */
+  @PostConstruct
+  void createGeneticPool() {
+    int threads = geneticThreads > 0 ? geneticThreads
+        : planningScheduler.maxConcurrency() * Runtime.getRuntime().availableProcessors();
+    geneticPool = GeneticOptimizer.newPool(threads);
+  }
+
+  @PostConstruct
+  void scheduleTelemetry() {
+    long interval = TELEMETRY_INTERVAL.toMillis();
+    scheduler.scheduleAtFixedRate(() -> planification.forEach((key, engine) -> {
+      if (engine.getTelemetry() != null && !engine.getTelemetry().isFinished()) {
+        publishTelemetry(report(key, engine));
+      }
+    }), interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  private void finished(String key, PlanificationEngine engine) {
+    PlanningRunReport report = report(key, engine);
+    if (report == null) {
+      return;
+    }
+    telemetryHistory.record(report);
+    publishTelemetry(report);
+  }
+
+  private PlanningRunReport report(String key, PlanificationEngine engine) {
+    boolean speculative = key.endsWith(SPECULATIVE_SUFFIX);
+    String sessionId = speculative ? key.substring(0, key.length() - SPECULATIVE_SUFFIX.length()) : key;
+    return engine.report(sessionId, speculative);
+  }
+
+  private void publishTelemetry(PlanningRunReport report) {
+    try {
+      messaging.convertAndSend("/topic/planification/" + report.sessionId() + "/telemetry", report);
+    } catch (Exception e) {
+      log.warn("Could not publish planning telemetry for session {}: {}", report.sessionId(), e.getMessage());
     }
   }
 
+  public List<PlanningRunReport> getTelemetryHistory(String sessionId) {
+    return telemetryHistory.history(sessionId);
+  }
+
   public PlanificationStatus getPlanificationStatus(String planificationId) {
     PlanificationEngine engine = planification.get(planificationId);
     if (engine != null) {
@@ -86,24 +335,10 @@ private final ScheduledExecutorService scheduler = Executors.newScheduledThreadP
     log.info("Cleaning up PlanificationService resources...");
 
     // Stop all running planifications
+    pending.clear();
     planification.values().forEach(PlanificationEngine::stop);
     planification.clear();
-
-    // Shutdown executor service
-    executor.shutdown();
-    try {
-      if (!executor.awaitTermination(15, TimeUnit.SECONDS)) {
-        log.warn("Executor did not terminate gracefully, forcing shutdown");
-        executor.shutdownNow();
-        if (!executor.awaitTermination(15, TimeUnit.SECONDS)) {
-          log.error("Executor did not terminate after forced shutdown");
-        }
-      }
-    } catch (InterruptedException e) {
-      log.warn("Interrupted while waiting for executor termination");
-      executor.shutdownNow();
-      Thread.currentThread().interrupt();
-    }
+    geneticPool.shutdownNow();
 
     // Shutdown scheduler
     scheduler.shutdown();
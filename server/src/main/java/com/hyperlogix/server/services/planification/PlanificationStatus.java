@@ -1,6 +1,17 @@
 package com.hyperlogix.server.services.planification;
 
+/**
+ * Estado de la planificación de una sesión. {@code iterations} suma las
+ * iteraciones de todos los optimizadores y {@code bestCost} es null mientras
+ * no haya solución.
+ */
 public record PlanificationStatus(
     boolean planning,
-    int currentNodesProcessed) {
+    int currentNodesProcessed,
+    long iterations,
+    Double bestCost) {
+
+  public PlanificationStatus(boolean planning, int currentNodesProcessed) {
+    this(planning, currentNodesProcessed, 0, null);
+  }
 }
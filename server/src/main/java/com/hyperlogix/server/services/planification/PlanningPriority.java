@@ -0,0 +1,17 @@
+package com.hyperlogix.server.services.planification;
+
+/**
+ * Clases de prioridad del planificador. El orden de declaración es el orden en
+ * que se despachan: la operación en vivo siempre pasa antes que las
+ * simulaciones.
+ */
+public enum PlanningPriority {
+  LIVE,
+  SIMULATION;
+
+  private static final String LIVE_SESSION_ID = "main";
+
+  public static PlanningPriority of(String sessionId) {
+    return LIVE_SESSION_ID.equals(sessionId) ? LIVE : SIMULATION;
+  }
+}
@@ -0,0 +1,23 @@
+package com.hyperlogix.server.services.planification;
+
+import java.time.LocalDateTime;
+
+import com.hyperlogix.server.optimizer.PlanningTelemetry;
+
+/**
+ * Telemetría de una planificación de la sesión, en curso o terminada.
+ *
+ * @param speculative True si es la planificación anticipada del siguiente
+ *                    ciclo y no la que rige.
+ * @param orders      Pedidos en cálculo que recibió.
+ */
+public record PlanningRunReport(
+    String sessionId,
+    boolean speculative,
+    LocalDateTime algorithmTime,
+    long budgetMillis,
+    int orders,
+    int trucks,
+    boolean finished,
+    PlanningTelemetry.Snapshot telemetry) {
+}
@@ -0,0 +1,226 @@
+package com.hyperlogix.server.services.planification;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cola acotada de planificaciones con clases de prioridad. Cada clase tiene su
+ * propio límite de ejecuciones simultáneas y de trabajos en espera; cuando se
+ * libera un hilo se despacha primero la clase de mayor prioridad. Mientras
+ * corre una planificación en vivo, las simulaciones nuevas se limitan a un
+ * tope menor para dejarle núcleos libres; las que ya corren no se detienen.
+ *
+ * Los límites se leen de {@code planning.scheduler.<clase>.concurrency} y
+ * {@code planning.scheduler.<clase>.queue-capacity},
+ * {@code planning.scheduler.simulation.concurrency-during-live} y
+ * {@code planning.scheduler.max-wait}.
+ *
+ * Métricas expuestas en /actuator/metrics, etiquetadas por {@code priority}:
+ * {@code planning.queue.depth}, {@code planning.running},
+ * {@code planning.queue.wait} y {@code planning.rejected} (con
+ * {@code reason=full|expired}).
+ */
+@Component
+@Slf4j
+public class PlanningScheduler {
+  // La operación en vivo tiene una sola sesión, así que un hilo le basta; las
+  // simulaciones se reparten la mitad de los núcleos, porque cada
+  // planificación ya es paralela por dentro
+  private static final Map<PlanningPriority, Integer> DEFAULT_CONCURRENCY = Map.of(
+      PlanningPriority.LIVE, 1,
+      PlanningPriority.SIMULATION, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+  private static final Map<PlanningPriority, Integer> DEFAULT_QUEUE_CAPACITY = Map.of(
+      PlanningPriority.LIVE, 4,
+      PlanningPriority.SIMULATION, 16);
+  // Una simulación declara el colapso si no recibe plan en 15 s y cada
+  // planificación dura 4 s; tras 10 s en cola ya no alcanza a llegar a tiempo
+  private static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(10);
+
+  private record Job(String sessionId, PlanningPriority priority, Runnable task, Runnable onDiscard,
+      long enqueuedAt) {
+  }
+
+  private final Map<PlanningPriority, Integer> concurrency = new EnumMap<>(PlanningPriority.class);
+  private final Map<PlanningPriority, Integer> queueCapacity = new EnumMap<>(PlanningPriority.class);
+  private final int simulationConcurrencyDuringLive;
+  private final Duration maxWait;
+  private final Map<PlanningPriority, Deque<Job>> queues = new EnumMap<>(PlanningPriority.class);
+  private final Map<PlanningPriority, AtomicInteger> running = new EnumMap<>(PlanningPriority.class);
+  private final Map<PlanningPriority, Timer> waitTimers = new EnumMap<>(PlanningPriority.class);
+  private final Map<PlanningPriority, Counter> rejectedFull = new EnumMap<>(PlanningPriority.class);
+  private final Map<PlanningPriority, Counter> rejectedExpired = new EnumMap<>(PlanningPriority.class);
+  private final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+    Thread t = new Thread(r, "PlanningScheduler-" + System.currentTimeMillis());
+    t.setDaemon(true);
+    return t;
+  });
+
+  public PlanningScheduler(Environment environment, MeterRegistry registry) {
+    for (PlanningPriority priority : PlanningPriority.values()) {
+      String tag = priority.name().toLowerCase();
+      String prefix = "planning.scheduler." + tag + ".";
+      concurrency.put(priority, Math.max(1,
+          environment.getProperty(prefix + "concurrency", Integer.class, DEFAULT_CONCURRENCY.get(priority))));
+      queueCapacity.put(priority,
+          environment.getProperty(prefix + "queue-capacity", Integer.class, DEFAULT_QUEUE_CAPACITY.get(priority)));
+      Deque<Job> queue = new ArrayDeque<>();
+      AtomicInteger active = new AtomicInteger();
+      queues.put(priority, queue);
+      running.put(priority, active);
+      Gauge.builder("planning.queue.depth", this, scheduler -> scheduler.depth(priority))
+          .description("Planificaciones en espera")
+          .tag("priority", tag)
+          .register(registry);
+      Gauge.builder("planning.running", active, AtomicInteger::get)
+          .description("Planificaciones en ejecución")
+          .tag("priority", tag)
+          .register(registry);
+      waitTimers.put(priority, Timer.builder("planning.queue.wait")
+          .description("Tiempo en cola antes de empezar a planificar")
+          .tag("priority", tag)
+          .register(registry));
+      rejectedFull.put(priority, Counter.builder("planning.rejected")
+          .description("Planificaciones descartadas")
+          .tags("priority", tag, "reason", "full")
+          .register(registry));
+      rejectedExpired.put(priority, Counter.builder("planning.rejected")
+          .description("Planificaciones descartadas")
+          .tags("priority", tag, "reason", "expired")
+          .register(registry));
+    }
+    int simulation = concurrency.get(PlanningPriority.SIMULATION);
+    simulationConcurrencyDuringLive = Math.max(1, Math.min(simulation, environment.getProperty(
+        "planning.scheduler.simulation.concurrency-during-live", Integer.class, simulation / 2)));
+    maxWait = environment.getProperty("planning.scheduler.max-wait", Duration.class, DEFAULT_MAX_WAIT);
+  }
+
+  /**
+   * Encola una planificación de la sesión en la clase que le corresponde.
+   *
+   * @param onDiscard Se ejecuta si el trabajo se descarta sin correr: cola
+   *                  llena, espera vencida o cancelación.
+   * @return false si la cola de su clase está llena y el trabajo se descartó.
+   */
+  public synchronized boolean submit(String sessionId, Runnable task, Runnable onDiscard) {
+    return submit(sessionId, PlanningPriority.of(sessionId), task, onDiscard);
+  }
+
+  /**
+   * Encola un trabajo en la clase indicada, para claves derivadas de una sesión
+   * que deben conservar la prioridad de esa sesión.
+   */
+  public synchronized boolean submit(String sessionId, PlanningPriority priority, Runnable task,
+      Runnable onDiscard) {
+    Deque<Job> queue = queues.get(priority);
+    if (queue.size() >= queueCapacity.get(priority)) {
+      rejectedFull.get(priority).increment();
+      log.warn("Planning queue for {} is full ({} jobs), rejecting session {}", priority, queue.size(), sessionId);
+      onDiscard.run();
+      return false;
+    }
+    queue.addLast(new Job(sessionId, priority, task, onDiscard, System.nanoTime()));
+    dispatch();
+    return true;
+  }
+
+  /**
+   * Quita de la cola el trabajo pendiente de la sesión, si lo hay. Los trabajos
+   * que ya empezaron se detienen desde su motor.
+   */
+  public synchronized void cancel(String sessionId) {
+    for (Deque<Job> queue : queues.values()) {
+      Iterator<Job> pending = queue.iterator();
+      while (pending.hasNext()) {
+        Job job = pending.next();
+        if (job.sessionId().equals(sessionId)) {
+          pending.remove();
+          job.onDiscard().run();
+        }
+      }
+    }
+  }
+
+  private synchronized int depth(PlanningPriority priority) {
+    return queues.get(priority).size();
+  }
+
+  /**
+   * Llena los hilos libres de cada clase en orden de prioridad; los trabajos
+   * que esperaron más de {@link #maxWait} se descartan.
+   */
+  private synchronized void dispatch() {
+    for (PlanningPriority priority : PlanningPriority.values()) {
+      Deque<Job> queue = queues.get(priority);
+      AtomicInteger active = running.get(priority);
+      Iterator<Job> pending = queue.iterator();
+      while (pending.hasNext() && active.get() < limit(priority)) {
+        Job job = pending.next();
+        pending.remove();
+        long waited = System.nanoTime() - job.enqueuedAt();
+        waitTimers.get(priority).record(waited, TimeUnit.NANOSECONDS);
+        if (waited > maxWait.toNanos()) {
+          rejectedExpired.get(priority).increment();
+          log.warn("Planning for session {} waited {} ms in queue, discarding", job.sessionId(),
+              TimeUnit.NANOSECONDS.toMillis(waited));
+          job.onDiscard().run();
+          continue;
+        }
+        active.incrementAndGet();
+        workers.execute(() -> execute(job));
+      }
+    }
+  }
+
+  /**
+   * @return Planificaciones que pueden correr a la vez sumando todas las
+   *         clases.
+   */
+  public int maxConcurrency() {
+    return concurrency.values().stream().mapToInt(Integer::intValue).sum();
+  }
+
+  /**
+   * Ejecuciones simultáneas que admite la clase ahora mismo.
+   */
+  private int limit(PlanningPriority priority) {
+    if (priority == PlanningPriority.SIMULATION && running.get(PlanningPriority.LIVE).get() > 0) {
+      return simulationConcurrencyDuringLive;
+    }
+    return concurrency.get(priority);
+  }
+
+  private void execute(Job job) {
+    try {
+      job.task().run();
+    } catch (Exception e) {
+      log.error("Planning for session {} failed: {}", job.sessionId(), e.getMessage(), e);
+    } finally {
+      running.get(job.priority()).decrementAndGet();
+      dispatch();
+    }
+  }
+
+  @PreDestroy
+  public synchronized void shutdown() {
+    queues.values().forEach(Deque::clear);
+    workers.shutdownNow();
+  }
+}
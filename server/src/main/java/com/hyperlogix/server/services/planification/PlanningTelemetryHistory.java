@@ -0,0 +1,44 @@
+package com.hyperlogix.server.services.planification;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Telemetría de las últimas planificaciones terminadas de cada sesión, para
+ * ajustar los presupuestos de tiempo con datos reales. Guarda hasta
+ * {@link #RUNS_PER_SESSION} planificaciones de las {@link #SESSIONS} sesiones
+ * usadas más recientemente.
+ */
+@Component
+public class PlanningTelemetryHistory {
+  private static final int RUNS_PER_SESSION = 50;
+  private static final int SESSIONS = 32;
+
+  private final Map<String, Deque<PlanningRunReport>> runs = new LinkedHashMap<>(SESSIONS, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Deque<PlanningRunReport>> eldest) {
+      return size() > SESSIONS;
+    }
+  };
+
+  public synchronized void record(PlanningRunReport report) {
+    Deque<PlanningRunReport> session = runs.computeIfAbsent(report.sessionId(), id -> new ArrayDeque<>());
+    if (session.size() == RUNS_PER_SESSION) {
+      session.removeFirst();
+    }
+    session.addLast(report);
+  }
+
+  /**
+   * @return Planificaciones de la sesión, de la más antigua a la más reciente.
+   */
+  public synchronized List<PlanningRunReport> history(String sessionId) {
+    Deque<PlanningRunReport> session = runs.get(sessionId);
+    return session != null ? List.copyOf(session) : List.of();
+  }
+}
@@ -0,0 +1,168 @@
+package com.hyperlogix.server.services.planification.remote;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.hyperlogix.server.domain.Incident;
+import com.hyperlogix.server.domain.IncidentStatus;
+import com.hyperlogix.server.domain.IncidentType;
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.OrderStatus;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.domain.Roadblock;
+import com.hyperlogix.server.domain.Station;
+import com.hyperlogix.server.domain.Truck;
+import com.hyperlogix.server.domain.TruckState;
+import com.hyperlogix.server.domain.TruckType;
+
+/**
+ * Entrada de una planificación enviada a un {@link PlanningWorker}. Viaja como
+ * JSON con estos registros propios del protocolo, no con las clases del
+ * dominio; el historial de reservas de las plantas no se envía porque la
+ * planificación no lo usa.
+ */
+record PlanningJob(
+    NetworkData network,
+    List<IncidentData> incidents,
+    LocalDateTime algorithmTime,
+    Duration algorithmDuration) {
+
+  record NetworkData(
+      List<TruckData> trucks,
+      List<StationData> stations,
+      List<OrderData> orders,
+      List<IncidentData> incidents,
+      List<Roadblock> roadblocks) {
+  }
+
+  record TruckData(
+      String id,
+      String code,
+      TruckType type,
+      TruckState status,
+      double tareWeight,
+      int maxCapacity,
+      int currentCapacity,
+      double fuelCapacity,
+      double currentFuel,
+      LocalDateTime nextMaintenance,
+      LocalDateTime maintenanceStartTime,
+      Point location) {
+  }
+
+  record StationData(
+      String id,
+      String name,
+      Point location,
+      int maxCapacity,
+      boolean mainStation,
+      Map<LocalDate, Integer> availableCapacityPerDate) {
+  }
+
+  record OrderData(
+      String id,
+      String clientId,
+      LocalDateTime date,
+      Point location,
+      int requestedGLP,
+      int deliveredGLP,
+      Duration deliveryLimit,
+      OrderStatus status,
+      LocalDateTime blockEndTime) {
+  }
+
+  record IncidentData(
+      String id,
+      String turn,
+      IncidentType type,
+      String truckCode,
+      int fuel,
+      Point location,
+      int daysSinceIncident,
+      IncidentStatus status,
+      LocalDateTime incidentTime,
+      LocalDateTime expectedRecovery) {
+  }
+
+  static PlanningJob of(PLGNetwork network, List<Incident> incidents, LocalDateTime algorithmTime,
+      Duration algorithmDuration) {
+    NetworkData data = new NetworkData(
+        network.getTrucks().stream().map(PlanningJob::truckData).toList(),
+        network.getStations().stream().map(PlanningJob::stationData).toList(),
+        network.getOrders().stream().map(PlanningJob::orderData).toList(),
+        incidentData(network.getIncidents()),
+        List.copyOf(network.getRoadblocks()));
+    return new PlanningJob(data, incidentData(incidents), algorithmTime, algorithmDuration);
+  }
+
+  PLGNetwork toNetwork() {
+    return new PLGNetwork(
+        new ArrayList<>(network.trucks().stream().map(PlanningJob::truck).toList()),
+        new ArrayList<>(network.stations().stream().map(PlanningJob::station).toList()),
+        new ArrayList<>(network.orders().stream().map(PlanningJob::order).toList()),
+        incidents(network.incidents()),
+        new ArrayList<>(network.roadblocks()));
+  }
+
+  List<Incident> toIncidents() {
+    return incidents(incidents);
+  }
+
+  private static TruckData truckData(Truck truck) {
+    return new TruckData(truck.getId(), truck.getCode(), truck.getType(), truck.getStatus(),
+        truck.getTareWeight(), truck.getMaxCapacity(), truck.getCurrentCapacity(), truck.getFuelCapacity(),
+        truck.getCurrentFuel(), truck.getNextMaintenance(), truck.getMaintenanceStartTime(),
+        truck.getLocation());
+  }
+
+  private static Truck truck(TruckData data) {
+    return new Truck(data.id(), data.code(), data.type(), data.status(), data.tareWeight(),
+        data.maxCapacity(), data.currentCapacity(), data.fuelCapacity(), data.currentFuel(),
+        data.nextMaintenance(), data.maintenanceStartTime(), data.location());
+  }
+
+  private static StationData stationData(Station station) {
+    return new StationData(station.getId(), station.getName(), station.getLocation(),
+        station.getMaxCapacity(), station.isMainStation(), station.getAvailableCapacityPerDate());
+  }
+
+  private static Station station(StationData data) {
+    return new Station(data.id(), data.name(), data.location(), data.maxCapacity(), data.mainStation(),
+        new HashMap<>(data.availableCapacityPerDate()), new ArrayList<>());
+  }
+
+  private static OrderData orderData(Order order) {
+    return new OrderData(order.getId(), order.getClientId(), order.getDate(), order.getLocation(),
+        order.getRequestedGLP(), order.getDeliveredGLP(), order.getDeliveryLimit(), order.getStatus(),
+        order.getBlockEndTime());
+  }
+
+  private static Order order(OrderData data) {
+    return new Order(data.id(), data.clientId(), data.date(), data.location(), data.requestedGLP(),
+        data.deliveredGLP(), data.deliveryLimit(), data.status(), data.blockEndTime());
+  }
+
+  private static List<IncidentData> incidentData(List<Incident> incidents) {
+    return incidents == null ? List.of()
+        : incidents.stream()
+            .map(incident -> new IncidentData(incident.getId(), incident.getTurn(), incident.getType(),
+                incident.getTruckCode(), incident.getFuel(), incident.getLocation(),
+                incident.getDaysSinceIncident(), incident.getStatus(), incident.getIncidentTime(),
+                incident.getExpectedRecovery()))
+            .toList();
+  }
+
+  private static List<Incident> incidents(List<IncidentData> data) {
+    return new ArrayList<>(data.stream()
+        .map(incident -> new Incident(incident.id(), incident.turn(), incident.type(), incident.truckCode(),
+            incident.fuel(), incident.location(), incident.daysSinceIncident(), incident.status(),
+            incident.incidentTime(), incident.expectedRecovery()))
+        .toList());
+  }
+}
@@ -0,0 +1,56 @@
+package com.hyperlogix.server.services.planification.remote;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.hyperlogix.server.domain.Node;
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Path;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.domain.Stop;
+
+/**
+ * Rutas que devuelve un {@link PlanningWorker}, en registros propios del
+ * protocolo.
+ */
+record PlanningResult(
+    Map<String, List<StopData>> stops,
+    Map<String, List<Path>> paths,
+    double cost) {
+
+  record StopData(
+      String id,
+      String name,
+      NodeType type,
+      Point location,
+      LocalDateTime arrivalTime,
+      boolean arrived) {
+  }
+
+  static PlanningResult of(Routes routes) {
+    Map<String, List<StopData>> stops = new HashMap<>();
+    routes.getStops().forEach((truckId, route) -> stops.put(truckId, route.stream()
+        .map(stop -> new StopData(stop.getNode().getId(), stop.getNode().getName(), stop.getNode().getType(),
+            stop.getNode().getLocation(), stop.getArrivalTime(), stop.isArrived()))
+        .toList()));
+    return new PlanningResult(stops, routes.getPaths(), routes.getCost());
+  }
+
+  Routes toRoutes() {
+    Map<String, List<Stop>> routeStops = new HashMap<>();
+    stops.forEach((truckId, route) -> routeStops.put(truckId, new ArrayList<>(route.stream()
+        .map(data -> {
+          Stop stop = new Stop(new Node(data.id(), data.name(), data.type(), data.location()), data.arrivalTime());
+          stop.setArrived(data.arrived());
+          return stop;
+        })
+        .toList())));
+    Map<String, List<Path>> routePaths = new HashMap<>();
+    paths.forEach((truckId, route) -> routePaths.put(truckId, new ArrayList<>(route)));
+    return new Routes(routeStops, routePaths, cost);
+  }
+}
@@ -0,0 +1,90 @@
+package com.hyperlogix.server.services.planification.remote;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.optimizer.Portfolio.PortfolioStatistics;
+import com.hyperlogix.server.services.planification.PlanificationEngine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Trabajador de planificación fuera del proceso del servidor. Escucha en un
+ * puerto TCP, recibe un {@link PlanningJob} por conexión, lo planifica con el
+ * mismo {@link PlanificationEngine} que el servidor y devuelve las rutas. Así
+ * la CPU y la memoria de las planificaciones grandes no compiten con la capa
+ * web ni con las simulaciones.
+ *
+ * Se arranca desde el jar del servidor:
+ *
+ * <pre>
+ * java -cp server.jar \
+ *     -Dloader.main=com.hyperlogix.server.services.planification.remote.PlanningWorker \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher [puerto] [dirección] [simultáneas]
+ * </pre>
+ *
+ * Por omisión escucha en 127.0.0.1:7070 y planifica una solicitud a la vez;
+ * las demás esperan su turno. Para atender desde otros equipos se indica la
+ * dirección de la interfaz. El secreto compartido con el servidor se toma de
+ * la variable de entorno {@code PLANNING_WORKERS_SECRET} (o de la propiedad
+ * del sistema {@code planning.workers.secret}) y sin él no arranca; las
+ * solicitudes que no vienen firmadas con él se descartan sin interpretarlas.
+ */
+@Slf4j
+public final class PlanningWorker {
+  // Tiempo para recibir la solicitud completa después de aceptar la conexión
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+  private PlanningWorker() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+    InetAddress address = InetAddress.getByName(args.length > 1 ? args[1] : "127.0.0.1");
+    int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+    WorkerProtocol protocol = new WorkerProtocol(
+        System.getProperty(WorkerProtocol.SECRET_PROPERTY, System.getenv("PLANNING_WORKERS_SECRET")));
+
+    ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+    PortfolioStatistics statistics = new PortfolioStatistics();
+    try (ServerSocket server = new ServerSocket(port, 50, address)) {
+      log.info("Planning worker listening on {}:{} with {} concurrent plans", address.getHostAddress(), port,
+          concurrency);
+      while (!server.isClosed()) {
+        Socket socket = server.accept();
+        executor.execute(() -> serve(socket, protocol, statistics));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void serve(Socket socket, WorkerProtocol protocol, PortfolioStatistics statistics) {
+    try (socket) {
+      socket.setSoTimeout(WorkerProtocol.POLL_MILLIS);
+      PlanningJob job = protocol.read(socket, PlanningJob.class,
+          System.nanoTime() + REQUEST_TIMEOUT.toNanos());
+      if (job == null) {
+        return;
+      }
+      long start = System.nanoTime();
+      PLGNetwork network = job.toNetwork();
+      AtomicReference<Routes> routes = new AtomicReference<>();
+      new PlanificationEngine(network, routes::set, job.algorithmTime(), job.algorithmDuration(),
+          job.toIncidents(), null, null, null, statistics).run();
+      protocol.write(socket.getOutputStream(), routes.get() != null ? PlanningResult.of(routes.get()) : null);
+      log.info("Planned {} orders for {} in {} ms", network.getCalculatedOrders().size(),
+          socket.getRemoteSocketAddress(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+    } catch (IOException e) {
+      log.warn("Planning request from {} failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+    }
+  }
+}
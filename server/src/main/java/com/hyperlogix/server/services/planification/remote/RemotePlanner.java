@@ -0,0 +1,202 @@
+package com.hyperlogix.server.services.planification.remote;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hyperlogix.server.domain.Incident;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Routes;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cliente de los trabajadores de planificación ({@link PlanningWorker})
+ * listados en {@code planning.workers} como {@code host:puerto} separados por
+ * comas. Sin trabajadores configurados, que es lo normal, está desactivado y
+ * todo se planifica en el proceso. Con trabajadores es obligatorio
+ * {@code planning.workers.secret}, el secreto con el que se firman los marcos
+ * en ambos sentidos.
+ *
+ * Cada planificación va al trabajador disponible con menos planificaciones en
+ * curso. Uno que no acepta la conexión o no responde queda fuera durante
+ * {@link #COOLDOWN}; si falla al conectar se prueba el siguiente. La respuesta
+ * se espera lo que dura la planificación más {@link #RESPONSE_GRACE}, que es
+ * menor que la holgura del plazo de {@code PlanificationService}. Si no llega,
+ * o no hay trabajador disponible, se devuelve null y el motor planifica
+ * localmente con lo que quede del presupuesto.
+ *
+ * Métricas: {@code planning.remote.requests} con {@code worker} y
+ * {@code result=ok|failed|timeout}, y {@code planning.remote.inflight} por
+ * trabajador.
+ */
+@Component
+@Slf4j
+public class RemotePlanner {
+  private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(500);
+  public static final Duration RESPONSE_GRACE = Duration.ofSeconds(1);
+  private static final Duration COOLDOWN = Duration.ofSeconds(30);
+
+  private static final class Worker {
+    private final InetSocketAddress address;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter ok;
+    private final Counter failed;
+    private final Counter timeout;
+    private volatile boolean down;
+    private volatile long downSince;
+
+    private Worker(InetSocketAddress address, MeterRegistry registry) {
+      this.address = address;
+      String name = address.getHostString() + ":" + address.getPort();
+      ok = requests(registry, name, "ok");
+      failed = requests(registry, name, "failed");
+      timeout = requests(registry, name, "timeout");
+      Gauge.builder("planning.remote.inflight", inFlight, AtomicInteger::get)
+          .description("Planificaciones en curso en el trabajador")
+          .tag("worker", name)
+          .register(registry);
+    }
+
+    private boolean available(long now) {
+      return !down || now - downSince > COOLDOWN.toNanos();
+    }
+
+    private void markDown() {
+      downSince = System.nanoTime();
+      down = true;
+    }
+
+    @Override
+    public String toString() {
+      return address.getHostString() + ":" + address.getPort();
+    }
+  }
+
+  private final List<Worker> workers;
+  private final WorkerProtocol protocol;
+  private final AtomicInteger next = new AtomicInteger();
+
+  public RemotePlanner(@Value("${planning.workers:}") List<String> endpoints,
+      @Value("${" + WorkerProtocol.SECRET_PROPERTY + ":}") String secret, MeterRegistry registry) {
+    this.workers = endpoints.stream()
+        .map(String::trim)
+        .filter(endpoint -> !endpoint.isEmpty())
+        .map(endpoint -> new Worker(parse(endpoint), registry))
+        .toList();
+    this.protocol = workers.isEmpty() ? null : new WorkerProtocol(secret);
+    if (!workers.isEmpty()) {
+      log.info("Remote planning enabled with workers {}", workers);
+    }
+  }
+
+  private static Counter requests(MeterRegistry registry, String worker, String result) {
+    return Counter.builder("planning.remote.requests")
+        .description("Planificaciones enviadas a trabajadores remotos")
+        .tag("worker", worker)
+        .tag("result", result)
+        .register(registry);
+  }
+
+  private static InetSocketAddress parse(String endpoint) {
+    int separator = endpoint.lastIndexOf(':');
+    if (separator <= 0) {
+      throw new IllegalArgumentException("Planning worker must be host:port, got " + endpoint);
+    }
+    return new InetSocketAddress(endpoint.substring(0, separator),
+        Integer.parseInt(endpoint.substring(separator + 1)));
+  }
+
+  public boolean isEnabled() {
+    return !workers.isEmpty();
+  }
+
+  /**
+   * Planifica en un trabajador remoto en el hilo que llama. Se cancela al
+   * interrumpir el hilo.
+   *
+   * @return Rutas del trabajador, o null si ninguno pudo planificar.
+   */
+  public Routes plan(PLGNetwork network, List<Incident> incidents, LocalDateTime algorithmTime,
+      Duration algorithmDuration) {
+    PlanningJob job = PlanningJob.of(network, incidents, algorithmTime, algorithmDuration);
+    Set<Worker> tried = new HashSet<>();
+    Worker worker;
+    while ((worker = pick(tried)) != null) {
+      tried.add(worker);
+      boolean sent = false;
+      worker.inFlight.incrementAndGet();
+      try (Socket socket = new Socket()) {
+        socket.connect(worker.address, (int) CONNECT_TIMEOUT.toMillis());
+        socket.setSoTimeout(WorkerProtocol.POLL_MILLIS);
+        protocol.write(socket.getOutputStream(), job);
+        sent = true;
+        PlanningResult result = protocol.read(socket, PlanningResult.class,
+            System.nanoTime() + algorithmDuration.plus(RESPONSE_GRACE).toNanos());
+        if (result == null) {
+          worker.failed.increment();
+          log.warn("Planning worker {} could not plan, planning locally", worker);
+          return null;
+        }
+        worker.down = false;
+        worker.ok.increment();
+        return result.toRoutes();
+      } catch (SocketTimeoutException e) {
+        worker.markDown();
+        if (sent) {
+          worker.timeout.increment();
+          log.warn("Planning worker {} did not respond in time, planning locally", worker);
+          return null;
+        }
+        worker.failed.increment();
+        log.warn("Planning worker {} did not accept the connection", worker);
+      } catch (InterruptedIOException e) {
+        return null;
+      } catch (IOException e) {
+        worker.markDown();
+        worker.failed.increment();
+        log.warn("Planning worker {} failed: {}", worker, e.getMessage());
+        if (sent) {
+          return null;
+        }
+      } finally {
+        worker.inFlight.decrementAndGet();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return Trabajador disponible sin probar con menos planificaciones en
+   *         curso; los empates se reparten por turno.
+   */
+  private Worker pick(Set<Worker> tried) {
+    long now = System.nanoTime();
+    int start = next.getAndIncrement();
+    Worker best = null;
+    for (int i = 0; i < workers.size(); i++) {
+      Worker worker = workers.get(Math.floorMod(start + i, workers.size()));
+      if (tried.contains(worker) || !worker.available(now)) {
+        continue;
+      }
+      if (best == null || worker.inFlight.get() < best.inFlight.get()) {
+        best = worker;
+      }
+    }
+    return best;
+  }
+}
@@ -0,0 +1,146 @@
+package com.hyperlogix.server.services.planification.remote;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Protocolo entre {@link RemotePlanner} y {@link PlanningWorker}: una conexión
+ * TCP por planificación con un marco de ida (el {@link PlanningJob}) y uno de
+ * vuelta (el {@link PlanningResult}). Cada marco es la longitud del contenido
+ * en un entero, su HMAC-SHA256 con el secreto compartido y el contenido en
+ * JSON; un contenido vacío indica que el trabajador no pudo planificar.
+ *
+ * Un marco más largo que {@link #MAX_FRAME} o con una firma que no coincide se
+ * rechaza antes de interpretarlo. El JSON se lee sin tipos polimórficos, solo
+ * hacia los registros del protocolo y con límites de anidamiento y de largo de
+ * textos y números.
+ */
+final class WorkerProtocol {
+  // Intervalo con el que las lecturas revisan el plazo y la cancelación
+  static final int POLL_MILLIS = 250;
+  // Variable de entorno o propiedad con el secreto compartido
+  static final String SECRET_PROPERTY = "planning.workers.secret";
+  private static final int MAX_FRAME = 16 * 1024 * 1024;
+  private static final int MIN_SECRET_LENGTH = 16;
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final int MAC_LENGTH = 32;
+  private static final ObjectMapper MAPPER = JsonMapper.builder(JsonFactory.builder()
+      .streamReadConstraints(StreamReadConstraints.builder()
+          .maxNestingDepth(16)
+          .maxStringLength(64 * 1024)
+          .maxNumberLength(64)
+          .maxDocumentLength(MAX_FRAME)
+          .build())
+      .build())
+      .addModule(new JavaTimeModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+      .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .build();
+
+  private final SecretKeySpec key;
+
+  /**
+   * @param secret Secreto compartido por el servidor y los trabajadores; al
+   *               menos {@value #MIN_SECRET_LENGTH} caracteres.
+   */
+  WorkerProtocol(String secret) {
+    if (secret == null || secret.length() < MIN_SECRET_LENGTH) {
+      throw new IllegalStateException(
+          SECRET_PROPERTY + " must be set to at least " + MIN_SECRET_LENGTH + " characters");
+    }
+    this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+  }
+
+  void write(OutputStream out, Object value) throws IOException {
+    byte[] payload = value != null ? MAPPER.writeValueAsBytes(value) : new byte[0];
+    if (payload.length > MAX_FRAME) {
+      throw new IOException("Frame too large: " + payload.length + " bytes");
+    }
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(payload.length);
+    data.write(mac(payload));
+    data.write(payload);
+    data.flush();
+  }
+
+  /**
+   * Lee un marco del socket, que debe tener {@link #POLL_MILLIS} como
+   * {@code soTimeout}.
+   *
+   * @param deadline Plazo en {@link System#nanoTime()} para recibir el marco
+   *                 completo.
+   * @return Objeto recibido, o null si el marco venía vacío.
+   * @throws SocketTimeoutException si vence el plazo.
+   * @throws InterruptedIOException si se interrumpe el hilo que lee.
+   */
+  <T> T read(Socket socket, Class<T> type, long deadline) throws IOException {
+    InputStream in = socket.getInputStream();
+    byte[] header = new byte[Integer.BYTES + MAC_LENGTH];
+    readFully(in, header, deadline);
+    ByteBuffer buffer = ByteBuffer.wrap(header);
+    int length = buffer.getInt();
+    if (length < 0 || length > MAX_FRAME) {
+      throw new IOException("Invalid frame length " + length);
+    }
+    byte[] signature = new byte[MAC_LENGTH];
+    buffer.get(signature);
+    byte[] payload = new byte[length];
+    readFully(in, payload, deadline);
+    if (!MessageDigest.isEqual(signature, mac(payload))) {
+      throw new IOException("Invalid frame signature");
+    }
+    return length == 0 ? null : MAPPER.readValue(payload, type);
+  }
+
+  private byte[] mac(byte[] payload) throws IOException {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac.doFinal(payload);
+    } catch (GeneralSecurityException e) {
+      throw new IOException("Cannot sign frame", e);
+    }
+  }
+
+  private static void readFully(InputStream in, byte[] buffer, long deadline) throws IOException {
+    int read = 0;
+    while (read < buffer.length) {
+      try {
+        int count = in.read(buffer, read, buffer.length - read);
+        if (count < 0) {
+          throw new EOFException("Connection closed by peer");
+        }
+        read += count;
+      } catch (SocketTimeoutException e) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw new InterruptedIOException("Planning cancelled");
+        }
+        if (System.nanoTime() - deadline > 0) {
+          throw e;
+        }
+      }
+    }
+  }
+}
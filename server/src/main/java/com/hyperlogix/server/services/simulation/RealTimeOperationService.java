@@ -118,8 +118,8 @@ public class RealTimeOperationService {
 
     // Trigger immediate update and planification to notify frontend
     if (simulationInitialized.get()) {
-      simulationService.triggerImmediatePlanification(MAIN_SESSION_ID);
-      log.debug("Triggered immediate planification after adding order {}", order.getId());
+      simulationService.triggerPartialPlanification(MAIN_SESSION_ID, order);
+      log.debug("Triggered partial planification after adding order {}", order.getId());
     }
   }
 
@@ -17,6 +17,7 @@ import org.springframework.context.ApplicationEventPublisher;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -28,6 +29,7 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class RealTimeSimulationEngine implements Runnable {
   // Incident management for real-time simulation
@@ -85,6 +87,15 @@ public class RealTimeSimulationEngine implements Runnable {
   // Truck maintenance tracking
   private Set<String> trucksInMaintenance = new HashSet<>();
 
+  // Partial replanning: trucks near a change that may absorb its orders
+  private static final int PARTIAL_NEIGHBOURS = 3;
+  // Partial replanning runs one at a time; changes arriving meanwhile are queued
+  private final Object partialLock = new Object();
+  private boolean partialRunning = false;
+  private final Set<String> queuedPartialTrucks = new HashSet<>();
+  private final Set<String> queuedPartialOrders = new HashSet<>();
+  private final List<String> queuedPartialReasons = new ArrayList<>();
+
   public RealTimeSimulationEngine(String sessionId,
       SimulationConfig simulationConfig,
       SimulationNotifier simulationNotifier,
@@ -200,6 +211,7 @@ public class RealTimeSimulationEngine implements Runnable {
         }
 
         // Check for dynamic blockade changes
+        List<Roadblock> previousBlockades = lastActiveBlockades;
         boolean blockadeChanged = checkForBlockadeChanges();
 
         // Request planification only if orders have changed, there are new orders to
@@ -207,9 +219,19 @@ public class RealTimeSimulationEngine implements Runnable {
         if (ordersToProcess > 0 && hasOrdersChanged()) {
           requestPlanification();
         } else if (blockadeChanged) {
-          log.info("Blockade changes detected, requesting replanification");
-          forceReplanification = true;
-          requestPlanification();
+          // New blockades affect the routes that cross them; lifted ones the
+          // routes that detour around them
+          Set<String> affected = trucksCrossing(lastActiveBlockades.stream()
+              .filter(roadblock -> !previousBlockades.contains(roadblock))
+              .toList());
+          affected.addAll(trucksDetouringAround(previousBlockades.stream()
+              .filter(roadblock -> !lastActiveBlockades.contains(roadblock))
+              .toList()));
+          if (affected.isEmpty()) {
+            log.info("Blockade changes detected, no active route is affected");
+          } else {
+            requestPartialPlanification(affected, Set.of(), "blockade change");
+          }
         } else if (ordersToProcess > 0) {
           log.debug("Orders to process ({}) but no changes detected, skipping planification", ordersToProcess);
         } else {
@@ -329,7 +351,13 @@ public class RealTimeSimulationEngine implements Runnable {
       } else {
         log.warn("Truck with ID {} not found when trying to update state to {}", truckId, newState);
       }
-      triggerImmediatePlanification();
+      if (truck != null && (newState == TruckState.BROKEN_DOWN || newState == TruckState.MAINTENANCE)) {
+        Set<String> affected = nearestTrucks(truck.getLocation(), PARTIAL_NEIGHBOURS);
+        affected.add(truck.getId());
+        requestPartialPlanification(affected, Set.of(), "truck " + truck.getCode() + " " + newState);
+      } else {
+        triggerImmediatePlanification();
+      }
     }
   }
 
@@ -508,6 +536,285 @@ public class RealTimeSimulationEngine implements Runnable {
     }
   }
 
+  /**
+   * Replans only the trucks closest to a new order instead of the whole fleet.
+   */
+  public void triggerPartialPlanification(Order order) {
+    requestPartialPlanification(nearestTrucks(order.getLocation(), PARTIAL_NEIGHBOURS), Set.of(order.getId()),
+        "new order " + order.getId());
+  }
+
+  /**
+   * Re-optimizes only the given trucks in the background: their remaining
+   * deliveries plus the PENDING orders that triggered the change move to
+   * CALCULATING and are replanned onto them; every other route, including its
+   * progress, and every other order are left untouched. Requests that arrive
+   * while one is running are merged into the next run. Without active routes
+   * the full replan runs directly.
+   */
+  private void requestPartialPlanification(Set<String> truckIds, Set<String> orderIds, String reason) {
+    if (!running.get() || plgNetwork == null) {
+      log.warn("Cannot run partial replanning ({}) - running: {}, plgNetwork: {}", reason, running.get(),
+          plgNetwork != null);
+      return;
+    }
+    if (activeRoutes == null || truckIds.isEmpty()) {
+      triggerImmediatePlanification();
+      return;
+    }
+    synchronized (partialLock) {
+      queuedPartialTrucks.addAll(truckIds);
+      queuedPartialOrders.addAll(orderIds);
+      queuedPartialReasons.add(reason);
+      if (partialRunning) {
+        log.debug("Partial replanning in progress, {} queued for the next run", reason);
+        return;
+      }
+      partialRunning = true;
+    }
+    launchPartialPlanification();
+  }
+
+  /**
+   * Starts a partial replan with everything queued so far, or marks partial
+   * replanning as idle if nothing is queued.
+   */
+  private void launchPartialPlanification() {
+    Set<String> truckIds;
+    Set<String> orderIds;
+    String reason;
+    synchronized (partialLock) {
+      if (queuedPartialTrucks.isEmpty() || !running.get()) {
+        queuedPartialTrucks.clear();
+        queuedPartialOrders.clear();
+        queuedPartialReasons.clear();
+        partialRunning = false;
+        return;
+      }
+      truckIds = new HashSet<>(queuedPartialTrucks);
+      orderIds = new HashSet<>(queuedPartialOrders);
+      reason = String.join(", ", queuedPartialReasons);
+      queuedPartialTrucks.clear();
+      queuedPartialOrders.clear();
+      queuedPartialReasons.clear();
+    }
+
+    long start = System.nanoTime();
+    Routes base;
+    Set<String> remaining = new HashSet<>();
+    synchronized (routesLock) {
+      base = activeRoutes;
+      if (base != null) {
+        for (String truckId : truckIds) {
+          List<Stop> stops = base.getStops().getOrDefault(truckId, List.of());
+          for (int i = truckCurrentStopIndex.getOrDefault(truckId, 0); i < stops.size(); i++) {
+            if (stops.get(i).getNode().getType() == NodeType.DELIVERY) {
+              remaining.add(stops.get(i).getNode().getId());
+            }
+          }
+        }
+      }
+    }
+    if (base == null) {
+      triggerImmediatePlanification();
+      launchPartialPlanification();
+      return;
+    }
+
+    // Status each order in scope had, restored if the result is not applied
+    Map<String, OrderStatus> replanned = new HashMap<>();
+    for (Order order : realTimeOrderRepository.getAllOrders()) {
+      if ((order.getStatus() == OrderStatus.PENDING && orderIds.contains(order.getId()))
+          || (order.getStatus() == OrderStatus.IN_PROGRESS && remaining.contains(order.getId()))) {
+        replanned.put(order.getId(), order.getStatus());
+        realTimeOrderRepository.updateOrderStatus(order.getId(), OrderStatus.CALCULATING);
+      }
+    }
+    if (replanned.isEmpty()) {
+      log.info("Partial replanning ({}) has no orders to move", reason);
+      launchPartialPlanification();
+      return;
+    }
+
+    // Only the orders in scope are offered to the affected trucks
+    PLGNetwork network = updatePLGNetworkWithCurrentOrders();
+    network.setOrders(network.getOrders().stream()
+        .filter(order -> replanned.containsKey(order.getId()))
+        .collect(Collectors.toCollection(ArrayList::new)));
+    planificationService.replanPartially(sessionId,
+        NetworkSnapshot.of(network, plgNetwork.getIncidents(), simulatedTime), truckIds, simulatedTime)
+        .whenComplete((partial, error) -> {
+          try {
+            finishPartialPlanification(base, partial, error, replanned, reason);
+            log.info("Partial replanning ({}) of {} trucks finished in {} ms", reason, truckIds.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+          } finally {
+            launchPartialPlanification();
+          }
+        });
+  }
+
+  /**
+   * Applies a partial replan unless a full replan replaced the routes it was
+   * computed from. When applied, orders in scope that were not placed go back
+   * to PENDING and are picked up by the next planning cycle, so frozen routes
+   * are not overwritten by an immediate full replan. When the replan failed,
+   * was discarded or is stale, every order in scope gets back the status it
+   * had before, since the routes it was taken from are still the active ones
+   * or were replaced by a full replan.
+   */
+  private void finishPartialPlanification(Routes base, Routes partial, Throwable error,
+      Map<String, OrderStatus> replanned, String reason) {
+    boolean applied = false;
+    if (error != null || partial == null) {
+      log.warn("Partial replanning ({}) {}, restoring its orders", reason,
+          error != null ? "failed: " + error.getMessage() : "was discarded");
+    } else {
+      synchronized (routesLock) {
+        if (activeRoutes == base) {
+          applyPartialRoutes(partial);
+          applied = true;
+        } else {
+          log.info("Routes changed during partial replanning ({}), discarding its result", reason);
+        }
+      }
+    }
+    int leftovers = 0;
+    for (Order order : realTimeOrderRepository.getAllOrders()) {
+      OrderStatus previous = replanned.get(order.getId());
+      if (order.getStatus() == OrderStatus.CALCULATING && previous != null) {
+        realTimeOrderRepository.updateOrderStatus(order.getId(), applied ? OrderStatus.PENDING : previous);
+        leftovers++;
+      }
+    }
+    if (applied && leftovers > 0) {
+      log.info("{} orders did not fit in the partial plan ({}), left for the next planning cycle", leftovers,
+          reason);
+    }
+    triggerImmediateUpdate();
+  }
+
+  /**
+   * Replaces the routes of the replanned trucks and restarts only their
+   * progress; orders they now carry move from CALCULATING to IN_PROGRESS.
+   */
+  private void applyPartialRoutes(Routes partial) {
+    Set<String> assignedOrders = new HashSet<>();
+    synchronized (routesLock) {
+      if (activeRoutes == null) {
+        activeRoutes = new Routes(new HashMap<>(), new HashMap<>(), 0);
+      }
+      partial.getStops().forEach((truckId, stops) -> {
+        activeRoutes.getStops().put(truckId, stops);
+        activeRoutes.getPaths().put(truckId, partial.getPaths().getOrDefault(truckId, List.of()));
+        truckCurrentStopIndex.remove(truckId);
+        stops.stream()
+            .filter(stop -> stop.getNode().getType() == NodeType.DELIVERY)
+            .forEach(stop -> assignedOrders.add(stop.getNode().getId()));
+      });
+    }
+
+    for (Truck truck : plgNetwork.getTrucks()) {
+      List<Stop> stops = partial.getStops().get(truck.getId());
+      if (stops == null || truck.getStatus() == TruckState.MAINTENANCE
+          || truck.getStatus() == TruckState.BROKEN_DOWN) {
+        continue;
+      }
+      boolean delivers = stops.stream().anyMatch(stop -> stop.getNode().getType() == NodeType.DELIVERY);
+      truck.setStatus(delivers ? TruckState.ACTIVE : TruckState.IDLE);
+    }
+    for (Order order : realTimeOrderRepository.getAllOrders()) {
+      if (order.getStatus() == OrderStatus.CALCULATING && assignedOrders.contains(order.getId())) {
+        realTimeOrderRepository.updateOrderStatus(order.getId(), OrderStatus.IN_PROGRESS);
+      }
+    }
+  }
+
+  /**
+   * @return Ids of the {@code count} operational trucks closest to the
+   *         location.
+   */
+  private Set<String> nearestTrucks(Point location, int count) {
+    Point target = location.integerPoint();
+    return plgNetwork.getTrucks().stream()
+        .filter(truck -> truck.getStatus() != TruckState.MAINTENANCE && truck.getStatus() != TruckState.BROKEN_DOWN)
+        .sorted(Comparator.comparingDouble((Truck truck) -> {
+          Point point = truck.getLocation().integerPoint();
+          return Math.abs(point.x() - target.x()) + Math.abs(point.y() - target.y());
+        }))
+        .limit(count)
+        .map(Truck::getId)
+        .collect(Collectors.toCollection(HashSet::new));
+  }
+
+  /**
+   * @return Ids of the trucks with a remaining leg that detours (its path is
+   *         longer than the Manhattan distance between its ends) and whose
+   *         rectangle between both ends contains a node of the roadblocks, so
+   *         the detour was likely shaped by them.
+   */
+  private Set<String> trucksDetouringAround(List<Roadblock> roadblocks) {
+    Set<Point> lifted = new HashSet<>();
+    roadblocks.forEach(roadblock -> roadblock.blockedNodes().forEach(node -> lifted.add(node.integerPoint())));
+    Set<String> detouring = new HashSet<>();
+    if (lifted.isEmpty() || activeRoutes == null) {
+      return detouring;
+    }
+    synchronized (routesLock) {
+      activeRoutes.getPaths().forEach((truckId, paths) -> {
+        int leg = Math.max(0, truckCurrentStopIndex.getOrDefault(truckId, 0) - 1);
+        for (int i = leg; i < paths.size(); i++) {
+          List<Point> points = paths.get(i).points();
+          if (points.size() < 2) {
+            continue;
+          }
+          Point from = points.get(0).integerPoint();
+          Point to = points.get(points.size() - 1).integerPoint();
+          double travelled = 0;
+          for (int j = 1; j < points.size(); j++) {
+            travelled += Math.abs(points.get(j).x() - points.get(j - 1).x())
+                + Math.abs(points.get(j).y() - points.get(j - 1).y());
+          }
+          double direct = Math.abs(to.x() - from.x()) + Math.abs(to.y() - from.y());
+          boolean near = lifted.stream().anyMatch(node -> node.x() >= Math.min(from.x(), to.x())
+              && node.x() <= Math.max(from.x(), to.x())
+              && node.y() >= Math.min(from.y(), to.y())
+              && node.y() <= Math.max(from.y(), to.y()));
+          if (travelled > direct + 1e-9 && near) {
+            detouring.add(truckId);
+            return;
+          }
+        }
+      });
+    }
+    return detouring;
+  }
+
+  /**
+   * @return Ids of the trucks whose remaining legs pass through a node blocked
+   *         by any of the roadblocks.
+   */
+  private Set<String> trucksCrossing(List<Roadblock> roadblocks) {
+    Set<Point> blocked = new HashSet<>();
+    roadblocks.forEach(roadblock -> roadblock.blockedNodes().forEach(node -> blocked.add(node.integerPoint())));
+    Set<String> crossing = new HashSet<>();
+    if (blocked.isEmpty() || activeRoutes == null) {
+      return crossing;
+    }
+    synchronized (routesLock) {
+      activeRoutes.getPaths().forEach((truckId, paths) -> {
+        int leg = Math.max(0, truckCurrentStopIndex.getOrDefault(truckId, 0) - 1);
+        for (int i = leg; i < paths.size(); i++) {
+          if (paths.get(i).points().stream().anyMatch(point -> blocked.contains(point.integerPoint()))) {
+            crossing.add(truckId);
+            return;
+          }
+        }
+      });
+    }
+    return crossing;
+  }
+
   public void stop() {
     running.set(false);
     lock.lock();
@@ -993,9 +1300,14 @@ public class RealTimeSimulationEngine implements Runnable {
             networkForPlanification.getOrders().size(), networkCalculatingOrders);
       }
 
+      if (networkForPlanification == null) {
+        log.warn("No network available for planification, skipping request");
+        return;
+      }
       eventPublisher.publishEvent(
-          new PlanificationRequestEvent(sessionId, networkForPlanification, simulatedTime,
-              simulationConfig.getAlgorithmTime(), plgNetwork.getIncidents()));
+          new PlanificationRequestEvent(sessionId,
+              NetworkSnapshot.of(networkForPlanification, plgNetwork.getIncidents(), simulatedTime),
+              simulatedTime, simulationConfig.getAlgorithmTime()));
     } else {
       log.debug("No planification requested - no orders in CALCULATING state");
     }
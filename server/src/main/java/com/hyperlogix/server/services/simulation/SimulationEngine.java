@@ -9,6 +9,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -25,6 +26,7 @@ import org.springframework.context.ApplicationEventPublisher;
 
 import com.hyperlogix.server.config.Constants;
 import com.hyperlogix.server.domain.Edge;
+import com.hyperlogix.server.domain.NetworkSnapshot;
 import com.hyperlogix.server.domain.Node;
 import com.hyperlogix.server.domain.NodeType;
 import com.hyperlogix.server.domain.Order;
@@ -40,6 +42,8 @@ import com.hyperlogix.server.domain.Truck;
 import com.hyperlogix.server.domain.TruckState;
 import com.hyperlogix.server.features.planification.dtos.LogisticCollapseEvent;
 import com.hyperlogix.server.features.planification.dtos.PlanificationRequestEvent;
+import com.hyperlogix.server.optimizer.OptimizerContext;
+import com.hyperlogix.server.optimizer.ALNS.RegretInsertionOptimizer;
 import com.hyperlogix.server.services.planification.PlanificationService;
 import com.hyperlogix.server.services.planification.PlanificationStatus;
 
@@ -94,9 +98,19 @@ public class SimulationEngine implements Runnable {
   private Set<String> trucksInMaintenance = new HashSet<>();
 
   private static final Duration ORDER_PROCESSING_TIMEOUT = Duration.ofSeconds(80);
+  private static final Duration EMERGENCY_PLANNING_TIME = Duration.ofMillis(200);
+  private final RegretInsertionOptimizer emergencyOptimizer = new RegretInsertionOptimizer();
   private final Map<String, LocalDateTime> orderCalculatingStartTime = new ConcurrentHashMap<>();
   private int consecutiveFailures = 0;
 
+  // Duración de cada planificación; la planificación especulativa del
+  // siguiente ciclo empieza cuando falta para él poco más que eso (el margen)
+  @Setter
+  private Duration planningDuration = Duration.ofSeconds(4);
+  @Setter
+  private Duration speculationMargin = Duration.ofSeconds(2);
+  private SpeculativePlan speculation;
+
   public SimulationEngine(String sessionId,
       SimulationConfig simulationConfig,
       SimulationNotifier simulationNotifier,
@@ -163,7 +177,9 @@ public class SimulationEngine implements Runnable {
 
           getOrderBatch(simulatedTime);
 
-          requestPlanification();
+          if (!applySpeculation()) {
+            requestPlanification();
+          }
           nextPlanningTime = nextPlanningTime
               .plus(simulationConfig.getConsumptionInterval());
 
@@ -175,6 +191,8 @@ public class SimulationEngine implements Runnable {
 
         var truckProgress = updateSystemState(timeStep);
 
+        speculateNextCycle(timeStep);
+
         // Calculate metrics and notify with snapshot
         SimulationMetrics metrics = calculateMetrics();
         PlanificationStatus planificationStatus = planificationService.getPlanificationStatus(sessionId);
@@ -202,6 +220,7 @@ public class SimulationEngine implements Runnable {
       }
     }
 
+    cancelSpeculation();
     log.info("=== SIMULATION END === Final time: {}, Total orders: {}, Active routes: {}",
         simulatedTime, orderRepository.size(), activeRoutes != null ? activeRoutes.getStops().size() : 0);
 
@@ -860,15 +879,14 @@ public class SimulationEngine implements Runnable {
   }
 
   private void processOrdersWithGreedyAlgorithm(List<Order> orders) {
-    log.info("Processing {} orders with emergency greedy algorithm", orders.size());
-
-    Routes emergencyRoutes = new Routes(new HashMap<>(), new HashMap<>(), 0.0);
+    log.info("Processing {} orders with emergency regret insertion", orders.size());
 
-    // Obtener camiones disponibles
+    // Camiones disponibles y sin paradas pendientes en las rutas activas
     List<Truck> availableTrucks = plgNetwork.getTrucks().stream()
         .filter(truck -> truck.getStatus() == TruckState.IDLE ||
             truck.getStatus() == TruckState.ACTIVE)
         .filter(truck -> truck.getCurrentFuel() > truck.getFuelCapacity() * 0.1)
+        .filter(truck -> !hasPendingStops(truck))
         .toList();
 
     if (availableTrucks.isEmpty()) {
@@ -877,22 +895,23 @@ public class SimulationEngine implements Runnable {
       return;
     }
 
-    // Asignación simple: un camión por orden (si es posible)
-    int processedOrders = 0;
-    for (int i = 0; i < Math.min(orders.size(), availableTrucks.size()); i++) {
-      Order order = orders.get(i);
-      Truck truck = availableTrucks.get(i);
-
-      if (truck.getCurrentCapacity() >= order.getRequestedGLP() - order.getDeliveredGLP()) {
-        createDirectRoute(truck, order, emergencyRoutes);
-        order.setStatus(OrderStatus.IN_PROGRESS);
-        processedOrders++;
-        log.info("Emergency route created: Truck {} -> Order {}", truck.getId(), order.getId());
-      }
-    }
+    // Red reducida: solo los camiones libres y las órdenes a atender
+    PLGNetwork emergencyNetwork = new PLGNetwork(new ArrayList<>(availableTrucks), plgNetwork.getStations(),
+        new ArrayList<>(orders), plgNetwork.getIncidents(), plgNetwork.getRoadblocks());
+    Routes emergencyRoutes = emergencyOptimizer
+        .run(new OptimizerContext(emergencyNetwork, simulatedTime), EMERGENCY_PLANNING_TIME)
+        .getRoutes();
+    emergencyRoutes.getStops().values().removeIf(stops -> stops.size() <= 1);
+    emergencyRoutes.getPaths().keySet().retainAll(emergencyRoutes.getStops().keySet());
+
+    Set<String> servedOrders = emergencyRoutes.getStops().values().stream()
+        .flatMap(List::stream)
+        .filter(stop -> stop.getNode().getType() == NodeType.DELIVERY)
+        .map(stop -> stop.getNode().getId())
+        .collect(Collectors.toSet());
 
     // Aplicar rutas de emergencia
-    if (processedOrders > 0) {
+    if (!emergencyRoutes.getStops().isEmpty()) {
       synchronized (routesLock) {
         // Merger con rutas existentes si las hay
         if (activeRoutes != null) {
@@ -900,86 +919,42 @@ public class SimulationEngine implements Runnable {
         } else {
           activeRoutes = emergencyRoutes;
         }
+        emergencyRoutes.getStops().keySet().forEach(truckId -> truckCurrentStopIndex.put(truckId, 0));
       }
-      log.info("Applied emergency routes for {} orders", processedOrders);
+      availableTrucks.stream()
+          .filter(truck -> emergencyRoutes.getStops().containsKey(truck.getId()))
+          .forEach(truck -> truck.setStatus(TruckState.ACTIVE));
+      log.info("Applied emergency routes for {} orders on {} trucks", servedOrders.size(),
+          emergencyRoutes.getStops().size());
     }
 
-    // Órdenes no procesadas se postponen
-    List<Order> unprocessedOrders = orders.subList(processedOrders, orders.size());
+    // Órdenes no asignadas se postponen
+    List<Order> unprocessedOrders = new ArrayList<>();
+    for (Order order : orders) {
+      if (servedOrders.contains(order.getId())) {
+        order.setStatus(OrderStatus.IN_PROGRESS);
+      } else {
+        unprocessedOrders.add(order);
+      }
+    }
     if (!unprocessedOrders.isEmpty()) {
       postponeOrders(unprocessedOrders);
     }
   }
 
-  private void createDirectRoute(Truck truck, Order order, Routes routes) {
-    List<Stop> stops = new ArrayList<>();
-    List<Path> paths = new ArrayList<>();
-
-    // Stop inicial (posición actual del camión)
-    Node initialNode = new Node(truck.getId(), "Current Position", NodeType.STATION, truck.getLocation());
-    Stop initialStop = new Stop(initialNode, simulatedTime);
-    stops.add(initialStop);
-
-    // Si el camión necesita recargar, ir a la estación más cercana primero
-    if (truck.getCurrentCapacity() < order.getRequestedGLP() - order.getDeliveredGLP()) {
-      Station nearestStation = findNearestStation(truck.getLocation());
-      if (nearestStation != null) {
-        Node stationNode = new Node(nearestStation);
-        Stop stationStop = new Stop(stationNode, simulatedTime.plusMinutes(30));
-        stops.add(stationStop);
-
-        // Path simple a la estación
-        Path pathToStation = new Path(List.of(truck.getLocation(), nearestStation.getLocation()),
-            calculateSimpleDistance(truck.getLocation(), nearestStation.getLocation()));
-        paths.add(pathToStation);
-      }
+  private boolean hasPendingStops(Truck truck) {
+    if (activeRoutes == null) {
+      return false;
     }
-
-    // Stop de entrega
-    Node deliveryNode = new Node(order);
-    Stop deliveryStop = new Stop(deliveryNode, simulatedTime.plusMinutes(60));
-    stops.add(deliveryStop);
-
-    // Path a la entrega
-    Point fromLocation = stops.size() > 1 ? stops.get(stops.size() - 2).getNode().getLocation() : truck.getLocation();
-    Path pathToDelivery = new Path(List.of(fromLocation, order.getLocation()),
-        calculateSimpleDistance(fromLocation, order.getLocation()));
-    paths.add(pathToDelivery);
-
-    routes.getStops().put(truck.getId(), stops);
-    routes.getPaths().put(truck.getId(), paths);
-  }
-
-  private int calculateSimpleDistance(Point from, Point to) {
-    // Distancia Manhattan simple para el fallback
-    return (int) (Math.abs(to.x() - from.x()) + Math.abs(to.y() - from.y()));
-  }
-
-  private Station findNearestStation(Point location) {
-    return plgNetwork.getStations().stream()
-        .min((s1, s2) -> {
-          double dist1 = Math.sqrt(Math.pow(s1.getLocation().x() - location.x(), 2) +
-              Math.pow(s1.getLocation().y() - location.y(), 2));
-          double dist2 = Math.sqrt(Math.pow(s2.getLocation().x() - location.x(), 2) +
-              Math.pow(s2.getLocation().y() - location.y(), 2));
-          return Double.compare(dist1, dist2);
-        })
-        .orElse(null);
+    List<Stop> stops = activeRoutes.getStops().getOrDefault(truck.getId(), List.of());
+    return stops.size() > 1 && truckCurrentStopIndex.getOrDefault(truck.getId(), 0) < stops.size();
   }
 
   private void mergeRoutes(Routes existingRoutes, Routes newRoutes) {
-    // Simple merge: agregar nuevas rutas a las existentes
-    newRoutes.getStops().forEach((truckId, stops) -> {
-      if (!existingRoutes.getStops().containsKey(truckId)) {
-        existingRoutes.getStops().put(truckId, stops);
-      }
-    });
-
-    newRoutes.getPaths().forEach((truckId, paths) -> {
-      if (!existingRoutes.getPaths().containsKey(truckId)) {
-        existingRoutes.getPaths().put(truckId, paths);
-      }
-    });
+    // Los camiones de las rutas nuevas no tenían paradas pendientes, así que
+    // sus rutas anteriores se reemplazan
+    existingRoutes.getStops().putAll(newRoutes.getStops());
+    existingRoutes.getPaths().putAll(newRoutes.getPaths());
   }
 
   private void postponeOrders(List<Order> orders) {
@@ -1043,17 +1018,10 @@ public class SimulationEngine implements Runnable {
 
       pauseStartTime = LocalDateTime.now();
       paused.set(true);
-      // Fit
-      orderRepository.forEach(o -> {
-        boolean delayed = o.getMaxDeliveryDate().isBefore(simulatedTime.plus(Duration.ofHours(1)));
-        if (delayed) {
-          Duration timeBetwenCreationANdCurrent = Duration.between(o.getDate(), simulatedTime);
-          o.setDeliveryLimit(timeBetwenCreationANdCurrent.plus(Duration.ofHours(4)));
-        }
-      });
+      relaxDelayedDeadlines(orderRepository, simulatedTime);
       eventPublisher.publishEvent(
-          new PlanificationRequestEvent(sessionId, plgNetwork, simulatedTime, Duration.ofSeconds(4),
-              new ArrayList<>()));
+          new PlanificationRequestEvent(sessionId, NetworkSnapshot.of(plgNetwork, List.of(), simulatedTime),
+              simulatedTime, planningDuration));
       lastCall = LocalDateTime.now();
       hasCalled = true;
     } else {
@@ -1061,6 +1029,205 @@ public class SimulationEngine implements Runnable {
     }
   }
 
+  // Fit
+  private static void relaxDelayedDeadlines(List<Order> orders, LocalDateTime time) {
+    orders.forEach(o -> {
+      boolean delayed = o.getMaxDeliveryDate().isBefore(time.plus(Duration.ofHours(1)));
+      if (delayed) {
+        Duration timeBetwenCreationANdCurrent = Duration.between(o.getDate(), time);
+        o.setDeliveryLimit(timeBetwenCreationANdCurrent.plus(Duration.ofHours(4)));
+      }
+    });
+  }
+
+  /**
+   * Usa el plan especulativo del ciclo si sigue sirviendo para el estado real,
+   * sin pausar la simulación.
+   *
+   * @return false si no había plan especulativo utilizable y el ciclo debe
+   *         planificar como siempre.
+   */
+  private boolean applySpeculation() {
+    SpeculativePlan plan = speculation;
+    speculation = null;
+    if (plan == null) {
+      return false;
+    }
+    boolean hasCalculatingOrders = orderRepository.stream()
+        .anyMatch(order -> order.getStatus() == OrderStatus.CALCULATING);
+    Routes routes = null;
+    if (hasCalculatingOrders && plan.getBaseRoutes() == activeRoutes) {
+      relaxDelayedDeadlines(orderRepository, simulatedTime);
+      routes = plan.reconcile(plgNetwork, simulatedTime, planificationService);
+    }
+    if (routes == null) {
+      planificationService.cancelSpeculation(sessionId);
+      return false;
+    }
+    lastPlanificationStart = simulatedTime;
+    totalPlanificationRequests++;
+    onPlanificationResult(routes);
+    return true;
+  }
+
+  /**
+   * Arranca la planificación especulativa del siguiente ciclo cuando el tiempo
+   * real que falta para él se acerca a lo que tarda una planificación. Se
+   * planifica el estado que tendrán camiones y pedidos a la hora del ciclo si
+   * siguen sus rutas actuales.
+   */
+  private void speculateNextCycle(Duration timeStep) {
+    if (speculation != null && speculation.getBaseRoutes() != activeRoutes) {
+      // Las rutas cambiaron (mantenimiento, replanificación): la proyección ya no vale
+      cancelSpeculation();
+    }
+    if (speculation != null || activeRoutes == null || paused.get() || timeStep.isZero()) {
+      return;
+    }
+    Duration untilPlanning = Duration.between(simulatedTime, nextPlanningTime);
+    if (untilPlanning.isNegative()) {
+      return;
+    }
+    long steps = untilPlanning.toNanos() / timeStep.toNanos();
+    Duration realTimeLeft = simulationConfig.getSimulationResolution().multipliedBy(steps);
+    if (realTimeLeft.compareTo(planningDuration.plus(speculationMargin)) > 0) {
+      return;
+    }
+
+    // Primer paso que pasa nextPlanningTime, que es cuando se dispara el ciclo
+    LocalDateTime planningTime = simulatedTime.plus(timeStep.multipliedBy(steps + 1));
+    PLGNetwork projected = projectNetwork(planningTime);
+    if (projected.getOrders().isEmpty()) {
+      return;
+    }
+    CompletableFuture<Routes> routes = planificationService.planSpeculatively(sessionId,
+        NetworkSnapshot.of(projected, List.of(), planningTime), planningTime, planningDuration);
+    speculation = new SpeculativePlan(planningTime, activeRoutes, projected, routes);
+    log.info("Speculative planning started for cycle at {} with {} orders", planningTime,
+        projected.getOrders().size());
+  }
+
+  private void cancelSpeculation() {
+    if (speculation != null) {
+      speculation = null;
+      planificationService.cancelSpeculation(sessionId);
+    }
+  }
+
+  /**
+   * Red proyectada a {@code time}: cada camión avanza por su ruta actual
+   * (carga en plantas, entrega en pedidos y consume combustible en el camino) y
+   * quedan en cálculo los pedidos que {@link #getOrderBatch} tomaría en ese
+   * momento, con el GLP que les falte entonces. Las cargas se descuentan de
+   * copias de las plantas, así que un camión solo carga el GLP que le quede a
+   * la planta ese día y la red proyectada lleva la disponibilidad restante.
+   */
+  private PLGNetwork projectNetwork(LocalDateTime time) {
+    Map<String, Order> ordersById = new HashMap<>();
+    orderRepository.forEach(order -> ordersById.put(order.getId(), order));
+    List<Station> stations = new ArrayList<>();
+    Map<String, Station> stationsById = new HashMap<>();
+    for (Station station : plgNetwork.getStations()) {
+      Station projected = station.clone();
+      stations.add(projected);
+      stationsById.put(projected.getId(), projected);
+    }
+    Map<String, Integer> delivered = new HashMap<>();
+    List<Truck> trucks = new ArrayList<>();
+
+    synchronized (routesLock) {
+      for (Truck truck : plgNetwork.getTrucks()) {
+        Truck projected = truck.clone();
+        trucks.add(projected);
+        List<Stop> stops = activeRoutes.getStops().getOrDefault(truck.getId(), List.of());
+        List<Path> paths = activeRoutes.getPaths().getOrDefault(truck.getId(), List.of());
+        if (truck.getStatus() == TruckState.BROKEN_DOWN || stops.size() <= 1) {
+          continue;
+        }
+
+        int index = truckCurrentStopIndex.getOrDefault(truck.getId(), 0);
+        LocalDateTime clock = simulatedTime;
+        while (index < stops.size() && !stops.get(index).getArrivalTime().isAfter(time)) {
+          Stop stop = stops.get(index);
+          if (index > 0) {
+            consumeFuel(projected, clock, stop.getArrivalTime());
+          }
+          clock = stop.getArrivalTime().isAfter(clock) ? stop.getArrivalTime() : clock;
+          projected.setLocation(stop.getNode().getLocation());
+          if (stop.getNode().getType() == NodeType.STATION) {
+            projected.setCurrentFuel(projected.getFuelCapacity());
+            Station station = stationsById.get(stop.getNode().getId());
+            if (station != null) {
+              int amount = Math.min(projected.getMaxCapacity() - projected.getCurrentCapacity(),
+                  station.getAvailableCapacity(stop.getArrivalTime()));
+              if (amount > 0) {
+                station.reserveCapacity(stop.getArrivalTime(), amount, projected.getId(), null);
+                projected.setCurrentCapacity(projected.getCurrentCapacity() + amount);
+              }
+            }
+          } else if (stop.getNode().getType() == NodeType.DELIVERY) {
+            Order order = ordersById.get(stop.getNode().getId());
+            if (order != null) {
+              int remaining = order.getRequestedGLP() - order.getDeliveredGLP()
+                  - delivered.getOrDefault(order.getId(), 0);
+              int amount = Math.min(projected.getCurrentCapacity(), remaining);
+              if (amount > 0) {
+                delivered.merge(order.getId(), amount, Integer::sum);
+                projected.setCurrentCapacity(projected.getCurrentCapacity() - amount);
+              }
+            }
+          }
+          index++;
+        }
+
+        // En viaje hacia la siguiente parada a la hora del ciclo
+        if (index > 0 && index < stops.size() && index - 1 < paths.size()) {
+          Stop from = stops.get(index - 1);
+          Path path = paths.get(index - 1);
+          double distance = Duration.between(from.getArrivalTime(), time).toSeconds() / 3600.0 * Constants.TRUCK_SPEED;
+          double progress = path.length() > 0 ? Math.min(Math.max(distance, 0) / path.length(), 1.0) : 1.0;
+          projected.setLocation(interpolateAlongPath(path.points(), progress));
+          consumeFuel(projected, clock, time);
+        }
+      }
+    }
+
+    // Mismo criterio que getOrderBatch
+    List<Order> candidates = orderRepository.stream()
+        .filter(order -> order.getStatus() == OrderStatus.PENDING && order.getDate().isBefore(time))
+        .toList();
+    List<Order> selected = new ArrayList<>(orderRepository.stream()
+        .filter(order -> order.getStatus() == OrderStatus.CALCULATING)
+        .toList());
+    candidates.stream().filter(order -> !isOrderBlocked(order, time)).forEach(selected::add);
+    if (!candidates.isEmpty()) {
+      orderRepository.stream()
+          .filter(order -> order.getStatus() == OrderStatus.IN_PROGRESS
+              && order.getDeliveredGLP() + delivered.getOrDefault(order.getId(), 0) < order.getRequestedGLP())
+          .sorted(Comparator.comparing(Order::getMaxDeliveryDate, Comparator.nullsLast(Comparator.reverseOrder())))
+          .limit(5)
+          .forEach(selected::add);
+    }
+
+    List<Order> orders = new ArrayList<>(selected.size());
+    for (Order order : selected) {
+      Order projected = order.clone();
+      projected.setStatus(OrderStatus.CALCULATING);
+      projected.setDeliveredGLP(order.getDeliveredGLP() + delivered.getOrDefault(order.getId(), 0));
+      orders.add(projected);
+    }
+    relaxDelayedDeadlines(orders, time);
+    return new PLGNetwork(trucks, stations, orders, plgNetwork.getIncidents(), plgNetwork.getRoadblocks());
+  }
+
+  private static void consumeFuel(Truck truck, LocalDateTime from, LocalDateTime to) {
+    if (!to.isAfter(from)) {
+      return;
+    }
+    double distance = Duration.between(from, to).toSeconds() / 3600.0 * Constants.TRUCK_SPEED;
+    truck.setCurrentFuel(Math.max(0, truck.getCurrentFuel() - truck.getFuelConsumption(distance)));
+  }
+
   private void sleep(Duration duration) {
     lock.lock();
     try {
@@ -26,6 +26,7 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
@@ -57,6 +58,10 @@ public class SimulationService {
 
   @Autowired
   private BlockadeProcessor blockadeProcessor;
+  @Value("${simulation.planning-duration:4s}")
+  private Duration planningDuration;
+  @Value("${simulation.speculation-margin:2s}")
+  private Duration speculationMargin;
 
   public SimulationService(SimpMessagingTemplate messaging, ApplicationEventPublisher eventPublisher) {
     this.messaging = messaging;
@@ -124,6 +129,8 @@ public class SimulationService {
             lastPlanificationTime.remove(simulationId);
           });
       engine.setPlgNetwork(network);
+      engine.setPlanningDuration(planningDuration);
+      engine.setSpeculationMargin(speculationMargin);
       simulation.put(simulationId, engine);
       
       log.info("Submitting simulation {} to executor", simulationId);
@@ -355,6 +362,17 @@ public class SimulationService {
     }
   }
 
+  /**
+   * Replans only the trucks closest to a new order in the real-time
+   * simulation.
+   */
+  public void triggerPartialPlanification(String simulationId, Order order) {
+    RealTimeSimulationEngine engine = realTimeSimulation.get(simulationId);
+    if (engine != null) {
+      engine.triggerPartialPlanification(order);
+    }
+  }
+
   /**
    * Schedules a future maintenance for a truck in real-time simulation.
    * 
@@ -0,0 +1,167 @@
+package com.hyperlogix.server.services.simulation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hyperlogix.server.domain.NetworkSnapshot;
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.OrderStatus;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Path;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.domain.Stop;
+import com.hyperlogix.server.domain.Truck;
+import com.hyperlogix.server.services.planification.PlanificationService;
+
+import lombok.Getter;
+
+/**
+ * Plan del siguiente ciclo de {@link SimulationEngine} calculado antes de que
+ * llegue, sobre el estado proyectado de camiones y pedidos a la hora del
+ * ciclo. Al llegar el ciclo se concilia con el estado real: las rutas de los
+ * camiones que quedaron donde se proyectaron se usan tal cual, y los camiones
+ * que se desviaron se replanifican solo ellos con los pedidos que quedaron sin
+ * ruta. Si se desvió demasiado, el ciclo planifica como siempre.
+ */
+class SpeculativePlan {
+  private static final Logger log = LoggerFactory.getLogger(SpeculativePlan.class);
+  // Distancia en km a la posición proyectada que todavía se acepta
+  private static final double LOCATION_TOLERANCE = 1.0;
+  // Fracción de la flota que se replanifica antes de descartar la especulación
+  private static final double MAX_REBUILT_SHARE = 0.5;
+
+  @Getter
+  private final LocalDateTime planningTime;
+  // Rutas activas sobre las que se proyectó; si cambian, la proyección no vale
+  @Getter
+  private final Routes baseRoutes;
+  private final Map<String, Truck> projectedTrucks;
+  // GLP pendiente de cada pedido planificado a la hora del ciclo
+  private final Map<String, Integer> projectedRemaining;
+  private final CompletableFuture<Routes> routes;
+
+  SpeculativePlan(LocalDateTime planningTime, Routes baseRoutes, PLGNetwork projected,
+      CompletableFuture<Routes> routes) {
+    this.planningTime = planningTime;
+    this.baseRoutes = baseRoutes;
+    this.projectedTrucks = new HashMap<>();
+    projected.getTrucks().forEach(truck -> projectedTrucks.put(truck.getId(), truck));
+    this.projectedRemaining = new HashMap<>();
+    projected.getOrders().forEach(
+        order -> projectedRemaining.put(order.getId(), order.getRequestedGLP() - order.getDeliveredGLP()));
+    this.routes = routes;
+  }
+
+  /**
+   * @return Plan conciliado con el estado real de la red en {@code time}, o
+   *         null si la especulación no terminó a tiempo o el estado real se
+   *         alejó demasiado del proyectado.
+   */
+  Routes reconcile(PLGNetwork network, LocalDateTime time, PlanificationService planificationService) {
+    Routes speculative = routes.getNow(null);
+    if (speculative == null) {
+      log.info("Speculative plan for {} not ready, planning synchronously", planningTime);
+      return null;
+    }
+
+    Map<String, Order> calculating = new HashMap<>();
+    network.getOrders().stream()
+        .filter(order -> order.getStatus() == OrderStatus.CALCULATING)
+        .forEach(order -> calculating.put(order.getId(), order));
+
+    Duration shift = Duration.between(planningTime, time);
+    Map<String, List<Stop>> stops = new HashMap<>();
+    Map<String, List<Path>> paths = new HashMap<>();
+    Set<String> rebuilt = new HashSet<>();
+    Set<String> routed = new HashSet<>();
+    for (Truck truck : network.getTrucks()) {
+      List<Stop> route = speculative.getStops().getOrDefault(truck.getId(), List.of());
+      if (diverged(truck) || !stillValid(route, calculating)) {
+        rebuilt.add(truck.getId());
+        continue;
+      }
+      List<Stop> shifted = new ArrayList<>(route.size());
+      for (Stop stop : route) {
+        shifted.add(new Stop(stop.getNode(), stop.getArrivalTime() != null ? stop.getArrivalTime().plus(shift) : null));
+        if (stop.getNode().getType() == NodeType.DELIVERY) {
+          routed.add(stop.getNode().getId());
+        }
+      }
+      stops.put(truck.getId(), shifted);
+      paths.put(truck.getId(), new ArrayList<>(speculative.getPaths().getOrDefault(truck.getId(), List.of())));
+    }
+
+    List<Order> leftover = calculating.values().stream()
+        .filter(order -> !routed.contains(order.getId()))
+        .toList();
+    if (rebuilt.size() > network.getTrucks().size() * MAX_REBUILT_SHARE
+        || (!leftover.isEmpty() && rebuilt.isEmpty())) {
+      log.info("Speculative plan for {} discarded: {} trucks diverged, {} orders without route", planningTime,
+          rebuilt.size(), leftover.size());
+      return null;
+    }
+
+    if (!leftover.isEmpty()) {
+      PLGNetwork remaining = new PLGNetwork(new ArrayList<>(network.getTrucks()), network.getStations(),
+          new ArrayList<>(leftover), network.getIncidents(), network.getRoadblocks());
+      Routes partial = planificationService.replanPartially(NetworkSnapshot.of(remaining, List.of(), time), rebuilt,
+          time);
+      partial.getStops().values().forEach(route -> route.stream()
+          .filter(stop -> stop.getNode().getType() == NodeType.DELIVERY)
+          .forEach(stop -> routed.add(stop.getNode().getId())));
+      if (!routed.containsAll(calculating.keySet())) {
+        log.info("Speculative plan for {} discarded: diverged trucks could not absorb {} orders", planningTime,
+            leftover.size());
+        return null;
+      }
+      stops.putAll(partial.getStops());
+      paths.putAll(partial.getPaths());
+    }
+
+    log.info("Speculative plan for {} reused: {} trucks kept, {} replanned, shifted by {}", planningTime,
+        network.getTrucks().size() - rebuilt.size(), rebuilt.size(), shift);
+    return new Routes(stops, paths, speculative.getCost());
+  }
+
+  private boolean diverged(Truck truck) {
+    Truck projected = projectedTrucks.get(truck.getId());
+    if (projected == null) {
+      return true;
+    }
+    Point actual = truck.getLocation();
+    Point expected = projected.getLocation();
+    return truck.getStatus() != projected.getStatus()
+        || truck.getCurrentCapacity() != projected.getCurrentCapacity()
+        || Math.abs(actual.x() - expected.x()) + Math.abs(actual.y() - expected.y()) > LOCATION_TOLERANCE;
+  }
+
+  /**
+   * Una ruta sigue valiendo si todos sus pedidos siguen en cálculo con el GLP
+   * pendiente que se proyectó.
+   */
+  private boolean stillValid(List<Stop> route, Map<String, Order> calculating) {
+    for (Stop stop : route) {
+      if (stop.getNode().getType() != NodeType.DELIVERY) {
+        continue;
+      }
+      Order order = calculating.get(stop.getNode().getId());
+      if (order == null || !projectedRemaining.containsKey(order.getId())
+          || projectedRemaining.get(order.getId()) != order.getRequestedGLP() - order.getDeliveredGLP()) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
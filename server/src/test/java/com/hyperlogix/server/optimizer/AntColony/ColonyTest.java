@@ -0,0 +1,86 @@
+package com.hyperlogix.server.optimizer.AntColony;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.OrderStatus;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.mock.MockData;
+import com.hyperlogix.server.optimizer.Graph;
+import com.hyperlogix.server.optimizer.OptimizerContext;
+
+/**
+ * Cotas del modo MAX-MIN: tras cada iteración todos los rastros quedan entre
+ * τmin = τmax · MIN_MAX_RATIO y τmax = Q / (RHO · mejor costo).
+ */
+class ColonyTest {
+  private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 8, 0);
+  private static final double EPSILON = 1e-9;
+  // Sin reinicios por estancamiento para que las cotas dependan solo del mejor
+  // costo
+  private static final AntColonyConfig MAX_MIN = new AntColonyConfig(4, 10, 1.0, 2.0, 0.5, 100.0, 1.0,
+      true, false, 0.05, 0, 0.0);
+
+  private OptimizerContext ctx;
+
+  @BeforeEach
+  void setUp() {
+    PLGNetwork base = MockData.mockNetwork();
+    List<Order> orders = new ArrayList<>();
+    orders.add(order("P1", new Point(20, 10), 5));
+    orders.add(order("P2", new Point(30, 25), 8));
+    orders.add(order("P3", new Point(5, 40), 3));
+    orders.add(order("P4", new Point(45, 15), 6));
+    PLGNetwork network = new PLGNetwork(new ArrayList<>(base.getTrucks()), new ArrayList<>(base.getStations()),
+        orders, new ArrayList<>(), new ArrayList<>());
+    ctx = new OptimizerContext(network, START);
+  }
+
+  @Test
+  void keepsEveryTrailWithinTheMaxMinBounds() {
+    Colony colony = new Colony(ctx, MAX_MIN, event -> {
+    }, "test");
+    long start = System.currentTimeMillis();
+
+    for (int i = 0; i < MAX_MIN.NUM_ITERATIONS(); i++) {
+      ConvergenceMetrics metrics = colony.iterate(Long.MAX_VALUE, start);
+      assertNotNull(metrics);
+
+      double tauMax = MAX_MIN.Q() / (MAX_MIN.RHO() * colony.getBestSolution().getCost());
+      double tauMin = tauMax * MAX_MIN.MIN_MAX_RATIO();
+      double[] pheromones = colony.getGraph().getPheromones();
+      double min = Arrays.stream(pheromones).min().orElseThrow();
+      double max = Arrays.stream(pheromones).max().orElseThrow();
+      assertTrue(min >= tauMin - EPSILON, "iteration " + i + ": " + min + " < tauMin " + tauMin);
+      assertTrue(max <= tauMax + EPSILON, "iteration " + i + ": " + max + " > tauMax " + tauMax);
+    }
+  }
+
+  @Test
+  void clampsTrailsWithoutABestSolution() {
+    Graph graph = new Graph(ctx.plgNetwork, START, MAX_MIN);
+
+    graph.resetPheromoneMap(10);
+    graph.updatePheromoneMapMaxMin(null, MAX_MIN, 0.5, 2.0);
+    assertTrue(Arrays.stream(graph.getPheromones()).allMatch(value -> value == 2.0));
+
+    // 2.0 se evapora a 1.0, por debajo de la nueva cota inferior
+    graph.updatePheromoneMapMaxMin(null, MAX_MIN, 3.0, 5.0);
+    assertTrue(Arrays.stream(graph.getPheromones()).allMatch(value -> value == 3.0));
+  }
+
+  private static Order order(String id, Point location, int glp) {
+    return new Order(id, "C" + id, START, location, glp, 0, Duration.ofHours(24), OrderStatus.CALCULATING, null);
+  }
+}
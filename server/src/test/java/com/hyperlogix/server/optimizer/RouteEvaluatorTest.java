@@ -0,0 +1,193 @@
+package com.hyperlogix.server.optimizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hyperlogix.server.domain.Node;
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.OrderStatus;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.domain.Truck;
+
+/**
+ * Compara cada {@link RouteEvaluator.Delta} con el resultado de evaluar desde
+ * cero la ruta modificada.
+ */
+class RouteEvaluatorTest {
+  private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 8, 0);
+  private static final Point DEPOT = new Point(0, 0);
+  private static final double EPSILON = 1e-6;
+
+  private final Map<String, Order> orders = new HashMap<>();
+  private Truck truck;
+  // Ruta base: dos entregas, la planta y dos entregas más
+  private List<Node> stops;
+  private List<Integer> demands;
+  private Node station;
+
+  @BeforeEach
+  void setUp() {
+    truck = new Truck();
+    truck.setId("TA01");
+    truck.setTareWeight(2.5);
+    truck.setMaxCapacity(25);
+    truck.setCurrentCapacity(20);
+    truck.setFuelCapacity(25);
+    truck.setCurrentFuel(25);
+    truck.setLocation(DEPOT);
+
+    station = new Node("S1", "Norte", NodeType.STATION, new Point(10, 10));
+    stops = new ArrayList<>(List.of(
+        order("P1", 5, 0, 6, 24),
+        order("P2", 8, 4, 8, 24),
+        station,
+        order("P3", 6, 14, 12, 24),
+        order("P4", 9, 18, 6, 24)));
+    demands = new ArrayList<>(List.of(6, 8, 0, 6, 9));
+  }
+
+  private Node order(String id, int glp, double x, double y, long hours) {
+    Order order = new Order(id, "C-" + id, START, new Point(x, y), glp, 0, Duration.ofHours(hours),
+        OrderStatus.CALCULATING, null);
+    orders.put(id, order);
+    return new Node(order);
+  }
+
+  private RouteEvaluator evaluate(List<Node> route, List<Integer> glp) {
+    return new RouteEvaluator(truck, DEPOT, START, route, glp.stream().mapToInt(Integer::intValue).toArray(),
+        orders);
+  }
+
+  private int stationPosition(List<Node> route) {
+    return route.indexOf(station) + 1;
+  }
+
+  /**
+   * La diferencia de la evaluación completa antes y después del cambio debe
+   * coincidir con la que informa el evaluador incremental.
+   */
+  private void assertMatchesReplay(RouteEvaluator.Delta delta, List<Node> route, List<Integer> glp) {
+    RouteEvaluator base = evaluate(stops, demands);
+    RouteEvaluator modified = evaluate(route, glp);
+    assertEquals(modified.isFeasible(), delta.feasible(), "factibilidad");
+    if (!delta.feasible()) {
+      return;
+    }
+    assertEquals(modified.getCost() - base.getCost(), delta.costDelta(), EPSILON, "costo");
+    assertEquals(modified.getDistance() - base.getDistance(), delta.distanceDelta(), "distancia");
+    int stationBefore = stationPosition(stops);
+    int stationAfter = stationPosition(route);
+    if (delta.refillStation() != null) {
+      assertEquals(station, delta.refillStation());
+      assertEquals(modified.getRefill(stationAfter) - base.getRefill(stationBefore), delta.refillDelta(), "recarga");
+      assertEquals(modified.getArrivalTime(stationAfter), delta.refillTime(), "llegada a la planta");
+    } else {
+      assertEquals(modified.getRefill(stationAfter), base.getRefill(stationBefore), "recarga");
+    }
+  }
+
+  private void checkInsertion(int position, Node node, int demand) {
+    List<Node> route = new ArrayList<>(stops);
+    List<Integer> glp = new ArrayList<>(demands);
+    route.add(position, node);
+    glp.add(position, demand);
+    assertMatchesReplay(evaluate(stops, demands).insertion(position, node, demand), route, glp);
+  }
+
+  private void checkRemoval(int position) {
+    List<Node> route = new ArrayList<>(stops);
+    List<Integer> glp = new ArrayList<>(demands);
+    route.remove(position - 1);
+    glp.remove(position - 1);
+    assertMatchesReplay(evaluate(stops, demands).removal(position), route, glp);
+  }
+
+  private void checkReplacement(int position, Node node, int demand) {
+    List<Node> route = new ArrayList<>(stops);
+    List<Integer> glp = new ArrayList<>(demands);
+    route.set(position - 1, node);
+    glp.set(position - 1, demand);
+    assertMatchesReplay(evaluate(stops, demands).replacement(position, node, demand), route, glp);
+  }
+
+  @Test
+  void baseRouteIsFeasible() {
+    RouteEvaluator evaluator = evaluate(stops, demands);
+    assertTrue(evaluator.isFeasible());
+    // Llega a la planta con 20 - 6 - 8 = 6 m³
+    assertEquals(19, evaluator.getRefill(3));
+  }
+
+  @Test
+  void insertionMatchesReplay() {
+    Node extra = order("P5", 3, 2, 3, 24);
+    checkInsertion(0, extra, 3);
+    // A mitad del primer viaje
+    checkInsertion(1, extra, 3);
+    // Justo antes de la planta
+    checkInsertion(2, extra, 3);
+    // Justo después de la planta
+    checkInsertion(3, extra, 3);
+    // Al final de la ruta
+    checkInsertion(5, extra, 3);
+  }
+
+  @Test
+  void insertionBeyondTripLoadIsInfeasible() {
+    // Al primer viaje le quedan 6 m³ después de P2
+    Node extra = order("P6", 7, 3, 4, 24);
+    assertFalse(evaluate(stops, demands).insertion(1, extra, 7).feasible());
+    checkInsertion(1, extra, 7);
+  }
+
+  @Test
+  void insertionPastDeadlineIsInfeasible() {
+    Node late = order("P7", 2, 19, 19, 0);
+    assertFalse(evaluate(stops, demands).insertion(5, late, 2).feasible());
+  }
+
+  @Test
+  void removalMatchesReplay() {
+    checkRemoval(1);
+    // Junto a la planta
+    checkRemoval(2);
+    checkRemoval(4);
+    // Al final de la ruta
+    checkRemoval(5);
+  }
+
+  @Test
+  void removalOfStationIsRejected() {
+    assertFalse(evaluate(stops, demands).removal(3).feasible());
+  }
+
+  @Test
+  void replacementMatchesReplay() {
+    Node other = order("P8", 4, 7, 1, 24);
+    checkReplacement(1, other, 4);
+    // Junto a la planta
+    checkReplacement(2, other, 4);
+    checkReplacement(4, other, 4);
+    // Al final de la ruta
+    checkReplacement(5, other, 4);
+  }
+
+  @Test
+  void replacementWithMoreDemandThanLoadIsInfeasible() {
+    Node big = order("P9", 15, 3, 3, 24);
+    assertFalse(evaluate(stops, demands).replacement(2, big, 15).feasible());
+    checkReplacement(2, big, 15);
+  }
+}
@@ -0,0 +1,164 @@
+package com.hyperlogix.server.services.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Entrega de eventos por clave y políticas de contrapresión del canal. Un
+ * primer evento bloquea al único consumidor para que los siguientes queden en
+ * cola y la política decida cuáles se entregan.
+ */
+class EventChannelTest {
+  private static final long TIMEOUT_SECONDS = 5;
+  private static final String GATE = "gate";
+
+  private record Event(String key, int value) {
+  }
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final CountDownLatch gate = new CountDownLatch(1);
+  private final List<Event> delivered = Collections.synchronizedList(new ArrayList<>());
+  private EventChannel<Event> channel;
+
+  @AfterEach
+  void tearDown() {
+    gate.countDown();
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  @Test
+  void deliversEventsOfTheSameKeyInOrderAndOneAtATime() throws InterruptedException {
+    int perKey = 25;
+    CountDownLatch done = new CountDownLatch(2 * perKey);
+    Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+    AtomicInteger overlaps = new AtomicInteger();
+    channel = new EventChannel<>("test", 0, 4, BackpressurePolicy.DROP_OLDEST, Event::key, event -> {
+      AtomicInteger running = active.computeIfAbsent(event.key(), key -> new AtomicInteger());
+      if (running.incrementAndGet() > 1) {
+        overlaps.incrementAndGet();
+      }
+      delivered.add(event);
+      sleep(1);
+      running.decrementAndGet();
+      done.countDown();
+    }, registry);
+
+    for (int i = 0; i < perKey; i++) {
+      channel.offer(new Event("a", i));
+      channel.offer(new Event("b", i));
+    }
+
+    assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(0, overlaps.get());
+    for (String key : List.of("a", "b")) {
+      List<Integer> values;
+      synchronized (delivered) {
+        values = delivered.stream().filter(event -> event.key().equals(key)).map(Event::value).toList();
+      }
+      assertEquals(perKey, values.size());
+      for (int i = 0; i < perKey; i++) {
+        assertEquals(i, values.get(i));
+      }
+    }
+  }
+
+  @Test
+  void coalesceDeliversOnlyTheLatestPendingEventOfAKey() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(3);
+    channel = gated(BackpressurePolicy.COALESCE, 4, done);
+
+    channel.offer(new Event(GATE, 0));
+    channel.offer(new Event("a", 1));
+    channel.offer(new Event("a", 2));
+    channel.offer(new Event("a", 3));
+    channel.offer(new Event("b", 1));
+    gate.countDown();
+
+    assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(List.of(new Event(GATE, 0), new Event("a", 3), new Event("b", 1)), List.copyOf(delivered));
+    assertEquals(2.0, discarded("coalesced"));
+  }
+
+  @Test
+  void coalesceRejectsNewKeysWhenFull() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(2);
+    channel = gated(BackpressurePolicy.COALESCE, 1, done);
+
+    channel.offer(new Event(GATE, 0));
+    channel.offer(new Event("a", 1));
+    channel.offer(new Event("b", 1));
+    channel.offer(new Event("a", 2));
+    gate.countDown();
+
+    assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(List.of(new Event(GATE, 0), new Event("a", 2)), List.copyOf(delivered));
+    assertEquals(1.0, discarded("rejected"));
+    assertEquals(1.0, discarded("coalesced"));
+  }
+
+  @Test
+  void dropOldestDiscardsTheOldestEventWhenFull() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(3);
+    channel = gated(BackpressurePolicy.DROP_OLDEST, 2, done);
+
+    channel.offer(new Event(GATE, 0));
+    channel.offer(new Event("a", 1));
+    channel.offer(new Event("b", 2));
+    channel.offer(new Event("c", 3));
+    gate.countDown();
+
+    assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(List.of(new Event(GATE, 0), new Event("b", 2), new Event("c", 3)), List.copyOf(delivered));
+    assertEquals(1.0, discarded("dropped"));
+  }
+
+  /**
+   * Canal de un consumidor que se detiene en el evento {@link #GATE} hasta que
+   * se abre {@link #gate}.
+   */
+  private EventChannel<Event> gated(BackpressurePolicy policy, int capacity, CountDownLatch done) {
+    return new EventChannel<>("test", capacity, 1, policy, Event::key, event -> {
+      if (GATE.equals(event.key())) {
+        await(gate);
+      }
+      delivered.add(event);
+      done.countDown();
+    }, registry);
+  }
+
+  private double discarded(String reason) {
+    return registry.get("events.discarded").tags("channel", "test", "reason", reason).counter().count();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package com.hyperlogix.server.services.planification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hyperlogix.server.domain.NetworkSnapshot;
+import com.hyperlogix.server.domain.Node;
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Order;
+import com.hyperlogix.server.domain.OrderStatus;
+import com.hyperlogix.server.domain.PLGNetwork;
+import com.hyperlogix.server.domain.Path;
+import com.hyperlogix.server.domain.Point;
+import com.hyperlogix.server.domain.Roadblock;
+import com.hyperlogix.server.domain.Routes;
+import com.hyperlogix.server.domain.Stop;
+import com.hyperlogix.server.domain.Truck;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Reutilización de planes por la huella de la entrada: el plan se desplaza a la
+ * nueva hora y se descarta si es viejo, incumple plazos o cruza un bloqueo.
+ */
+class PlanCacheTest {
+  private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 8, 0);
+  private static final Point DEPOT = new Point(0, 0);
+  private static final Point CLIENT = new Point(5, 0);
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private PlanCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cache = new PlanCache(registry);
+  }
+
+  @Test
+  void returnsAShiftedCopyForTheSameInput() {
+    NetworkSnapshot network = snapshot(List.of());
+    Routes routes = routes();
+    cache.store(network, START, routes);
+
+    Routes cached = cache.lookup(network, START.plusMinutes(10));
+
+    assertNotNull(cached);
+    Stop delivery = cached.getStops().get("T1").get(1);
+    assertEquals(START.plusMinutes(40), delivery.getArrivalTime());
+    assertNotSame(routes.getStops().get("T1").get(1), delivery);
+    assertEquals(START.plusMinutes(30), routes.getStops().get("T1").get(1).getArrivalTime());
+    assertEquals(1.0, registry.get("planning.cache.requests").tag("result", "hit").counter().count());
+  }
+
+  @Test
+  void missesForADifferentInput() {
+    cache.store(snapshot(List.of()), START, routes());
+
+    NetworkSnapshot other = snapshot(List.of(), 8);
+
+    assertNull(cache.lookup(other, START));
+    assertEquals(1.0, registry.get("planning.cache.requests").tag("result", "miss").counter().count());
+  }
+
+  @Test
+  void dropsPlansOlderThanTheMaximumShift() {
+    NetworkSnapshot network = snapshot(List.of());
+    cache.store(network, START, routes());
+
+    assertNull(cache.lookup(network, START.plusMinutes(31)));
+    assertNull(cache.lookup(network, START));
+  }
+
+  @Test
+  void rejectsAShiftedPlanThatMissesADeadline() {
+    // El pedido vence a las 8:45 y el plan original llega a las 8:30
+    NetworkSnapshot network = snapshot(List.of(), 5, Duration.ofMinutes(45));
+    cache.store(network, START, routes());
+
+    assertNull(cache.lookup(network, START.plusMinutes(20)));
+    assertEquals(1.0, registry.get("planning.cache.requests").tag("result", "stale").counter().count());
+  }
+
+  @Test
+  void rejectsAShiftedPlanThatCrossesAnActiveRoadblock() {
+    // Bloqueo en el camino que empieza después del plan original
+    Roadblock roadblock = new Roadblock(START.plusMinutes(40), START.plusHours(2), List.of(new Point(3, 0)));
+    NetworkSnapshot network = snapshot(List.of(roadblock));
+    cache.store(network, START, routes());
+
+    assertNotNull(cache.lookup(network, START));
+    assertNull(cache.lookup(network, START.plusMinutes(15)));
+  }
+
+  private static NetworkSnapshot snapshot(List<Roadblock> roadblocks) {
+    return snapshot(roadblocks, 5);
+  }
+
+  private static NetworkSnapshot snapshot(List<Roadblock> roadblocks, int requested) {
+    return snapshot(roadblocks, requested, Duration.ofHours(24));
+  }
+
+  private static NetworkSnapshot snapshot(List<Roadblock> roadblocks, int requested, Duration deliveryLimit) {
+    Truck truck = new Truck();
+    truck.setId("T1");
+    truck.setTareWeight(2.5);
+    truck.setMaxCapacity(25);
+    truck.setCurrentCapacity(25);
+    truck.setFuelCapacity(25);
+    truck.setCurrentFuel(25);
+    truck.setLocation(DEPOT);
+    Order order = new Order("P1", "C1", START, CLIENT, requested, 0, deliveryLimit, OrderStatus.CALCULATING, null);
+    PLGNetwork network = new PLGNetwork(new ArrayList<>(List.of(truck)), new ArrayList<>(),
+        new ArrayList<>(List.of(order)), new ArrayList<>(), new ArrayList<>(roadblocks));
+    return NetworkSnapshot.of(network, List.of(), START);
+  }
+
+  private static Routes routes() {
+    Node start = new Node("T1", "T1", NodeType.LOCATION, DEPOT);
+    Node client = new Node("P1", "C1", NodeType.DELIVERY, CLIENT);
+    Map<String, List<Stop>> stops = new HashMap<>();
+    stops.put("T1", new ArrayList<>(List.of(new Stop(start, START), new Stop(client, START.plusMinutes(30)))));
+    Map<String, List<Path>> paths = new HashMap<>();
+    paths.put("T1", new ArrayList<>(List.of(new Path(List.of(DEPOT, new Point(3, 0), CLIENT), 5))));
+    return new Routes(stops, paths, 1.0);
+  }
+}
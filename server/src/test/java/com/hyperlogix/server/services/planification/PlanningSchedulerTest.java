@@ -0,0 +1,122 @@
+package com.hyperlogix.server.services.planification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Límites de la cola de planificaciones: ejecuciones simultáneas por clase,
+ * rechazo con la cola llena y cancelación de trabajos en espera.
+ */
+class PlanningSchedulerTest {
+  private static final long TIMEOUT_SECONDS = 5;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final CountDownLatch release = new CountDownLatch(1);
+  private PlanningScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty("planning.scheduler.simulation.concurrency", "1")
+        .withProperty("planning.scheduler.simulation.queue-capacity", "1");
+    scheduler = new PlanningScheduler(environment, registry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    scheduler.shutdown();
+  }
+
+  @Test
+  void holdsJobsBeyondTheConcurrencyLimitUntilAThreadFrees() throws InterruptedException {
+    CountDownLatch firstStarted = new CountDownLatch(1);
+    CountDownLatch secondStarted = new CountDownLatch(1);
+
+    assertTrue(scheduler.submit("sim-a", blocking(firstStarted), () -> {
+    }));
+    assertTrue(firstStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertTrue(scheduler.submit("sim-b", secondStarted::countDown, () -> {
+    }));
+
+    assertFalse(secondStarted.await(200, TimeUnit.MILLISECONDS));
+    release.countDown();
+    assertTrue(secondStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void rejectsJobsWhenTheQueueIsFull() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicInteger discarded = new AtomicInteger();
+
+    scheduler.submit("sim-a", blocking(started), discarded::incrementAndGet);
+    assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertTrue(scheduler.submit("sim-b", () -> {
+    }, discarded::incrementAndGet));
+
+    assertFalse(scheduler.submit("sim-c", () -> {
+    }, discarded::incrementAndGet));
+    assertEquals(1, discarded.get());
+    assertEquals(1.0, registry.get("planning.rejected")
+        .tags("priority", "simulation", "reason", "full").counter().count());
+  }
+
+  @Test
+  void cancelDiscardsTheQueuedJobOfTheSession() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicInteger ran = new AtomicInteger();
+    AtomicInteger discarded = new AtomicInteger();
+
+    scheduler.submit("sim-a", blocking(started), () -> {
+    });
+    assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    scheduler.submit("sim-b", ran::incrementAndGet, discarded::incrementAndGet);
+
+    scheduler.cancel("sim-b");
+
+    assertEquals(1, discarded.get());
+    release.countDown();
+    CountDownLatch next = new CountDownLatch(1);
+    scheduler.submit("sim-c", next::countDown, () -> {
+    });
+    assertTrue(next.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(0, ran.get());
+  }
+
+  @Test
+  void liveSessionDoesNotWaitForSimulations() throws InterruptedException {
+    CountDownLatch simulationStarted = new CountDownLatch(1);
+    CountDownLatch liveStarted = new CountDownLatch(1);
+
+    scheduler.submit("sim-a", blocking(simulationStarted), () -> {
+    });
+    assertTrue(simulationStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+    assertTrue(scheduler.submit("main", liveStarted::countDown, () -> {
+    }));
+    assertTrue(liveStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  private Runnable blocking(CountDownLatch started) {
+    return () -> {
+      started.countDown();
+      try {
+        release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+  }
+}
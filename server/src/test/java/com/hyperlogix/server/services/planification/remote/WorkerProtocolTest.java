@@ -0,0 +1,138 @@
+package com.hyperlogix.server.services.planification.remote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hyperlogix.server.domain.NodeType;
+import com.hyperlogix.server.domain.Path;
+import com.hyperlogix.server.domain.Point;
+
+/**
+ * Marcos firmados del protocolo con los trabajadores: se leen con el mismo
+ * secreto y se rechazan antes de interpretarlos si la firma o la longitud no
+ * coinciden.
+ */
+class WorkerProtocolTest {
+  private static final String SECRET = "0123456789abcdef-secret";
+  private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+  // Longitud del contenido y HMAC-SHA256 que preceden al JSON
+  private static final int HEADER = Integer.BYTES + 32;
+
+  private ServerSocket server;
+  private Socket client;
+  private Socket peer;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    client = new Socket(server.getInetAddress(), server.getLocalPort());
+    client.setSoTimeout(WorkerProtocol.POLL_MILLIS);
+    peer = server.accept();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    peer.close();
+    client.close();
+    server.close();
+  }
+
+  @Test
+  void readsAFrameSignedWithTheSameSecret() throws IOException {
+    WorkerProtocol protocol = new WorkerProtocol(SECRET);
+    PlanningResult result = result();
+
+    protocol.write(peer.getOutputStream(), result);
+
+    assertEquals(result, protocol.read(client, PlanningResult.class, deadline()));
+  }
+
+  @Test
+  void readsAnEmptyFrameAsNull() throws IOException {
+    WorkerProtocol protocol = new WorkerProtocol(SECRET);
+
+    protocol.write(peer.getOutputStream(), null);
+
+    assertNull(protocol.read(client, PlanningResult.class, deadline()));
+  }
+
+  @Test
+  void rejectsAFrameSignedWithAnotherSecret() throws IOException {
+    new WorkerProtocol("another-secret-of-16+").write(peer.getOutputStream(), result());
+
+    IOException error = assertThrows(IOException.class,
+        () -> new WorkerProtocol(SECRET).read(client, PlanningResult.class, deadline()));
+    assertEquals("Invalid frame signature", error.getMessage());
+  }
+
+  @Test
+  void rejectsATamperedPayload() throws IOException {
+    WorkerProtocol protocol = new WorkerProtocol(SECRET);
+    byte[] frame = frame(protocol, result());
+    // Cambia el costo dentro del JSON sin volver a firmar
+    int digit = new String(frame, HEADER, frame.length - HEADER).indexOf("12.5") + HEADER;
+    frame[digit] = '9';
+
+    peer.getOutputStream().write(frame);
+
+    IOException error = assertThrows(IOException.class,
+        () -> protocol.read(client, PlanningResult.class, deadline()));
+    assertEquals("Invalid frame signature", error.getMessage());
+  }
+
+  @Test
+  void rejectsAnOversizedLengthBeforeReadingThePayload() throws IOException {
+    WorkerProtocol protocol = new WorkerProtocol(SECRET);
+    byte[] frame = frame(protocol, result());
+    ByteBuffer.wrap(frame).putInt(Integer.MAX_VALUE);
+
+    peer.getOutputStream().write(frame, 0, HEADER);
+
+    IOException error = assertThrows(IOException.class,
+        () -> protocol.read(client, PlanningResult.class, deadline()));
+    assertEquals("Invalid frame length " + Integer.MAX_VALUE, error.getMessage());
+  }
+
+  @Test
+  void requiresALongEnoughSecret() {
+    assertThrows(IllegalStateException.class, () -> new WorkerProtocol("short"));
+    assertThrows(IllegalStateException.class, () -> new WorkerProtocol(null));
+  }
+
+  private static byte[] frame(WorkerProtocol protocol, Object value) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    protocol.write(out, value);
+    return out.toByteArray();
+  }
+
+  private static long deadline() {
+    return System.nanoTime() + TIMEOUT_NANOS;
+  }
+
+  private static PlanningResult result() {
+    Point depot = new Point(12, 8);
+    Point client = new Point(20, 8);
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+    List<PlanningResult.StopData> stops = List.of(
+        new PlanningResult.StopData("T1", "T1", NodeType.LOCATION, depot, start, false),
+        new PlanningResult.StopData("P1", "C1", NodeType.DELIVERY, client, start.plusMinutes(30), false));
+    List<Path> paths = List.of(new Path(List.of(depot, new Point(16, 8), client), 8));
+    return new PlanningResult(Map.of("T1", stops), Map.of("T1", paths), 12.5);
+  }
+}